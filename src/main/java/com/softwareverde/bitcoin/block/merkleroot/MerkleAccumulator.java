@@ -0,0 +1,181 @@
+package com.softwareverde.bitcoin.block.merkleroot;
+
+import com.softwareverde.bitcoin.merkleroot.MerkleRoot;
+import com.softwareverde.bitcoin.merkleroot.MutableMerkleRoot;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+import java.util.Arrays;
+
+/**
+ * An append-only merkle tree of hashes (e.g. the hashes of every BlockHeader of the chain).
+ *  Each level stores the hashes of its completed nodes only; since a completed node's hash does not depend upon the items
+ *  appended after it, the merkle root and partial tree of any prefix of the items can be calculated in O(log n) by
+ *  recalculating only the rightmost (incomplete) node of each level.
+ *  The merkle roots and partial trees are identical to those of a MerkleTreeNode containing the same items, except that
+ *  the partial tree of a single item is empty.
+ *  Items may be removed from the end of the accumulator (i.e. during a reorg) via MerkleAccumulator::truncate.
+ *  This class is not thread-safe.
+ */
+public class MerkleAccumulator {
+    protected static class HashList {
+        protected byte[] _bytes = new byte[0];
+        protected int _count = 0;
+
+        public void add(final Sha256Hash hash) {
+            final int requiredByteCount = ((_count + 1) * Sha256Hash.BYTE_COUNT);
+            if (requiredByteCount > _bytes.length) {
+                final int newByteCount = Math.max(requiredByteCount, (_bytes.length * 2));
+                _bytes = Arrays.copyOf(_bytes, newByteCount);
+            }
+
+            System.arraycopy(hash.getBytes(), 0, _bytes, (_count * Sha256Hash.BYTE_COUNT), Sha256Hash.BYTE_COUNT);
+            _count += 1;
+        }
+
+        public Sha256Hash get(final int index) {
+            final int offset = (index * Sha256Hash.BYTE_COUNT);
+            return Sha256Hash.wrap(Arrays.copyOfRange(_bytes, offset, (offset + Sha256Hash.BYTE_COUNT)));
+        }
+
+        public void truncate(final int count) {
+            if (count >= _count) { return; }
+            _count = count;
+        }
+
+        public int getCount() {
+            return _count;
+        }
+    }
+
+    protected final MutableArrayList<HashList> _levels = new MutableArrayList<>();
+
+    protected HashList _getLevel(final int level) {
+        while (_levels.getCount() <= level) {
+            _levels.add(new HashList());
+        }
+        return _levels.get(level);
+    }
+
+    protected void _assertValidItemCount(final int itemCount) {
+        final int accumulatedItemCount = this.getItemCount();
+        if ( (itemCount < 1) || (itemCount > accumulatedItemCount) ) {
+            throw new IllegalArgumentException("Invalid item count: " + itemCount + " (" + accumulatedItemCount + " items)");
+        }
+    }
+
+    public MerkleAccumulator() { }
+
+    public void addItem(final Sha256Hash itemHash) {
+        Sha256Hash hash = itemHash;
+        int level = 0;
+        while (true) {
+            final HashList hashList = _getLevel(level);
+            hashList.add(hash);
+
+            final int count = hashList.getCount();
+            if ((count % 2) != 0) { break; } // The parent node is not yet complete...
+
+            hash = MerkleTreeNode.calculateNodeHash(hashList.get(count - 2), hash);
+            level += 1;
+        }
+    }
+
+    public Sha256Hash getItem(final int index) {
+        final HashList items = _getLevel(0);
+        return items.get(index);
+    }
+
+    public int getItemCount() {
+        if (_levels.isEmpty()) { return 0; }
+        return _levels.get(0).getCount();
+    }
+
+    public boolean isEmpty() {
+        return (this.getItemCount() == 0);
+    }
+
+    /**
+     * Removes the items at and after itemCount, along with any completed nodes containing them.
+     */
+    public void truncate(final int itemCount) {
+        int count = itemCount;
+        for (final HashList hashList : _levels) {
+            hashList.truncate(count);
+            count /= 2; // Only completed nodes are stored...
+        }
+    }
+
+    public void clear() {
+        _levels.clear();
+    }
+
+    /**
+     * Returns the merkle root of the first itemCount items.
+     */
+    public MerkleRoot getMerkleRoot(final int itemCount) {
+        _assertValidItemCount(itemCount);
+
+        int count = itemCount;
+        int level = 0;
+        Sha256Hash lastHash = this.getItem(itemCount - 1);
+        while (count > 1) {
+            final HashList hashList = _levels.get(level);
+            if ((count % 2) == 0) {
+                lastHash = MerkleTreeNode.calculateNodeHash(hashList.get(count - 2), lastHash);
+            }
+            else {
+                lastHash = MerkleTreeNode.calculateNodeHash(lastHash, lastHash);
+            }
+
+            count = ((count + 1) / 2);
+            level += 1;
+        }
+
+        return MutableMerkleRoot.wrap(lastHash.getBytes());
+    }
+
+    /**
+     * Returns the hashes required to prove the item at index is included within the merkle root of the first itemCount
+     *  items, ordered from the item's sibling to the child of the merkle root.
+     */
+    public List<Sha256Hash> getPartialTree(final int itemCount, final int index) {
+        _assertValidItemCount(itemCount);
+        if ( (index < 0) || (index >= itemCount) ) {
+            throw new IllegalArgumentException("Invalid index: " + index + " (" + itemCount + " items)");
+        }
+
+        final ImmutableListBuilder<Sha256Hash> partialTreeBuilder = new ImmutableListBuilder<>();
+
+        int count = itemCount;
+        int nodeIndex = index;
+        int level = 0;
+        Sha256Hash lastHash = this.getItem(itemCount - 1); // The hash of the rightmost node of the current level, which may be incomplete...
+        while (count > 1) {
+            final HashList hashList = _levels.get(level);
+
+            final int siblingIndex = (nodeIndex ^ 1);
+            if (siblingIndex >= (count - 1)) { // The sibling is the rightmost node, or the node has no sibling and is paired with itself...
+                partialTreeBuilder.add(lastHash);
+            }
+            else {
+                partialTreeBuilder.add(hashList.get(siblingIndex));
+            }
+
+            if ((count % 2) == 0) {
+                lastHash = MerkleTreeNode.calculateNodeHash(hashList.get(count - 2), lastHash);
+            }
+            else {
+                lastHash = MerkleTreeNode.calculateNodeHash(lastHash, lastHash);
+            }
+
+            count = ((count + 1) / 2);
+            nodeIndex /= 2;
+            level += 1;
+        }
+
+        return partialTreeBuilder.build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.softwareverde.bitcoin.block.thin;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.map.Map;
+
+public class AssembleExtraThinBlockResult {
+    protected BlockHeader _blockHeader;
+    protected List<ByteArray> _transactionShortHashes;
+    protected Map<ByteArray, Transaction> _mappedTransactions;
+
+    protected AssembleExtraThinBlockResult(final Block block, final List<ByteArray> missingTransactionShortHashes, final Boolean hasShortHashCollision) {
+        this.block = block;
+        this.missingTransactionShortHashes = missingTransactionShortHashes.asConst();
+        this.hasShortHashCollision = hasShortHashCollision;
+    }
+
+    protected void allowReassembly(final BlockHeader blockHeader, final List<ByteArray> transactionShortHashes, final Map<ByteArray, Transaction> mappedTransactions) {
+        _blockHeader = blockHeader;
+        _transactionShortHashes = transactionShortHashes;
+        _mappedTransactions = mappedTransactions;
+    }
+
+    protected BlockHeader getBlockHeader() { return _blockHeader; }
+    protected List<ByteArray> getTransactionShortHashes() { return _transactionShortHashes; }
+    protected Map<ByteArray, Transaction> getMappedTransactions() { return _mappedTransactions; }
+
+    public final Block block;
+    public final List<ByteArray> missingTransactionShortHashes;
+
+    /**
+     * True if a short hash within the block could not be resolved to a single Transaction.
+     *  Blocks with colliding short hashes cannot be reassembled and must be downloaded in full.
+     */
+    public final Boolean hasShortHashCollision;
+
+    public Boolean wasSuccessful() {
+        return (this.block != null);
+    }
+
+    public Boolean canBeReassembled() {
+        if (this.hasShortHashCollision) { return false; }
+        return ( (_blockHeader != null) && (_transactionShortHashes != null) && (_mappedTransactions != null) );
+    }
+}
@@ -0,0 +1,116 @@
+package com.softwareverde.bitcoin.block.thin;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.MutableBlock;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.message.type.thin.block.ExtraThinBlockMessage;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.util.Util;
+
+/**
+ * Reconstructs xThin blocks from the short (64-bit) transaction hashes announced by a peer.
+ *  Transactions are matched against the provided memory-pool Transactions and the Transactions sent alongside the block.
+ *  The assembled Block is only returned if its merkle root matches the BlockHeader, so a mismatched short hash can never produce an invalid Block.
+ */
+public class ExtraThinBlockAssembler {
+
+    protected static Block _assembleBlock(final BlockHeader blockHeader, final List<ByteArray> transactionShortHashes, final MutableMap<ByteArray, Transaction> mappedTransactions) {
+        final MutableBlock mutableBlock = new MutableBlock(blockHeader);
+        for (final ByteArray transactionShortHash : transactionShortHashes) {
+            final Transaction transaction = mappedTransactions.get(transactionShortHash);
+            if (transaction == null) { return null; }
+
+            mutableBlock.addTransaction(transaction);
+        }
+
+        final Sha256Hash expectedBlockHash = blockHeader.getHash();
+        final Sha256Hash blockHash = mutableBlock.getHash();
+        if (! Util.areEqual(expectedBlockHash, blockHash)) { return null; }
+
+        return (mutableBlock.isValid() ? mutableBlock : null);
+    }
+
+    public AssembleExtraThinBlockResult assembleExtraThinBlock(final BlockHeader blockHeader, final List<ByteArray> transactionShortHashes, final List<Transaction> extraTransactions, final List<Transaction> memoryPoolTransactions) {
+        final MutableHashSet<ByteArray> blockShortHashes = new MutableHashSet<>(transactionShortHashes.getCount());
+        boolean hasShortHashCollision = false;
+        for (final ByteArray transactionShortHash : transactionShortHashes) {
+            if (blockShortHashes.contains(transactionShortHash)) {
+                hasShortHashCollision = true; // The block itself contains two Transactions with the same short hash.
+            }
+            blockShortHashes.add(transactionShortHash);
+        }
+
+        final MutableMap<ByteArray, Transaction> mappedTransactions = new MutableHashMap<>(transactionShortHashes.getCount());
+        for (final Transaction transaction : memoryPoolTransactions) {
+            final Sha256Hash transactionHash = transaction.getHash();
+            final ByteArray transactionShortHash = ExtraThinBlockMessage.calculateShortHash(transactionHash);
+            if (! blockShortHashes.contains(transactionShortHash)) { continue; }
+
+            final Transaction existingTransaction = mappedTransactions.get(transactionShortHash);
+            if ( (existingTransaction != null) && (! Util.areEqual(transactionHash, existingTransaction.getHash())) ) {
+                hasShortHashCollision = true;
+            }
+
+            mappedTransactions.put(transactionShortHash, transaction);
+        }
+
+        for (final Transaction transaction : extraTransactions) { // Transactions provided by the peer take precedence over the memory pool.
+            final Sha256Hash transactionHash = transaction.getHash();
+            final ByteArray transactionShortHash = ExtraThinBlockMessage.calculateShortHash(transactionHash);
+            mappedTransactions.put(transactionShortHash, transaction);
+        }
+
+        if (hasShortHashCollision) {
+            return new AssembleExtraThinBlockResult(null, new MutableArrayList<ByteArray>(0), true);
+        }
+
+        final MutableList<ByteArray> missingTransactionShortHashes = new MutableArrayList<>();
+        for (final ByteArray transactionShortHash : transactionShortHashes) {
+            if (mappedTransactions.get(transactionShortHash) == null) {
+                missingTransactionShortHashes.add(transactionShortHash);
+            }
+        }
+
+        final Block block;
+        if (missingTransactionShortHashes.isEmpty()) {
+            block = _assembleBlock(blockHeader, transactionShortHashes, mappedTransactions);
+        }
+        else {
+            block = null;
+        }
+
+        final AssembleExtraThinBlockResult assembleExtraThinBlockResult = new AssembleExtraThinBlockResult(block, missingTransactionShortHashes, false);
+        assembleExtraThinBlockResult.allowReassembly(blockHeader, transactionShortHashes, mappedTransactions);
+        return assembleExtraThinBlockResult;
+    }
+
+    /**
+     * Reassembles the block with the Transactions that were requested from the peer.
+     *  Returns null if the block is still incomplete or if the assembled Block does not match its BlockHeader.
+     */
+    public Block reassembleExtraThinBlock(final AssembleExtraThinBlockResult assembleExtraThinBlockResult, final List<Transaction> missingTransactions) {
+        if (! assembleExtraThinBlockResult.canBeReassembled()) { return null; }
+
+        final BlockHeader blockHeader = assembleExtraThinBlockResult.getBlockHeader();
+        final List<ByteArray> transactionShortHashes = assembleExtraThinBlockResult.getTransactionShortHashes();
+        final MutableMap<ByteArray, Transaction> mappedTransactions = new MutableHashMap<>(
+            assembleExtraThinBlockResult.getMappedTransactions()
+        );
+
+        for (final Transaction transaction : missingTransactions) {
+            final Sha256Hash transactionHash = transaction.getHash();
+            final ByteArray transactionShortHash = ExtraThinBlockMessage.calculateShortHash(transactionHash);
+            mappedTransactions.put(transactionShortHash, transaction);
+        }
+
+        return _assembleBlock(blockHeader, transactionShortHashes, mappedTransactions);
+    }
+}
@@ -4,12 +4,22 @@ import com.softwareverde.bitcoin.bip.UpgradeSchedule;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
 import com.softwareverde.bitcoin.block.validator.difficulty.DifficultyCalculator;
+import com.softwareverde.bitcoin.block.validator.thread.BlockHeaderProofOfWorkTaskHandler;
+import com.softwareverde.bitcoin.block.validator.thread.ParalleledTaskSpawner;
+import com.softwareverde.bitcoin.block.validator.thread.TaskHandler;
+import com.softwareverde.bitcoin.block.validator.thread.TaskHandlerFactory;
 import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.server.module.node.Blockchain;
+import com.softwareverde.concurrent.threadpool.CachedThreadPool;
+import com.softwareverde.constable.list.List;
 import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Util;
 
-public class BlockHeaderValidator {
+/**
+ * Validates BlockHeaders against the Blockchain.
+ *  The thread pool used by ::validateProofOfWork is created once per validator, when first required, and is stopped by ::close.
+ */
+public class BlockHeaderValidator implements AutoCloseable {
     public static class BlockHeaderValidationResult {
         public static BlockHeaderValidationResult valid() {
             return new BlockHeaderValidationResult(true, null);
@@ -32,6 +42,31 @@ public class BlockHeaderValidator {
     protected final DifficultyCalculator _difficultyCalculator;
     protected final NetworkTime _networkTime;
     protected final Blockchain _blockchain;
+    protected Integer _maxThreadCount = 4;
+    protected CachedThreadPool _threadPool; // Synchronized on this.
+
+    /**
+     * Returns the validator's thread pool, starting it if this is the first parallel validation.
+     *  The pool's threads are created with the priority of the first thread to require them.
+     */
+    protected synchronized CachedThreadPool _getThreadPool() {
+        if (_threadPool == null) {
+            final Thread currentThread = Thread.currentThread();
+            final Integer threadPriority = currentThread.getPriority();
+            final CachedThreadPool threadPool = new CachedThreadPool(_maxThreadCount, 60000L, CachedThreadPool.newThreadFactoryWithPriority(threadPriority));
+            threadPool.start();
+            _threadPool = threadPool;
+        }
+
+        return _threadPool;
+    }
+
+    protected synchronized void _stopThreadPool() {
+        if (_threadPool == null) { return; }
+
+        _threadPool.stop();
+        _threadPool = null;
+    }
 
     public BlockHeaderValidator(final UpgradeSchedule upgradeSchedule, final Blockchain blockchain, final NetworkTime networkTime, final DifficultyCalculator difficultyCalculator) {
         _upgradeSchedule = upgradeSchedule;
@@ -85,4 +120,56 @@ public class BlockHeaderValidator {
 
         return BlockHeaderValidationResult.valid();
     }
+
+    /**
+     * Validates the proof-of-work of each BlockHeader in parallel.
+     *  Contextual validation (i.e. timestamps and difficulty) is not performed since it depends upon each header's ancestors;
+     *  ::validateBlockHeader must still be invoked for each header, in order, as it is added to the Blockchain.
+     *  If the BlockHeaders are Const then their hashes and validity are cached, making the subsequent contextual validation cheap.
+     */
+    public Boolean validateProofOfWork(final List<BlockHeader> blockHeaders) {
+        final int blockHeaderCount = blockHeaders.getCount();
+        if (blockHeaderCount == 0) { return true; }
+
+        if ( (blockHeaderCount < 64) || (_maxThreadCount < 2) ) {
+            for (final BlockHeader blockHeader : blockHeaders) {
+                if (! blockHeader.isValid()) { return false; }
+            }
+            return true;
+        }
+
+        final CachedThreadPool threadPool = _getThreadPool();
+
+        final ParalleledTaskSpawner<BlockHeader, Boolean> taskSpawner = new ParalleledTaskSpawner<>("ProofOfWork", threadPool);
+        taskSpawner.setTaskHandlerFactory(new TaskHandlerFactory<BlockHeader, Boolean>() {
+            @Override
+            public TaskHandler<BlockHeader, Boolean> newInstance() {
+                return new BlockHeaderProofOfWorkTaskHandler();
+            }
+        });
+
+        taskSpawner.executeTasks(blockHeaders, _maxThreadCount);
+
+        final List<Boolean> results = taskSpawner.waitForResults();
+        if (results == null) { return false; }
+
+        for (final Boolean isValid : results) {
+            if (! Util.coalesce(isValid, false)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the maximum number of threads used by ::validateProofOfWork.
+     *  The validator's thread pool, if already started, is replaced when next required.
+     */
+    public void setMaxThreadCount(final Integer maxThreadCount) {
+        _maxThreadCount = maxThreadCount;
+        _stopThreadPool();
+    }
+
+    @Override
+    public void close() {
+        _stopThreadPool();
+    }
 }
@@ -0,0 +1,30 @@
+package com.softwareverde.bitcoin.block.validator.thread;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+
+/**
+ * Validates the proof-of-work of each BlockHeader independently of its ancestors.
+ *  The result is false if any BlockHeader processed by this handler was invalid.
+ */
+public class BlockHeaderProofOfWorkTaskHandler implements TaskHandler<BlockHeader, Boolean> {
+    protected boolean _allBlockHeadersAreValid = true;
+
+    @Override
+    public void init() {
+        _allBlockHeadersAreValid = true;
+    }
+
+    @Override
+    public void executeTask(final BlockHeader blockHeader) {
+        if (! _allBlockHeadersAreValid) { return; } // Skip the remaining work once an invalid header has been found...
+
+        if (! blockHeader.isValid()) {
+            _allBlockHeadersAreValid = false;
+        }
+    }
+
+    @Override
+    public Boolean getResult() {
+        return _allBlockHeadersAreValid;
+    }
+}
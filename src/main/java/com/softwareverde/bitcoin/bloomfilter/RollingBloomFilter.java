@@ -0,0 +1,64 @@
+package com.softwareverde.bitcoin.bloomfilter;
+
+import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.constable.bytearray.ByteArray;
+
+/**
+ * A BloomFilter that remembers approximately the most recent items added to it.
+ *  Items are added to the current generation; once the current generation holds half of the item capacity it becomes the
+ *  previous generation and the oldest generation is discarded.  Therefore, at least the most recent (itemCount / 2) items are
+ *  always contained, and at most itemCount items are contained, at twice the memory of a single filter.
+ *  RollingBloomFilter is thread-safe.
+ */
+public class RollingBloomFilter {
+    protected final Long _generationItemCount;
+    protected final Double _falsePositiveRate;
+
+    protected MutableBloomFilter _currentGeneration;
+    protected MutableBloomFilter _previousGeneration;
+    protected long _currentGenerationItemCount = 0L;
+
+    protected MutableBloomFilter _newGeneration() {
+        return MutableBloomFilter.newInstance(_generationItemCount, _falsePositiveRate);
+    }
+
+    public RollingBloomFilter(final Long itemCount, final Double falsePositiveRate) {
+        _generationItemCount = Math.max(1L, (itemCount / 2L));
+        _falsePositiveRate = (falsePositiveRate / 2D); // Each item is tested against both generations...
+
+        _currentGeneration = _newGeneration();
+        _previousGeneration = _newGeneration();
+    }
+
+    public synchronized void addItem(final ByteArray item) {
+        if (_currentGenerationItemCount >= _generationItemCount) {
+            _previousGeneration = _currentGeneration;
+            _currentGeneration = _newGeneration();
+            _currentGenerationItemCount = 0L;
+        }
+
+        _currentGeneration.addItem(item);
+        _currentGenerationItemCount += 1L;
+    }
+
+    public synchronized Boolean containsItem(final ByteArray item) {
+        if (_currentGeneration.containsItem(item)) { return true; }
+        return _previousGeneration.containsItem(item);
+    }
+
+    /**
+     * Adds the item and returns true if the item was (probably) not already contained.
+     */
+    public synchronized Boolean addItemIfAbsent(final ByteArray item) {
+        if (this.containsItem(item)) { return false; }
+
+        this.addItem(item);
+        return true;
+    }
+
+    public synchronized void clear() {
+        _currentGeneration = _newGeneration();
+        _previousGeneration = _newGeneration();
+        _currentGenerationItemCount = 0L;
+    }
+}
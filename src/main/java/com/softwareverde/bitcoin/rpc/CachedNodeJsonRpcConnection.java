@@ -1,7 +1,8 @@
-package com.softwareverde.bitcoin.server.module.electrum;
+package com.softwareverde.bitcoin.rpc;
 
 import com.softwareverde.bitcoin.inflater.MasterInflater;
-import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnection;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.socket.JsonProtocolMessage;
 import com.softwareverde.util.type.time.SystemTime;
 
 import java.net.Socket;
@@ -10,29 +11,44 @@ public class CachedNodeJsonRpcConnection extends NodeJsonRpcConnection {
     protected final SystemTime _systemTime = new SystemTime();
     protected final Long _creationTime;
     protected Runnable _onClose;
+    protected volatile Long _idleStartTime;
+    protected volatile Boolean _hasTimedOutRequest = false; // A late response to a timed-out request would be read as the response to the next request.
+
+    @Override
+    protected JsonProtocolMessage _executeRequest(final Json rpcRequestJson) {
+        final JsonProtocolMessage jsonProtocolMessage = super._executeRequest(rpcRequestJson);
+        if (jsonProtocolMessage == null) {
+            _hasTimedOutRequest = true;
+        }
+        return jsonProtocolMessage;
+    }
 
     public CachedNodeJsonRpcConnection(final String hostname, final Integer port) {
         super(hostname, port);
 
         _creationTime = _systemTime.getCurrentTimeInMilliSeconds();
+        _idleStartTime = _creationTime;
     }
 
     public CachedNodeJsonRpcConnection(final String hostname, final Integer port, final MasterInflater masterInflater) {
         super(hostname, port, masterInflater);
 
         _creationTime = _systemTime.getCurrentTimeInMilliSeconds();
+        _idleStartTime = _creationTime;
     }
 
     public CachedNodeJsonRpcConnection(final Socket javaSocket) {
         super(javaSocket);
 
         _creationTime = _systemTime.getCurrentTimeInMilliSeconds();
+        _idleStartTime = _creationTime;
     }
 
     public CachedNodeJsonRpcConnection(final Socket socket, final MasterInflater masterInflater) {
         super(socket, masterInflater);
 
         _creationTime = _systemTime.getCurrentTimeInMilliSeconds();
+        _idleStartTime = _creationTime;
     }
 
     public void setOnCloseCallback(final Runnable onClose) {
@@ -62,4 +78,23 @@ public class CachedNodeJsonRpcConnection extends NodeJsonRpcConnection {
         final Long now = _systemTime.getCurrentTimeInMilliSeconds();
         return (now - _creationTime);
     }
+
+    /**
+     * Marks the connection as idle (i.e. returned to its pool), as of now.
+     */
+    public void markIdle() {
+        _idleStartTime = _systemTime.getCurrentTimeInMilliSeconds();
+    }
+
+    public Long getIdleDuration() {
+        final Long now = _systemTime.getCurrentTimeInMilliSeconds();
+        return (now - _idleStartTime);
+    }
+
+    /**
+     * Returns true if a request made via this connection did not receive a response; the connection should not be reused.
+     */
+    public Boolean hasTimedOutRequest() {
+        return _hasTimedOutRequest;
+    }
 }
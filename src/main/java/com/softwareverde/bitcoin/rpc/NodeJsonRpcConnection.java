@@ -14,10 +14,14 @@ import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
 import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProofInflater;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.json.Json;
 import com.softwareverde.logging.Logger;
+import com.softwareverde.network.socket.JsonFrameProtocolMessage;
 import com.softwareverde.network.socket.JsonProtocolMessage;
 import com.softwareverde.network.socket.JsonSocket;
 import com.softwareverde.util.timer.NanoTimer;
@@ -35,7 +39,11 @@ public class NodeJsonRpcConnection implements AutoCloseable {
 
     public interface RawAnnouncementHookCallback {
         void onNewBlockHeader(BlockHeader blockHeader);
-        void onNewTransaction(Transaction transaction, Long fee);
+        /**
+         * The fee is null unless the hook requested transaction fees.
+         *  The scriptHashes contain the script hashes of the outputs spent and created by the transaction, or null if unknown.
+         */
+        void onNewTransaction(Transaction transaction, Long fee, List<Sha256Hash> scriptHashes);
         void onNewDoubleSpendProof(DoubleSpendProof doubleSpendProofJson);
     }
 
@@ -57,8 +65,70 @@ public class NodeJsonRpcConnection implements AutoCloseable {
 
     protected Boolean _isUpgradedToHook = false;
     protected Boolean _announcementHookExpectsRawTransactionData = null;
+    protected Boolean _binaryFramingIsEnabled = false;
+
+    /**
+     * Returns the message's Json.  If the message is a JsonFrameProtocolMessage, then its payload is restored to the Json
+     *  (as hex) under the property named by the frame's "payloadKey", so that the Json matches the node's non-framed response.
+     */
+    protected static Json _toJson(final JsonProtocolMessage message) {
+        if (message == null) { return null; }
+
+        final Json json = message.getMessage();
+        if (! (message instanceof JsonFrameProtocolMessage)) { return json; }
+
+        final JsonFrameProtocolMessage frame = (JsonFrameProtocolMessage) message;
+        final ByteArray payload = frame.getPayload();
+        final String payloadKey = json.getString("payloadKey");
+        final Integer payloadItemByteCount = json.getOrNull("payloadItemByteCount", Json.Types.INTEGER);
+
+        if (payloadItemByteCount != null) {
+            final Json itemsJson = new Json(true);
+            for (final ByteArray item : _splitPayload(payload, payloadItemByteCount)) {
+                itemsJson.add(item);
+            }
+            json.put(payloadKey, itemsJson);
+        }
+        else {
+            json.put(payloadKey, payload);
+        }
+        return json;
+    }
+
+    protected static List<ByteArray> _splitPayload(final ByteArray payload, final Integer itemByteCount) {
+        final int payloadByteCount = payload.getByteCount();
+        final int itemCount = (payloadByteCount / itemByteCount);
+
+        final MutableList<ByteArray> items = new MutableArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; ++i) {
+            items.add(MutableByteArray.wrap(payload.getBytes(i * itemByteCount, itemByteCount)));
+        }
+        return items;
+    }
+
+    /**
+     * Returns the serialized object from the bulk-data response, either from the frame's payload or from the hex-encoded
+     *  property of the Json response.  Returns null if the request failed.
+     */
+    protected static ByteArray _getResponseData(final JsonProtocolMessage message, final String dataKey) {
+        if (message == null) { return null; }
+
+        final Json json = message.getMessage();
+        if (! json.getBoolean("wasSuccess")) { return null; }
+
+        if (message instanceof JsonFrameProtocolMessage) {
+            final JsonFrameProtocolMessage frame = (JsonFrameProtocolMessage) message;
+            return frame.getPayload();
+        }
+
+        return ByteArray.fromHexString(json.getString(dataKey));
+    }
 
     protected Json _executeJsonRequest(final Json rpcRequestJson) {
+        return _toJson(_executeRequest(rpcRequestJson));
+    }
+
+    protected JsonProtocolMessage _executeRequest(final Json rpcRequestJson) {
         if (_isUpgradedToHook) { throw new RuntimeException("Attempted to invoke Json request to a hook-upgraded socket."); }
         if ( (_jsonSocket == null) || (! _jsonSocket.isConnected()) ) { throw new RuntimeException("Attempted to invoke Json request to a closed socket."); }
 
@@ -88,7 +158,7 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         }
 
         Logger.trace("Finished JSON request in " + totalWaitTimeMs + "ms. - " + rpcRequestJson);
-        return (jsonProtocolMessage != null ? jsonProtocolMessage.getMessage() : null);
+        return jsonProtocolMessage;
     }
 
     protected Json _createRegisterHookRpcJson(final Boolean returnRawData, final Boolean includeTransactionFees, final List<TypedAddress> addressFilter) {
@@ -314,7 +384,7 @@ public class NodeJsonRpcConnection implements AutoCloseable {
             javaSocket = socket;
         }
 
-        _jsonSocket = ((javaSocket != null) ? new JsonSocket(javaSocket) : null);
+        _jsonSocket = ((javaSocket != null) ? JsonSocket.newFramedJsonSocket(javaSocket) : null);
 
         if (_jsonSocket != null) {
             _jsonSocket.setMessageReceivedCallback(_onNewMessageCallback);
@@ -331,7 +401,7 @@ public class NodeJsonRpcConnection implements AutoCloseable {
     public NodeJsonRpcConnection(final java.net.Socket socket, final MasterInflater masterInflater) {
         _masterInflater = masterInflater;
 
-        _jsonSocket = ((socket != null) ? new JsonSocket(socket) : null);
+        _jsonSocket = ((socket != null) ? JsonSocket.newFramedJsonSocket(socket) : null);
 
         if (_jsonSocket != null) {
             _jsonSocket.setMessageReceivedCallback(_onNewMessageCallback);
@@ -474,6 +544,29 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return _getAddressTransactions(null, scriptHash, null, true);
     }
 
+    /**
+     * Returns a page of the script hash's history (without the Transactions themselves), beginning at fromBlockHeight.
+     *  The response's "nextBlockHeight" is the fromBlockHeight of the subsequent page, or null if the history is complete.
+     */
+    public Json getAddressHistory(final Sha256Hash scriptHash, final Long fromBlockHeight, final Integer limit) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("scriptHash", scriptHash);
+        rpcParametersJson.put("transactionHashesOnly", 1);
+        rpcParametersJson.put("fromBlockHeight", fromBlockHeight);
+        if (limit != null) {
+            rpcParametersJson.put("limit", limit);
+        }
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "ADDRESS");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _executeJsonRequest(rpcRequestJson);
+    }
+
     public Json getAddressBalance(final TypedAddress address) {
         return _getAddressBalance(address, null);
     }
@@ -542,6 +635,34 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return _getBlockTransactions(blockHeight, pageSize, pageNumber);
     }
 
+    public Json getBlockTransactionHashes(final Sha256Hash blockHash) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("hash", blockHash);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "BLOCK_TRANSACTION_HASHES");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _executeJsonRequest(rpcRequestJson);
+    }
+
+    public Json getBlockTransactionHashes(final Long blockHeight) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("blockHeight", blockHeight);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "BLOCK_TRANSACTION_HASHES");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _executeJsonRequest(rpcRequestJson);
+    }
+
     public Json getTransaction(final Sha256Hash transactionHash) {
         if (_jsonSocket == null) { return null; } // Socket was unable to connect.
 
@@ -554,6 +675,95 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         return _getTransaction(transactionHash, hexFormat);
     }
 
+    /**
+     * Returns the serialized Block, or null if the request failed.
+     *  If binary framing is enabled, then the Block is received as raw bytes rather than hex.
+     */
+    public ByteArray getBlockData(final Sha256Hash blockHash) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("hash", blockHash);
+        rpcParametersJson.put("rawFormat", 1);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "BLOCK");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _getResponseData(_executeRequest(rpcRequestJson), "block");
+    }
+
+    public ByteArray getBlockData(final Long blockHeight) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("blockHeight", blockHeight);
+        rpcParametersJson.put("rawFormat", 1);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "BLOCK");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _getResponseData(_executeRequest(rpcRequestJson), "block");
+    }
+
+    /**
+     * Returns the serialized Transaction, or null if the request failed.
+     */
+    public ByteArray getTransactionData(final Sha256Hash transactionHash) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("hash", transactionHash);
+        rpcParametersJson.put("rawFormat", 1);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "TRANSACTION");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        return _getResponseData(_executeRequest(rpcRequestJson), "transaction");
+    }
+
+    /**
+     * Returns the serialized BlockHeaders after blockHeight, or null if the request failed.
+     */
+    public List<ByteArray> getBlockHeaderDataAfter(final Long blockHeight, final Integer maxBlockCount) {
+        if (_jsonSocket == null) { return null; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("blockHeight", blockHeight);
+        rpcParametersJson.put("maxBlockCount", maxBlockCount);
+        rpcParametersJson.put("rawFormat", 1);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "GET");
+        rpcRequestJson.put("query", "BLOCK_HEADERS_AFTER");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        final JsonProtocolMessage message = _executeRequest(rpcRequestJson);
+        if (message == null) { return null; }
+
+        final Json json = message.getMessage();
+        if (! json.getBoolean("wasSuccess")) { return null; }
+
+        if (message instanceof JsonFrameProtocolMessage) {
+            final JsonFrameProtocolMessage frame = (JsonFrameProtocolMessage) message;
+            final Integer payloadItemByteCount = json.getInteger("payloadItemByteCount");
+            return _splitPayload(frame.getPayload(), payloadItemByteCount);
+        }
+
+        final Json blockHeadersJson = json.get("blockHeaders");
+        final int blockHeaderCount = blockHeadersJson.length();
+        final MutableList<ByteArray> blockHeaders = new MutableArrayList<>(blockHeaderCount);
+        for (int i = 0; i < blockHeaderCount; ++i) {
+            blockHeaders.add(ByteArray.fromHexString(blockHeadersJson.getString(i)));
+        }
+        return blockHeaders;
+    }
+
     public Json getDoubleSpendProofs() {
         final Json rpcParametersJson = new Json(false);
 
@@ -712,12 +922,13 @@ public class NodeJsonRpcConnection implements AutoCloseable {
                 final Json json = message.getMessage();
 
                 final String objectType = json.getString("objectType");
+                final ByteArray payload = ((message instanceof JsonFrameProtocolMessage) ? ((JsonFrameProtocolMessage) message).getPayload() : null);
 
                 switch (objectType) {
                     case "BLOCK": {
-                        final String objectData = json.getString("object");
+                        final ByteArray objectData = ((payload != null) ? payload : ByteArray.fromHexString(json.getString("object")));
                         final BlockHeaderInflater blockHeaderInflater = _masterInflater.getBlockHeaderInflater();
-                        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(ByteArray.fromHexString(objectData));
+                        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(objectData);
                         if (blockHeader == null) {
                             Logger.warn("Error inflating block: " + objectData);
                             return;
@@ -727,29 +938,47 @@ public class NodeJsonRpcConnection implements AutoCloseable {
                     } break;
 
                     case "TRANSACTION": {
-                        final String objectData = json.getString("object");
+                        final ByteArray objectData = ((payload != null) ? payload : ByteArray.fromHexString(json.getString("object")));
                         final TransactionInflater transactionInflater = _masterInflater.getTransactionInflater();
-                        final Transaction transaction = transactionInflater.fromBytes(ByteArray.fromHexString(objectData));
+                        final Transaction transaction = transactionInflater.fromBytes(objectData);
                         if (transaction == null) {
                             Logger.warn("Error inflating transaction: " + objectData);
                             return;
                         }
 
-                        announcementHookCallback.onNewTransaction(transaction, null);
+                        announcementHookCallback.onNewTransaction(transaction, null, null);
                     } break;
 
                     case "TRANSACTION_WITH_FEE": {
                         final Json object = json.get("object");
-                        final String transactionData = object.getString("transactionData");
+                        final ByteArray transactionData = ((payload != null) ? payload : ByteArray.fromHexString(object.getString("transactionData")));
                         final Long fee = object.getLong("transactionFee");
                         final TransactionInflater transactionInflater = _masterInflater.getTransactionInflater();
-                        final Transaction transaction = transactionInflater.fromBytes(ByteArray.fromHexString(transactionData));
+                        final Transaction transaction = transactionInflater.fromBytes(transactionData);
                         if (transaction == null) {
                             Logger.warn("Error inflating transaction: " + transactionData);
                             return;
                         }
 
-                        announcementHookCallback.onNewTransaction(transaction, fee);
+                        final List<Sha256Hash> scriptHashes;
+                        if (object.hasKey("scriptHashes")) {
+                            final Json scriptHashesJson = object.get("scriptHashes");
+                            final int scriptHashCount = scriptHashesJson.length();
+
+                            final MutableList<Sha256Hash> scriptHashList = new MutableArrayList<>(scriptHashCount);
+                            for (int i = 0; i < scriptHashCount; ++i) {
+                                final Sha256Hash scriptHash = Sha256Hash.fromHexString(scriptHashesJson.getString(i));
+                                if (scriptHash == null) { continue; }
+
+                                scriptHashList.add(scriptHash);
+                            }
+                            scriptHashes = scriptHashList;
+                        }
+                        else {
+                            scriptHashes = null;
+                        }
+
+                        announcementHookCallback.onNewTransaction(transaction, fee, scriptHashes);
                     } break;
 
                     case "DOUBLE_SPEND_PROOF": {
@@ -916,6 +1145,31 @@ public class NodeJsonRpcConnection implements AutoCloseable {
         _executeJsonRequest(rpcRequestJson);
     }
 
+    /**
+     * Requests that the node send bulk data (raw Blocks, BlockHeaders, and Transactions, and raw-format hook messages) as
+     *  binary frames instead of hex-encoded Json.  Returns false if the node does not support binary framing.
+     *  Must be invoked before the connection is upgraded to a hook.
+     */
+    public Boolean enableBinaryFraming() {
+        if (_jsonSocket == null) { return false; } // Socket was unable to connect.
+
+        final Json rpcParametersJson = new Json();
+        rpcParametersJson.put("enableBinaryFraming", 1);
+
+        final Json rpcRequestJson = new Json();
+        rpcRequestJson.put("method", "POST");
+        rpcRequestJson.put("query", "BINARY_FRAMING");
+        rpcRequestJson.put("parameters", rpcParametersJson);
+
+        final Json response = _executeJsonRequest(rpcRequestJson);
+        _binaryFramingIsEnabled = ( (response != null) && response.getBoolean("wasSuccess") );
+        return _binaryFramingIsEnabled;
+    }
+
+    public Boolean isBinaryFramingEnabled() {
+        return _binaryFramingIsEnabled;
+    }
+
     public Long ping() {
         if (_jsonSocket == null) { return null; } // Socket was unable to connect.
 
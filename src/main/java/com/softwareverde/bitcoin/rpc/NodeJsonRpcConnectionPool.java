@@ -0,0 +1,197 @@
+package com.softwareverde.bitcoin.rpc;
+
+import com.softwareverde.logging.Logger;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of persistent connections to a node's JSON RPC port.
+ *  Connections are borrowed via NodeJsonRpcConnectionPool::getConnection and are returned to the pool when closed; a pooled
+ *  connection that has been idle for longer than HEALTH_CHECK_IDLE_DURATION_MS is pinged before it is reused, connections
+ *  older than maxConnectionLifespanMs are replaced, and connections with a request that timed out are discarded.
+ *  At most maxIdleConnectionCount connections are kept open while unused, and if maxConnectionCount is provided, then at
+ *  most maxConnectionCount connections may be borrowed at once; NodeJsonRpcConnectionPool::getConnection waits up to
+ *  connectTimeoutMs for a connection to be returned before failing.
+ *  Pooled connections request binary framing, so bulk data (i.e. raw Blocks) is received without hex-encoding.
+ *  NOTE: The node's RPC protocol is strictly request/response, so each borrowed connection serves one request at a time.
+ */
+public class NodeJsonRpcConnectionPool implements AutoCloseable {
+    public static final Integer DEFAULT_MAX_IDLE_CONNECTION_COUNT = 32;
+    public static final Long DEFAULT_MAX_CONNECTION_LIFESPAN_MS = (10L * 60L * 1000L);
+    public static final Long HEALTH_CHECK_IDLE_DURATION_MS = 30000L;
+    public static final Integer DEFAULT_CONNECT_TIMEOUT_MS = 3000;
+
+    protected final String _nodeHost;
+    protected final Integer _nodePort;
+    protected final Integer _maxIdleConnectionCount;
+    protected final Long _maxConnectionLifespanMs;
+    protected final Integer _connectTimeoutMs;
+    protected final Semaphore _borrowedConnectionPermits; // Null if the number of borrowed connections is unbounded.
+
+    protected final AtomicInteger _idleConnectionCount = new AtomicInteger(0);
+    protected final ConcurrentLinkedDeque<CachedNodeJsonRpcConnection> _idleConnections = new ConcurrentLinkedDeque<>();
+
+    protected Boolean _isExpired(final CachedNodeJsonRpcConnection connection) {
+        if (! connection.isConnected()) { return true; }
+        if (connection._isUpgradedToHook) { return true; } // Hook connections may not be used for requests...
+        if (connection.hasTimedOutRequest()) { return true; }
+        return (connection.getConnectionDuration() > _maxConnectionLifespanMs);
+    }
+
+    protected CachedNodeJsonRpcConnection _pollIdleConnection() {
+        while (true) {
+            final CachedNodeJsonRpcConnection idleConnection = _idleConnections.pollFirst();
+            if (idleConnection == null) { return null; }
+            _idleConnectionCount.getAndDecrement();
+
+            if (_isExpired(idleConnection)) {
+                idleConnection.superClose();
+                continue;
+            }
+
+            if (idleConnection.getIdleDuration() > HEALTH_CHECK_IDLE_DURATION_MS) {
+                final Long ping = idleConnection.ping();
+                if (ping == null) {
+                    idleConnection.superClose();
+                    continue;
+                }
+            }
+
+            return idleConnection;
+        }
+    }
+
+    protected CachedNodeJsonRpcConnection _openConnection() {
+        try {
+            final Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(_nodeHost, _nodePort), _connectTimeoutMs);
+            if (! socket.isConnected()) { return null; }
+
+            final CachedNodeJsonRpcConnection connection = new CachedNodeJsonRpcConnection(socket);
+            connection.enableKeepAlive(true);
+            connection.enableBinaryFraming(); // Nodes without binary framing continue to respond with Json...
+            return connection;
+        }
+        catch (final Exception exception) {
+            Logger.debug("Unable to connect to node: " + _nodeHost + ":" + _nodePort, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Invoked when a borrowed connection is closed; the connection is returned to the pool if it is still healthy.
+     */
+    protected void _onConnectionReturned(final CachedNodeJsonRpcConnection connection) {
+        try {
+            if (_isExpired(connection) || (_idleConnectionCount.get() >= _maxIdleConnectionCount)) {
+                connection.superClose();
+                return;
+            }
+
+            connection.markIdle();
+            _idleConnections.addLast(connection);
+            _idleConnectionCount.getAndIncrement();
+        }
+        finally {
+            if (_borrowedConnectionPermits != null) {
+                _borrowedConnectionPermits.release();
+            }
+        }
+    }
+
+    public NodeJsonRpcConnectionPool(final String nodeHost, final Integer nodePort) {
+        this(nodeHost, nodePort, DEFAULT_MAX_IDLE_CONNECTION_COUNT, DEFAULT_MAX_CONNECTION_LIFESPAN_MS, null);
+    }
+
+    public NodeJsonRpcConnectionPool(final String nodeHost, final Integer nodePort, final Integer maxIdleConnectionCount, final Long maxConnectionLifespanMs, final Integer maxConnectionCount) {
+        _nodeHost = nodeHost;
+        _nodePort = nodePort;
+        _maxIdleConnectionCount = maxIdleConnectionCount;
+        _maxConnectionLifespanMs = maxConnectionLifespanMs;
+        _connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+        _borrowedConnectionPermits = ((maxConnectionCount != null) ? new Semaphore(maxConnectionCount, true) : null);
+    }
+
+    /**
+     * Returns an open connection to the node, or null if one could not be established.
+     *  The connection must be closed once the caller is finished with it, which returns it to the pool.
+     */
+    public NodeJsonRpcConnection getConnection() {
+        if (_borrowedConnectionPermits != null) {
+            try {
+                final boolean permitWasAcquired = _borrowedConnectionPermits.tryAcquire(_connectTimeoutMs, TimeUnit.MILLISECONDS);
+                if (! permitWasAcquired) {
+                    Logger.debug("Timed out waiting for an available node connection.");
+                    return null;
+                }
+            }
+            catch (final InterruptedException exception) {
+                final Thread currentThread = Thread.currentThread();
+                currentThread.interrupt();
+                return null;
+            }
+        }
+
+        CachedNodeJsonRpcConnection connection = _pollIdleConnection();
+        if (connection == null) {
+            connection = _openConnection();
+        }
+
+        if (connection == null) {
+            if (_borrowedConnectionPermits != null) {
+                _borrowedConnectionPermits.release();
+            }
+            return null;
+        }
+
+        final CachedNodeJsonRpcConnection borrowedConnection = connection;
+        borrowedConnection.setOnCloseCallback(new Runnable() {
+            @Override
+            public void run() {
+                borrowedConnection.setOnCloseCallback(null); // Returned connections are only released once...
+                _onConnectionReturned(borrowedConnection);
+            }
+        });
+        return borrowedConnection;
+    }
+
+    /**
+     * Closes the idle connections that have disconnected or exceeded their lifespan.
+     */
+    public void performMaintenance() {
+        final int idleConnectionCount = _idleConnectionCount.get();
+        for (int i = 0; i < idleConnectionCount; ++i) {
+            final CachedNodeJsonRpcConnection idleConnection = _idleConnections.pollFirst();
+            if (idleConnection == null) { break; }
+            _idleConnectionCount.getAndDecrement();
+
+            if (_isExpired(idleConnection)) {
+                idleConnection.superClose();
+                continue;
+            }
+
+            _idleConnections.addLast(idleConnection);
+            _idleConnectionCount.getAndIncrement();
+        }
+    }
+
+    public Integer getIdleConnectionCount() {
+        return _idleConnectionCount.get();
+    }
+
+    @Override
+    public void close() {
+        while (true) {
+            final CachedNodeJsonRpcConnection idleConnection = _idleConnections.pollFirst();
+            if (idleConnection == null) { break; }
+            _idleConnectionCount.getAndDecrement();
+
+            idleConnection.superClose();
+        }
+    }
+}
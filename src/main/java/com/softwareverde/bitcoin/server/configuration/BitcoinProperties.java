@@ -16,6 +16,8 @@ public class BitcoinProperties {
     protected Integer _testNetworkBitcoinPort;
     protected Integer _bitcoinRpcPort;
     protected Integer _testNetworkRpcPort;
+    protected Integer _rpcThreadCount;
+    protected Integer _maxRpcRequestsPerConnection;
     protected List<NodeProperties> _seedNodeProperties;
     protected List<NodeProperties> _testNetSeedNodeProperties;
     protected List<String> _dnsSeeds;
@@ -38,7 +40,10 @@ public class BitcoinProperties {
     protected Boolean _fastSyncIsEnabled;
     protected Long _fastSyncTimeoutInSeconds;
     protected Boolean _indexingModeIsEnabled;
+    protected Long _maxIndexingQueueByteCount;
     protected Integer _maxMessagesPerSecond;
+    protected Long _maxPeerUploadBytesPerSecond;
+    protected Integer _maxPeerBlockRequestCount;
     protected String _dataDirectory;
     protected Boolean _shouldRelayInvalidSlpTransactions;
     protected Boolean _deletePendingBlocksIsEnabled;
@@ -74,6 +79,16 @@ public class BitcoinProperties {
         return Util.coalesce(_bitcoinRpcPort, defaultRpcPort);
     }
 
+    /**
+     * Returns the number of threads used to process pipelined RPC requests, shared between all RPC connections.
+     */
+    public Integer getRpcThreadCount() { return _rpcThreadCount; }
+
+    /**
+     * Returns the maximum number of pipelined RPC requests that a single RPC connection may have in-flight at once.
+     */
+    public Integer getMaxRpcRequestsPerConnection() { return _maxRpcRequestsPerConnection; }
+
     public List<NodeProperties> getSeedNodeProperties() { return (_isTestNet() ? _testNetSeedNodeProperties : _seedNodeProperties); }
     public List<String> getDnsSeeds() { return (_isTestNet() ? _testNetDnsSeeds : _dnsSeeds); }
 
@@ -118,7 +133,10 @@ public class BitcoinProperties {
     public Float getUtxoCachePurgePercent() { return _utxoPurgePercent; }
 
     public Boolean isIndexingModeEnabled() { return _indexingModeIsEnabled; }
+    public Long getMaxIndexingQueueByteCount() { return _maxIndexingQueueByteCount; }
     public Integer getMaxMessagesPerSecond() { return _maxMessagesPerSecond; }
+    public Long getMaxPeerUploadBytesPerSecond() { return _maxPeerUploadBytesPerSecond; }
+    public Integer getMaxPeerBlockRequestCount() { return _maxPeerBlockRequestCount; }
     public Boolean isBootstrapEnabled() { return (_isTestNet() ? false : _bootstrapIsEnabled); }
     public Boolean isFastSyncEnabled() { return (_pruningModeIsEnabled && _fastSyncIsEnabled); }
     public Long getFastSyncTimeoutMs() { return (_fastSyncTimeoutInSeconds < 0L ? -1L : (_fastSyncTimeoutInSeconds * 1000L)); }
@@ -1,6 +1,7 @@
 package com.softwareverde.bitcoin.server.configuration;
 
 import com.softwareverde.bitcoin.server.main.BitcoinConstants;
+import com.softwareverde.bitcoin.server.module.node.BlockIndexingQueue;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.utxo.UnspentTransactionOutputDatabaseManager;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
@@ -15,6 +16,8 @@ public class BitcoinPropertiesLoader {
         final BitcoinProperties bitcoinProperties = new BitcoinProperties();
         bitcoinProperties._bitcoinPort = Util.parseInt(properties.getProperty("bitcoin.port", null));
         bitcoinProperties._bitcoinRpcPort = Util.parseInt(properties.getProperty("bitcoin.rpcPort", null));
+        bitcoinProperties._rpcThreadCount = Math.max(1, Util.parseInt(properties.getProperty("bitcoin.rpcThreadCount", "8")));
+        bitcoinProperties._maxRpcRequestsPerConnection = Math.max(1, Util.parseInt(properties.getProperty("bitcoin.maxRpcRequestsPerConnection", "16")));
 
         { // Parse Seed Nodes...
             final String defaultSeedNodes = "[\"btc.softwareverde.com\", \"bitcoinverde.org\"]";
@@ -106,7 +109,10 @@ public class BitcoinPropertiesLoader {
         bitcoinProperties._fastSyncIsEnabled = Util.parseBool(properties.getProperty("bitcoin.enableFastSync", "0"));
         bitcoinProperties._fastSyncTimeoutInSeconds = Util.parseLong(properties.getProperty("bitcoin.fastSyncTimeoutSeconds", "14400"));
         bitcoinProperties._indexingModeIsEnabled = Util.parseBool(properties.getProperty("bitcoin.indexBlocks", "1"));
+        bitcoinProperties._maxIndexingQueueByteCount = Util.parseLong(properties.getProperty("bitcoin.maxIndexingQueueByteCount", String.valueOf(BlockIndexingQueue.DEFAULT_MAX_QUEUED_BYTE_COUNT)));
         bitcoinProperties._maxMessagesPerSecond = Util.parseInt(properties.getProperty("bitcoin.maxMessagesPerSecondPerNode", "250"));
+        bitcoinProperties._maxPeerUploadBytesPerSecond = Util.parseLong(properties.getProperty("bitcoin.maxPeerUploadBytesPerSecond", "8388608"));
+        bitcoinProperties._maxPeerBlockRequestCount = Util.parseInt(properties.getProperty("bitcoin.maxPeerBlockRequestCount", "128"));
         bitcoinProperties._dataDirectory = properties.getProperty("bitcoin.dataDirectory", "data");
         bitcoinProperties._shouldRelayInvalidSlpTransactions = Util.parseBool(properties.getProperty("bitcoin.relayInvalidSlpTransactions", "1"));
 
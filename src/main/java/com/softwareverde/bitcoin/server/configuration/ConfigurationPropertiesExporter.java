@@ -32,6 +32,8 @@ public class ConfigurationPropertiesExporter {
     public static final String BITCOIN_PORT = "bitcoin.port";
     public static final String TEST_NETWORK_BITCOIN_PORT = "bitcoin.testNetPort";
     public static final String BITCOIN_RPC_PORT = "bitcoin.rpcPort";
+    public static final String BITCOIN_RPC_THREAD_COUNT = "bitcoin.rpcThreadCount";
+    public static final String MAX_RPC_REQUESTS_PER_CONNECTION = "bitcoin.maxRpcRequestsPerConnection";
     public static final String TEST_NETWORK_RPC_PORT = "bitcoin.testNetRpcPort";
     public static final String DNS_SEEDS = "bitcoin.dnsSeeds";
     public static final String TEST_NET_DNS_SEEDS = "bitcoin.testNetDnsSeeds";
@@ -50,7 +52,10 @@ public class ConfigurationPropertiesExporter {
     public static final String FAST_SYNC_IS_ENABLED = "bitcoin.enableFastSync";
     public static final String FAST_SYNC_TIMEOUT = "bitcoin.fastSyncTimeoutSeconds";
     public static final String INDEXING_MODE_IS_ENABLED = "bitcoin.indexBlocks";
+    public static final String MAX_INDEXING_QUEUE_BYTE_COUNT = "bitcoin.maxIndexingQueueByteCount";
     public static final String MAX_MESSAGES_PER_SECOND = "bitcoin.maxMessagesPerSecondPerNode";
+    public static final String MAX_PEER_UPLOAD_BYTES_PER_SECOND = "bitcoin.maxPeerUploadBytesPerSecond";
+    public static final String MAX_PEER_BLOCK_REQUEST_COUNT = "bitcoin.maxPeerBlockRequestCount";
     public static final String BITCOIN_PROPERTIES_DATA_DIRECTORY = "bitcoin.dataDirectory";
     public static final String SHOULD_RELAY_INVALID_SLP_TRANSACTIONS = "bitcoin.relayInvalidSlpTransactions";
     public static final String DELETE_PENDING_BLOCKS_IS_ENABLED = "bitcoin.deletePendingBlocks";
@@ -152,6 +157,8 @@ public class ConfigurationPropertiesExporter {
         map.put(BITCOIN_PORT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._bitcoinPort));
         map.put(TEST_NETWORK_BITCOIN_PORT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._testNetworkBitcoinPort));
         map.put(BITCOIN_RPC_PORT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._bitcoinRpcPort));
+        map.put(BITCOIN_RPC_THREAD_COUNT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._rpcThreadCount));
+        map.put(MAX_RPC_REQUESTS_PER_CONNECTION, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._maxRpcRequestsPerConnection));
         map.put(TEST_NETWORK_RPC_PORT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._testNetworkRpcPort));
         map.put(DNS_SEEDS, PropertiesUtil.stringListToConfigurationFileProperty(bitcoinProperties._dnsSeeds));
         map.put(TEST_NET_DNS_SEEDS, PropertiesUtil.stringListToConfigurationFileProperty(bitcoinProperties._testNetDnsSeeds));
@@ -170,7 +177,10 @@ public class ConfigurationPropertiesExporter {
         map.put(FAST_SYNC_IS_ENABLED, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._fastSyncIsEnabled));
         map.put(FAST_SYNC_TIMEOUT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._fastSyncTimeoutInSeconds));
         map.put(INDEXING_MODE_IS_ENABLED, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._indexingModeIsEnabled));
+        map.put(MAX_INDEXING_QUEUE_BYTE_COUNT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._maxIndexingQueueByteCount));
         map.put(MAX_MESSAGES_PER_SECOND, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._maxMessagesPerSecond));
+        map.put(MAX_PEER_UPLOAD_BYTES_PER_SECOND, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._maxPeerUploadBytesPerSecond));
+        map.put(MAX_PEER_BLOCK_REQUEST_COUNT, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._maxPeerBlockRequestCount));
         map.put(BITCOIN_PROPERTIES_DATA_DIRECTORY, bitcoinProperties._dataDirectory);
         map.put(SHOULD_RELAY_INVALID_SLP_TRANSACTIONS, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._shouldRelayInvalidSlpTransactions));
         map.put(DELETE_PENDING_BLOCKS_IS_ENABLED, ConfigurationPropertiesExporter.coalesce(bitcoinProperties._deletePendingBlocksIsEnabled));
@@ -9,6 +9,7 @@ import java.io.File;
 public class ElectrumProperties {
     public static final Integer HTTP_PORT = 50001;
     public static final Integer TLS_PORT = 50002;
+    public static final Integer MAX_SUBSCRIPTION_COUNT_PER_CONNECTION = 50000;
 
     protected String _bitcoinRpcUrl;
     protected Integer _bitcoinRpcPort;
@@ -21,6 +22,9 @@ public class ElectrumProperties {
     protected String _tlsKeyFile;
     protected String _tlsCertificateFile;
 
+    protected Integer _maxSubscriptionCountPerConnection;
+    protected Boolean _runWithinNodeIsEnabled;
+
     protected ParsedAddress _donationAddress;
 
     public String getBitcoinRpcUrl() {
@@ -47,6 +51,18 @@ public class ElectrumProperties {
         return _tlsCertificateFile;
     }
 
+    public Integer getMaxSubscriptionCountPerConnection() {
+        return _maxSubscriptionCountPerConnection;
+    }
+
+    /**
+     * When enabled, the ElectrumModule is hosted by the NodeModule and queries the node's components directly rather than
+     *  via the node's JSON RPC port.
+     */
+    public Boolean isRunWithinNodeEnabled() {
+        return _runWithinNodeIsEnabled;
+    }
+
     public ParsedAddress getDonationAddress() {
         return _donationAddress;
     }
@@ -15,11 +15,13 @@ public class ElectrumPropertiesLoader {
         final Integer bitcoinRpcPort = Util.parseInt(properties.getProperty("electrum.bitcoinRpcPort", String.valueOf(BitcoinProperties.RPC_PORT)));
         final Integer httpPort = Util.parseInt(properties.getProperty("electrum.httpPort", String.valueOf(ElectrumProperties.HTTP_PORT)));
         final Integer tlsPort = Util.parseInt(properties.getProperty("electrum.tlsPort", String.valueOf(ElectrumProperties.TLS_PORT)));
+        final Integer maxSubscriptionCountPerConnection = Util.parseInt(properties.getProperty("electrum.maxSubscriptionsPerConnection", String.valueOf(ElectrumProperties.MAX_SUBSCRIPTION_COUNT_PER_CONNECTION)));
         final String tlsKeyFile = properties.getProperty("electrum.tlsKeyFile", "");
         final String tlsCertificateFile = properties.getProperty("electrum.tlsCertificateFile", "");
         final LogLevel logLevel = LogLevel.fromString(properties.getProperty("electrum.logLevel", "INFO"));
         final File dataDirectory = new File(properties.getProperty("electrum.dataDirectory", "data/electrum"));
         final Integer testNet = Util.parseInt(properties.getProperty("electrum.testNet", "0"));
+        final Boolean runWithinNodeIsEnabled = Util.parseBool(properties.getProperty("electrum.runWithinNode", "0"));
 
         final ParsedAddress donationAddress;
         {
@@ -40,6 +42,8 @@ public class ElectrumPropertiesLoader {
         electrumProperties._tlsPort = tlsPort;
         electrumProperties._tlsKeyFile = (tlsKeyFile.isEmpty() ? null : tlsKeyFile);
         electrumProperties._tlsCertificateFile = (tlsCertificateFile.isEmpty() ? null : tlsCertificateFile);
+        electrumProperties._maxSubscriptionCountPerConnection = maxSubscriptionCountPerConnection;
+        electrumProperties._runWithinNodeIsEnabled = runWithinNodeIsEnabled;
 
         electrumProperties._donationAddress = donationAddress;
         electrumProperties._logLevel = logLevel;
@@ -2,12 +2,14 @@ package com.softwareverde.bitcoin.server.main;
 
 import com.softwareverde.bitcoin.server.configuration.BitcoinProperties;
 import com.softwareverde.bitcoin.server.configuration.Configuration;
+import com.softwareverde.bitcoin.server.configuration.ElectrumProperties;
 import com.softwareverde.bitcoin.server.configuration.ExplorerProperties;
 import com.softwareverde.bitcoin.server.module.AddressModule;
 import com.softwareverde.bitcoin.server.module.ConfigurationModule;
 import com.softwareverde.bitcoin.server.module.EciesModule;
 import com.softwareverde.bitcoin.server.module.MinerModule;
 import com.softwareverde.bitcoin.server.module.SignatureModule;
+import com.softwareverde.bitcoin.server.module.electrum.ElectrumModule;
 import com.softwareverde.bitcoin.server.module.explorer.ExplorerModule;
 import com.softwareverde.bitcoin.server.module.node.NodeModule;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
@@ -269,7 +271,8 @@ public class Main {
                 final Integer blockMaxByteCount = bitcoinProperties.getBlockMaxByteCount();
                 BitcoinConstants.setBlockMaxByteCount(blockMaxByteCount);
 
-                final NodeModule nodeModule = new NodeModule(bitcoinProperties);
+                final ElectrumProperties electrumProperties = configuration.getElectrumProperties();
+                final NodeModule nodeModule = new NodeModule(bitcoinProperties, (electrumProperties.isRunWithinNodeEnabled() ? electrumProperties : null));
                 nodeModule.loop();
 
                 loggerFlushThread.interrupt();
@@ -427,27 +430,27 @@ public class Main {
             } break;
 
             case "ELECTRUM": {
-//                _addLoggerShutdownHook();
-//
-//                if (_arguments.length != 2) {
-//                    _printUsage();
-//                    BitcoinUtil.exitFailure();
-//                    break;
-//                }
-//
-//                final String configurationFile = _arguments[1];
-//
-//                final Configuration configuration = _loadConfigurationFile(configurationFile);
-//                final ElectrumProperties electrumProperties = configuration.getElectrumProperties();
-//
-//                final LogLevel logLevel = electrumProperties.getLogLevel();
-//                if (logLevel != null) {
-//                    Logger.setLogLevel(logLevel);
-//                }
-//
-//                final ElectrumModule electrumModule = new ElectrumModule(electrumProperties);
-//                electrumModule.loop();
-//                Logger.flush();
+                _addLoggerShutdownHook();
+
+                if (_arguments.length != 2) {
+                    _printUsage();
+                    BitcoinUtil.exitFailure();
+                    break;
+                }
+
+                final String configurationFile = _arguments[1];
+
+                final Configuration configuration = _loadConfigurationFile(configurationFile);
+                final ElectrumProperties electrumProperties = configuration.getElectrumProperties();
+
+                final LogLevel logLevel = electrumProperties.getLogLevel();
+                if (logLevel != null) {
+                    Logger.setLogLevel(logLevel);
+                }
+
+                final ElectrumModule electrumModule = new ElectrumModule(electrumProperties);
+                electrumModule.loop();
+                Logger.flush();
             } break;
 
             case "PROXY": {
@@ -9,8 +9,12 @@ import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.cryptography.util.HashUtil;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
 import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.ByteArrayReader;
 import com.softwareverde.util.bytearray.Endian;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 /**
  * Protocol Definition:
  *  https://bitcoin.org/en/developer-reference
@@ -22,6 +26,7 @@ public abstract class BitcoinProtocolMessage implements ProtocolMessage {
     public static final BitcoinBinaryPacketFormat BINARY_PACKET_FORMAT = new BitcoinBinaryPacketFormat(ByteArray.fromHexString(BitcoinConstants.getNetMagicNumber()), PROTOCOL_MESSAGE_FACTORY.getProtocolMessageHeaderParser(), PROTOCOL_MESSAGE_FACTORY);
 
     protected static final Integer CHECKSUM_BYTE_COUNT = 4;
+    protected static final Integer CHECKSUM_CHUNK_BYTE_COUNT = (64 * 1024);
 
     public static ByteArray calculateChecksum(final ByteArray payload) {
         final ByteArray fullChecksum = HashUtil.doubleSha256(payload);
@@ -34,6 +39,38 @@ public abstract class BitcoinProtocolMessage implements ProtocolMessage {
         return checksum;
     }
 
+    /**
+     * Calculates the checksum of the next payloadByteCount bytes of the byteArrayReader without advancing its position.
+     *  The payload is hashed in fixed-size chunks so that large payloads (i.e. blocks) are not copied in their entirety.
+     */
+    public static ByteArray calculateChecksum(final ByteArrayReader byteArrayReader, final Integer payloadByteCount) {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        final Integer startPosition = byteArrayReader.getPosition();
+        int remainingByteCount = payloadByteCount;
+        while (remainingByteCount > 0) {
+            final int chunkByteCount = Math.min(remainingByteCount, CHECKSUM_CHUNK_BYTE_COUNT);
+            final byte[] chunk = byteArrayReader.readBytes(chunkByteCount, Endian.BIG);
+            messageDigest.update(chunk);
+            remainingByteCount -= chunkByteCount;
+        }
+        byteArrayReader.setPosition(startPosition);
+
+        final byte[] fullChecksum = messageDigest.digest(messageDigest.digest());
+        final MutableByteArray checksum = new MutableByteArray(CHECKSUM_BYTE_COUNT);
+        for (int i = 0; i < CHECKSUM_BYTE_COUNT; ++i) {
+            checksum.setByte(i, fullChecksum[i]);
+        }
+
+        return checksum;
+    }
+
     protected final ByteArray _magicNumber;
     protected final MessageType _command;
 
@@ -5,10 +5,8 @@ import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHea
 import com.softwareverde.bitcoin.server.message.type.MessageType;
 import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
-import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.bytearray.ByteArrayReader;
-import com.softwareverde.util.bytearray.Endian;
 
 public abstract class BitcoinProtocolMessageInflater {
     public abstract BitcoinProtocolMessage fromBytes(byte[] bytes);
@@ -33,10 +31,8 @@ public abstract class BitcoinProtocolMessageInflater {
             }
         }
 
-        final byte[] payload = byteArrayReader.peakBytes(protocolMessageHeader.payloadByteCount, Endian.BIG);
-
         { // Validate Checksum
-            final ByteArray calculatedChecksum = BitcoinProtocolMessage.calculateChecksum(MutableByteArray.wrap(payload));
+            final ByteArray calculatedChecksum = BitcoinProtocolMessage.calculateChecksum(byteArrayReader, protocolMessageHeader.payloadByteCount);
             if (! ByteUtil.areEqual(protocolMessageHeader.payloadChecksum, calculatedChecksum.getBytes())) {
                 Logger.debug("ProtocolMessage: Bad message checksum.");
                 return null;
@@ -33,6 +33,6 @@ public class FeeFilterMessage extends BitcoinProtocolMessage {
 
     @Override
     protected Integer _getPayloadByteCount() {
-        return 4;
+        return 8;
     }
 }
@@ -12,23 +12,37 @@ public class BlockMessage extends BitcoinProtocolMessage {
 
     protected final BlockInflaters _blockInflaters;
     protected Block _block;
+    protected ByteArray _blockBytes;
 
     public BlockMessage(final BlockInflaters blockInflaters) {
         super(MessageType.BLOCK);
         _blockInflaters = blockInflaters;
     }
 
-
     public Block getBlock() {
         return _block;
     }
 
     public void setBlock(final Block block) {
         _block = block;
+        _blockBytes = null;
+    }
+
+    /**
+     * Sets the payload to the already-serialized Block, avoiding the cost of inflating and deflating the Block.
+     *  BlockMessage::getBlock returns null when the BlockMessage was constructed via its bytes.
+     */
+    public void setBlockBytes(final ByteArray blockBytes) {
+        _blockBytes = blockBytes;
+        _block = null;
     }
 
     @Override
     protected ByteArray _getPayload() {
+        if (_blockBytes != null) {
+            return _blockBytes;
+        }
+
         if (_block == null) {
             return new MutableByteArray(0);
         }
@@ -39,6 +53,7 @@ public class BlockMessage extends BitcoinProtocolMessage {
 
     @Override
     protected Integer _getPayloadByteCount() {
+        if (_blockBytes != null) { return _blockBytes.getByteCount(); }
         if (_block == null) { return 0; }
 
         return _block.getByteCount();
@@ -20,6 +20,15 @@ import com.softwareverde.util.bytearray.ByteArrayBuilder;
 import com.softwareverde.util.bytearray.Endian;
 
 public class ExtraThinBlockMessage extends BitcoinProtocolMessage {
+    public static final Integer SHORT_HASH_BYTE_COUNT = 8;
+
+    /**
+     * Returns the 64-bit "cheap hash" used to identify the Transaction within an xThin block.
+     *  The cheap hash is the first 8 bytes of the little-endian hash, which are the last 8 bytes of the big-endian Sha256Hash.
+     */
+    public static ByteArray calculateShortHash(final Sha256Hash transactionHash) {
+        return MutableByteArray.wrap(transactionHash.getBytes((Sha256Hash.BYTE_COUNT - SHORT_HASH_BYTE_COUNT), SHORT_HASH_BYTE_COUNT));
+    }
 
     protected final BlockHeaderInflaters _blockHeaderInflaters;
     protected final TransactionInflaters _transactionInflaters;
@@ -100,7 +109,7 @@ public class ExtraThinBlockMessage extends BitcoinProtocolMessage {
         return (
             BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT +
             transactionCountBytes.getByteCount() +
-            (transactionCount * 4) +
+            (transactionCount * SHORT_HASH_BYTE_COUNT) +
             missingTransactionCountBytes.getByteCount() +
             (missingTransactionCount * Sha256Hash.BYTE_COUNT)
         );
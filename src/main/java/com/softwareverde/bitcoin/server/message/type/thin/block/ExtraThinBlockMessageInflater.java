@@ -44,7 +44,7 @@ public class ExtraThinBlockMessageInflater extends BitcoinProtocolMessageInflate
 
         final ImmutableListBuilder<ByteArray> transactionShortHashesListBuilder = new ImmutableListBuilder<>(transactionCount.intValue());
         for (int i = 0; i < transactionCount.intValue(); ++i) {
-            final ByteArray transactionShortHash = MutableByteArray.wrap(byteArrayReader.readBytes(4, Endian.LITTLE));
+            final ByteArray transactionShortHash = MutableByteArray.wrap(byteArrayReader.readBytes(ExtraThinBlockMessage.SHORT_HASH_BYTE_COUNT, Endian.LITTLE));
             transactionShortHashesListBuilder.add(transactionShortHash);
         }
         extraThinBlockMessage.setTransactionHashes(transactionShortHashesListBuilder.build());
@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.server.main.BitcoinConstants;
 import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessageInflater;
 import com.softwareverde.bitcoin.server.message.header.BitcoinProtocolMessageHeader;
 import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.server.message.type.thin.block.ExtraThinBlockMessage;
 import com.softwareverde.bitcoin.util.bytearray.CompactVariableLengthInteger;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
@@ -32,7 +33,7 @@ public class RequestExtraThinTransactionsMessageInflater extends BitcoinProtocol
 
         final ImmutableListBuilder<ByteArray> transactionShortHashesListBuilder = new ImmutableListBuilder<>(transactionCount.intValue());
         for (int i = 0; i < transactionCount.intValue(); ++i) {
-            final ByteArray transactionShortHash = MutableByteArray.wrap(byteArrayReader.readBytes(4, Endian.LITTLE));
+            final ByteArray transactionShortHash = MutableByteArray.wrap(byteArrayReader.readBytes(ExtraThinBlockMessage.SHORT_HASH_BYTE_COUNT, Endian.LITTLE));
             transactionShortHashesListBuilder.add(transactionShortHash);
         }
         final List<ByteArray> transactionShortHashes = transactionShortHashesListBuilder.build();
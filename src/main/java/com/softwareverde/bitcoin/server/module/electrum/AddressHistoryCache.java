@@ -0,0 +1,290 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.StringUtil;
+import com.softwareverde.util.Util;
+
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the sorted transaction history and Electrum status of each subscribed script hash, so that a new block or
+ *  transaction only requires the affected script hashes to be updated with the new TransactionPositions, rather than
+ *  recalculating every subscription's history from the node.
+ *  Script hashes are also indexed by the transactions within their history, which allows identifying the subscriptions
+ *  affected by a transaction spending a previous output without knowing that output's locking script.
+ *  Unconfirmed positions are only added by new transactions, so they must be refreshed via
+ *  AddressHistoryCache::updateTransactionPositions once a block may have invalidated them (i.e. double-spent, evicted,
+ *  or mined their unconfirmed parents).
+ *  Each write assigns the history a new version.  A history calculated from the node (which may take a while) is only
+ *  cached via AddressHistoryCache::setTransactionPositions if the version read before the calculation is still current,
+ *  so a history calculated at an older chain tip cannot replace one that was updated (or cleared) by a newer block.
+ */
+class AddressHistoryCache {
+    public static class AddressHistory {
+        public final List<TransactionPosition> transactionPositions;
+        public final Sha256Hash status;
+        public final Long version;
+
+        public AddressHistory(final List<TransactionPosition> transactionPositions, final Sha256Hash status, final Long version) {
+            this.transactionPositions = transactionPositions;
+            this.status = status;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Returns the Electrum status of the sorted transactionPositions, or null if there are no transactions.
+     */
+    public static Sha256Hash calculateStatus(final List<TransactionPosition> sortedTransactionPositions) {
+        if (sortedTransactionPositions.isEmpty()) { return null; }
+
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            for (final TransactionPosition transactionPosition : sortedTransactionPositions) {
+                final String statusString = transactionPosition.toString();
+                messageDigest.update(StringUtil.stringToBytes(statusString));
+            }
+            return Sha256Hash.wrap(messageDigest.digest());
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+            return null;
+        }
+    }
+
+    protected final ConcurrentHashMap<Sha256Hash, AddressHistory> _addressHistories = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Sha256Hash, Set<Sha256Hash>> _transactionScriptHashes = new ConcurrentHashMap<>();
+
+    protected final Object _mutex = new Object(); // Serializes writes; reads are not locked.
+    protected final AtomicLong _nextVersion = new AtomicLong(0L);
+    protected Long _removedVersion = 0L; // The version of the most recent removal; the version of any uncached history. Guarded by _mutex.
+
+    protected void _indexTransactions(final Sha256Hash scriptHash, final List<TransactionPosition> transactionPositions) {
+        for (final TransactionPosition transactionPosition : transactionPositions) {
+            final Set<Sha256Hash> scriptHashes = _transactionScriptHashes.computeIfAbsent(transactionPosition.transactionHash, new Function<Sha256Hash, Set<Sha256Hash>>() {
+                @Override
+                public Set<Sha256Hash> apply(final Sha256Hash transactionHash) {
+                    return ConcurrentHashMap.newKeySet();
+                }
+            });
+            scriptHashes.add(scriptHash);
+        }
+    }
+
+    protected void _deindexTransactions(final Sha256Hash scriptHash, final List<TransactionPosition> transactionPositions) {
+        for (final TransactionPosition transactionPosition : transactionPositions) {
+            final Set<Sha256Hash> scriptHashes = _transactionScriptHashes.get(transactionPosition.transactionHash);
+            if (scriptHashes == null) { continue; }
+
+            scriptHashes.remove(scriptHash);
+            if (scriptHashes.isEmpty()) {
+                _transactionScriptHashes.remove(transactionPosition.transactionHash, scriptHashes);
+            }
+        }
+    }
+
+    protected AddressHistory _setAddressHistory(final Sha256Hash scriptHash, final MutableList<TransactionPosition> transactionPositions) {
+        transactionPositions.sort(TransactionPosition.COMPARATOR);
+
+        final Sha256Hash status = AddressHistoryCache.calculateStatus(transactionPositions);
+        final AddressHistory addressHistory = new AddressHistory(transactionPositions, status, _nextVersion.incrementAndGet());
+
+        final AddressHistory previousAddressHistory = _addressHistories.put(scriptHash, addressHistory);
+        if (previousAddressHistory != null) {
+            final MutableHashSet<Sha256Hash> transactionHashes = new MutableHashSet<>();
+            for (final TransactionPosition transactionPosition : transactionPositions) {
+                transactionHashes.add(transactionPosition.transactionHash);
+            }
+
+            final MutableList<TransactionPosition> removedTransactionPositions = new MutableArrayList<>();
+            for (final TransactionPosition transactionPosition : previousAddressHistory.transactionPositions) {
+                if (transactionHashes.contains(transactionPosition.transactionHash)) { continue; }
+                removedTransactionPositions.add(transactionPosition);
+            }
+            _deindexTransactions(scriptHash, removedTransactionPositions);
+        }
+        _indexTransactions(scriptHash, transactionPositions);
+
+        return addressHistory;
+    }
+
+    protected Long _getVersion(final Sha256Hash scriptHash) {
+        final AddressHistory addressHistory = _addressHistories.get(scriptHash);
+        return ((addressHistory != null) ? addressHistory.version : _removedVersion);
+    }
+
+    public AddressHistory getAddressHistory(final Sha256Hash scriptHash) {
+        return _addressHistories.get(scriptHash);
+    }
+
+    /**
+     * Returns the current version of the script hash's history, to be provided to AddressHistoryCache::setTransactionPositions
+     *  once the history has been calculated.
+     */
+    public Long getVersion(final Sha256Hash scriptHash) {
+        synchronized (_mutex) {
+            return _getVersion(scriptHash);
+        }
+    }
+
+    /**
+     * Replaces the cached history of the script hash and returns its new status.
+     */
+    public Sha256Hash setTransactionPositions(final Sha256Hash scriptHash, final List<TransactionPosition> transactionPositions) {
+        final MutableList<TransactionPosition> sortedTransactionPositions = new MutableArrayList<>(transactionPositions.getCount());
+        sortedTransactionPositions.addAll(transactionPositions);
+        synchronized (_mutex) {
+            final AddressHistory addressHistory = _setAddressHistory(scriptHash, sortedTransactionPositions);
+            return addressHistory.status;
+        }
+    }
+
+    /**
+     * Replaces the cached history of the script hash if its version is still expectedVersion, i.e. the history has not been
+     *  written, removed, or cleared since expectedVersion was read via AddressHistoryCache::getVersion.
+     *  Returns the new AddressHistory, or null if the write was rejected.
+     */
+    public AddressHistory setTransactionPositions(final Sha256Hash scriptHash, final List<TransactionPosition> transactionPositions, final Long expectedVersion) {
+        final MutableList<TransactionPosition> sortedTransactionPositions = new MutableArrayList<>(transactionPositions.getCount());
+        sortedTransactionPositions.addAll(transactionPositions);
+        synchronized (_mutex) {
+            if (! Util.areEqual(expectedVersion, _getVersion(scriptHash))) { return null; }
+
+            return _setAddressHistory(scriptHash, sortedTransactionPositions);
+        }
+    }
+
+    /**
+     * Merges the new TransactionPositions into the cached history of the script hash, replacing the previous position of
+     *  any transaction already within the history (e.g. an unconfirmed transaction that has been mined).
+     *  Returns the updated AddressHistory, or null if the history of the script hash is not cached.
+     */
+    public AddressHistory addTransactionPositions(final Sha256Hash scriptHash, final List<TransactionPosition> newTransactionPositions) {
+        synchronized (_mutex) {
+            return _addTransactionPositions(scriptHash, newTransactionPositions);
+        }
+    }
+
+    protected AddressHistory _addTransactionPositions(final Sha256Hash scriptHash, final List<TransactionPosition> newTransactionPositions) {
+        final AddressHistory addressHistory = _addressHistories.get(scriptHash);
+        if (addressHistory == null) { return null; }
+
+        final MutableHashSet<Sha256Hash> newTransactionHashes = new MutableHashSet<>();
+        for (final TransactionPosition transactionPosition : newTransactionPositions) {
+            newTransactionHashes.add(transactionPosition.transactionHash);
+        }
+
+        final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(addressHistory.transactionPositions.getCount() + newTransactionPositions.getCount());
+        for (final TransactionPosition transactionPosition : addressHistory.transactionPositions) {
+            if (newTransactionHashes.contains(transactionPosition.transactionHash)) { continue; }
+            transactionPositions.add(transactionPosition);
+        }
+        transactionPositions.addAll(newTransactionPositions);
+
+        return _setAddressHistory(scriptHash, transactionPositions);
+    }
+
+    /**
+     * Replaces the position of each of the updated transactions, and removes each of the removed transactions, within
+     *  every cached history containing them.
+     *  Returns the updated AddressHistory of each affected script hash.
+     */
+    public MutableMap<Sha256Hash, AddressHistory> updateTransactionPositions(final List<TransactionPosition> updatedTransactionPositions, final List<Sha256Hash> removedTransactionHashes) {
+        final MutableMap<Sha256Hash, TransactionPosition> updatedPositions = new MutableHashMap<>(updatedTransactionPositions.getCount());
+        final MutableHashSet<Sha256Hash> removedHashes = new MutableHashSet<>(removedTransactionHashes.getCount());
+        final MutableHashSet<Sha256Hash> affectedScriptHashes = new MutableHashSet<>();
+
+        for (final TransactionPosition transactionPosition : updatedTransactionPositions) {
+            updatedPositions.put(transactionPosition.transactionHash, transactionPosition);
+            affectedScriptHashes.addAll(this.getScriptHashesContainingTransaction(transactionPosition.transactionHash));
+        }
+        for (final Sha256Hash transactionHash : removedTransactionHashes) {
+            removedHashes.add(transactionHash);
+            affectedScriptHashes.addAll(this.getScriptHashesContainingTransaction(transactionHash));
+        }
+
+        final MutableMap<Sha256Hash, AddressHistory> addressHistories = new MutableHashMap<>(affectedScriptHashes.getCount());
+        synchronized (_mutex) {
+            for (final Sha256Hash scriptHash : affectedScriptHashes) {
+                final AddressHistory addressHistory = _addressHistories.get(scriptHash);
+                if (addressHistory == null) { continue; }
+
+                final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(addressHistory.transactionPositions.getCount());
+                for (final TransactionPosition transactionPosition : addressHistory.transactionPositions) {
+                    final Sha256Hash transactionHash = transactionPosition.transactionHash;
+                    if (removedHashes.contains(transactionHash)) { continue; }
+
+                    final TransactionPosition updatedTransactionPosition = updatedPositions.get(transactionHash);
+                    transactionPositions.add((updatedTransactionPosition != null) ? updatedTransactionPosition : transactionPosition);
+                }
+
+                addressHistories.put(scriptHash, _setAddressHistory(scriptHash, transactionPositions));
+            }
+        }
+
+        return addressHistories;
+    }
+
+    /**
+     * Returns the unconfirmed TransactionPositions within the cached histories, once per transaction.
+     */
+    public List<TransactionPosition> getUnconfirmedTransactionPositions() {
+        final MutableHashSet<Sha256Hash> transactionHashes = new MutableHashSet<>();
+        final MutableList<TransactionPosition> unconfirmedTransactionPositions = new MutableArrayList<>();
+        for (final AddressHistory addressHistory : _addressHistories.values()) {
+            for (int i = (addressHistory.transactionPositions.getCount() - 1); i >= 0; --i) { // Unconfirmed positions are sorted last...
+                final TransactionPosition transactionPosition = addressHistory.transactionPositions.get(i);
+                if (! transactionPosition.isUnconfirmedTransaction()) { break; }
+
+                if (transactionHashes.contains(transactionPosition.transactionHash)) { continue; }
+
+                transactionHashes.add(transactionPosition.transactionHash);
+                unconfirmedTransactionPositions.add(transactionPosition);
+            }
+        }
+        return unconfirmedTransactionPositions;
+    }
+
+    /**
+     * Returns the cached script hashes whose history contains the transaction.
+     */
+    public List<Sha256Hash> getScriptHashesContainingTransaction(final Sha256Hash transactionHash) {
+        final Set<Sha256Hash> scriptHashes = _transactionScriptHashes.get(transactionHash);
+        if (scriptHashes == null) { return new MutableArrayList<>(0); }
+
+        final MutableList<Sha256Hash> scriptHashList = new MutableArrayList<>(scriptHashes.size());
+        for (final Sha256Hash scriptHash : scriptHashes) {
+            scriptHashList.add(scriptHash);
+        }
+        return scriptHashList;
+    }
+
+    public void remove(final Sha256Hash scriptHash) {
+        synchronized (_mutex) {
+            final AddressHistory addressHistory = _addressHistories.remove(scriptHash);
+            if (addressHistory == null) { return; }
+
+            _removedVersion = _nextVersion.incrementAndGet(); // Rejects the pending writes of the removed history...
+            _deindexTransactions(scriptHash, addressHistory.transactionPositions);
+        }
+    }
+
+    public void clear() {
+        synchronized (_mutex) {
+            _removedVersion = _nextVersion.incrementAndGet();
+            _addressHistories.clear();
+            _transactionScriptHashes.clear();
+        }
+    }
+}
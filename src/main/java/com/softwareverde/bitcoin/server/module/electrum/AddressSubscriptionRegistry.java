@@ -0,0 +1,218 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.Container;
+import com.softwareverde.util.Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The address/script-hash subscriptions of every Electrum connection, indexed both by script hash and by connection.
+ *  Lookups by script hash (i.e. when processing new transactions) do not lock; subscriptions are added and removed
+ *  atomically per script hash, and a disconnected connection's subscriptions are removed in O(subscriptions of that connection).
+ *  Each connection may hold at most maxSubscriptionCountPerConnection subscriptions.
+ *  Every change to a connection's subscriptions (in both indexes) is made while holding the lock of the connection's
+ *  subscriptions map, so that a subscription added while the connection is being removed is never left in either index.
+ */
+class AddressSubscriptionRegistry {
+    protected final Integer _maxSubscriptionCountPerConnection;
+    protected final ConcurrentHashMap<Sha256Hash, ConcurrentHashMap<Long, ConnectionAddress>> _scriptHashSubscriptions = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Long, ConcurrentHashMap<Sha256Hash, ConnectionAddress>> _connectionSubscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Removes the connection's subscription from the script hash's subscriptions.
+     *  Returns true if the script hash no longer has any subscriptions.
+     */
+    protected Boolean _removeScriptHashSubscription(final Sha256Hash scriptHash, final Long connectionId) {
+        final Container<Boolean> wasLastSubscription = new Container<>(false);
+        _scriptHashSubscriptions.computeIfPresent(scriptHash, new BiFunction<Sha256Hash, ConcurrentHashMap<Long, ConnectionAddress>, ConcurrentHashMap<Long, ConnectionAddress>>() {
+            @Override
+            public ConcurrentHashMap<Long, ConnectionAddress> apply(final Sha256Hash scriptHash, final ConcurrentHashMap<Long, ConnectionAddress> connectionAddresses) {
+                connectionAddresses.remove(connectionId);
+                if (! connectionAddresses.isEmpty()) { return connectionAddresses; }
+
+                wasLastSubscription.value = true;
+                return null;
+            }
+        });
+        return wasLastSubscription.value;
+    }
+
+    public AddressSubscriptionRegistry(final Integer maxSubscriptionCountPerConnection) {
+        _maxSubscriptionCountPerConnection = maxSubscriptionCountPerConnection;
+    }
+
+    public Boolean isSubscribed(final Sha256Hash scriptHash) {
+        return _scriptHashSubscriptions.containsKey(scriptHash);
+    }
+
+    public Boolean hasSubscriptions() {
+        return (! _scriptHashSubscriptions.isEmpty());
+    }
+
+    public List<Sha256Hash> getScriptHashes() {
+        final MutableList<Sha256Hash> scriptHashes = new MutableArrayList<>(_scriptHashSubscriptions.size());
+        for (final Sha256Hash scriptHash : _scriptHashSubscriptions.keySet()) {
+            scriptHashes.add(scriptHash);
+        }
+        return scriptHashes;
+    }
+
+    public List<ConnectionAddress> getSubscriptions(final Sha256Hash scriptHash) {
+        final ConcurrentHashMap<Long, ConnectionAddress> connectionAddresses = _scriptHashSubscriptions.get(scriptHash);
+        if (connectionAddresses == null) { return new MutableArrayList<>(0); }
+
+        final MutableList<ConnectionAddress> subscriptions = new MutableArrayList<>(connectionAddresses.size());
+        for (final ConnectionAddress connectionAddress : connectionAddresses.values()) {
+            subscriptions.add(connectionAddress);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Returns the last status sent to any connection subscribed to the script hash, or null if none is known.
+     */
+    public Sha256Hash getCachedStatus(final Sha256Hash scriptHash) {
+        final ConcurrentHashMap<Long, ConnectionAddress> connectionAddresses = _scriptHashSubscriptions.get(scriptHash);
+        if (connectionAddresses == null) { return null; }
+
+        for (final ConnectionAddress connectionAddress : connectionAddresses.values()) {
+            final Sha256Hash status = connectionAddress.status;
+            if (status == null) { continue; }
+
+            return status;
+        }
+
+        return null;
+    }
+
+    /**
+     * Subscribes the connection to the address, and updates the status of the address's other subscriptions if provided.
+     *  Returns false if the connection has reached its maximum number of subscriptions, or if the connection was removed
+     *  while subscribing.
+     */
+    public Boolean addSubscription(final AddressSubscriptionKey addressKey, final JsonSocket jsonSocket, final Sha256Hash addressStatus) {
+        final Long connectionId = jsonSocket.getId();
+        final Sha256Hash scriptHash = addressKey.scriptHash;
+
+        final ConcurrentHashMap<Sha256Hash, ConnectionAddress> connectionSubscriptions = _connectionSubscriptions.computeIfAbsent(connectionId, new Function<Long, ConcurrentHashMap<Sha256Hash, ConnectionAddress>>() {
+            @Override
+            public ConcurrentHashMap<Sha256Hash, ConnectionAddress> apply(final Long connectionId) {
+                return new ConcurrentHashMap<>();
+            }
+        });
+
+        synchronized (connectionSubscriptions) { // The count check and the insert must be atomic, otherwise concurrent subscribes may exceed the cap.
+            if (_connectionSubscriptions.get(connectionId) != connectionSubscriptions) { return false; } // The connection was removed concurrently...
+
+            final ConnectionAddress connectionAddress;
+            final ConnectionAddress existingConnectionAddress = connectionSubscriptions.get(scriptHash);
+            if (existingConnectionAddress != null) {
+                connectionAddress = existingConnectionAddress;
+            }
+            else {
+                if (connectionSubscriptions.size() >= _maxSubscriptionCountPerConnection) { return false; }
+
+                connectionAddress = new ConnectionAddress(addressKey, jsonSocket);
+                connectionSubscriptions.put(scriptHash, connectionAddress);
+            }
+
+            _scriptHashSubscriptions.compute(scriptHash, new BiFunction<Sha256Hash, ConcurrentHashMap<Long, ConnectionAddress>, ConcurrentHashMap<Long, ConnectionAddress>>() {
+                @Override
+                public ConcurrentHashMap<Long, ConnectionAddress> apply(final Sha256Hash scriptHash, final ConcurrentHashMap<Long, ConnectionAddress> nullableConnectionAddresses) {
+                    final ConcurrentHashMap<Long, ConnectionAddress> connectionAddresses = (nullableConnectionAddresses != null ? nullableConnectionAddresses : new ConcurrentHashMap<Long, ConnectionAddress>());
+                    connectionAddresses.put(connectionId, connectionAddress);
+
+                    if (addressStatus != null) {
+                        for (final ConnectionAddress subscribedConnectionAddress : connectionAddresses.values()) {
+                            if (Util.areEqual(subscribedConnectionAddress.status, addressStatus)) { continue; }
+                            subscribedConnectionAddress.status = addressStatus;
+                        }
+                    }
+
+                    return connectionAddresses;
+                }
+            });
+        }
+
+        return true;
+    }
+
+    /**
+     * Unsubscribes the connection from the script hash.
+     *  Returns true if the connection was subscribed.
+     */
+    public Boolean removeSubscription(final Sha256Hash scriptHash, final JsonSocket jsonSocket) {
+        final Long connectionId = jsonSocket.getId();
+
+        final ConcurrentHashMap<Sha256Hash, ConnectionAddress> connectionSubscriptions = _connectionSubscriptions.get(connectionId);
+        if (connectionSubscriptions == null) { return false; }
+
+        synchronized (connectionSubscriptions) {
+            final ConnectionAddress connectionAddress = connectionSubscriptions.remove(scriptHash);
+            if (connectionAddress == null) { return false; }
+
+            _removeScriptHashSubscription(scriptHash, connectionId);
+        }
+        return true;
+    }
+
+    /**
+     * Removes every subscription of the connection.
+     *  Returns the script hashes that no longer have any subscriptions.
+     */
+    public List<Sha256Hash> removeConnection(final JsonSocket jsonSocket) {
+        final Long connectionId = jsonSocket.getId();
+
+        final ConcurrentHashMap<Sha256Hash, ConnectionAddress> connectionSubscriptions = _connectionSubscriptions.remove(connectionId);
+        if (connectionSubscriptions == null) { return new MutableArrayList<>(0); }
+
+        final MutableList<Sha256Hash> unsubscribedScriptHashes = new MutableArrayList<>();
+        synchronized (connectionSubscriptions) { // Waits for any in-progress subscribe, which will then observe that the connection has been removed.
+            for (final Sha256Hash scriptHash : connectionSubscriptions.keySet()) {
+                final Boolean wasLastSubscription = _removeScriptHashSubscription(scriptHash, connectionId);
+                if (wasLastSubscription) {
+                    unsubscribedScriptHashes.add(scriptHash);
+                }
+            }
+            connectionSubscriptions.clear();
+        }
+        return unsubscribedScriptHashes;
+    }
+
+    /**
+     * Removes the subscriptions of any connection that is no longer connected, e.g. a subscription that was added while
+     *  its connection was being closed.
+     *  Returns the script hashes that no longer have any subscriptions.
+     */
+    public List<Sha256Hash> removeDisconnectedConnections() {
+        final MutableList<JsonSocket> disconnectedSockets = new MutableArrayList<>();
+        for (final Map.Entry<Long, ConcurrentHashMap<Sha256Hash, ConnectionAddress>> entry : _connectionSubscriptions.entrySet()) {
+            for (final ConnectionAddress connectionAddress : entry.getValue().values()) {
+                final JsonSocket jsonSocket = connectionAddress.connection;
+                if (! jsonSocket.isConnected()) {
+                    disconnectedSockets.add(jsonSocket);
+                }
+                break; // Every subscription of the entry belongs to the same connection...
+            }
+        }
+
+        final MutableList<Sha256Hash> unsubscribedScriptHashes = new MutableArrayList<>();
+        for (final JsonSocket jsonSocket : disconnectedSockets) {
+            unsubscribedScriptHashes.addAll(this.removeConnection(jsonSocket));
+        }
+        return unsubscribedScriptHashes;
+    }
+
+    public void clear() {
+        _scriptHashSubscriptions.clear();
+        _connectionSubscriptions.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+/**
+ * The blockchain, mempool, and address-index queries required by the ElectrumModule.
+ *  RpcElectrumDataSource queries a remote node via its JSON RPC port, while NodeElectrumDataSource queries the node's
+ *  components directly when the ElectrumModule runs within the node's process.
+ *  Methods return null when the requested data is unavailable.
+ */
+public interface ElectrumDataSource {
+    interface AnnouncementCallback {
+        void onNewBlockHeader(BlockHeader blockHeader);
+        /**
+         * The scriptHashes contain the script hashes of the outputs spent and created by the transaction, or null if unknown.
+         */
+        void onNewTransaction(Transaction transaction, Long fee, List<Sha256Hash> scriptHashes);
+    }
+
+    Long getHeadBlockHeight();
+    BlockHeader getHeadBlockHeader();
+    Long getBlockHeight(Sha256Hash blockHash);
+    List<BlockHeader> getBlockHeadersAfter(Long blockHeight, Integer maxBlockCount);
+
+    Block getBlock(Sha256Hash blockHash);
+    Block getBlock(Long blockHeight);
+
+    /**
+     * Returns the hashes of the block's transactions, in block order, which is sufficient to calculate the block's merkle
+     *  proofs without transferring or inflating the whole block.
+     */
+    List<Sha256Hash> getBlockTransactionHashes(Sha256Hash blockHash);
+    List<Sha256Hash> getBlockTransactionHashes(Long blockHeight);
+
+    Transaction getTransaction(Sha256Hash transactionHash);
+    TransactionPosition getTransactionPosition(Sha256Hash transactionHash);
+    Long getTransactionFee(Sha256Hash transactionHash);
+
+    List<Sha256Hash> getAddressTransactionHashes(Sha256Hash scriptHash);
+    List<Transaction> getAddressTransactions(Sha256Hash scriptHash);
+
+    /**
+     * Returns a page of the script hash's history, ordered by block height, beginning at fromBlockHeight.
+     *  Each page completes its final block, so the subsequent page begins at the final block's height + 1; unconfirmed
+     *  transactions are included within the final page only.
+     */
+    List<AddressHistoryEntry> getAddressHistory(Sha256Hash scriptHash, Long fromBlockHeight, Integer maxTransactionCount);
+
+    /**
+     * Returns a cursor over the script hash's history beginning at fromBlockHeight, with the same paging as getAddressHistory.
+     */
+    AddressHistoryCursor getAddressHistoryCursor(Sha256Hash scriptHash, Long fromBlockHeight);
+    Long getAddressBalance(Sha256Hash scriptHash, Boolean includeUnconfirmedTransactions);
+
+    Boolean submitTransaction(Transaction transaction);
+
+    /**
+     * Registers the callback to be notified of new blocks and transactions.
+     */
+    void subscribeToAnnouncements(AnnouncementCallback announcementCallback);
+
+    /**
+     * Invoked periodically by the ElectrumModule's maintenance thread; re-establishes the announcement subscription if it was lost.
+     */
+    void performMaintenance();
+
+    void close();
+}
@@ -5,39 +5,38 @@ import com.softwareverde.bitcoin.address.AddressInflater;
 import com.softwareverde.bitcoin.address.AddressType;
 import com.softwareverde.bitcoin.address.ParsedAddress;
 import com.softwareverde.bitcoin.block.Block;
-import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderDeflater;
 import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
-import com.softwareverde.bitcoin.block.merkleroot.MerkleTree;
-import com.softwareverde.bitcoin.block.merkleroot.MerkleTreeNode;
-import com.softwareverde.bitcoin.block.merkleroot.MutableMerkleTree;
+import com.softwareverde.bitcoin.block.merkleroot.MerkleAccumulator;
 import com.softwareverde.bitcoin.merkleroot.MerkleRoot;
-import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnection;
 import com.softwareverde.bitcoin.server.configuration.ElectrumProperties;
 import com.softwareverde.bitcoin.server.electrum.socket.ElectrumServerSocket;
 import com.softwareverde.bitcoin.server.main.NetworkType;
 import com.softwareverde.bitcoin.server.message.type.query.header.RequestBlockHeadersMessage;
 import com.softwareverde.bitcoin.server.module.electrum.json.ElectrumJson;
+import com.softwareverde.bitcoin.server.module.electrum.json.ElectrumJsonArrayStreamWriter;
 import com.softwareverde.bitcoin.server.module.electrum.json.ElectrumJsonProtocolMessage;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
 import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionDeflater;
 import com.softwareverde.bitcoin.transaction.TransactionInflater;
-import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
 import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
-import com.softwareverde.bitcoin.transaction.script.ScriptInflater;
 import com.softwareverde.bitcoin.transaction.script.ScriptPatternMatcher;
 import com.softwareverde.bitcoin.transaction.script.ScriptType;
 import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
 import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
 import com.softwareverde.bitcoin.util.BitcoinUtil;
+import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.concurrent.threadpool.CachedThreadPool;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
-import com.softwareverde.constable.list.mutable.MutableLinkedList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.mutable.ConcurrentMutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
@@ -64,16 +63,16 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
-import java.util.Iterator;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ElectrumModule {
     public static final String SERVER_VERSION = "Electrum Verde 1.0.3";
     public static final String BANNER = ElectrumModule.SERVER_VERSION;
     public static final String PROTOCOL_VERSION = "1.4.4";
+    public static final Integer MAX_ADDRESS_HISTORY_ATTEMPT_COUNT = 3;
+    public static final Integer MAX_CACHED_TRANSACTION_POSITION_COUNT = (int) ((64L * ByteUtil.Unit.Binary.MEBIBYTES) / TransactionPositionCache.BYTES_PER_ITEM);
+    public static final Integer ADDRESS_HISTORY_PAGE_SIZE = 1000;
 
     protected static Json createErrorJson(final Object requestId, final String errorMessage, final Integer errorCode) {
         final Json errorJson = new ElectrumJson(false);
@@ -88,6 +87,28 @@ public class ElectrumModule {
         return json;
     }
 
+    /**
+     * Returns the Electrum representation of the history entry; unconfirmed Transactions have a height of -1 if they
+     *  spend unconfirmed outputs, otherwise 0.  The fee is only included for unconfirmed Transactions.
+     */
+    protected static Json toAddressHistoryJson(final AddressHistoryEntry addressHistoryEntry, final Boolean includeTransactionFee) {
+        final Long blockHeight;
+        if (addressHistoryEntry.isUnconfirmedTransaction()) {
+            blockHeight = (addressHistoryEntry.hasUnconfirmedInputs ? -1L : 0L);
+        }
+        else {
+            blockHeight = addressHistoryEntry.blockHeight;
+        }
+
+        final Json json = new ElectrumJson(false);
+        json.put("height", blockHeight);
+        json.put("tx_hash", addressHistoryEntry.transactionHash);
+        if ( includeTransactionFee && (addressHistoryEntry.transactionFee != null) ) {
+            json.put("fee", addressHistoryEntry.transactionFee);
+        }
+        return json;
+    }
+
     protected static Object getRequestId(final Json json) {
         final String idString = json.getOrNull("id", Json.Types.STRING);
         if (Util.isInt(idString)) {
@@ -97,24 +118,38 @@ public class ElectrumModule {
         return idString;
     }
 
+    /**
+     * Returns the merkle branch of the transaction at transactionIndex, ordered from its sibling to the child of the block's
+     *  merkle root, calculated from the block's transaction hashes alone.
+     */
+    protected static List<Sha256Hash> calculatePartialMerkleTree(final List<Sha256Hash> blockTransactionHashes, final Integer transactionIndex) {
+        final MerkleAccumulator merkleAccumulator = new MerkleAccumulator();
+        for (final Sha256Hash transactionHash : blockTransactionHashes) {
+            merkleAccumulator.addItem(transactionHash);
+        }
+
+        final int transactionCount = merkleAccumulator.getItemCount();
+        return merkleAccumulator.getPartialTree(transactionCount, transactionIndex);
+    }
+
     protected final Long _minTransactionFeePerByte;
 
     protected final ElectrumProperties _electrumProperties;
     protected final Boolean _tlsIsEnabled;
     protected final ElectrumServerSocket _electrumServerSocket;
     protected final ConcurrentMutableHashMap<Long, JsonSocket> _connections = new ConcurrentMutableHashMap<>();
-    protected final MutableMap<AddressSubscriptionKey, MutableLinkedList<ConnectionAddress>> _connectionAddresses = new MutableHashMap<>();
+    protected final AddressSubscriptionRegistry _addressSubscriptions;
     protected final ConcurrentMutableHashMap<Long, ElectrumPeer> _peers = new ConcurrentMutableHashMap<>();
     protected final ConcurrentMutableHashSet<Ip> _bannedConnections = new ConcurrentMutableHashSet<>();
     protected final ConcurrentMutableHashMap<Ip, WorkerThread> _workerThreads = new ConcurrentMutableHashMap<>();
 
     protected final ReentrantReadWriteLock.WriteLock _blockHeaderCacheWriteLock;
     protected final ReentrantReadWriteLock.ReadLock _blockHeaderCacheReadLock;
-    protected final MutableList<BlockHeader> _cachedBlockHeaders = new MutableArrayList<>(0);
+    protected final MerkleAccumulator _blockHeaderMerkleAccumulator = new MerkleAccumulator(); // The hashes of the main chain's BlockHeaders, indexed by height.
     protected Long _chainHeight = 0L;
 
     protected final Thread _maintenanceThread;
-    protected NodeJsonRpcConnection _nodeNotificationConnection;
+    protected final ElectrumDataSource _dataSource;
 
     protected void _debugWriteMessage(final JsonSocket jsonSocket, final Json json) {
         if (Logger.isDebugEnabled()) {
@@ -128,263 +163,358 @@ public class ElectrumModule {
         }
     }
 
-    protected final ConcurrentMutableHashMap<Sha256Hash, Json> _cachedTransactionBlockHeights = new ConcurrentMutableHashMap<>();
-    protected Json _getTransactionBlockHeight(final Sha256Hash transactionHash, final NodeJsonRpcConnection nodeConnection) {
-        final Json cachedTransactionBlockHeight = _cachedTransactionBlockHeights.get(transactionHash);
-        if (cachedTransactionBlockHeight != null) { return cachedTransactionBlockHeight; }
+    protected final StreamedResponseGate _streamedResponseGate = new StreamedResponseGate(); // Every message written to a connection is written via the gate, so that it is not written within a streamed response.
+
+    /**
+     * Writes the notification, unless the connection is currently writing a streamed response, in which case the
+     *  notification is deferred until the response is complete so that it is not written within the response.
+     */
+    protected void _writeNotification(final JsonSocket jsonSocket, final Json json) {
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
+        jsonSocket.flush();
 
-        final Json transactionBlockHeightJson = nodeConnection.getTransactionBlockHeight(transactionHash);
-        if (transactionBlockHeightJson == null) { return null; }
+        _debugWriteMessage(jsonSocket, json);
+    }
 
-        _cachedTransactionBlockHeights.put(transactionHash, transactionBlockHeightJson);
-        if (_cachedTransactionBlockHeights.getCount() > (1024 * 2)) {
-            // NOTE: From testing, removing items via the EntrySet Iterator appears to remove the items in FIFO order...
-            final Iterator<Tuple<Sha256Hash, Json>> mutableIterator = _cachedTransactionBlockHeights.mutableIterator();
+    protected final AddressHistoryCache _addressHistoryCache = new AddressHistoryCache();
+    protected final AtomicReference<Sha256Hash> _lastProcessedBlockHash = new AtomicReference<>(null);
 
-            for (int i = 0; i < 128; ++i) {
-                if (! mutableIterator.hasNext()) { break; }
+    protected final TransactionPositionCache _transactionPositionCache = new TransactionPositionCache(ElectrumModule.MAX_CACHED_TRANSACTION_POSITION_COUNT);
+    protected TransactionPosition _getTransactionPosition(final Sha256Hash transactionHash) {
+        final TransactionPosition cachedTransactionPosition = _transactionPositionCache.get(transactionHash);
+        if (cachedTransactionPosition != null) { return cachedTransactionPosition; }
 
-                mutableIterator.next();
-                mutableIterator.remove();
-            }
-        }
+        final TransactionPosition transactionPosition = _dataSource.getTransactionPosition(transactionHash);
+        if (transactionPosition == null) { return null; }
 
-        return transactionBlockHeightJson;
+        _transactionPositionCache.put(transactionPosition);
+        return transactionPosition;
     }
 
-    protected final Integer _maxCachedConnectionCount = 32;
-    protected final Long _maxCachedConnectionLifespan = 10000L;
-    protected final AtomicInteger _cachedConnectionCount = new AtomicInteger(0);
-    protected final ConcurrentLinkedDeque<CachedNodeJsonRpcConnection> _cachedConnections = new ConcurrentLinkedDeque<>();
-    protected NodeJsonRpcConnection _getNodeConnection() {
-        while (true) { // Attempt to serve a cached connection...
-            final CachedNodeJsonRpcConnection cachedConnection = _cachedConnections.pollFirst();
-            if (cachedConnection == null) { break; }
-            _cachedConnectionCount.getAndDecrement();
+    protected Boolean _isSubscribed(final Sha256Hash scriptHash) {
+        return _addressSubscriptions.isSubscribed(scriptHash);
+    }
+
+    /**
+     * Returns the script hashes paid by the Transaction's outputs and spent by its PayToPublicKeyHash inputs.
+     *  Inputs whose spent script hash cannot be determined from the UnlockingScript are added to unknownTransactionInputs, if provided.
+     */
+    protected MutableHashSet<Sha256Hash> _getTransactionScriptHashes(final Transaction transaction, final MutableList<TransactionInput> unknownTransactionInputs) {
+        final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
+
+        final MutableHashSet<Sha256Hash> scriptHashes = new MutableHashSet<>();
+        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+            final LockingScript lockingScript = transactionOutput.getLockingScript();
+            final Sha256Hash scriptHash = ScriptBuilder.computeScriptHash(lockingScript);
+            if (scriptHash == null) { continue; }
+
+            scriptHashes.add(scriptHash);
+        }
 
-            if (! cachedConnection.isConnected()) {
-                cachedConnection.superClose();
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final UnlockingScript unlockingScript = transactionInput.getUnlockingScript();
+
+            final Address address = scriptPatternMatcher.extractAddressFromPayToPublicKeyHash(unlockingScript);
+            if (address == null) {
+                if (unknownTransactionInputs != null) {
+                    unknownTransactionInputs.add(transactionInput);
+                }
                 continue;
             }
 
-            if (cachedConnection.getConnectionDuration() > _maxCachedConnectionLifespan) {
-                cachedConnection.superClose();
+            scriptHashes.add(ScriptBuilder.computeScriptHash(AddressType.P2PKH, address));
+        }
+
+        return scriptHashes;
+    }
+
+    /**
+     * Sends the new statuses to each connection subscribed to the script hash whose last known status differs.
+     */
+    protected void _notifyAddressStatuses(final MutableMap<Sha256Hash, Sha256Hash> addressStatuses) {
+        if (addressStatuses.isEmpty()) { return; }
+
+        final MutableList<ConnectionAddress> connectionAddresses = new MutableArrayList<>();
+        for (final Sha256Hash scriptHash : addressStatuses.getKeys()) {
+            connectionAddresses.addAll(_addressSubscriptions.getSubscriptions(scriptHash));
+        }
+
+        for (final ConnectionAddress connectionAddress : connectionAddresses) {
+            final JsonSocket jsonSocket = connectionAddress.connection;
+            if (! jsonSocket.isConnected()) {
+                connectionAddress.status = null;
                 continue;
             }
 
-            return cachedConnection;
-        }
+            final Sha256Hash addressStatus = addressStatuses.get(connectionAddress.subscriptionKey.scriptHash);
+            if (Util.areEqual(addressStatus, connectionAddress.status)) { continue; }
 
-        final String nodeHost = _electrumProperties.getBitcoinRpcUrl();
-        final Integer nodePort = _electrumProperties.getBitcoinRpcPort();
-        final CachedNodeJsonRpcConnection nodeConnection = new CachedNodeJsonRpcConnection(nodeHost, nodePort);
-        nodeConnection.enableKeepAlive(true);
-        nodeConnection.setOnCloseCallback(new Runnable() {
-            @Override
-            public void run() {
-                if ( (! nodeConnection.isConnected()) || (_cachedConnectionCount.get() >= _maxCachedConnectionCount) ) {
-                    nodeConnection.superClose();
-                    return;
-                }
+            connectionAddress.status = addressStatus;
+            Logger.debug("Updated Status: " + connectionAddress.subscriptionKey + " = " + addressStatus);
 
-                final Long ping = nodeConnection.ping();
-                if (ping == null) {
-                    nodeConnection.superClose();
-                    return;
-                }
+            if (connectionAddress.subscriptionKey.isScriptHash) {
+                _notifyScriptHashStatus(jsonSocket, connectionAddress.subscriptionKey, addressStatus);
+            }
+            else {
+                _notifyAddressStatus(jsonSocket, connectionAddress.subscriptionKey, addressStatus);
+            }
+        }
+    }
 
-                _cachedConnections.addLast(nodeConnection);
-                _cachedConnectionCount.getAndIncrement();
+    /**
+     * Updates the cached history of the subscribed script hashes affected by the new TransactionPositions.
+     *  Script hashes within recalculatedScriptHashes, or without a cached history, are recalculated from the node instead.
+     *  Each script hash's status is calculated once, regardless of its number of subscribed connections.
+     */
+    protected MutableMap<Sha256Hash, Sha256Hash> _updateAddressStatuses(final MutableMap<Sha256Hash, MutableList<TransactionPosition>> newTransactionPositions, final MutableHashSet<Sha256Hash> recalculatedScriptHashes) {
+        final MutableMap<Sha256Hash, Sha256Hash> addressStatuses = new MutableHashMap<>();
+
+        for (final Tuple<Sha256Hash, MutableList<TransactionPosition>> entry : newTransactionPositions) {
+            final Sha256Hash scriptHash = entry.first;
+            if (recalculatedScriptHashes.contains(scriptHash)) { continue; }
+
+            final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.addTransactionPositions(scriptHash, entry.second);
+            if (addressHistory == null) {
+                recalculatedScriptHashes.add(scriptHash);
+                continue;
             }
-        });
 
-        if (! nodeConnection.isConnected()) {
-            throw new RuntimeException("Unable to connect to node.");
+            addressStatuses.put(scriptHash, addressHistory.status);
+        }
+
+        for (final Sha256Hash scriptHash : recalculatedScriptHashes) {
+            final Sha256Hash addressStatus = _calculateAddressStatus(new AddressSubscriptionKey(scriptHash, null));
+            addressStatuses.put(scriptHash, addressStatus);
         }
 
-        return nodeConnection;
+        return addressStatuses;
     }
 
-    protected void _createNodeNotificationConnection() {
-        if (_nodeNotificationConnection != null) {
-            _nodeNotificationConnection.close();
-            _nodeNotificationConnection = null;
+    /**
+     * Re-queries the unconfirmed transactions within the cached histories after a new block, since the block may have
+     *  double-spent them (or they may have been evicted from the mempool), and mining their parents changes whether they
+     *  spend unconfirmed outputs.  The statuses of the affected script hashes are added to addressStatuses.
+     */
+    protected void _refreshUnconfirmedTransactionPositions(final MutableMap<Sha256Hash, Sha256Hash> addressStatuses) {
+        final MutableList<TransactionPosition> updatedTransactionPositions = new MutableArrayList<>();
+        final MutableList<Sha256Hash> removedTransactionHashes = new MutableArrayList<>();
+
+        for (final TransactionPosition cachedTransactionPosition : _addressHistoryCache.getUnconfirmedTransactionPositions()) {
+            final Sha256Hash transactionHash = cachedTransactionPosition.transactionHash;
+            _transactionPositionCache.remove(transactionHash);
+
+            final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
+            if (transactionPosition == null) {
+                removedTransactionHashes.add(transactionHash);
+                continue;
+            }
+
+            final boolean isUnchanged = ( transactionPosition.isUnconfirmedTransaction() && Util.areEqual(transactionPosition.hasUnconfirmedInputs, cachedTransactionPosition.hasUnconfirmedInputs) );
+            if (isUnchanged) { continue; }
+
+            updatedTransactionPositions.add(transactionPosition);
         }
 
-        final NodeJsonRpcConnection nodeJsonRpcConnection = _getNodeConnection();
-        _nodeNotificationConnection = nodeJsonRpcConnection;
+        if ( updatedTransactionPositions.isEmpty() && removedTransactionHashes.isEmpty() ) { return; }
 
-        nodeJsonRpcConnection.upgradeToAnnouncementHook(new NodeJsonRpcConnection.RawAnnouncementHookCallback() {
-            @Override
-            public void onNewBlockHeader(final BlockHeader blockHeader) {
-                _onNewHeader(blockHeader);
-            }
+        final MutableMap<Sha256Hash, AddressHistoryCache.AddressHistory> addressHistories = _addressHistoryCache.updateTransactionPositions(updatedTransactionPositions, removedTransactionHashes);
+        for (final Tuple<Sha256Hash, AddressHistoryCache.AddressHistory> entry : addressHistories) {
+            if (! _isSubscribed(entry.first)) { continue; }
 
-            @Override
-            public void onNewTransaction(final Transaction transaction, final Long fee) {
-                _onNewTransaction(transaction, fee);
-            }
+            addressStatuses.put(entry.first, entry.second.status);
+        }
+    }
 
-            @Override
-            public void onNewDoubleSpendProof(final DoubleSpendProof doubleSpendProofJson) {
-                // TODO
+    /**
+     * Returns the height of the first accumulated BlockHeader that is no longer within the node's chain, i.e. the first
+     *  block orphaned by a reorg, by walking the accumulated headers back until one is found at its accumulated height.
+     *  Must be invoked before the new BlockHeader is accumulated.
+     */
+    protected Long _getForkBlockHeight() {
+        _blockHeaderCacheReadLock.lock();
+        try {
+            final int blockHeaderCount = _blockHeaderMerkleAccumulator.getItemCount();
+            for (int blockHeight = (blockHeaderCount - 1); blockHeight >= 0; --blockHeight) {
+                final Sha256Hash blockHash = _blockHeaderMerkleAccumulator.getItem(blockHeight);
+                final Long nodeBlockHeight = _dataSource.getBlockHeight(blockHash);
+                if (Util.areEqual(nodeBlockHeight, (long) blockHeight)) {
+                    return (blockHeight + 1L);
+                }
             }
-        });
+            return 0L;
+        }
+        finally {
+            _blockHeaderCacheReadLock.unlock();
+        }
     }
 
     protected void _onNewHeader(final BlockHeader blockHeader) {
         final Sha256Hash blockHash = blockHeader.getHash();
 
-        final Long blockHeight;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json blockHeightJson = nodeConnection.getBlockHeaderHeight(blockHash);
-            blockHeight = blockHeightJson.getLong("blockHeight");
-        }
+        final Long blockHeight = _dataSource.getBlockHeight(blockHash);
+        if (blockHeight == null) { return; }
 
         Logger.debug("New Header: " + blockHash + " " + blockHeight);
 
+        // A new header that does not extend the last processed block indicates a reorg (which may be to a longer fork) or
+        //  missed announcements; either way, the cached positions and histories cannot be updated from this block alone.
+        final Sha256Hash previousProcessedBlockHash = _lastProcessedBlockHash.getAndSet(blockHash);
+        final boolean isReorg = ( (previousProcessedBlockHash != null) && (! Util.areEqual(previousProcessedBlockHash, blockHeader.getPreviousBlockHash())) && (! Util.areEqual(previousProcessedBlockHash, blockHash)) );
+        if (isReorg) {
+            final Long forkBlockHeight = Math.min(_getForkBlockHeight(), blockHeight);
+            _transactionPositionCache.rollback(forkBlockHeight); // The positions of transactions mined within the orphaned blocks are no longer valid...
+        }
+
+        _accumulateBlockHeader(blockHeader, blockHeight);
+
         for (final JsonSocket socket : _connections.getValues()) {
             _notifyBlockHeader(socket, blockHeader, blockHeight);
         }
 
-        // Invalidate cached transaction heights...
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final BlockInflater blockInflater = new BlockInflater();
-            final Json blockJson = nodeConnection.getBlock(blockHash, true);
-            final String blockHexString = blockJson.getString("block");
-
-            final Block block = blockInflater.fromBytes(ByteArray.fromHexString(blockHexString));
-            if (block == null) {
-                _cachedTransactionBlockHeights.clear();
-                Logger.info("Unable to inflate new block; clearing cache.");
+        if ( (! _addressSubscriptions.hasSubscriptions()) && (! isReorg) ) { // The statuses do not need to be updated, so only the block's transaction hashes are required...
+            final List<Sha256Hash> blockTransactionHashes = _dataSource.getBlockTransactionHashes(blockHash);
+            if (blockTransactionHashes != null) {
+                _transactionPositionCache.onBlockMined(blockHeight, blockTransactionHashes);
             }
             else {
-                for (final Transaction transaction : block.getTransactions()) {
-                    final Sha256Hash transactionHash = transaction.getHash();
-                    _cachedTransactionBlockHeights.remove(transactionHash);
-                }
+                _transactionPositionCache.clear();
             }
-
+            return;
         }
 
-        synchronized (_connectionAddresses) {
-            for (final Tuple<AddressSubscriptionKey, MutableLinkedList<ConnectionAddress>> entry : _connectionAddresses) {
-                for (final ConnectionAddress connectionAddress : entry.second) {
-                    final JsonSocket jsonSocket = connectionAddress.connection.get();
-                    final boolean isConnected = ((jsonSocket != null) && jsonSocket.isConnected());
-                    if (! isConnected) {
-                        connectionAddress.status = null;
-                        continue;
-                    }
+        final Block block = (isReorg ? null : _dataSource.getBlock(blockHash));
+        if ( (block == null) || isReorg ) {
+            // The cached histories may belong to an orphaned chain, so every subscription is recalculated (once per script hash).
+            { // Record the positions of the new block's transactions, since the block itself is not walked...
+                final List<Sha256Hash> blockTransactionHashes = _dataSource.getBlockTransactionHashes(blockHash);
+                if (blockTransactionHashes != null) {
+                    _transactionPositionCache.onBlockMined(blockHeight, blockTransactionHashes);
+                }
+                else {
+                    _transactionPositionCache.clear();
+                }
+            }
+            _addressHistoryCache.clear();
+            Logger.info((isReorg ? "Detected reorg (or missed blocks) at " + blockHeight : "Unable to inflate new block") + "; clearing cache.");
 
-                    Logger.trace(connectionAddress.subscriptionKey + " = " + connectionAddress.status);
+            final MutableHashSet<Sha256Hash> scriptHashes = new MutableHashSet<>();
+            scriptHashes.addAll(_addressSubscriptions.getScriptHashes());
 
-                    final Sha256Hash addressStatus = _calculateAddressStatus(connectionAddress.subscriptionKey);
-                    if (! Util.areEqual(addressStatus, connectionAddress.status)) {
-                        connectionAddress.status = addressStatus;
-                        Logger.debug("Updated Status: " + connectionAddress.subscriptionKey + " = " + connectionAddress.status);
+            final MutableMap<Sha256Hash, Sha256Hash> addressStatuses = _updateAddressStatuses(new MutableHashMap<>(), scriptHashes);
+            _notifyAddressStatuses(addressStatuses);
+            return;
+        }
 
-                        if (connectionAddress.subscriptionKey.isScriptHash) {
-                            _notifyScriptHashStatus(jsonSocket, connectionAddress.subscriptionKey, addressStatus);
-                        }
-                        else {
-                            _notifyAddressStatus(jsonSocket, connectionAddress.subscriptionKey, addressStatus);
-                        }
-                    }
-                }
+        final MutableMap<Sha256Hash, MutableList<TransactionPosition>> newTransactionPositions = new MutableHashMap<>();
+        final MutableHashSet<Sha256Hash> recalculatedScriptHashes = new MutableHashSet<>();
+
+        final List<Transaction> transactions = block.getTransactions();
+        {
+            final MutableList<Sha256Hash> blockTransactionHashes = new MutableArrayList<>(transactions.getCount());
+            for (final Transaction transaction : transactions) {
+                blockTransactionHashes.add(transaction.getHash());
             }
+            _transactionPositionCache.onBlockMined(blockHeight, blockTransactionHashes);
         }
-    }
 
-    protected void _onNewTransaction(final Transaction transaction, final Long nullableFee) {
-        final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
-        final AddressInflater addressInflater = new AddressInflater();
+        int transactionIndex = 0;
+        for (final Transaction transaction : transactions) {
+            final Sha256Hash transactionHash = transaction.getHash();
 
-        final MutableHashSet<Tuple<AddressType, Address>> matchedAddresses = new MutableHashSet<>();
-        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
-            final LockingScript lockingScript = transactionOutput.getLockingScript();
+            final MutableList<TransactionInput> unknownTransactionInputs = new MutableArrayList<>();
+            final MutableHashSet<Sha256Hash> scriptHashes = _getTransactionScriptHashes(transaction, unknownTransactionInputs);
+            scriptHashes.addAll(_addressHistoryCache.getScriptHashesContainingTransaction(transactionHash)); // Previously unconfirmed...
 
-            final ScriptType scriptType = scriptPatternMatcher.getScriptType(lockingScript);
-            if (scriptType == null) { continue; }
+            final TransactionPosition transactionPosition = new TransactionPosition(blockHeight, transactionIndex, false, transactionHash);
+            for (final Sha256Hash scriptHash : scriptHashes) {
+                if (! _isSubscribed(scriptHash)) { continue; }
 
-            final Address address = scriptPatternMatcher.extractAddress(scriptType, lockingScript);
-            if (address == null) { continue; }
+                MutableList<TransactionPosition> transactionPositions = newTransactionPositions.get(scriptHash);
+                if (transactionPositions == null) {
+                    transactionPositions = new MutableArrayList<>(1);
+                    newTransactionPositions.put(scriptHash, transactionPositions);
+                }
+                transactionPositions.add(transactionPosition);
+            }
+
+            // The spent output of a non-PayToPublicKeyHash input may belong to any script hash whose history contains the previous transaction...
+            for (final TransactionInput transactionInput : unknownTransactionInputs) {
+                final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+                for (final Sha256Hash scriptHash : _addressHistoryCache.getScriptHashesContainingTransaction(previousTransactionHash)) {
+                    if (scriptHashes.contains(scriptHash)) { continue; }
+                    if (! _isSubscribed(scriptHash)) { continue; }
 
-            final AddressType addressType = AddressType.fromScriptType(scriptType);
-            final AddressSubscriptionKey addressSubscriptionKey = new AddressSubscriptionKey(addressType, address, null);
-            synchronized (_connectionAddresses) {
-                final boolean addressIsConnected = _connectionAddresses.containsKey(addressSubscriptionKey);
-                if (addressIsConnected) {
-                    matchedAddresses.add(new Tuple<>(addressType, address));
+                    recalculatedScriptHashes.add(scriptHash);
                 }
             }
+
+            transactionIndex += 1;
         }
-        boolean allInputsWerePayToPublicKeyHash = true;
-        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
-            final UnlockingScript unlockingScript = transactionInput.getUnlockingScript();
 
-            final Address address = scriptPatternMatcher.extractAddressFromPayToPublicKeyHash(unlockingScript);
-            if (address == null) {
-                allInputsWerePayToPublicKeyHash = false;
-                continue;
-            }
+        final MutableMap<Sha256Hash, Sha256Hash> addressStatuses = _updateAddressStatuses(newTransactionPositions, recalculatedScriptHashes);
+        _refreshUnconfirmedTransactionPositions(addressStatuses);
+        _notifyAddressStatuses(addressStatuses);
+    }
 
-            final AddressSubscriptionKey addressSubscriptionKey = new AddressSubscriptionKey(AddressType.P2PKH, address, null);
-            synchronized (_connectionAddresses) {
-                final boolean addressIsConnected = _connectionAddresses.containsKey(addressSubscriptionKey);
-                if (addressIsConnected) {
-                    matchedAddresses.add(new Tuple<>(AddressType.P2PKH, address));
+    /**
+     * Returns the subscribed script hashes affected by the new Transaction.
+     *  If the node did not provide the Transaction's script hashes, then the locking scripts of the outputs spent by
+     *  non-PayToPublicKeyHash inputs are resolved from the node.
+     */
+    protected MutableHashSet<Sha256Hash> _getSubscribedScriptHashes(final Transaction transaction, final List<Sha256Hash> nullableScriptHashes) {
+        final MutableHashSet<Sha256Hash> matchedScriptHashes = new MutableHashSet<>();
+        if (nullableScriptHashes != null) {
+            for (final Sha256Hash scriptHash : nullableScriptHashes) {
+                if (_isSubscribed(scriptHash)) {
+                    matchedScriptHashes.add(scriptHash);
                 }
             }
+            return matchedScriptHashes;
         }
 
-        if (! allInputsWerePayToPublicKeyHash) {
-            final Sha256Hash transactionHash = transaction.getHash();
-            try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-                final Json getTransactionJson = nodeConnection.getTransaction(transactionHash, false);
-                if (getTransactionJson != null) {
-                    final Json transactionJson = getTransactionJson.get("transaction");
-                    final Json transactionInputsJson = transactionJson.get("inputs");
-                    for (int i = 0; i < transactionInputsJson.length(); ++i) {
-                        final Json transactionInputJson = transactionInputsJson.get(i);
-                        final String addressString = transactionInputJson.getString("address");
-
-                        final ParsedAddress address = addressInflater.fromBase58Check(addressString);
-                        if (address == null) { continue; }
-
-                        final AddressSubscriptionKey addressSubscriptionKey = new AddressSubscriptionKey(address, null);
-                        synchronized (_connectionAddresses) {
-                            final boolean addressIsConnected = _connectionAddresses.containsKey(addressSubscriptionKey);
-                            if (addressIsConnected) {
-                                matchedAddresses.add(new Tuple<>(address.getType(), address.getBytes()));
-                            }
-                        }
-                    }
-                }
+        final MutableList<TransactionInput> unknownTransactionInputs = new MutableArrayList<>();
+        for (final Sha256Hash scriptHash : _getTransactionScriptHashes(transaction, unknownTransactionInputs)) {
+            if (_isSubscribed(scriptHash)) {
+                matchedScriptHashes.add(scriptHash);
             }
         }
 
-        for (final Tuple<AddressType, Address> addressTuple : matchedAddresses) {
-            synchronized (_connectionAddresses) {
-                final List<ConnectionAddress> connectionAddresses = _connectionAddresses.get(new AddressSubscriptionKey(addressTuple.first, addressTuple.second, null));
-                for (final ConnectionAddress connectionAddress : connectionAddresses) {
-                    final JsonSocket jsonSocket = connectionAddress.connection.get();
-                    final boolean jsonSocketIsConnected = ((jsonSocket != null) && jsonSocket.isConnected());
-                    if (! jsonSocketIsConnected) { continue; }
+        for (final TransactionInput transactionInput : unknownTransactionInputs) { // Resolve the locking script of the spent output...
+            final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+            final Transaction previousTransaction = _dataSource.getTransaction(previousTransactionHash);
+            if (previousTransaction == null) { continue; }
 
-                    final Sha256Hash status = _calculateAddressStatus(connectionAddress.subscriptionKey);
-                    connectionAddress.status = status;
-                    Logger.debug("Updated Status: " + connectionAddress);
+            final TransactionOutput previousTransactionOutput = previousTransaction.getTransactionOutput(transactionInput.getPreviousOutputIndex());
+            if (previousTransactionOutput == null) { continue; }
 
-                    if (connectionAddress.subscriptionKey.isScriptHash) {
-                        _notifyScriptHashStatus(jsonSocket, connectionAddress.subscriptionKey, status);
-                    }
-                    else {
-                        _notifyAddressStatus(jsonSocket, connectionAddress.subscriptionKey, status);
-                    }
-                }
+            final Sha256Hash scriptHash = ScriptBuilder.computeScriptHash(previousTransactionOutput.getLockingScript());
+            if ( (scriptHash != null) && _isSubscribed(scriptHash) ) {
+                matchedScriptHashes.add(scriptHash);
             }
         }
+
+        return matchedScriptHashes;
+    }
+
+    protected void _onNewTransaction(final Transaction transaction, final Long nullableFee, final List<Sha256Hash> nullableScriptHashes) {
+        final Sha256Hash transactionHash = transaction.getHash();
+
+        final MutableHashSet<Sha256Hash> matchedScriptHashes = _getSubscribedScriptHashes(transaction, nullableScriptHashes);
+
+        if (matchedScriptHashes.isEmpty()) { return; }
+
+        final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
+        if (transactionPosition == null) { return; }
+
+        final MutableMap<Sha256Hash, MutableList<TransactionPosition>> newTransactionPositions = new MutableHashMap<>();
+        for (final Sha256Hash scriptHash : matchedScriptHashes) {
+            final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(1);
+            transactionPositions.add(transactionPosition);
+            newTransactionPositions.put(scriptHash, transactionPositions);
+        }
+
+        final MutableMap<Sha256Hash, Sha256Hash> addressStatuses = _updateAddressStatuses(newTransactionPositions, new MutableHashSet<>());
+        _notifyAddressStatuses(addressStatuses);
     }
 
     protected Long _readHeadersFromStream(final InputStream inputStream) throws IOException {
@@ -406,7 +536,7 @@ public class ElectrumModule {
             final BlockHeader blockHeader = blockHeaderInflater.fromBytes(buffer);
             if (blockHeader == null) { return headerCount; }
 
-            _cachedBlockHeaders.add(blockHeader);
+            _blockHeaderMerkleAccumulator.addItem(blockHeader.getHash());
             headerCount += 1L;
         }
     }
@@ -435,12 +565,10 @@ public class ElectrumModule {
             shouldWriteToHeadersFile = dataFileCreatedSuccessfully;
         }
 
-        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
         _blockHeaderCacheWriteLock.lock();
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json blockHeightJson = nodeConnection.getBlockHeight();
-            _chainHeight = blockHeightJson.getLong("blockHeight");
-            _cachedBlockHeaders.clear();
+        try {
+            _chainHeight = _dataSource.getHeadBlockHeight();
+            _blockHeaderMerkleAccumulator.clear();
 
             final long maxBlockHeight = Math.max(0L, _chainHeight - RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT);
             long blockHeight = 0L;
@@ -450,14 +578,13 @@ public class ElectrumModule {
 
             try (final BufferedOutputStream headersOutputStream = (shouldWriteToHeadersFile ? new BufferedOutputStream(new FileOutputStream(headersCacheFile, true)) : null)) {
                 while (blockHeight <= maxBlockHeight) {
-                    final Json blockHeadersJson = nodeConnection.getBlockHeadersAfter(blockHeight, RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT, true);
-                    final Json blockHeadersArray = blockHeadersJson.get("blockHeaders");
-                    final int blockHeaderCount = blockHeadersArray.length();
+                    final List<BlockHeader> blockHeaders = _dataSource.getBlockHeadersAfter(blockHeight, RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT);
+                    final int blockHeaderCount = ((blockHeaders != null) ? blockHeaders.getCount() : 0);
                     Logger.debug("Received " + blockHeaderCount + " headers, starting at: " + blockHeight + " max=" + maxBlockHeight);
-                    for (int i = 0; i < blockHeaderCount; ++i) {
-                        final String blockHeaderString = blockHeadersArray.getString(i);
-                        final BlockHeader blockHeader = blockHeaderInflater.fromBytes(ByteArray.fromHexString(blockHeaderString));
-                        _cachedBlockHeaders.add(blockHeader);
+                    if (blockHeaderCount < 1) { break; }
+
+                    for (final BlockHeader blockHeader : blockHeaders) {
+                        _blockHeaderMerkleAccumulator.addItem(blockHeader.getHash());
 
                         if (headersOutputStream != null) {
                             final ByteArray blockHeaderBytes = blockHeaderDeflater.toBytes(blockHeader);
@@ -474,6 +601,8 @@ public class ElectrumModule {
                     headersOutputStream.flush();
                 }
             }
+
+            _appendBlockHeaders(_chainHeight); // The most recent headers are not written to the headers file, since they may be reorged...
         }
         catch (final Exception exception) {
             Logger.debug(exception);
@@ -483,65 +612,115 @@ public class ElectrumModule {
         }
     }
 
-    protected MerkleTree<BlockHeader> _calculateBlockHeadersMerkle(final Long checkpointBlockHeight) {
-        final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+    /**
+     * Returns true if the blockHeader extends the BlockHeaders within _blockHeaderMerkleAccumulator.
+     *  _blockHeaderCacheReadLock or _blockHeaderCacheWriteLock must be held.
+     */
+    protected Boolean _isNextBlockHeader(final BlockHeader blockHeader) {
+        final int blockHeaderCount = _blockHeaderMerkleAccumulator.getItemCount();
+        if (blockHeaderCount == 0) { return true; }
 
-        final MutableMerkleTree<BlockHeader> blockHeaderMerkleTree = new MerkleTreeNode<>();
-        long blockHeight;
-        {
-            blockHeight = 0L;
-            _blockHeaderCacheReadLock.lock();
-            try {
-                while ( (blockHeight < _cachedBlockHeaders.getCount()) && (blockHeight <= checkpointBlockHeight) ) {
-                    final BlockHeader blockHeader = _cachedBlockHeaders.get((int) blockHeight);
-                    blockHeaderMerkleTree.addItem(blockHeader);
-                    blockHeight += 1L;
-                }
+        final Sha256Hash headBlockHash = _blockHeaderMerkleAccumulator.getItem(blockHeaderCount - 1);
+        return Util.areEqual(headBlockHash, blockHeader.getPreviousBlockHash());
+    }
+
+    /**
+     * Rewinds _blockHeaderMerkleAccumulator when the node's chain no longer contains its most recent BlockHeaders.
+     *  The fork point is not known, so MAX_BLOCK_HEADER_HASH_COUNT headers are removed; the removed headers are re-appended
+     *  when they are next required.
+     *  _blockHeaderCacheWriteLock must be held.
+     */
+    protected void _rewindBlockHeaders() {
+        final int blockHeaderCount = _blockHeaderMerkleAccumulator.getItemCount();
+        final int newBlockHeaderCount = Math.max(0, (blockHeaderCount - RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT));
+        Logger.debug("Rewinding header accumulator from " + blockHeaderCount + " to " + newBlockHeaderCount + " headers.");
+        _blockHeaderMerkleAccumulator.truncate(newBlockHeaderCount);
+    }
+
+    /**
+     * Appends the node's BlockHeaders to _blockHeaderMerkleAccumulator until it contains the header at maxBlockHeight.
+     *  _blockHeaderCacheWriteLock must be held.
+     */
+    protected void _appendBlockHeaders(final Long maxBlockHeight) {
+        while (_blockHeaderMerkleAccumulator.getItemCount() <= maxBlockHeight) {
+            final long blockHeight = _blockHeaderMerkleAccumulator.getItemCount();
+            final List<BlockHeader> blockHeaders = _dataSource.getBlockHeadersAfter(blockHeight, RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT);
+            final int blockHeaderCount = ((blockHeaders != null) ? blockHeaders.getCount() : 0);
+            Logger.debug("Received " + blockHeaderCount + " headers, starting at: " + blockHeight);
+            if (blockHeaderCount < 1) { break; }
+
+            if (! _isNextBlockHeader(blockHeaders.get(0))) {
+                _rewindBlockHeaders();
+                continue;
             }
-            finally {
-                _blockHeaderCacheReadLock.unlock();
+
+            for (final BlockHeader blockHeader : blockHeaders) {
+                _blockHeaderMerkleAccumulator.addItem(blockHeader.getHash());
             }
         }
+    }
 
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Long chainHeight;
-            {
-                final Json blockHeightJson = nodeConnection.getBlockHeight();
-                chainHeight = blockHeightJson.getLong("blockHeight");
+    /**
+     * Appends the new BlockHeader to _blockHeaderMerkleAccumulator, replacing any accumulated headers at or above its height.
+     */
+    protected void _accumulateBlockHeader(final BlockHeader blockHeader, final Long blockHeight) {
+        _blockHeaderCacheWriteLock.lock();
+        try {
+            if (blockHeight < _blockHeaderMerkleAccumulator.getItemCount()) {
+                _blockHeaderMerkleAccumulator.truncate(blockHeight.intValue());
             }
 
-            while ( (blockHeight <= chainHeight) && (blockHeight <= checkpointBlockHeight) ) {
-                final Json blockHeadersJson = nodeConnection.getBlockHeadersAfter(blockHeight, RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT, true);
-                final Json blockHeadersArray = blockHeadersJson.get("blockHeaders");
-                final int blockHeaderCount = blockHeadersArray.length();
-                Logger.debug("Received " + blockHeaderCount + " headers, starting at: " + blockHeight);
-                if (blockHeaderCount < 1) { break; }
+            if (blockHeight != _blockHeaderMerkleAccumulator.getItemCount()) { return; } // The missing headers are appended when next required...
 
-                for (int i = 0; i < blockHeaderCount; ++i) {
-                    final String blockHeaderString = blockHeadersArray.getString(i);
-                    final BlockHeader blockHeader = blockHeaderInflater.fromBytes(ByteArray.fromHexString(blockHeaderString));
-                    if (blockHeight <= checkpointBlockHeight) {
-                        blockHeaderMerkleTree.addItem(blockHeader);
-                    }
+            if (! _isNextBlockHeader(blockHeader)) {
+                _rewindBlockHeaders();
+                return;
+            }
 
-                    // Keep the cache up-to-date...
-                    if (blockHeight < (chainHeight - RequestBlockHeadersMessage.MAX_BLOCK_HEADER_HASH_COUNT)) {
-                        _blockHeaderCacheWriteLock.lock();
-                        try {
-                            _cachedBlockHeaders.add(blockHeader);
-                        }
-                        finally {
-                            _blockHeaderCacheWriteLock.unlock();
-                        }
-                    }
+            _blockHeaderMerkleAccumulator.addItem(blockHeader.getHash());
+        }
+        finally {
+            _blockHeaderCacheWriteLock.unlock();
+        }
+    }
 
-                    blockHeight += 1L;
-                }
+    /**
+     * Returns the merkle root of the BlockHeaders up to and including the checkpointBlockHeight, and the partial merkle
+     *  tree of the BlockHeader at the checkpointBlockHeight.
+     *  Headers not yet accumulated are first appended; if the node does not have the checkpoint header, the proof is for
+     *  the most recent header instead.
+     */
+    protected Tuple<MerkleRoot, List<Sha256Hash>> _calculateBlockHeadersMerkle(final Long checkpointBlockHeight) {
+        final int requiredBlockHeaderCount = (int) (checkpointBlockHeight + 1L);
+
+        _blockHeaderCacheReadLock.lock();
+        try {
+            if (_blockHeaderMerkleAccumulator.getItemCount() >= requiredBlockHeaderCount) {
+                final MerkleRoot merkleRoot = _blockHeaderMerkleAccumulator.getMerkleRoot(requiredBlockHeaderCount);
+                final List<Sha256Hash> partialMerkleTree = _blockHeaderMerkleAccumulator.getPartialTree(requiredBlockHeaderCount, (requiredBlockHeaderCount - 1));
+                return new Tuple<>(merkleRoot, partialMerkleTree);
             }
         }
+        finally {
+            _blockHeaderCacheReadLock.unlock();
+        }
 
-        Logger.trace("Calculated: " + blockHeaderMerkleTree.getMerkleRoot());
-        return blockHeaderMerkleTree;
+        _blockHeaderCacheWriteLock.lock();
+        try {
+            _appendBlockHeaders(checkpointBlockHeight);
+
+            final int blockHeaderCount = Math.min(requiredBlockHeaderCount, _blockHeaderMerkleAccumulator.getItemCount());
+            if (blockHeaderCount < 1) {
+                return new Tuple<>(null, new MutableArrayList<>(0));
+            }
+
+            final MerkleRoot merkleRoot = _blockHeaderMerkleAccumulator.getMerkleRoot(blockHeaderCount);
+            final List<Sha256Hash> partialMerkleTree = _blockHeaderMerkleAccumulator.getPartialTree(blockHeaderCount, (blockHeaderCount - 1));
+            return new Tuple<>(merkleRoot, partialMerkleTree);
+        }
+        finally {
+            _blockHeaderCacheWriteLock.unlock();
+        }
     }
 
     protected TlsCertificate _loadCertificate(final String certificateFile, final String certificateKeyFile) {
@@ -570,7 +749,7 @@ public class ElectrumModule {
 
         json.put("id", id);
         json.put("result", resultJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -583,7 +762,7 @@ public class ElectrumModule {
 
         json.put("id", id);
         json.put("result", ElectrumModule.BANNER);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -598,7 +777,7 @@ public class ElectrumModule {
 
         json.put("id", id);
         json.put("result", donationAddress);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -611,7 +790,7 @@ public class ElectrumModule {
 
         json.put("id", id);
         json.put("result", null);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -626,7 +805,7 @@ public class ElectrumModule {
 
         json.put("id", id);
         json.put("result", minRelayFee); // Float; in Bitcoins, not Satoshis...
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -646,7 +825,7 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", minRelayFee); // Float; in Bitcoins, not Satoshis...
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -666,10 +845,7 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("method", "blockchain.headers.subscribe");
         json.put("params", paramsJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
-        jsonSocket.flush();
-
-        _debugWriteMessage(jsonSocket, json);
+        _writeNotification(jsonSocket, json);
     }
 
     protected void _handleSubscribeBlockHeadersMessage(final JsonSocket jsonSocket, final Json message) {
@@ -677,21 +853,16 @@ public class ElectrumModule {
 
         final ByteArray blockHeaderBytes;
         final Long blockHeight;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
-
-            final Json blockHeadersJson = nodeConnection.getBlockHeadersBeforeHead(1, true);
-            final Json blockHeadersArray = blockHeadersJson.get("blockHeaders");
-            final String headerString = blockHeadersArray.getString(0);
-            blockHeaderBytes = ByteArray.fromHexString(headerString);
-            final BlockHeader blockHeader = blockHeaderInflater.fromBytes(blockHeaderBytes);
+        {
+            final BlockHeader blockHeader = _dataSource.getHeadBlockHeader();
             if (blockHeader == null) {
                 Logger.debug("Unable to get head block hash.");
                 return;
             }
 
-            final Json blockHeaderHeightJson = nodeConnection.getBlockHeaderHeight(blockHeader.getHash());
-            blockHeight = blockHeaderHeightJson.getLong("blockHeight");
+            final BlockHeaderDeflater blockHeaderDeflater = new BlockHeaderDeflater();
+            blockHeaderBytes = blockHeaderDeflater.toBytes(blockHeader);
+            blockHeight = _dataSource.getBlockHeight(blockHeader.getHash());
         }
 
         final Json blockHeaderJson = new ElectrumJson(false);
@@ -701,7 +872,7 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", blockHeaderJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -750,15 +921,16 @@ public class ElectrumModule {
     protected GetBlockHeadersResult _getBlockHeaders(final Long requestedBlockHeight, final Integer requestedBlockCount, final Long checkpointBlockHeight) {
         final int blockHeaderCount;
         final String concatenatedHeadersHexString;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json blockHeadersJson = nodeConnection.getBlockHeadersAfter(requestedBlockHeight, requestedBlockCount, true);
+        {
+            final BlockHeaderDeflater blockHeaderDeflater = new BlockHeaderDeflater();
+            final List<BlockHeader> blockHeaders = _dataSource.getBlockHeadersAfter(requestedBlockHeight, requestedBlockCount);
 
-            final Json blockHeadersArray = blockHeadersJson.get("blockHeaders");
-            blockHeaderCount = blockHeadersArray.length();
+            blockHeaderCount = ((blockHeaders != null) ? blockHeaders.getCount() : 0);
             final StringBuilder headerStringBuilder = new StringBuilder();
             for (int i = 0; i < blockHeaderCount; ++i) {
-                final String blockHeaderHexString = blockHeadersArray.getString(i);
-                headerStringBuilder.append(blockHeaderHexString.toLowerCase());
+                final BlockHeader blockHeader = blockHeaders.get(i);
+                final ByteArray blockHeaderBytes = blockHeaderDeflater.toBytes(blockHeader);
+                headerStringBuilder.append(blockHeaderBytes.toString().toLowerCase());
             }
 
             concatenatedHeadersHexString = headerStringBuilder.toString();
@@ -767,11 +939,9 @@ public class ElectrumModule {
         final MerkleRoot merkleRoot;
         final List<Sha256Hash> partialMerkleTree;
         if (checkpointBlockHeight > 0L) {
-            final MerkleTree<BlockHeader> blockHeaderMerkleTree = _calculateBlockHeadersMerkle(checkpointBlockHeight);
-            final int headerIndex = (blockHeaderMerkleTree.getItemCount() - 1);
-
-            merkleRoot = blockHeaderMerkleTree.getMerkleRoot();
-            partialMerkleTree = blockHeaderMerkleTree.getPartialTree(headerIndex);
+            final Tuple<MerkleRoot, List<Sha256Hash>> blockHeadersMerkle = _calculateBlockHeadersMerkle(checkpointBlockHeight);
+            merkleRoot = blockHeadersMerkle.first;
+            partialMerkleTree = blockHeadersMerkle.second;
         }
         else {
             merkleRoot = null;
@@ -793,22 +963,19 @@ public class ElectrumModule {
 
             if (transaction == null) {
                 final Json json = ElectrumModule.createErrorJson(id, "Invalid Transaction hex.", null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 _debugWriteMessage(jsonSocket, json);
                 return;
             }
         }
 
-        final Sha256Hash transactionHash;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            nodeConnection.submitTransaction(transaction);
-            transactionHash = transaction.getHash();
-        }
+        _dataSource.submitTransaction(transaction);
+        final Sha256Hash transactionHash = transaction.getHash();
 
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", transactionHash);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         _debugWriteMessage(jsonSocket, json);
         jsonSocket.flush();
     }
@@ -846,7 +1013,7 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", resultJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -884,7 +1051,7 @@ public class ElectrumModule {
             json.put("result", blockHeadersResult.blockHeadersHex); // Confirmed correct endian.
         }
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -902,7 +1069,7 @@ public class ElectrumModule {
             if (transactionHash == null) {
                 final String errorMessage = "Invalid Transaction Hash: " + transactionHashString;
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -912,7 +1079,7 @@ public class ElectrumModule {
             verboseFormat = parameters.getBoolean(1);
             if (verboseFormat) {
                 final Json json = ElectrumModule.createErrorJson(id, "Unsupported Get-Transaction mode.", null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -921,15 +1088,21 @@ public class ElectrumModule {
         }
 
         final String transactionHexString;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json transactionJson = nodeConnection.getTransaction(transactionHash, true);
-            final String transactionHexUppercaseString = transactionJson.getString("transaction");
-            transactionHexString = transactionHexUppercaseString.toLowerCase();
+        {
+            final Transaction transaction = _dataSource.getTransaction(transactionHash);
+            if (transaction != null) {
+                final TransactionDeflater transactionDeflater = new TransactionDeflater();
+                final ByteArray transactionBytes = transactionDeflater.toBytes(transaction);
+                transactionHexString = transactionBytes.toString().toLowerCase();
+            }
+            else {
+                transactionHexString = null;
+            }
         }
 
         if (Util.isBlank(transactionHexString)) {
             final Json json = ElectrumModule.createErrorJson(id, "Unable to load transaction.", null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -940,7 +1113,7 @@ public class ElectrumModule {
         json.put("id", id);
         json.put("result", transactionHexString);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -958,7 +1131,7 @@ public class ElectrumModule {
             if (transactionHash == null) {
                 final String errorMessage = "Invalid Transaction Hash: " + transactionHashString;
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -969,27 +1142,23 @@ public class ElectrumModule {
         }
 
         final Json resultJson = new ElectrumJson(false);
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json transactionBlockHeightJson = _getTransactionBlockHeight(transactionHash, nodeConnection);
-            final Long actualBlockHeight = transactionBlockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
-            final Integer transactionIndex = transactionBlockHeightJson.getOrNull("transactionIndex", Json.Types.INTEGER);
-            final Boolean hasUnconfirmedInputs = transactionBlockHeightJson.getBoolean("hasUnconfirmedInputs");
+        {
+            final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
+            final Long actualBlockHeight = ((transactionPosition != null) ? transactionPosition.blockHeight : null);
+            final Integer transactionIndex = ((transactionPosition != null) ? transactionPosition.transactionIndex : null);
 
-            if ( (actualBlockHeight == null) || (! Util.areEqual(actualBlockHeight, blockHeight))) {
+            final List<Sha256Hash> blockTransactionHashes = ((actualBlockHeight != null) ? _dataSource.getBlockTransactionHashes(blockHeight) : null);
+            if ( (actualBlockHeight == null) || (! Util.areEqual(actualBlockHeight, blockHeight)) || (blockTransactionHashes == null) || (transactionIndex == null) || (transactionIndex >= blockTransactionHashes.getCount()) ) {
                 final String errorMessage = "Transaction not found: " + transactionHash + ":" + blockHeight;
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
                 return;
             }
 
-            final BlockInflater blockInflater = new BlockInflater();
-            final Json blockJson = nodeConnection.getBlock(blockHeight, true);
-            final Block block = blockInflater.fromBytes(ByteArray.fromHexString(blockJson.getString("block")));
-
-            final List<Sha256Hash> partialMerkleTree = block.getPartialMerkleTree(transactionIndex);
+            final List<Sha256Hash> partialMerkleTree = ElectrumModule.calculatePartialMerkleTree(blockTransactionHashes, transactionIndex);
             final Json partialMerkleTreeJson = new ElectrumJson(true);
             for (final Sha256Hash item : partialMerkleTree) {
                 partialMerkleTreeJson.add(item);
@@ -1005,7 +1174,7 @@ public class ElectrumModule {
         json.put("result", resultJson);
 
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1024,7 +1193,7 @@ public class ElectrumModule {
             if (address == null) {
                 final String errorMessage = "Invalid address.";
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -1037,15 +1206,13 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", addressKey.scriptHash);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
     }
 
     protected void _handleGetTransactionFromBlockPositionMessage(final JsonSocket jsonSocket, final Json message) {
-        final BlockInflater blockInflater = new BlockInflater();
-
         final Object id = ElectrumModule.getRequestId(message);
         final Json paramsJson = message.get("params");
 
@@ -1060,7 +1227,7 @@ public class ElectrumModule {
             if ( (blockHash == null) || (transactionIndex < 0) ) {
                 final String errorMessage = "Invalid block position.";
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -1070,25 +1237,20 @@ public class ElectrumModule {
 
         final Sha256Hash transactionHash;
         final List<Sha256Hash> partialMerkleTree;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json blockJson = nodeConnection.getBlock(blockHash, true);
-            final Block block = blockInflater.fromBytes(ByteArray.fromHexString(blockJson.getString("block")));
-
-            final List<Transaction> transactions = block.getTransactions();
-            if (transactionIndex >= transactions.getCount()) {
+        {
+            final List<Sha256Hash> blockTransactionHashes = Util.coalesce(_dataSource.getBlockTransactionHashes(blockHash), new MutableArrayList<Sha256Hash>(0));
+            if (transactionIndex >= blockTransactionHashes.getCount()) {
                 final String errorMessage = "Invalid block position.";
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
                 return;
             }
 
-            final Transaction transaction = transactions.get(transactionIndex);
-
-            transactionHash = transaction.getHash();
-            partialMerkleTree = (includePartialMerkleTree ? block.getPartialMerkleTree(transactionIndex) : null);
+            transactionHash = blockTransactionHashes.get(transactionIndex);
+            partialMerkleTree = (includePartialMerkleTree ? ElectrumModule.calculatePartialMerkleTree(blockTransactionHashes, transactionIndex) : null);
         }
 
         final Json json = new ElectrumJson(false);
@@ -1111,7 +1273,7 @@ public class ElectrumModule {
             json.put("result", transactionHash);
         }
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1129,7 +1291,7 @@ public class ElectrumModule {
             if (transactionOutputIndex < 0) {
                 final String errorMessage = "Invalid transaction output.";
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -1141,52 +1303,29 @@ public class ElectrumModule {
         final Long blockHeight;
         final Sha256Hash scriptHash;
         final ParsedAddress address;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json getTransactionJson = nodeConnection.getTransaction(transactionHash, false);
-            final Json transactionJson = getTransactionJson.get("transaction");
-            final Json transactionOutputsJson = transactionJson.get("outputs");
-            if (transactionOutputIndex >= transactionOutputsJson.length()) {
+        {
+            final Transaction transaction = _dataSource.getTransaction(transactionHash);
+            final TransactionOutput transactionOutput = ((transaction != null) ? transaction.getTransactionOutput(transactionOutputIndex) : null);
+            if (transactionOutput == null) {
                 final String errorMessage = "Invalid outputIndex: " + transactionHash + ":" + transactionOutputIndex;
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
                 return;
             }
 
-            Long transactionBlockHeight = null;
-            final Json minedInBlocksJson = transactionJson.get("blocks");
-            if (minedInBlocksJson.length() > 0) {
-                for (int i = 0; i < minedInBlocksJson.length(); ++i) {
-                    final Sha256Hash blockHash = Sha256Hash.fromHexString(minedInBlocksJson.getString(i));
-                    final Json getBlockHeightJson = nodeConnection.getBlockHeaderHeight(blockHash);
-
-                    final boolean isConnectedToMainChain = (! getBlockHeightJson.getBoolean("isOrphan"));
-                    if (! isConnectedToMainChain) { continue; }
-
-                    final Long jsonBlockHeight = getBlockHeightJson.getLong("blockHeight");
-                    if ( (transactionBlockHeight == null) || (jsonBlockHeight >= transactionBlockHeight) ) {
-                        transactionBlockHeight = jsonBlockHeight;
-                    }
-                }
-            }
+            final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
 
             final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
-            final ScriptInflater scriptInflater = new ScriptInflater();
-            final Json transactionOutputJson = transactionOutputsJson.get(transactionOutputIndex);
-            final Json lockingScriptJson = transactionOutputJson.get("lockingScript");
-            final LockingScript lockingScript = LockingScript.castFrom(
-                scriptInflater.fromBytes(
-                    ByteArray.fromHexString(lockingScriptJson.getString("bytes"))
-                )
-            );
+            final LockingScript lockingScript = transactionOutput.getLockingScript();
             final ScriptType scriptType = scriptPatternMatcher.getScriptType(lockingScript);
 
-            final boolean hasCommitmentData = (transactionOutputJson.getOrNull("cashToken", Json.Types.JSON) != null);
+            final boolean hasCommitmentData = transactionOutput.hasCashToken();
 
-            amount = transactionOutputJson.getLong("amount");
-            blockHeight = transactionBlockHeight;
+            amount = transactionOutput.getAmount();
+            blockHeight = ((transactionPosition != null) ? transactionPosition.blockHeight : null);
 
             final Address addressBytes = scriptPatternMatcher.extractAddress(scriptType, lockingScript);
             address = new ParsedAddress(AddressType.fromScriptType(scriptType), hasCommitmentData, addressBytes);
@@ -1204,7 +1343,7 @@ public class ElectrumModule {
 
         json.put("result", resultJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1219,69 +1358,57 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", feeHistogramJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
     }
 
     protected Sha256Hash _getCachedAddressStatus(final AddressSubscriptionKey addressKey) {
-        synchronized (_connectionAddresses) {
-            final List<ConnectionAddress> connectionAddresses = _connectionAddresses.get(addressKey);
-            if (connectionAddresses == null) { return null; }
+        return _addressSubscriptions.getCachedStatus(addressKey.scriptHash);
+    }
 
-            for (final ConnectionAddress connectionAddress : connectionAddresses) {
-                final Sha256Hash status = connectionAddress.status;
-                if (status == null) { continue; }
+    /**
+     * Returns the TransactionPositions of the address's full history, or null if the history could not be loaded.
+     */
+    protected MutableList<TransactionPosition> _loadTransactionPositions(final Sha256Hash scriptHash) {
+        final List<Sha256Hash> transactionHashes = _dataSource.getAddressTransactionHashes(scriptHash);
+        if (transactionHashes == null) { return null; }
 
-                return status;
-            }
+        final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(transactionHashes.getCount());
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
+            if (transactionPosition == null) { continue; }
 
-            return null;
+            transactionPositions.add(transactionPosition);
         }
+        return transactionPositions;
     }
 
+    /**
+     * Calculates the status of the address from its full history, and replaces the address's cached history.
+     *  The history is only cached if the cached history was not written while it was being loaded (i.e. by a new block or
+     *  transaction); otherwise the history is reloaded, since it may have been loaded from an older chain tip.
+     */
     protected Sha256Hash _calculateAddressStatus(final AddressSubscriptionKey addressKey) {
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final MutableList<TransactionPosition> transactionPositions;
-            {
-                final Json addressTransaction = nodeConnection.getAddressTransactionHashes(addressKey.scriptHash);
-                final Json transactionsArray = addressTransaction.get("transactions");
-                final Integer transactionCount = transactionsArray.length();
-                if (transactionCount < 1) { return null; }
-
-                transactionPositions = new MutableArrayList<>(transactionCount);
-                for (int i = 0; i < transactionCount; ++i) {
-                    final Sha256Hash transactionHash;
-                    {
-                        final String transactionHashString = transactionsArray.getString(i);
-                        transactionHash = Sha256Hash.fromHexString(transactionHashString);
-                    }
+        final Sha256Hash scriptHash = addressKey.scriptHash;
 
-                    final Json transactionBlockHeightJson = _getTransactionBlockHeight(transactionHash, nodeConnection);
-                    final Long blockHeight = transactionBlockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
-                    final Integer transactionIndex = transactionBlockHeightJson.getOrNull("transactionIndex", Json.Types.INTEGER);
-                    final Boolean hasUnconfirmedInputs = transactionBlockHeightJson.getBoolean("hasUnconfirmedInputs");
+        MutableList<TransactionPosition> transactionPositions = null;
+        for (int attempt = 1; attempt <= MAX_ADDRESS_HISTORY_ATTEMPT_COUNT; ++attempt) {
+            final Long cacheVersion = _addressHistoryCache.getVersion(scriptHash);
 
-                    final TransactionPosition transactionPosition = new TransactionPosition(blockHeight, transactionIndex, hasUnconfirmedInputs, transactionHash);
-                    transactionPositions.add(transactionPosition);
-                }
-            }
-            transactionPositions.sort(TransactionPosition.COMPARATOR);
+            transactionPositions = _loadTransactionPositions(scriptHash);
+            if (transactionPositions == null) { return null; }
 
-            try {
-                final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-                for (final TransactionPosition transactionPosition : transactionPositions) {
-                    final String statusString = transactionPosition.toString();
-                    messageDigest.update(StringUtil.stringToBytes(statusString));
-                }
-                return Sha256Hash.wrap(messageDigest.digest());
-            }
-            catch (final Exception exception) {
-                Logger.debug(exception);
-                return null;
-            }
+            final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.setTransactionPositions(scriptHash, transactionPositions, cacheVersion);
+            if (addressHistory != null) { return addressHistory.status; }
+
+            Logger.debug("Address history changed while loading: " + scriptHash + " (Attempt " + attempt + " of " + MAX_ADDRESS_HISTORY_ATTEMPT_COUNT + ")");
         }
+
+        // The history is still changing, so its status is returned without replacing the newer cached history...
+        transactionPositions.sort(TransactionPosition.COMPARATOR);
+        return AddressHistoryCache.calculateStatus(transactionPositions);
     }
 
     protected void _notifyScriptHashStatus(final JsonSocket jsonSocket, final AddressSubscriptionKey addressKey, final Sha256Hash addressStatus) {
@@ -1294,10 +1421,7 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("method", "blockchain.scripthash.subscribe");
         json.put("params", responseJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
-        jsonSocket.flush();
-
-        _debugWriteMessage(jsonSocket, json);
+        _writeNotification(jsonSocket, json);
     }
 
     protected void _notifyAddressStatus(final JsonSocket jsonSocket, final AddressSubscriptionKey addressKey) {
@@ -1315,61 +1439,23 @@ public class ElectrumModule {
         final Json json = new ElectrumJson(false);
         json.put("method", "blockchain.address.subscribe");
         json.put("params", responseJson);
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
-        jsonSocket.flush();
-
-        _debugWriteMessage(jsonSocket, json);
+        _writeNotification(jsonSocket, json);
     }
 
-    protected void _addAddressSubscription(final AddressSubscriptionKey addressKey, final JsonSocket jsonSocket, final Sha256Hash addressStatus) {
-        synchronized (_connectionAddresses) {
-            final MutableLinkedList<ConnectionAddress> connectionAddresses;
-            if (_connectionAddresses.containsKey(addressKey)) {
-                connectionAddresses = _connectionAddresses.get(addressKey);
-            }
-            else {
-                connectionAddresses = new MutableLinkedList<>();
-                _connectionAddresses.put(addressKey, connectionAddresses);
-            }
-
-            { // Add the JsonSocket as a WeakReference if the set does not contain it...
-                boolean socketExists = false;
-                for (final ConnectionAddress connectionAddress : connectionAddresses) {
-                    if (addressStatus != null && (! Util.areEqual(connectionAddress.status, addressStatus))) {
-                        connectionAddress.status = addressStatus;
-                        Logger.debug("Updated Status: " + connectionAddress);
-                    }
-
-                    if (Util.areEqual(jsonSocket, connectionAddress.connection.get())) {
-                        socketExists = true;
-                    }
-                }
-
-                if (! socketExists) {
-                    final ConnectionAddress connectionAddress = new ConnectionAddress(addressKey, jsonSocket);
-                    connectionAddress.status = addressStatus;
-
-                    connectionAddresses.add(connectionAddress);
-                }
-            }
-        }
+    /**
+     * Returns false if the connection has reached its maximum number of subscriptions (or is being disconnected).
+     */
+    protected Boolean _addAddressSubscription(final AddressSubscriptionKey addressKey, final JsonSocket jsonSocket, final Sha256Hash addressStatus) {
+        return _addressSubscriptions.addSubscription(addressKey, jsonSocket, addressStatus);
     }
 
     protected Boolean _removeAddressSubscription(final AddressSubscriptionKey addressKey, final JsonSocket jsonSocket) {
-        synchronized (_connectionAddresses) {
-            final MutableList<ConnectionAddress> connectionAddresses = _connectionAddresses.get(addressKey);
-            if (connectionAddresses == null) { return false; }
-
-            final Iterator<ConnectionAddress> mutableIterator = connectionAddresses.mutableIterator();
-            while (mutableIterator.hasNext()) {
-                final ConnectionAddress connectionAddress = mutableIterator.next();
-                if (Util.areEqual(jsonSocket, connectionAddress.connection.get())) {
-                    mutableIterator.remove();
-                    return true;
-                }
-            }
+        return _addressSubscriptions.removeSubscription(addressKey.scriptHash, jsonSocket);
+    }
 
-            return false;
+    protected void _removeAddressHistories(final List<Sha256Hash> unsubscribedScriptHashes) {
+        for (final Sha256Hash scriptHash : unsubscribedScriptHashes) {
+            _addressHistoryCache.remove(scriptHash);
         }
     }
 
@@ -1382,7 +1468,7 @@ public class ElectrumModule {
         if (scriptHash == null) {
             final String errorMessage = "Invalid Address hash: " + addressHashString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1401,13 +1487,22 @@ public class ElectrumModule {
             }
         }
 
-        _addAddressSubscription(addressKey, jsonSocket, addressStatus);
+        final Boolean subscriptionWasAdded = _addAddressSubscription(addressKey, jsonSocket, addressStatus);
+        if (! subscriptionWasAdded) {
+            final String errorMessage = "Too many subscriptions.";
+            final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
+            jsonSocket.flush();
+
+            _debugWriteMessage(jsonSocket, json);
+            return;
+        }
 
         final Json json = new ElectrumJson(false);
         json.put("id", id);
         json.put("result", addressStatus);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1422,7 +1517,7 @@ public class ElectrumModule {
         if (scriptHash == null) {
             final String errorMessage = "Invalid Address hash: " + addressHashString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1437,7 +1532,7 @@ public class ElectrumModule {
             json.put("id", id);
             json.put("result", addressExisted);
 
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1455,7 +1550,7 @@ public class ElectrumModule {
         if (address == null) {
             final String errorMessage = "Invalid address: " + addressString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1474,14 +1569,23 @@ public class ElectrumModule {
             }
         }
 
-        _addAddressSubscription(addressKey, jsonSocket, addressStatus);
+        final Boolean subscriptionWasAdded = _addAddressSubscription(addressKey, jsonSocket, addressStatus);
+        if (! subscriptionWasAdded) {
+            final String errorMessage = "Too many subscriptions.";
+            final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
+            jsonSocket.flush();
+
+            _debugWriteMessage(jsonSocket, json);
+            return;
+        }
 
         {
             final Json json = new ElectrumJson(false);
             json.put("id", id);
             json.put("result", addressStatus);
 
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1489,13 +1593,8 @@ public class ElectrumModule {
     }
 
     protected void _handleGetBalanceMessage(final JsonSocket jsonSocket, final AddressSubscriptionKey addressKey, final Object requestId) {
-        final Long confirmedBalance;
-        final Long unconfirmedBalance;
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json balanceJson = nodeConnection.getAddressBalance(addressKey.scriptHash);
-            unconfirmedBalance = balanceJson.getLong("balance");
-            confirmedBalance = balanceJson.getLong("confirmedBalance");
-        }
+        final Long unconfirmedBalance = _dataSource.getAddressBalance(addressKey.scriptHash, true);
+        final Long confirmedBalance = _dataSource.getAddressBalance(addressKey.scriptHash, false);
 
         final Json balanceJson = new ElectrumJson(false);
         balanceJson.put("confirmed", confirmedBalance);
@@ -1505,7 +1604,7 @@ public class ElectrumModule {
         json.put("id", requestId);
         json.put("result", balanceJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1520,7 +1619,7 @@ public class ElectrumModule {
         if (scriptHash == null) {
             final String errorMessage = "Invalid Address hash: " + addressHashString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1542,7 +1641,7 @@ public class ElectrumModule {
         if (address == null) {
             final String errorMessage = "Invalid address: " + addressString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1564,7 +1663,7 @@ public class ElectrumModule {
         if (address == null) {
             final String errorMessage = "Invalid address: " + addressString;
             final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1579,7 +1678,7 @@ public class ElectrumModule {
             json.put("id", id);
             json.put("result", addressExisted);
 
-            jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+            _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
             jsonSocket.flush();
 
             _debugWriteMessage(jsonSocket, json);
@@ -1602,7 +1701,7 @@ public class ElectrumModule {
             if ((scriptHash == null) && (address == null)) {
                 final String errorMessage = "Invalid Address/Hash: " + addressString;
                 final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                 jsonSocket.flush();
 
                 _debugWriteMessage(jsonSocket, json);
@@ -1610,58 +1709,57 @@ public class ElectrumModule {
             }
         }
 
-        final Json resultJson = new ElectrumJson(true);
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json addressTransactionsJson;
-            if (address != null) {
-                addressTransactionsJson = nodeConnection.getAddressTransactionHashes(address);
-            }
-            else {
-                addressTransactionsJson = nodeConnection.getAddressTransactionHashes(scriptHash);
-            }
+        final Sha256Hash addressScriptHash = ((address != null) ? ScriptBuilder.computeScriptHash(address) : scriptHash);
+        final Long fromBlockHeight = (includeConfirmedTransactions ? 0L : Long.MAX_VALUE); // The unconfirmed Transactions are always within the final page...
 
-            final Json transactionsJson = addressTransactionsJson.get("transactions");
-            final int transactionCount = transactionsJson.length();
-            final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(transactionCount);
-            for (int i = 0; i < transactionCount; ++i) {
-                final String transactionHashString = transactionsJson.getString(i);
-                final Sha256Hash transactionHash = Sha256Hash.fromHexString(transactionHashString);
+        final AddressHistoryCursor addressHistoryCursor = _dataSource.getAddressHistoryCursor(addressScriptHash, fromBlockHeight);
+        List<AddressHistoryEntry> addressHistory = ((addressHistoryCursor != null) ? addressHistoryCursor.getNextPage(ElectrumModule.ADDRESS_HISTORY_PAGE_SIZE) : null);
+        if (addressHistory == null) {
+            addressHistory = new MutableArrayList<>(0);
+        }
 
-                final Json transactionBlockHeightJson = _getTransactionBlockHeight(transactionHash, nodeConnection);
-                final Long blockHeight = transactionBlockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
-                final Integer transactionIndex = transactionBlockHeightJson.getOrNull("transactionIndex", Json.Types.INTEGER);
-                final Boolean hasUnconfirmedInputs = transactionBlockHeightJson.getBoolean("hasUnconfirmedInputs");
+        // The history is written one page at a time, so very large histories are never held in memory in their entirety.
+        //  Each page is written while synchronized on the socket (by Socket::write), but the socket is not locked while the
+        //  subsequent page is loaded; the connection's other messages are deferred by the StreamedResponseGate until the response is complete instead...
+        if (! _streamedResponseGate.beginStreamedResponse(jsonSocket)) { return; }
+        try {
+            final ElectrumJsonArrayStreamWriter streamWriter = new ElectrumJsonArrayStreamWriter(jsonSocket, id);
+            streamWriter.begin();
 
-                final TransactionPosition transactionPosition = new TransactionPosition(blockHeight, transactionIndex, hasUnconfirmedInputs, transactionHash);
+            while (true) {
+                for (final AddressHistoryEntry addressHistoryEntry : addressHistory) {
+                    if (addressHistoryEntry.isUnconfirmedTransaction()) {
+                        if (! includeUnconfirmedTransactions) { continue; }
+                    }
+                    else {
+                        if (! includeConfirmedTransactions) { continue; }
+                    }
 
-                if ( transactionPosition.isUnconfirmedTransaction() && (! includeUnconfirmedTransactions) ) { continue; }
-                if ( (! transactionPosition.isUnconfirmedTransaction()) && (! includeConfirmedTransactions) ) { continue; }
+                    streamWriter.add(ElectrumModule.toAddressHistoryJson(addressHistoryEntry, includeTransactionFees));
+                }
+                streamWriter.flush();
 
-                transactionPositions.add(transactionPosition);
-            }
-            transactionPositions.sort(TransactionPosition.COMPARATOR);
+                final boolean isFinalPage = ( (addressHistoryCursor == null) || (! addressHistoryCursor.hasNextPage()) );
+                if (isFinalPage) { break; }
 
-            if (includeTransactionFees) {
-                for (final TransactionPosition transactionPosition : transactionPositions) {
-                    final Json getTransactionJson = nodeConnection.getTransaction(transactionPosition.transactionHash, false);
-                    final Json transactionJson = getTransactionJson.get("transaction");
-                    transactionPosition.transactionFee = transactionJson.getLong("fee");
+                addressHistory = addressHistoryCursor.getNextPage(ElectrumModule.ADDRESS_HISTORY_PAGE_SIZE);
+                if (addressHistory == null) {
+                    // The response cannot be completed (nor retracted), so the connection is closed rather than reporting a partial history.
+                    Logger.debug("Unable to load address history for " + addressScriptHash + "; closing " + jsonSocket + ".");
+                    jsonSocket.close();
+                    return;
                 }
             }
 
-            for (final TransactionPosition transactionPosition : transactionPositions) {
-                resultJson.add(transactionPosition);
+            streamWriter.end();
+
+            if (Logger.isDebugEnabled()) {
+                Logger.debug("[To " + jsonSocket + "] " + id + ": " + streamWriter.getItemCount() + " history items.");
             }
         }
-
-        final Json json = new ElectrumJson(false);
-        json.put("id", id);
-        json.put("result", resultJson);
-
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
-        jsonSocket.flush();
-
-        _debugWriteMessage(jsonSocket, json);
+        finally {
+            _streamedResponseGate.endStreamedResponse(jsonSocket);
+        }
     }
 
     protected void _handleGetUnspentOutputs(final JsonSocket jsonSocket, final Json message) {
@@ -1683,7 +1781,7 @@ public class ElectrumModule {
                 if (scriptHash == null) {
                     final String errorMessage = "Invalid Address/Hash: " + addressString;
                     final Json json = ElectrumModule.createErrorJson(id, errorMessage, null);
-                    jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+                    _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
                     jsonSocket.flush();
 
                     _debugWriteMessage(jsonSocket, json);
@@ -1693,42 +1791,36 @@ public class ElectrumModule {
         }
 
         final Json resultJson = new ElectrumJson(true);
-        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
-            final Json addressTransactionsJson;
-            if (address != null) {
-                addressTransactionsJson = nodeConnection.getAddressTransactions(address, false);
-            }
-            else {
-                addressTransactionsJson = nodeConnection.getAddressTransactions(scriptHash, false);
+        {
+            final List<Transaction> transactions = Util.coalesce(_dataSource.getAddressTransactions(scriptHash), new MutableArrayList<>(0));
+
+            // Every Transaction spending one of the script hash's outputs is also within the script hash's history...
+            final MutableHashSet<TransactionOutputIdentifier> spentTransactionOutputIdentifiers = new MutableHashSet<>();
+            for (final Transaction transaction : transactions) {
+                for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                    spentTransactionOutputIdentifiers.add(TransactionOutputIdentifier.fromTransactionInput(transactionInput));
+                }
             }
 
-            final Json transactionsJson = addressTransactionsJson.get("transactions");
-            final int transactionCount = transactionsJson.length();
-            final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(transactionCount);
+            final MutableList<TransactionPosition> transactionPositions = new MutableArrayList<>(transactions.getCount());
             final MutableMap<TransactionPosition, MutableList<Json>> transactionPositionJsons = new MutableHashMap<>();
-            for (int i = 0; i < transactionCount; ++i) {
-                final Json transactionJson = transactionsJson.get(i);
-                final Sha256Hash transactionHash = Sha256Hash.fromHexString(transactionJson.getString("hash"));
+            for (final Transaction transaction : transactions) {
+                final Sha256Hash transactionHash = transaction.getHash();
 
-                final Json transactionBlockHeightJson = _getTransactionBlockHeight(transactionHash, nodeConnection);
-                final Long blockHeight = transactionBlockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
-                final Integer transactionIndex = transactionBlockHeightJson.getOrNull("transactionIndex", Json.Types.INTEGER);
-                final Boolean hasUnconfirmedInputs = transactionBlockHeightJson.getBoolean("hasUnconfirmedInputs");
-
-                final TransactionPosition transactionPosition = new TransactionPosition(blockHeight, transactionIndex, hasUnconfirmedInputs, transactionHash);
+                final TransactionPosition transactionPosition = _getTransactionPosition(transactionHash);
+                if (transactionPosition == null) { continue; }
                 transactionPositions.add(transactionPosition);
 
-                final Json transactionOutputsJson = transactionJson.get("outputs");
-                final int transactionOutputCount = transactionOutputsJson.length();
+                final List<TransactionOutput> transactionOutputs = transaction.getTransactionOutputs();
+                final int transactionOutputCount = transactionOutputs.getCount();
                 for (int outputIndex = 0; outputIndex < transactionOutputCount; ++outputIndex) {
-                    final Json transactionOutputJson = transactionOutputsJson.get(outputIndex);
-                    final Long amount = transactionOutputJson.getLong("amount");
-                    final Sha256Hash spentByTransaction = Sha256Hash.fromHexString(transactionOutputJson.getOrNull("spentByTransaction", Json.Types.STRING));
-                    final Sha256Hash transactionOutputScriptHash = Sha256Hash.fromHexString(transactionOutputJson.getOrNull("scriptHash", Json.Types.STRING));
+                    final TransactionOutput transactionOutput = transactionOutputs.get(outputIndex);
+                    final Long amount = transactionOutput.getAmount();
+                    final Sha256Hash transactionOutputScriptHash = ScriptBuilder.computeScriptHash(transactionOutput.getLockingScript());
 
                     if (! Util.areEqual(scriptHash, transactionOutputScriptHash)) { continue; }
 
-                    final boolean isUnspent = (spentByTransaction == null);
+                    final boolean isUnspent = (! spentTransactionOutputIdentifiers.contains(new TransactionOutputIdentifier(transactionHash, outputIndex)));
                     if (! isUnspent) { continue; }
 
                     final Json json = transactionPosition.toJson();
@@ -1761,7 +1853,7 @@ public class ElectrumModule {
         json.put("id", id);
         json.put("result", resultJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1777,7 +1869,7 @@ public class ElectrumModule {
         json.put("id", id);
         json.put("result", peerListJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1790,7 +1882,7 @@ public class ElectrumModule {
         json.put("id", id);
         json.put("result", true); // P2P unsupported.
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1805,7 +1897,7 @@ public class ElectrumModule {
         json.put("id", id);
         json.put("result", resultJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1824,7 +1916,7 @@ public class ElectrumModule {
         json.put("method", "server.add_peer");
         json.put("params", paramsJson);
 
-        jsonSocket.write(new ElectrumJsonProtocolMessage(json));
+        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(json));
         jsonSocket.flush();
 
         _debugWriteMessage(jsonSocket, json);
@@ -1991,7 +2083,7 @@ public class ElectrumModule {
                         final Object requestId = ElectrumModule.getRequestId(json);
 
                         final Json errorJson = ElectrumModule.createErrorJson(requestId, "Internal error.", null);
-                        jsonSocket.write(new ElectrumJsonProtocolMessage(errorJson));
+                        _streamedResponseGate.write(jsonSocket, new ElectrumJsonProtocolMessage(errorJson));
 
                         _debugWriteMessage(jsonSocket, errorJson);
                     }
@@ -2030,6 +2122,9 @@ public class ElectrumModule {
         Logger.info("Electrum Socket Disconnected: " + jsonSocket);
         _connections.remove(socketId);
 
+        final List<Sha256Hash> unsubscribedScriptHashes = _addressSubscriptions.removeConnection(jsonSocket);
+        _removeAddressHistories(unsubscribedScriptHashes);
+
         synchronized (_workerThreads) {
             final WorkerThread workerThread = _workerThreads.get(ip);
             if (workerThread != null) {
@@ -2043,7 +2138,13 @@ public class ElectrumModule {
     }
 
     public ElectrumModule(final ElectrumProperties electrumProperties) {
+        this(electrumProperties, new RpcElectrumDataSource(electrumProperties.getBitcoinRpcUrl(), electrumProperties.getBitcoinRpcPort()));
+    }
+
+    public ElectrumModule(final ElectrumProperties electrumProperties, final ElectrumDataSource dataSource) {
         _electrumProperties = electrumProperties;
+        _dataSource = dataSource;
+        _addressSubscriptions = new AddressSubscriptionRegistry(Util.coalesce(electrumProperties.getMaxSubscriptionCountPerConnection(), ElectrumProperties.MAX_SUBSCRIPTION_COUNT_PER_CONNECTION));
 
         {
             final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -2090,65 +2191,13 @@ public class ElectrumModule {
                     iterationsSinceAddressCleanup += 1;
 
                     if (iterationsSinceAddressCleanup >= 20) {
-                        synchronized (_connectionAddresses) {
-                            final MutableHashSet<AddressSubscriptionKey> connectionsToRemove = new MutableHashSet<>();
-                            for (final Tuple<AddressSubscriptionKey, MutableLinkedList<ConnectionAddress>> entry : _connectionAddresses) {
-                                boolean queueHasActiveSocket = false;
-
-                                final AddressSubscriptionKey addressSubscriptionKey = entry.first;
-                                final MutableList<ConnectionAddress> connectionAddresses = entry.second;
-                                final Iterator<ConnectionAddress> mutableIterator = connectionAddresses.mutableIterator();
-                                while (mutableIterator.hasNext()) {
-                                    final ConnectionAddress connectionAddress = mutableIterator.next();
-
-                                    final JsonSocket jsonSocket = connectionAddress.connection.get();
-                                    final boolean jsonSocketIsConnected = ( (jsonSocket != null) && jsonSocket.isConnected() );
-
-                                    if (! jsonSocketIsConnected) {
-                                        mutableIterator.remove();
-                                    }
-                                    else {
-                                        queueHasActiveSocket = true;
-                                    }
-                                }
-
-                                if (! queueHasActiveSocket) {
-                                    connectionsToRemove.add(addressSubscriptionKey);
-                                }
-                            }
-
-                            for (final AddressSubscriptionKey addressSubscriptionKey : connectionsToRemove) {
-                                _connectionAddresses.remove(addressSubscriptionKey);
-                            }
-                        }
+                        final List<Sha256Hash> unsubscribedScriptHashes = _addressSubscriptions.removeDisconnectedConnections();
+                        _removeAddressHistories(unsubscribedScriptHashes);
 
                         iterationsSinceAddressCleanup = 0;
                     }
 
-                    if ( (_nodeNotificationConnection == null) || (! _nodeNotificationConnection.isConnected()) ) {
-                        _createNodeNotificationConnection();
-                    }
-
-                    while (true) { // Attempt to serve a cached connection...
-                        final CachedNodeJsonRpcConnection cachedConnection = _cachedConnections.pollFirst();
-                        if (cachedConnection == null) { break; }
-                        _cachedConnectionCount.getAndDecrement();
-
-                        if (! cachedConnection.isConnected()) {
-                            cachedConnection.superClose();
-                            continue;
-                        }
-
-                        if (cachedConnection.getConnectionDuration() > _maxCachedConnectionLifespan) {
-                            cachedConnection.superClose();
-                            continue;
-                        }
-
-                        if (_cachedConnectionCount.get() < _maxCachedConnectionCount) {
-                            _cachedConnections.addLast(cachedConnection);
-                            _cachedConnectionCount.getAndDecrement();
-                        }
-                    }
+                    _dataSource.performMaintenance();
                 }
             }
         });
@@ -2170,7 +2219,17 @@ public class ElectrumModule {
         _requestBooster.start();
 
         _cacheBlockHeaders();
-        _createNodeNotificationConnection();
+        _dataSource.subscribeToAnnouncements(new ElectrumDataSource.AnnouncementCallback() {
+            @Override
+            public void onNewBlockHeader(final BlockHeader blockHeader) {
+                _onNewHeader(blockHeader);
+            }
+
+            @Override
+            public void onNewTransaction(final Transaction transaction, final Long fee, final List<Sha256Hash> scriptHashes) {
+                _onNewTransaction(transaction, fee, scriptHashes);
+            }
+        });
 
         _electrumServerSocket.start();
 
@@ -2184,7 +2243,7 @@ public class ElectrumModule {
         _maintenanceThread.start();
 
         while (! mainThread.isInterrupted()) {
-            try { Thread.sleep(10000L); } catch (final Exception exception) { }
+            try { Thread.sleep(10000L); } catch (final InterruptedException exception) { break; }
         }
 
         _electrumServerSocket.stop();
@@ -2200,10 +2259,7 @@ public class ElectrumModule {
         }
         catch (final Exception exception) { }
 
-        if (_nodeNotificationConnection != null) {
-            _nodeNotificationConnection.close();
-            _nodeNotificationConnection = null;
-        }
+        _dataSource.close();
 
         _requestBooster.stop();
     }
@@ -0,0 +1,180 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+/**
+ * Provides the ElectrumModule's data directly from the node's components when the ElectrumModule runs within the node's
+ *  process, which avoids serializing every query (and every announced block/transaction) through the JSON RPC port.
+ *  The hosting node is responsible for forwarding its announcements via NodeElectrumDataSource::onNewBlockHeader and
+ *  NodeElectrumDataSource::onNewTransaction.
+ */
+public class NodeElectrumDataSource implements ElectrumDataSource {
+    protected final NodeRpcHandler.DataHandler _dataHandler;
+    protected final NodeRpcHandler.QueryAddressHandler _queryAddressHandler;
+
+    protected volatile AnnouncementCallback _announcementCallback;
+
+    public NodeElectrumDataSource(final NodeRpcHandler.DataHandler dataHandler, final NodeRpcHandler.QueryAddressHandler queryAddressHandler) {
+        _dataHandler = dataHandler;
+        _queryAddressHandler = queryAddressHandler;
+    }
+
+    @Override
+    public Long getHeadBlockHeight() {
+        return _dataHandler.getBlockHeight();
+    }
+
+    @Override
+    public BlockHeader getHeadBlockHeader() {
+        final Long blockHeaderHeight = _dataHandler.getBlockHeaderHeight();
+        if (blockHeaderHeight == null) { return null; }
+
+        return _dataHandler.getBlockHeader(blockHeaderHeight);
+    }
+
+    @Override
+    public Long getBlockHeight(final Sha256Hash blockHash) {
+        return _dataHandler.getBlockHeaderHeight(blockHash);
+    }
+
+    @Override
+    public List<BlockHeader> getBlockHeadersAfter(final Long blockHeight, final Integer maxBlockCount) {
+        return _dataHandler.getBlockHeaders(blockHeight, maxBlockCount, NodeRpcHandler.DataHandler.Direction.AFTER);
+    }
+
+    @Override
+    public Block getBlock(final Sha256Hash blockHash) {
+        return _dataHandler.getBlock(blockHash);
+    }
+
+    @Override
+    public Block getBlock(final Long blockHeight) {
+        return _dataHandler.getBlock(blockHeight);
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Sha256Hash blockHash) {
+        return _dataHandler.getBlockTransactionHashes(blockHash);
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Long blockHeight) {
+        return _dataHandler.getBlockTransactionHashes(blockHeight);
+    }
+
+    @Override
+    public Transaction getTransaction(final Sha256Hash transactionHash) {
+        return _dataHandler.getTransaction(transactionHash);
+    }
+
+    @Override
+    public TransactionPosition getTransactionPosition(final Sha256Hash transactionHash) {
+        final Sha256Hash blockHash = _dataHandler.getTransactionBlockHash(transactionHash);
+        final Long blockHeight = ((blockHash != null) ? _dataHandler.getBlockHeaderHeight(blockHash) : null);
+        final Integer transactionIndex = _dataHandler.getTransactionBlockIndex(transactionHash);
+        final Boolean hasUnconfirmedInputs = _dataHandler.hasUnconfirmedInputs(transactionHash);
+        if ( (blockHeight == null) && (hasUnconfirmedInputs == null) ) { return null; } // The transaction is neither mined nor within the mempool.
+
+        return new TransactionPosition(blockHeight, transactionIndex, hasUnconfirmedInputs, transactionHash);
+    }
+
+    @Override
+    public Long getTransactionFee(final Sha256Hash transactionHash) {
+        final Transaction transaction = _dataHandler.getTransaction(transactionHash);
+        if (transaction == null) { return null; }
+        if (Transaction.isCoinbaseTransaction(transaction)) { return 0L; }
+
+        long totalInputValue = 0L;
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+            final Transaction previousTransaction = _dataHandler.getTransaction(previousTransactionHash);
+            if (previousTransaction == null) { return null; }
+
+            final List<TransactionOutput> previousTransactionOutputs = previousTransaction.getTransactionOutputs();
+            final Integer previousOutputIndex = transactionInput.getPreviousOutputIndex();
+            if (previousOutputIndex >= previousTransactionOutputs.getCount()) { return null; }
+
+            final TransactionOutput previousTransactionOutput = previousTransactionOutputs.get(previousOutputIndex);
+            totalInputValue += previousTransactionOutput.getAmount();
+        }
+
+        final Long totalOutputValue = transaction.getTotalOutputValue();
+        return (totalInputValue - totalOutputValue);
+    }
+
+    @Override
+    public List<Sha256Hash> getAddressTransactionHashes(final Sha256Hash scriptHash) {
+        return _queryAddressHandler.getAddressTransactionHashes(scriptHash);
+    }
+
+    @Override
+    public List<Transaction> getAddressTransactions(final Sha256Hash scriptHash) {
+        return _queryAddressHandler.getAddressTransactions(scriptHash);
+    }
+
+    @Override
+    public List<AddressHistoryEntry> getAddressHistory(final Sha256Hash scriptHash, final Long fromBlockHeight, final Integer maxTransactionCount) {
+        return _queryAddressHandler.getAddressHistory(scriptHash, fromBlockHeight, maxTransactionCount);
+    }
+
+    @Override
+    public AddressHistoryCursor getAddressHistoryCursor(final Sha256Hash scriptHash, final Long fromBlockHeight) {
+        return _queryAddressHandler.getAddressHistoryCursor(scriptHash, fromBlockHeight);
+    }
+
+    @Override
+    public Long getAddressBalance(final Sha256Hash scriptHash, final Boolean includeUnconfirmedTransactions) {
+        return _queryAddressHandler.getBalance(scriptHash, includeUnconfirmedTransactions);
+    }
+
+    @Override
+    public Boolean submitTransaction(final Transaction transaction) {
+        _dataHandler.submitTransaction(transaction);
+        return true;
+    }
+
+    @Override
+    public void subscribeToAnnouncements(final AnnouncementCallback announcementCallback) {
+        _announcementCallback = announcementCallback;
+    }
+
+    /**
+     * Invoked by the hosting node when a new block header has been accepted.
+     */
+    public void onNewBlockHeader(final BlockHeader blockHeader) {
+        final AnnouncementCallback announcementCallback = _announcementCallback;
+        if (announcementCallback == null) { return; }
+
+        announcementCallback.onNewBlockHeader(blockHeader);
+    }
+
+    /**
+     * Invoked by the hosting node when a new transaction has been accepted into the mempool.
+     */
+    public void onNewTransaction(final TransactionWithFee transactionWithFee) {
+        final AnnouncementCallback announcementCallback = _announcementCallback;
+        if (announcementCallback == null) { return; }
+
+        announcementCallback.onNewTransaction(transactionWithFee.transaction, transactionWithFee.transactionFee, transactionWithFee.scriptHashes);
+    }
+
+    @Override
+    public void performMaintenance() {
+        // Nothing.
+    }
+
+    @Override
+    public void close() {
+        _announcementCallback = null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+/**
+ * An AddressHistoryCursor that requests each page via ElectrumDataSource::getAddressHistory, beginning each subsequent
+ *  page after the previous page's final block.
+ */
+public class PagedAddressHistoryCursor implements AddressHistoryCursor {
+    protected final ElectrumDataSource _dataSource;
+    protected final Sha256Hash _scriptHash;
+    protected Long _nextBlockHeight;
+    protected boolean _isFinished = false;
+
+    public PagedAddressHistoryCursor(final ElectrumDataSource dataSource, final Sha256Hash scriptHash, final Long fromBlockHeight) {
+        _dataSource = dataSource;
+        _scriptHash = scriptHash;
+        _nextBlockHeight = fromBlockHeight;
+    }
+
+    @Override
+    public List<AddressHistoryEntry> getNextPage(final Integer maxTransactionCount) {
+        if (_isFinished) { return new MutableArrayList<>(0); }
+
+        final List<AddressHistoryEntry> addressHistory = _dataSource.getAddressHistory(_scriptHash, _nextBlockHeight, maxTransactionCount);
+        if (addressHistory == null) { return null; }
+
+        Long lastBlockHeight = null;
+        boolean includesUnconfirmedTransactions = false;
+        for (final AddressHistoryEntry addressHistoryEntry : addressHistory) {
+            if (addressHistoryEntry.isUnconfirmedTransaction()) {
+                includesUnconfirmedTransactions = true;
+            }
+            else {
+                lastBlockHeight = addressHistoryEntry.blockHeight;
+            }
+        }
+
+        _isFinished = (includesUnconfirmedTransactions || (lastBlockHeight == null) || (addressHistory.getCount() < maxTransactionCount));
+        if (! _isFinished) {
+            _nextBlockHeight = (lastBlockHeight + 1L);
+        }
+
+        return addressHistory;
+    }
+
+    @Override
+    public Boolean hasNextPage() {
+        return (! _isFinished);
+    }
+}
@@ -0,0 +1,351 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnection;
+import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnectionPool;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionInflater;
+import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+import com.softwareverde.logging.Logger;
+
+
+/**
+ * Provides the ElectrumModule's data from a (possibly remote) node via its JSON RPC port.
+ *  Connections are pooled and reused via a NodeJsonRpcConnectionPool.
+ */
+public class RpcElectrumDataSource implements ElectrumDataSource {
+    protected final String _nodeHost;
+    protected final Integer _nodePort;
+
+    protected final NodeJsonRpcConnectionPool _nodeConnectionPool;
+
+    protected volatile AnnouncementCallback _announcementCallback;
+    protected NodeJsonRpcConnection _nodeNotificationConnection;
+
+    protected NodeJsonRpcConnection _getNodeConnection() {
+        final NodeJsonRpcConnection nodeConnection = _nodeConnectionPool.getConnection();
+        if (nodeConnection == null) {
+            throw new RuntimeException("Unable to connect to node.");
+        }
+
+        return nodeConnection;
+    }
+
+    protected synchronized void _createNodeNotificationConnection() {
+        final AnnouncementCallback announcementCallback = _announcementCallback;
+        if (announcementCallback == null) { return; }
+
+        if (_nodeNotificationConnection != null) {
+            _nodeNotificationConnection.close();
+            _nodeNotificationConnection = null;
+        }
+
+        final NodeJsonRpcConnection nodeJsonRpcConnection = _getNodeConnection();
+        _nodeNotificationConnection = nodeJsonRpcConnection;
+
+        nodeJsonRpcConnection.upgradeToAnnouncementHook(new NodeJsonRpcConnection.RawAnnouncementHookCallback() {
+            @Override
+            public void onNewBlockHeader(final BlockHeader blockHeader) {
+                announcementCallback.onNewBlockHeader(blockHeader);
+            }
+
+            @Override
+            public void onNewTransaction(final Transaction transaction, final Long fee, final List<Sha256Hash> scriptHashes) {
+                announcementCallback.onNewTransaction(transaction, fee, scriptHashes);
+            }
+
+            @Override
+            public void onNewDoubleSpendProof(final DoubleSpendProof doubleSpendProofJson) {
+                // TODO
+            }
+        });
+    }
+
+    protected static Boolean _wasSuccess(final Json json) {
+        if (json == null) { return false; }
+        return json.getBoolean("wasSuccess");
+    }
+
+    /**
+     * Returns the block's transaction hashes from the node's BLOCK_TRANSACTION_HASHES response, or null if the response is
+     *  incomplete; since the hashes' positions are significant, an unparsable hash invalidates the whole list.
+     */
+    protected static List<Sha256Hash> _parseBlockTransactionHashes(final Json blockTransactionHashesJson) {
+        if (! _wasSuccess(blockTransactionHashesJson)) { return null; }
+
+        final Json transactionHashesJson = blockTransactionHashesJson.get("transactionHashes");
+        final int transactionCount = transactionHashesJson.length();
+
+        final MutableList<Sha256Hash> transactionHashes = new MutableArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; ++i) {
+            final Sha256Hash transactionHash = Sha256Hash.fromHexString(transactionHashesJson.getString(i));
+            if (transactionHash == null) { return null; }
+
+            transactionHashes.add(transactionHash);
+        }
+        return transactionHashes;
+    }
+
+    public RpcElectrumDataSource(final String nodeHost, final Integer nodePort) {
+        _nodeHost = nodeHost;
+        _nodePort = nodePort;
+        _nodeConnectionPool = new NodeJsonRpcConnectionPool(nodeHost, nodePort);
+    }
+
+    @Override
+    public Long getHeadBlockHeight() {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json blockHeightJson = nodeConnection.getBlockHeight();
+            if (! _wasSuccess(blockHeightJson)) { return null; }
+
+            return blockHeightJson.getLong("blockHeight");
+        }
+    }
+
+    @Override
+    public BlockHeader getHeadBlockHeader() {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json blockHeadersJson = nodeConnection.getBlockHeadersBeforeHead(1, true);
+            if (! _wasSuccess(blockHeadersJson)) { return null; }
+
+            final Json blockHeadersArray = blockHeadersJson.get("blockHeaders");
+            if (blockHeadersArray.length() < 1) { return null; }
+
+            final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+            final String headerString = blockHeadersArray.getString(0);
+            return blockHeaderInflater.fromBytes(ByteArray.fromHexString(headerString));
+        }
+    }
+
+    @Override
+    public Long getBlockHeight(final Sha256Hash blockHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json blockHeightJson = nodeConnection.getBlockHeaderHeight(blockHash);
+            if (! _wasSuccess(blockHeightJson)) { return null; }
+
+            return blockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
+        }
+    }
+
+    @Override
+    public List<BlockHeader> getBlockHeadersAfter(final Long blockHeight, final Integer maxBlockCount) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final List<ByteArray> blockHeaderDataList = nodeConnection.getBlockHeaderDataAfter(blockHeight, maxBlockCount);
+            if (blockHeaderDataList == null) { return null; }
+
+            final BlockHeaderInflater blockHeaderInflater = new BlockHeaderInflater();
+            final MutableList<BlockHeader> blockHeaders = new MutableArrayList<>(blockHeaderDataList.getCount());
+            for (final ByteArray blockHeaderData : blockHeaderDataList) {
+                final BlockHeader blockHeader = blockHeaderInflater.fromBytes(blockHeaderData);
+                if (blockHeader == null) { return null; }
+
+                blockHeaders.add(blockHeader);
+            }
+            return blockHeaders;
+        }
+    }
+
+    @Override
+    public Block getBlock(final Sha256Hash blockHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final ByteArray blockData = nodeConnection.getBlockData(blockHash);
+            if (blockData == null) { return null; }
+
+            final BlockInflater blockInflater = new BlockInflater();
+            return blockInflater.fromBytes(blockData);
+        }
+    }
+
+    @Override
+    public Block getBlock(final Long blockHeight) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final ByteArray blockData = nodeConnection.getBlockData(blockHeight);
+            if (blockData == null) { return null; }
+
+            final BlockInflater blockInflater = new BlockInflater();
+            return blockInflater.fromBytes(blockData);
+        }
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Sha256Hash blockHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json blockTransactionHashesJson = nodeConnection.getBlockTransactionHashes(blockHash);
+            return _parseBlockTransactionHashes(blockTransactionHashesJson);
+        }
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Long blockHeight) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json blockTransactionHashesJson = nodeConnection.getBlockTransactionHashes(blockHeight);
+            return _parseBlockTransactionHashes(blockTransactionHashesJson);
+        }
+    }
+
+    @Override
+    public Transaction getTransaction(final Sha256Hash transactionHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final ByteArray transactionData = nodeConnection.getTransactionData(transactionHash);
+            if (transactionData == null) { return null; }
+
+            final TransactionInflater transactionInflater = new TransactionInflater();
+            return transactionInflater.fromBytes(transactionData);
+        }
+    }
+
+    @Override
+    public TransactionPosition getTransactionPosition(final Sha256Hash transactionHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json transactionBlockHeightJson = nodeConnection.getTransactionBlockHeight(transactionHash);
+            if (! _wasSuccess(transactionBlockHeightJson)) { return null; }
+
+            final Long blockHeight = transactionBlockHeightJson.getOrNull("blockHeight", Json.Types.LONG);
+            final Integer transactionIndex = transactionBlockHeightJson.getOrNull("transactionIndex", Json.Types.INTEGER);
+            final Boolean hasUnconfirmedInputs = transactionBlockHeightJson.getOrNull("hasUnconfirmedInputs", Json.Types.BOOLEAN);
+            if ( (blockHeight == null) && (hasUnconfirmedInputs == null) ) { return null; } // The transaction is neither mined nor within the mempool.
+
+            return new TransactionPosition(blockHeight, transactionIndex, hasUnconfirmedInputs, transactionHash);
+        }
+    }
+
+    @Override
+    public Long getTransactionFee(final Sha256Hash transactionHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json getTransactionJson = nodeConnection.getTransaction(transactionHash, false);
+            if (! _wasSuccess(getTransactionJson)) { return null; }
+
+            final Json transactionJson = getTransactionJson.get("transaction");
+            return transactionJson.getOrNull("fee", Json.Types.LONG);
+        }
+    }
+
+    @Override
+    public List<Sha256Hash> getAddressTransactionHashes(final Sha256Hash scriptHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json addressTransactionsJson = nodeConnection.getAddressTransactionHashes(scriptHash);
+            if (! _wasSuccess(addressTransactionsJson)) { return null; }
+
+            final Json transactionsJson = addressTransactionsJson.get("transactions");
+            final int transactionCount = transactionsJson.length();
+
+            final MutableList<Sha256Hash> transactionHashes = new MutableArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; ++i) {
+                final Sha256Hash transactionHash = Sha256Hash.fromHexString(transactionsJson.getString(i));
+                if (transactionHash == null) { continue; }
+
+                transactionHashes.add(transactionHash);
+            }
+            return transactionHashes;
+        }
+    }
+
+    @Override
+    public List<Transaction> getAddressTransactions(final Sha256Hash scriptHash) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json addressTransactionsJson = nodeConnection.getAddressTransactions(scriptHash, true);
+            if (! _wasSuccess(addressTransactionsJson)) { return null; }
+
+            final TransactionInflater transactionInflater = new TransactionInflater();
+            final Json transactionsJson = addressTransactionsJson.get("transactions");
+            final int transactionCount = transactionsJson.length();
+
+            final MutableList<Transaction> transactions = new MutableArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; ++i) {
+                final Transaction transaction = transactionInflater.fromBytes(ByteArray.fromHexString(transactionsJson.getString(i)));
+                if (transaction == null) { return null; }
+
+                transactions.add(transaction);
+            }
+            return transactions;
+        }
+    }
+
+    @Override
+    public List<AddressHistoryEntry> getAddressHistory(final Sha256Hash scriptHash, final Long fromBlockHeight, final Integer maxTransactionCount) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json addressHistoryJson = nodeConnection.getAddressHistory(scriptHash, fromBlockHeight, maxTransactionCount);
+            if (! _wasSuccess(addressHistoryJson)) { return null; }
+
+            final Json transactionsJson = addressHistoryJson.get("transactions");
+            final int transactionCount = transactionsJson.length();
+
+            final MutableList<AddressHistoryEntry> addressHistory = new MutableArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; ++i) {
+                final AddressHistoryEntry addressHistoryEntry = AddressHistoryEntry.fromJson(transactionsJson.get(i));
+                if (addressHistoryEntry == null) { return null; }
+
+                addressHistory.add(addressHistoryEntry);
+            }
+            return addressHistory;
+        }
+    }
+
+    /**
+     * Each page is requested from the node separately, since the node's cursor cannot be retained across RPC requests.
+     */
+    @Override
+    public AddressHistoryCursor getAddressHistoryCursor(final Sha256Hash scriptHash, final Long fromBlockHeight) {
+        return new PagedAddressHistoryCursor(this, scriptHash, fromBlockHeight);
+    }
+
+    @Override
+    public Long getAddressBalance(final Sha256Hash scriptHash, final Boolean includeUnconfirmedTransactions) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json balanceJson = nodeConnection.getAddressBalance(scriptHash);
+            if (! _wasSuccess(balanceJson)) { return null; }
+
+            return balanceJson.getLong(includeUnconfirmedTransactions ? "balance" : "confirmedBalance");
+        }
+    }
+
+    @Override
+    public Boolean submitTransaction(final Transaction transaction) {
+        try (final NodeJsonRpcConnection nodeConnection = _getNodeConnection()) {
+            final Json responseJson = nodeConnection.submitTransaction(transaction);
+            return _wasSuccess(responseJson);
+        }
+    }
+
+    @Override
+    public void subscribeToAnnouncements(final AnnouncementCallback announcementCallback) {
+        _announcementCallback = announcementCallback;
+        _createNodeNotificationConnection();
+    }
+
+    @Override
+    public void performMaintenance() {
+        final NodeJsonRpcConnection nodeNotificationConnection = _nodeNotificationConnection;
+        if ( (nodeNotificationConnection == null) || (! nodeNotificationConnection.isConnected()) ) {
+            try {
+                _createNodeNotificationConnection();
+            }
+            catch (final Exception exception) {
+                Logger.debug(exception);
+            }
+        }
+
+        _nodeConnectionPool.performMaintenance();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (_nodeNotificationConnection != null) {
+            _nodeNotificationConnection.close();
+            _nodeNotificationConnection = null;
+        }
+
+        _nodeConnectionPool.close();
+    }
+}
@@ -0,0 +1,86 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.ConcurrentMutableHashMap;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.socket.JsonSocket;
+
+/**
+ * Serializes the messages written to each connection with the streamed responses (i.e. an address's history) written to it.
+ *  A streamed response is written one page at a time without holding the socket's lock while each page is loaded; while
+ *  it is open, every other message written to the connection via StreamedResponseGate::write (the responses to the
+ *  connection's concurrent requests, and its notifications) is deferred until the streamed response is complete, so that
+ *  it is not written within the response.  A second streamed response on the same connection waits for the first to complete.
+ */
+public class StreamedResponseGate {
+    protected static final Long STREAM_WAIT_INTERVAL_MS = 1000L;
+
+    protected final ConcurrentMutableHashMap<Long, MutableList<ProtocolMessage>> _deferredMessages = new ConcurrentMutableHashMap<>(); // The deferred messages of each connection with an open streamed response, by socket id.
+
+    /**
+     * Writes the message to the connection, or defers it if the connection has an open streamed response.
+     *  Returns true if the message was written immediately.
+     */
+    public Boolean write(final JsonSocket jsonSocket, final ProtocolMessage protocolMessage) {
+        synchronized (jsonSocket) {
+            final MutableList<ProtocolMessage> deferredMessages = _deferredMessages.get(jsonSocket.getId());
+            if (deferredMessages != null) {
+                deferredMessages.add(protocolMessage);
+                return false;
+            }
+
+            jsonSocket.write(protocolMessage);
+            return true;
+        }
+    }
+
+    /**
+     * Opens a streamed response for the connection, waiting for the connection's open streamed response (if any) to complete.
+     *  Until StreamedResponseGate::endStreamedResponse, the caller is the only writer permitted to write to the socket directly.
+     *  Returns false if the connection was closed (or the thread was interrupted) while waiting, in which case no stream was opened.
+     */
+    public Boolean beginStreamedResponse(final JsonSocket jsonSocket) {
+        final Long socketId = jsonSocket.getId();
+        synchronized (jsonSocket) {
+            while (_deferredMessages.containsKey(socketId)) {
+                if (! jsonSocket.isConnected()) { return false; }
+
+                try {
+                    jsonSocket.wait(STREAM_WAIT_INTERVAL_MS);
+                }
+                catch (final InterruptedException exception) {
+                    final Thread currentThread = Thread.currentThread();
+                    currentThread.interrupt();
+                    return false;
+                }
+            }
+
+            _deferredMessages.put(socketId, new MutableArrayList<ProtocolMessage>());
+            return true;
+        }
+    }
+
+    /**
+     * Closes the connection's streamed response and writes the messages deferred while it was open, in the order they were written.
+     */
+    public void endStreamedResponse(final JsonSocket jsonSocket) {
+        final Long socketId = jsonSocket.getId();
+        synchronized (jsonSocket) {
+            final MutableList<ProtocolMessage> deferredMessages = _deferredMessages.get(socketId);
+            if (deferredMessages != null) {
+                _deferredMessages.remove(socketId);
+                for (final ProtocolMessage protocolMessage : deferredMessages) {
+                    jsonSocket.write(protocolMessage);
+                }
+            }
+
+            jsonSocket.notifyAll();
+        }
+        jsonSocket.flush();
+    }
+
+    public Boolean hasStreamedResponse(final JsonSocket jsonSocket) {
+        return _deferredMessages.containsKey(jsonSocket.getId());
+    }
+}
@@ -0,0 +1,117 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.constable.list.List;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of each transaction's position within the blockchain (or the mempool).
+ *  Entries are updated in place when their transaction is mined (from the block's transaction hashes), and entries
+ *  above the fork point are rolled back when a reorg occurs, so that the cache does not need to be cleared on every block.
+ *  Unconfirmed entries are also indexed separately, so that processing a block only visits the unconfirmed entries
+ *  rather than the entire cache.
+ *  The cache holds at most maxItemCount entries, which bounds its memory usage to roughly maxItemCount * BYTES_PER_ITEM.
+ */
+class TransactionPositionCache {
+    public static final Integer BYTES_PER_ITEM = 256; // Approximate size of an entry, including its TransactionPosition, Sha256Hash, and map node.
+
+    protected final Integer _maxItemCount;
+    protected final LinkedHashMap<Sha256Hash, TransactionPosition> _transactionPositions;
+    protected final HashMap<Sha256Hash, TransactionPosition> _unconfirmedTransactionPositions = new HashMap<>(); // Not access-ordered, so scanning it does not affect the LRU order.
+
+    protected void _put(final TransactionPosition transactionPosition) {
+        final Sha256Hash transactionHash = transactionPosition.transactionHash;
+        if (transactionPosition.isUnconfirmedTransaction()) {
+            _unconfirmedTransactionPositions.put(transactionHash, transactionPosition);
+        }
+        else {
+            _unconfirmedTransactionPositions.remove(transactionHash);
+        }
+        _transactionPositions.put(transactionHash, transactionPosition);
+    }
+
+    protected void _remove(final Sha256Hash transactionHash) {
+        _transactionPositions.remove(transactionHash);
+        _unconfirmedTransactionPositions.remove(transactionHash);
+    }
+
+    public TransactionPositionCache(final Integer maxItemCount) {
+        _maxItemCount = maxItemCount;
+        _transactionPositions = new LinkedHashMap<Sha256Hash, TransactionPosition>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Sha256Hash, TransactionPosition> eldestEntry) {
+                if (this.size() <= _maxItemCount) { return false; }
+
+                _unconfirmedTransactionPositions.remove(eldestEntry.getKey());
+                return true;
+            }
+        };
+    }
+
+    public synchronized TransactionPosition get(final Sha256Hash transactionHash) {
+        return _transactionPositions.get(transactionHash);
+    }
+
+    public synchronized void put(final TransactionPosition transactionPosition) {
+        _put(transactionPosition);
+    }
+
+    public synchronized void remove(final Sha256Hash transactionHash) {
+        _remove(transactionHash);
+    }
+
+    /**
+     * Updates the cached positions of the block's transactions.
+     *  Unconfirmed transactions with unconfirmed inputs are removed since their inputs may have been mined by this block.
+     */
+    public synchronized void onBlockMined(final Long blockHeight, final List<Sha256Hash> blockTransactionHashes) {
+        int transactionIndex = 0;
+        for (final Sha256Hash transactionHash : blockTransactionHashes) {
+            if (_transactionPositions.containsKey(transactionHash)) {
+                _put(new TransactionPosition(blockHeight, transactionIndex, false, transactionHash));
+            }
+            transactionIndex += 1;
+        }
+
+        final Iterator<TransactionPosition> iterator = _unconfirmedTransactionPositions.values().iterator();
+        while (iterator.hasNext()) {
+            final TransactionPosition transactionPosition = iterator.next();
+            if (transactionPosition.hasUnconfirmedInputs) {
+                iterator.remove();
+                _transactionPositions.remove(transactionPosition.transactionHash);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached positions of transactions mined at or above forkBlockHeight, i.e. the blocks orphaned by a reorg.
+     *  Unconfirmed positions are also removed, since the new chain may have mined or double-spent them.
+     */
+    public synchronized void rollback(final Long forkBlockHeight) {
+        final Iterator<TransactionPosition> iterator = _transactionPositions.values().iterator();
+        while (iterator.hasNext()) {
+            final TransactionPosition transactionPosition = iterator.next();
+            if ( transactionPosition.isUnconfirmedTransaction() || (transactionPosition.blockHeight >= forkBlockHeight) ) {
+                iterator.remove();
+            }
+        }
+        _unconfirmedTransactionPositions.clear();
+    }
+
+    public synchronized int getCount() {
+        return _transactionPositions.size();
+    }
+
+    public synchronized int getUnconfirmedCount() {
+        return _unconfirmedTransactionPositions.size();
+    }
+
+    public synchronized void clear() {
+        _transactionPositions.clear();
+        _unconfirmedTransactionPositions.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.softwareverde.bitcoin.server.module.electrum.json;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.StringUtil;
+import org.json.JSONObject;
+
+/**
+ * Writes a JSON-RPC response whose result is an array incrementally, so that a large result (i.e. an address's history)
+ *  is never held in memory (or serialized) as a single Json object.
+ *  Each ElectrumJsonArrayStreamWriter::flush writes the buffered items to the socket and waits for them to be sent, which
+ *  bounds the memory used by the response when the client is slow to receive it.
+ *  Each flush is written while synchronized on the JsonSocket (by Socket::write), but the socket is not locked between
+ *  flushes; the caller must prevent other messages (i.e. responses and notifications) from being written to the socket between
+ *  ElectrumJsonArrayStreamWriter::begin and ElectrumJsonArrayStreamWriter::end, since they would be written within the
+ *  response (see: StreamedResponseGate).
+ */
+public class ElectrumJsonArrayStreamWriter {
+    protected static class StringProtocolMessage implements ProtocolMessage {
+        protected final String _string;
+
+        public StringProtocolMessage(final String string) {
+            _string = string;
+        }
+
+        @Override
+        public ByteArray getBytes() {
+            return MutableByteArray.wrap(StringUtil.stringToBytes(_string));
+        }
+    }
+
+    protected final JsonSocket _jsonSocket;
+    protected final Object _requestId;
+    protected final StringBuilder _buffer = new StringBuilder();
+    protected int _itemCount = 0;
+
+    public ElectrumJsonArrayStreamWriter(final JsonSocket jsonSocket, final Object requestId) {
+        _jsonSocket = jsonSocket;
+        _requestId = requestId;
+    }
+
+    public void begin() {
+        _buffer.append("{\"jsonrpc\":\"2.0\",\"id\":");
+        _buffer.append(JSONObject.valueToString(_requestId));
+        _buffer.append(",\"result\":[");
+    }
+
+    public void add(final Json item) {
+        if (_itemCount > 0) {
+            _buffer.append(",");
+        }
+        _buffer.append(item);
+        _itemCount += 1;
+    }
+
+    public void flush() {
+        if (_buffer.length() == 0) { return; }
+
+        _jsonSocket.write(new StringProtocolMessage(_buffer.toString()));
+        _jsonSocket.flush();
+        _buffer.setLength(0);
+    }
+
+    public void end() {
+        _buffer.append("]}\n");
+        this.flush();
+    }
+
+    public int getItemCount() {
+        return _itemCount;
+    }
+}
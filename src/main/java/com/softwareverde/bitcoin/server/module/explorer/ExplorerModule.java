@@ -16,6 +16,7 @@ public class ExplorerModule {
     protected final HttpServer _apiServer = new HttpServer();
     protected final ExplorerProperties _explorerProperties;
     protected final AnnouncementsApi _announcementsApi;
+    protected final Environment _environment;
 
     protected <T extends Servlet> void _assignEndpoint(final String path, final T servlet) {
         final Endpoint endpoint = new Endpoint(servlet);
@@ -40,10 +41,11 @@ public class ExplorerModule {
         _apiServer.setPort(_explorerProperties.getPort());
 
         _announcementsApi = new AnnouncementsApi(_explorerProperties);
+        _environment = new Environment(_explorerProperties);
 
         { // Api Endpoints
             final String apiRootPath = "/api";
-            final Environment environment = new Environment(_explorerProperties);
+            final Environment environment = _environment;
 
             { // Api v1
                 final String v1ApiPrePath = (apiRootPath + "/v1");
@@ -89,11 +91,14 @@ public class ExplorerModule {
     public void stop() {
         _announcementsApi.stop();
         _apiServer.stop();
+        _environment.close();
     }
 
     public void loop() {
         while (! Thread.interrupted()) {
             try { Thread.sleep(10000L); } catch (final Exception exception) { break; }
+
+            _environment.performMaintenance();
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.softwareverde.bitcoin.server.module.explorer.api;
 
 import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnection;
+import com.softwareverde.bitcoin.rpc.NodeJsonRpcConnectionPool;
 import com.softwareverde.bitcoin.server.configuration.ExplorerProperties;
 import com.softwareverde.bitcoin.server.module.stratum.rpc.StratumJsonRpcConnection;
 import com.softwareverde.concurrent.threadpool.ThreadPool;
@@ -10,32 +11,29 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 
 public class Environment implements com.softwareverde.http.server.servlet.routed.Environment {
+    public static final Integer MAX_NODE_CONNECTION_COUNT = 64;
+
     protected final ExplorerProperties _explorerProperties;
+    protected final NodeJsonRpcConnectionPool _nodeConnectionPool;
 
     public Environment(final ExplorerProperties explorerProperties) {
         _explorerProperties = explorerProperties;
+
+        final String bitcoinRpcUrl = explorerProperties.getBitcoinRpcUrl();
+        final Integer bitcoinRpcPort = explorerProperties.getBitcoinRpcPort();
+        _nodeConnectionPool = new NodeJsonRpcConnectionPool(bitcoinRpcUrl, bitcoinRpcPort, NodeJsonRpcConnectionPool.DEFAULT_MAX_IDLE_CONNECTION_COUNT, NodeJsonRpcConnectionPool.DEFAULT_MAX_CONNECTION_LIFESPAN_MS, Environment.MAX_NODE_CONNECTION_COUNT);
     }
 
     public ExplorerProperties getExplorerProperties() {
         return _explorerProperties;
     }
 
+    /**
+     * Returns a pooled connection to the node, or null if the node is unreachable (or every connection is in use).
+     *  Closing the connection returns it to the pool.
+     */
     public NodeJsonRpcConnection getNodeJsonRpcConnection() {
-        final String bitcoinRpcUrl = _explorerProperties.getBitcoinRpcUrl();
-        final Integer bitcoinRpcPort = _explorerProperties.getBitcoinRpcPort();
-
-        try {
-            final Socket socket = new Socket();
-            socket.connect(new InetSocketAddress(bitcoinRpcUrl, bitcoinRpcPort), 3000);
-            if (socket.isConnected()) {
-                return new NodeJsonRpcConnection(socket);
-            }
-        }
-        catch (final Exception exception) {
-            Logger.warn(exception);
-        }
-
-        return null;
+        return _nodeConnectionPool.getConnection();
     }
 
     public StratumJsonRpcConnection getStratumJsonRpcConnection() {
@@ -55,4 +53,12 @@ public class Environment implements com.softwareverde.http.server.servlet.routed
 
         return null;
     }
+
+    public void performMaintenance() {
+        _nodeConnectionPool.performMaintenance();
+    }
+
+    public void close() {
+        _nodeConnectionPool.close();
+    }
 }
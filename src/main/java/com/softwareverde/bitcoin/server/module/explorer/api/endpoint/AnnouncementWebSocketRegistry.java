@@ -0,0 +1,172 @@
+package com.softwareverde.bitcoin.server.module.explorer.api.endpoint;
+
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.http.websocket.WebSocket;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The open announcement WebSockets, indexed by id and by the addresses within their address filters.
+ *  Routing a Transaction costs O(its addresses) plus the WebSockets that receive it, rather than O(WebSockets x filtered addresses).
+ *  Lookups do not lock; a WebSocket's filters must be changed via AnnouncementWebSocketRegistry::setAddresses and
+ *  AnnouncementWebSocketRegistry::setBloomFilter so that the indexes remain consistent with its configuration.
+ */
+class AnnouncementWebSocketRegistry {
+    protected final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> _webSockets = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> _unfilteredWebSockets = new ConcurrentHashMap<>(); // WebSockets without an address filter.
+    protected final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> _bloomFilteredWebSockets = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<Address, ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration>> _addressWebSockets = new ConcurrentHashMap<>();
+
+    protected static List<AnnouncementWebSocketConfiguration> _toList(final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> webSockets) {
+        final MutableList<AnnouncementWebSocketConfiguration> webSocketConfigurations = new MutableArrayList<>(webSockets.size());
+        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets.values()) {
+            webSocketConfigurations.add(webSocketConfiguration);
+        }
+        return webSocketConfigurations;
+    }
+
+    protected Long _getWebSocketId(final AnnouncementWebSocketConfiguration webSocketConfiguration) {
+        final WebSocket webSocket = webSocketConfiguration.webSocket;
+        return webSocket.getId();
+    }
+
+    protected void _indexAddresses(final Long webSocketId, final AnnouncementWebSocketConfiguration webSocketConfiguration, final List<Address> addresses) {
+        if (addresses == null) {
+            _unfilteredWebSockets.put(webSocketId, webSocketConfiguration);
+            return;
+        }
+
+        for (final Address address : addresses) {
+            _addressWebSockets.computeIfAbsent(address, new Function<Address, ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration>>() {
+                @Override
+                public ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> apply(final Address address) {
+                    return new ConcurrentHashMap<>();
+                }
+            }).put(webSocketId, webSocketConfiguration);
+        }
+    }
+
+    protected void _unindexAddresses(final Long webSocketId, final List<Address> addresses) {
+        if (addresses == null) {
+            _unfilteredWebSockets.remove(webSocketId);
+            return;
+        }
+
+        for (final Address address : addresses) {
+            _addressWebSockets.computeIfPresent(address, new BiFunction<Address, ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration>, ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration>>() {
+                @Override
+                public ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> apply(final Address address, final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> webSockets) {
+                    webSockets.remove(webSocketId);
+                    return (webSockets.isEmpty() ? null : webSockets);
+                }
+            });
+        }
+    }
+
+    public synchronized void add(final AnnouncementWebSocketConfiguration webSocketConfiguration) {
+        final Long webSocketId = _getWebSocketId(webSocketConfiguration);
+
+        _webSockets.put(webSocketId, webSocketConfiguration);
+        _indexAddresses(webSocketId, webSocketConfiguration, webSocketConfiguration.addresses);
+        if (webSocketConfiguration.bloomFilter != null) {
+            _bloomFilteredWebSockets.put(webSocketId, webSocketConfiguration);
+        }
+    }
+
+    /**
+     * Removes the WebSocket and its filters.
+     *  Returns the removed configuration, or null if the WebSocket was not registered.
+     */
+    public synchronized AnnouncementWebSocketConfiguration remove(final Long webSocketId) {
+        final AnnouncementWebSocketConfiguration webSocketConfiguration = _webSockets.remove(webSocketId);
+        if (webSocketConfiguration == null) { return null; }
+
+        _unindexAddresses(webSocketId, webSocketConfiguration.addresses);
+        _bloomFilteredWebSockets.remove(webSocketId);
+        return webSocketConfiguration;
+    }
+
+    /**
+     * Replaces the WebSocket's address filter; a null list of addresses removes the filter.
+     */
+    public synchronized void setAddresses(final AnnouncementWebSocketConfiguration webSocketConfiguration, final List<Address> addresses) {
+        final Long webSocketId = _getWebSocketId(webSocketConfiguration);
+        final boolean isRegistered = _webSockets.containsKey(webSocketId);
+
+        if (isRegistered) {
+            _unindexAddresses(webSocketId, webSocketConfiguration.addresses);
+        }
+
+        webSocketConfiguration.addresses = addresses;
+
+        if (isRegistered) {
+            _indexAddresses(webSocketId, webSocketConfiguration, addresses);
+        }
+    }
+
+    public synchronized void setBloomFilter(final AnnouncementWebSocketConfiguration webSocketConfiguration, final MutableBloomFilter bloomFilter) {
+        final Long webSocketId = _getWebSocketId(webSocketConfiguration);
+
+        webSocketConfiguration.bloomFilter = bloomFilter;
+
+        if (! _webSockets.containsKey(webSocketId)) { return; }
+        if (bloomFilter != null) {
+            _bloomFilteredWebSockets.put(webSocketId, webSocketConfiguration);
+        }
+        else {
+            _bloomFilteredWebSockets.remove(webSocketId);
+        }
+    }
+
+    public List<AnnouncementWebSocketConfiguration> getWebSockets() {
+        return _toList(_webSockets);
+    }
+
+    /**
+     * Returns the WebSockets that do not filter Transactions by address.
+     */
+    public List<AnnouncementWebSocketConfiguration> getUnfilteredWebSockets() {
+        return _toList(_unfilteredWebSockets);
+    }
+
+    public List<AnnouncementWebSocketConfiguration> getBloomFilteredWebSockets() {
+        return _toList(_bloomFilteredWebSockets);
+    }
+
+    /**
+     * Returns the WebSockets whose address filter contains any of the addresses; each WebSocket is returned at most once.
+     */
+    public List<AnnouncementWebSocketConfiguration> getWebSockets(final List<Address> addresses) {
+        final MutableHashSet<Long> webSocketIds = new MutableHashSet<>();
+        final MutableList<AnnouncementWebSocketConfiguration> webSocketConfigurations = new MutableArrayList<>();
+        for (final Address address : addresses) {
+            final ConcurrentHashMap<Long, AnnouncementWebSocketConfiguration> webSockets = _addressWebSockets.get(address);
+            if (webSockets == null) { continue; }
+
+            for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets.values()) {
+                if (webSocketIds.add(_getWebSocketId(webSocketConfiguration))) {
+                    webSocketConfigurations.add(webSocketConfiguration);
+                }
+            }
+        }
+        return webSocketConfigurations;
+    }
+
+    public Integer getCount() {
+        return _webSockets.size();
+    }
+
+    public synchronized void clear() {
+        _webSockets.clear();
+        _unfilteredWebSockets.clear();
+        _bloomFilteredWebSockets.clear();
+        _addressWebSockets.clear();
+    }
+}
@@ -24,6 +24,7 @@ import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.http.HttpMethod;
 import com.softwareverde.http.server.servlet.WebSocketServlet;
 import com.softwareverde.http.server.servlet.request.WebSocketRequest;
@@ -92,17 +93,10 @@ public class AnnouncementsApi implements WebSocketServlet {
 
     protected final AddressInflater _addressInflater = new AddressInflater();
 
-    protected static final Object MUTEX = new Object();
-    protected static final MutableMap<Long, AnnouncementWebSocketConfiguration> WEB_SOCKETS = new MutableHashMap<>();
+    protected static final AnnouncementWebSocketRegistry WEB_SOCKETS = new AnnouncementWebSocketRegistry();
 
     protected static List<AnnouncementWebSocketConfiguration> getWebSockets() {
-        synchronized (MUTEX) {
-            final MutableList<AnnouncementWebSocketConfiguration> webSockets = new MutableArrayList<>();
-            for (final AnnouncementWebSocketConfiguration webSocketConfiguration : WEB_SOCKETS.getValues()) {
-                webSockets.add(webSocketConfiguration);
-            }
-            return webSockets;
-        }
+        return WEB_SOCKETS.getWebSockets();
     }
 
     protected static final ReentrantReadWriteLock.ReadLock QUEUE_READ_LOCK;
@@ -113,16 +107,18 @@ public class AnnouncementsApi implements WebSocketServlet {
         QUEUE_WRITE_LOCK = readWriteLock.writeLock();
     }
 
-    protected static final RotatingQueue<Json> BLOCK_HEADERS = new RotatingQueue<>(16);
-    protected static final RotatingQueue<Json> TRANSACTIONS = new RotatingQueue<>(32);
-    protected static final RotatingQueue<Json> DOUBLE_SPEND_PROOFS = new RotatingQueue<>(64);
+    // NOTE: The recent objects are cached as their serialized announcement messages, so that they are serialized once and
+    //  the same message is shared by the broadcast and by every WebSocket that connects afterwards...
+    protected static final RotatingQueue<String> BLOCK_HEADERS = new RotatingQueue<>(16);
+    protected static final RotatingQueue<String> TRANSACTIONS = new RotatingQueue<>(32);
+    protected static final RotatingQueue<String> DOUBLE_SPEND_PROOFS = new RotatingQueue<>(64);
 
     protected static class CachedObjects {
-        public final List<Json> blockHeaders;
-        public final List<Json> transactions;
-        public final List<Json> doubleSpendProofs;
+        public final List<String> blockHeaders;
+        public final List<String> transactions;
+        public final List<String> doubleSpendProofs;
 
-        public CachedObjects(final List<Json> blockHeaders, final List<Json> transactions, final List<Json> doubleSpendProofs) {
+        public CachedObjects(final List<String> blockHeaders, final List<String> transactions, final List<String> doubleSpendProofs) {
             this.blockHeaders = blockHeaders;
             this.transactions = transactions;
             this.doubleSpendProofs = doubleSpendProofs;
@@ -132,19 +128,19 @@ public class AnnouncementsApi implements WebSocketServlet {
     protected static CachedObjects getCachedObjects() {
         QUEUE_READ_LOCK.lock();
         try {
-            final MutableList<Json> blockHeaders = new MutableArrayList<>();
-            for (final Json json : BLOCK_HEADERS) {
-                blockHeaders.add(json);
+            final MutableList<String> blockHeaders = new MutableArrayList<>();
+            for (final String message : BLOCK_HEADERS) {
+                blockHeaders.add(message);
             }
 
-            final MutableList<Json> transactions = new MutableArrayList<>();
-            for (final Json json : TRANSACTIONS) {
-                transactions.add(json);
+            final MutableList<String> transactions = new MutableArrayList<>();
+            for (final String message : TRANSACTIONS) {
+                transactions.add(message);
             }
 
-            final MutableList<Json> doubleSpendProofs = new MutableArrayList<>();
-            for (final Json json : DOUBLE_SPEND_PROOFS) {
-                doubleSpendProofs.add(json);
+            final MutableList<String> doubleSpendProofs = new MutableArrayList<>();
+            for (final String message : DOUBLE_SPEND_PROOFS) {
+                doubleSpendProofs.add(message);
             }
 
             return new CachedObjects(blockHeaders, transactions, doubleSpendProofs);
@@ -241,7 +237,7 @@ public class AnnouncementsApi implements WebSocketServlet {
         }
 
         @Override
-        public void onNewTransaction(final Transaction transaction, final Long transactionFee) {
+        public void onNewTransaction(final Transaction transaction, final Long transactionFee, final List<Sha256Hash> scriptHashes) {
             _onNewTransaction(transaction);
         }
 
@@ -405,13 +401,23 @@ public class AnnouncementsApi implements WebSocketServlet {
         _explorerProperties = explorerProperties;
     }
 
-    protected void _broadcastNewBlockHeader(final Json blockHeaderJson) {
-        final String message;
-        {
-            final Json messageJson = _wrapObject("BLOCK", blockHeaderJson);
-            message = messageJson.toString();
-        }
+    protected String _createBlockHeaderMessage(final Json blockHeaderJson) {
+        final Json messageJson = _wrapObject("BLOCK", blockHeaderJson);
+        return messageJson.toString();
+    }
 
+    protected String _createTransactionMessage(final Json transactionJson) {
+        final Json trimmedTransactionJson = _transactionJsonToTransactionHashJson(transactionJson);
+        final Json messageJson = _wrapObject("TRANSACTION_HASH", trimmedTransactionJson);
+        return messageJson.toString();
+    }
+
+    protected String _createDoubleSpendProofMessage(final Json doubleSpendProofJson) {
+        final Json messageJson = _wrapObject("DOUBLE_SPEND_PROOF", doubleSpendProofJson);
+        return messageJson.toString();
+    }
+
+    protected void _broadcastNewBlockHeader(final String message) {
         final List<AnnouncementWebSocketConfiguration> webSockets = AnnouncementsApi.getWebSockets();
         for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets) {
             if (! webSocketConfiguration.blockHeadersAreEnabled) { continue; }
@@ -422,48 +428,23 @@ public class AnnouncementsApi implements WebSocketServlet {
         }
     }
 
-    protected void _broadcastNewTransaction(final Json transactionJson) {
-        final String message;
-        {
-            final Json trimmedTransactionJson = _transactionJsonToTransactionHashJson(transactionJson);
-            final Json messageJson = _wrapObject("TRANSACTION_HASH", trimmedTransactionJson);
-            message = messageJson.toString();
-        }
-
+    protected void _broadcastNewTransaction(final Json transactionJson, final String message) {
         final List<Address> transactionAddresses = _transactionJsonToAddresses(transactionJson);
 
-        final List<AnnouncementWebSocketConfiguration> webSockets = AnnouncementsApi.getWebSockets();
+        final MutableList<AnnouncementWebSocketConfiguration> webSockets = new MutableArrayList<>();
+        webSockets.addAll(WEB_SOCKETS.getUnfilteredWebSockets());
+        webSockets.addAll(WEB_SOCKETS.getWebSockets(transactionAddresses));
+
         for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets) {
             if (! webSocketConfiguration.transactionsAreEnabled) { continue; }
             if (webSocketConfiguration.fullTransactionDataIsEnabled) { continue; }
 
-            boolean transactionMatchesFilters = true;
-            if (webSocketConfiguration.addresses != null) {
-                transactionMatchesFilters = false;
-
-                final List<Address> addresses = webSocketConfiguration.addresses;
-                for (final Address address : addresses) {
-                    if (transactionAddresses.contains(address)) {
-                        transactionMatchesFilters = true;
-                        break;
-                    }
-                }
-            }
-
-            if (transactionMatchesFilters) {
-                final WebSocket webSocket = webSocketConfiguration.webSocket;
-                webSocket.sendMessage(message);
-            }
+            final WebSocket webSocket = webSocketConfiguration.webSocket;
+            webSocket.sendMessage(message);
         }
     }
 
-    protected void _broadcastDoubleSpendProof(final Json doubleSpendProofJson) {
-        final String message;
-        {
-            final Json messageJson = _wrapObject("DOUBLE_SPEND_PROOF", doubleSpendProofJson);
-            message = messageJson.toString();
-        }
-
+    protected void _broadcastDoubleSpendProof(final String message) {
         final List<AnnouncementWebSocketConfiguration> webSockets = AnnouncementsApi.getWebSockets();
         for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets) {
             if (! webSocketConfiguration.doubleSpendProofsAreEnabled) { continue; }
@@ -515,78 +496,80 @@ public class AnnouncementsApi implements WebSocketServlet {
             transactionAddresses = addresses;
         }
 
-        final List<AnnouncementWebSocketConfiguration> webSockets = AnnouncementsApi.getWebSockets();
-        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets) {
+        // WebSockets with a bloom filter are matched against their filter, regardless of their address filter...
+        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : WEB_SOCKETS.getBloomFilteredWebSockets()) {
             if (! webSocketConfiguration.transactionsAreEnabled) { continue; }
             if (! webSocketConfiguration.fullTransactionDataIsEnabled) { continue; }
 
-            final boolean shouldBroadcastTransaction;
             final MutableBloomFilter bloomFilter = webSocketConfiguration.bloomFilter;
-            final List<Address> addresses = webSocketConfiguration.addresses;
-            if (bloomFilter != null) {
-                final UpdateBloomFilterMode updateBloomFilterMode = Util.coalesce(UpdateBloomFilterMode.valueOf(bloomFilter.getUpdateMode()), UpdateBloomFilterMode.READ_ONLY);
-                final TransactionBloomFilterMatcher transactionBloomFilterMatcher = new TransactionBloomFilterMatcher(bloomFilter, updateBloomFilterMode, _addressInflater);
-                shouldBroadcastTransaction = transactionBloomFilterMatcher.shouldInclude(transaction);
-            }
-            else if (addresses != null) {
-                boolean transactionMatchesAddressFilter = false;
-                for (final Address address : addresses) {
-                    if (transactionAddresses.contains(address)) {
-                        transactionMatchesAddressFilter = true;
-                        break;
-                    }
-                }
-                shouldBroadcastTransaction = transactionMatchesAddressFilter;
-            }
-            else {
-                shouldBroadcastTransaction = true;
-            }
+            if (bloomFilter == null) { continue; }
 
-            if (shouldBroadcastTransaction) {
+            final UpdateBloomFilterMode updateBloomFilterMode = Util.coalesce(UpdateBloomFilterMode.valueOf(bloomFilter.getUpdateMode()), UpdateBloomFilterMode.READ_ONLY);
+            final TransactionBloomFilterMatcher transactionBloomFilterMatcher = new TransactionBloomFilterMatcher(bloomFilter, updateBloomFilterMode, _addressInflater);
+            if (transactionBloomFilterMatcher.shouldInclude(transaction)) {
                 final WebSocket webSocket = webSocketConfiguration.webSocket;
                 webSocket.sendMessage(message);
             }
         }
+
+        final MutableList<AnnouncementWebSocketConfiguration> webSockets = new MutableArrayList<>();
+        webSockets.addAll(WEB_SOCKETS.getUnfilteredWebSockets());
+        webSockets.addAll(WEB_SOCKETS.getWebSockets(transactionAddresses));
+
+        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSockets) {
+            if (! webSocketConfiguration.transactionsAreEnabled) { continue; }
+            if (! webSocketConfiguration.fullTransactionDataIsEnabled) { continue; }
+            if (webSocketConfiguration.bloomFilter != null) { continue; }
+
+            final WebSocket webSocket = webSocketConfiguration.webSocket;
+            webSocket.sendMessage(message);
+        }
     }
 
     protected void _onNewBlock(final Json blockJson) {
+        final String message = _createBlockHeaderMessage(blockJson);
+
         try {
             QUEUE_WRITE_LOCK.lock();
 
-            BLOCK_HEADERS.add(blockJson);
+            BLOCK_HEADERS.add(message);
         }
         finally {
             QUEUE_WRITE_LOCK.unlock();
         }
 
-        _broadcastNewBlockHeader(blockJson);
+        _broadcastNewBlockHeader(message);
     }
 
     protected void _onNewTransaction(final Json transactionJson) {
+        final String message = _createTransactionMessage(transactionJson);
+
         try {
             QUEUE_WRITE_LOCK.lock();
 
-            TRANSACTIONS.add(transactionJson);
+            TRANSACTIONS.add(message);
         }
         finally {
             QUEUE_WRITE_LOCK.unlock();
         }
 
-        _broadcastNewTransaction(transactionJson);
+        _broadcastNewTransaction(transactionJson, message);
     }
 
     protected void _onDoubleSpendProof(final Json doubleSpendProofJson) {
+        final String message = _createDoubleSpendProofMessage(doubleSpendProofJson);
+
         try {
             QUEUE_WRITE_LOCK.lock();
 
             Logger.info("DSProof Received: " + doubleSpendProofJson);
-            DOUBLE_SPEND_PROOFS.add(doubleSpendProofJson);
+            DOUBLE_SPEND_PROOFS.add(message);
         }
         finally {
             QUEUE_WRITE_LOCK.unlock();
         }
 
-        _broadcastDoubleSpendProof(doubleSpendProofJson);
+        _broadcastDoubleSpendProof(message);
     }
 
     protected void _onNewBlock(final BlockHeader blockHeader) {
@@ -683,7 +666,7 @@ public class AnnouncementsApi implements WebSocketServlet {
                     break;
                 }
 
-                webSocketConfiguration.bloomFilter = bloomFilter;
+                WEB_SOCKETS.setBloomFilter(webSocketConfiguration, bloomFilter);
                 apiResult = WebSocketApiResult.createSuccessResult(requestId);
             } break;
 
@@ -698,7 +681,7 @@ public class AnnouncementsApi implements WebSocketServlet {
                     addresses.add(address.getBytes());
                 }
 
-                webSocketConfiguration.addresses = ((! addresses.isEmpty()) ? addresses : null);
+                WEB_SOCKETS.setAddresses(webSocketConfiguration, ((! addresses.isEmpty()) ? addresses : null));
                 apiResult = WebSocketApiResult.createSuccessResult(requestId);
             } break;
 
@@ -788,38 +771,27 @@ public class AnnouncementsApi implements WebSocketServlet {
         webSocket.setConnectionClosedCallback(new WebSocket.ConnectionClosedCallback() {
             @Override
             public void onClose(final int code, final String message) {
-                synchronized (MUTEX) {
-                    Logger.debug("WebSocket Closed: " + webSocketId + " (count=" + (WEB_SOCKETS.getCount() - 1) + ")");
-                    WEB_SOCKETS.remove(webSocketId);
-                }
+                WEB_SOCKETS.remove(webSocketId);
+                Logger.debug("WebSocket Closed: " + webSocketId + " (count=" + WEB_SOCKETS.getCount() + ")");
             }
         });
 
         webSocket.startListening();
 
-        synchronized (MUTEX) {
-            Logger.debug("Adding WebSocket: " + webSocketId + " (count=" + (WEB_SOCKETS.getCount() + 1) + ")");
-            WEB_SOCKETS.put(webSocketId, webSocketConfiguration);
-        }
+        WEB_SOCKETS.add(webSocketConfiguration);
+        Logger.debug("Adding WebSocket: " + webSocketId + " (count=" + WEB_SOCKETS.getCount() + ")");
 
         final CachedObjects objects = AnnouncementsApi.getCachedObjects();
 
-        for (final Json blockHeaderJson : objects.blockHeaders) {
-            final Json messageJson = _wrapObject("BLOCK", blockHeaderJson);
-            final String message = messageJson.toString();
+        for (final String message : objects.blockHeaders) {
             webSocket.sendMessage(message);
         }
 
-        for (final Json transactionJson : objects.transactions) {
-            final Json trimmedTransactionJson = _transactionJsonToTransactionHashJson(transactionJson);
-            final Json messageJson = _wrapObject("TRANSACTION_HASH", trimmedTransactionJson);
-            final String message = messageJson.toString();
+        for (final String message : objects.transactions) {
             webSocket.sendMessage(message);
         }
 
-        for (final Json blockHeaderJson : objects.doubleSpendProofs) {
-            final Json messageJson = _wrapObject("DOUBLE_SPEND_PROOF", blockHeaderJson);
-            final String message = messageJson.toString();
+        for (final String message : objects.doubleSpendProofs) {
             webSocket.sendMessage(message);
         }
     }
@@ -890,12 +862,10 @@ public class AnnouncementsApi implements WebSocketServlet {
             }
         }
 
-        synchronized (MUTEX) {
-            for (final AnnouncementWebSocketConfiguration webSocketConfiguration : WEB_SOCKETS.getValues()) {
-                final WebSocket webSocket = webSocketConfiguration.webSocket;
-                webSocket.close();
-            }
-            WEB_SOCKETS.clear();
+        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : WEB_SOCKETS.getWebSockets()) {
+            final WebSocket webSocket = webSocketConfiguration.webSocket;
+            webSocket.close();
         }
+        WEB_SOCKETS.clear();
     }
 }
@@ -89,18 +89,8 @@ public class SearchHandler implements RequestHandler<Environment> {
                         else {
                             queryBlockResponseJson = nodeJsonRpcConnection.getBlockHeader(blockHash, false);
                             if ( (queryBlockResponseJson != null) && queryBlockResponseJson.hasKey("block") ) {
-                                final Json blockTransactionsJson;
-                                try (final NodeJsonRpcConnection secondNodeJsonRpcConnection = environment.getNodeJsonRpcConnection()) {
-                                    if (secondNodeJsonRpcConnection == null) {
-                                        final SearchApi.SearchResult result = new SearchApi.SearchResult();
-                                        result.setWasSuccess(false);
-                                        result.setErrorMessage("Unable to connect to node.");
-                                        return new JsonResponse(Response.Codes.SERVER_ERROR, result);
-                                    }
-
-                                    final Json queryBlockTransactionsJson = secondNodeJsonRpcConnection.getBlockTransactions(blockHash, 32, Util.coalesce(pageNumber));
-                                    blockTransactionsJson = (queryBlockTransactionsJson != null ? queryBlockTransactionsJson.get("transactions") : null);
-                                }
+                                final Json queryBlockTransactionsJson = nodeJsonRpcConnection.getBlockTransactions(blockHash, 32, Util.coalesce(pageNumber));
+                                final Json blockTransactionsJson = (queryBlockTransactionsJson != null ? queryBlockTransactionsJson.get("transactions") : null);
 
                                 final Json blockJson = queryBlockResponseJson.get("block");
                                 blockJson.put("transactions", blockTransactionsJson);
@@ -120,23 +110,8 @@ public class SearchHandler implements RequestHandler<Environment> {
                         else {
                             queryBlockResponseJson = nodeJsonRpcConnection.getBlockHeader(blockHeight, false);
                             if ( (queryBlockResponseJson != null) && queryBlockResponseJson.hasKey("block") ) {
-                                final Json blockTransactionsJson;
-                                try (final NodeJsonRpcConnection secondNodeJsonRpcConnection = environment.getNodeJsonRpcConnection()) {
-                                    if (secondNodeJsonRpcConnection == null) {
-                                        final SearchApi.SearchResult result = new SearchApi.SearchResult();
-                                        result.setWasSuccess(false);
-                                        result.setErrorMessage("Unable to connect to node.");
-                                        return new JsonResponse(Response.Codes.SERVER_ERROR, result);
-                                    }
-
-                                    final Json queryBlockTransactionsJson = secondNodeJsonRpcConnection.getBlockTransactions(blockHeight, 32, 0);
-                                    if (queryBlockTransactionsJson != null) {
-                                        blockTransactionsJson = queryBlockTransactionsJson.get("transactions");
-                                    }
-                                    else {
-                                        blockTransactionsJson = null;
-                                    }
-                                }
+                                final Json queryBlockTransactionsJson = nodeJsonRpcConnection.getBlockTransactions(blockHeight, 32, 0);
+                                final Json blockTransactionsJson = (queryBlockTransactionsJson != null ? queryBlockTransactionsJson.get("transactions") : null);
 
                                 final Json blockJson = queryBlockResponseJson.get("block");
                                 blockJson.put("transactions", blockTransactionsJson);
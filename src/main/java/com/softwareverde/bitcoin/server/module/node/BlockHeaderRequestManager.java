@@ -0,0 +1,292 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.server.node.RequestId;
+import com.softwareverde.bitcoin.server.node.RequestPriority;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.node.NodeId;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Issues BlockHeader requests to the most responsive peer and retries stalled requests on another peer.
+ *  Only a single request is in-flight at a time since each batch of headers is requested via a block-finder built from the previous batch.
+ *  Peers are ranked by their measured header-response latency (an exponentially weighted moving average), falling back to their ping
+ *  when no header response has been measured yet; peers that recently stalled are skipped while other peers are available.
+ */
+public class BlockHeaderRequestManager {
+    public interface BitcoinNodeSelector {
+        List<BitcoinNode> getBitcoinNodes();
+    }
+
+    protected static class PeerStatistics {
+        public Long averageResponseMs = null;
+        public Long lastFailureMs = null;
+        public Integer failureCount = 0;
+    }
+
+    protected static class PendingRequest {
+        public final BitcoinNode bitcoinNode;
+        public final RequestId requestId;
+        public final List<Sha256Hash> blockFinder;
+        public final Long requestTimeMs;
+
+        public PendingRequest(final BitcoinNode bitcoinNode, final RequestId requestId, final List<Sha256Hash> blockFinder, final Long requestTimeMs) {
+            this.bitcoinNode = bitcoinNode;
+            this.requestId = requestId;
+            this.blockFinder = blockFinder;
+            this.requestTimeMs = requestTimeMs;
+        }
+    }
+
+    protected final SystemTime _systemTime = new SystemTime();
+    protected final Long _requestTimeoutMs = 5000L;
+    protected final Long _failurePenaltyMs = 60000L;
+    protected final Long _monitorIntervalMs = 250L;
+    protected final BitcoinNodeSelector _nodeSelector;
+    protected final BitcoinNode.DownloadBlockHeadersCallback _callback;
+
+    protected final MutableHashMap<NodeId, PeerStatistics> _peerStatistics = new MutableHashMap<>();
+    protected final MutableHashSet<NodeId> _attemptedNodeIds = new MutableHashSet<>(); // The peers that have stalled on the current block-finder.
+    protected PendingRequest _pendingRequest = null;
+
+    protected final AtomicBoolean _isShutdown = new AtomicBoolean(true);
+    protected Thread _thread;
+
+    protected PeerStatistics _getPeerStatistics(final NodeId nodeId) {
+        PeerStatistics peerStatistics = _peerStatistics.get(nodeId);
+        if (peerStatistics == null) {
+            peerStatistics = new PeerStatistics();
+            _peerStatistics.put(nodeId, peerStatistics);
+        }
+        return peerStatistics;
+    }
+
+    /**
+     * Returns the expected response time of the BitcoinNode; unmeasured peers are returned as zero so that they are sampled.
+     */
+    protected long _getScore(final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+        final PeerStatistics peerStatistics = _peerStatistics.get(nodeId);
+        if ( (peerStatistics != null) && (peerStatistics.averageResponseMs != null) ) {
+            return peerStatistics.averageResponseMs;
+        }
+
+        final Long averagePing = bitcoinNode.getAveragePing();
+        return Util.coalesce(averagePing, 0L);
+    }
+
+    protected Boolean _isPenalized(final BitcoinNode bitcoinNode, final Long nowMs) {
+        final NodeId nodeId = bitcoinNode.getId();
+        final PeerStatistics peerStatistics = _peerStatistics.get(nodeId);
+        if ( (peerStatistics == null) || (peerStatistics.lastFailureMs == null) ) { return false; }
+
+        return ((nowMs - peerStatistics.lastFailureMs) < (_failurePenaltyMs * peerStatistics.failureCount));
+    }
+
+    protected BitcoinNode _selectBitcoinNode(final Long nowMs) {
+        final List<BitcoinNode> bitcoinNodes = _nodeSelector.getBitcoinNodes();
+
+        BitcoinNode selectedBitcoinNode = null;
+        long selectedScore = Long.MAX_VALUE;
+        boolean selectedNodeIsPenalized = true;
+        for (final BitcoinNode bitcoinNode : bitcoinNodes) {
+            if (bitcoinNode == null) { continue; }
+            if (! bitcoinNode.isConnected()) { continue; }
+            if (! bitcoinNode.isHandshakeComplete()) { continue; }
+
+            final NodeId nodeId = bitcoinNode.getId();
+            if (_attemptedNodeIds.contains(nodeId)) { continue; }
+
+            final boolean isPenalized = _isPenalized(bitcoinNode, nowMs);
+            final long score = _getScore(bitcoinNode);
+
+            final boolean isBetterCandidate;
+            if (selectedNodeIsPenalized != isPenalized) {
+                isBetterCandidate = selectedNodeIsPenalized; // Prefer peers that have not recently stalled...
+            }
+            else {
+                isBetterCandidate = (score < selectedScore);
+            }
+
+            if (isBetterCandidate) {
+                selectedBitcoinNode = bitcoinNode;
+                selectedScore = score;
+                selectedNodeIsPenalized = isPenalized;
+            }
+        }
+
+        return selectedBitcoinNode;
+    }
+
+    protected void _onResponse(final RequestId requestId, final BitcoinNode bitcoinNode) {
+        final PendingRequest pendingRequest = _pendingRequest;
+        if ( (pendingRequest == null) || (! Util.areEqual(requestId, pendingRequest.requestId)) ) { return; }
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final long responseMs = (nowMs - pendingRequest.requestTimeMs);
+
+        final NodeId nodeId = bitcoinNode.getId();
+        final PeerStatistics peerStatistics = _getPeerStatistics(nodeId);
+        if (peerStatistics.averageResponseMs == null) {
+            peerStatistics.averageResponseMs = responseMs;
+        }
+        else {
+            peerStatistics.averageResponseMs = (((peerStatistics.averageResponseMs * 3L) + responseMs) / 4L);
+        }
+        peerStatistics.failureCount = 0;
+
+        _pendingRequest = null;
+        _attemptedNodeIds.clear();
+    }
+
+    /**
+     * Marks the pending request as failed and reissues it to the next-best peer.
+     */
+    protected void _retryPendingRequest(final PendingRequest pendingRequest) {
+        final BitcoinNode bitcoinNode = pendingRequest.bitcoinNode;
+        final NodeId nodeId = bitcoinNode.getId();
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final PeerStatistics peerStatistics = _getPeerStatistics(nodeId);
+        peerStatistics.lastFailureMs = nowMs;
+        peerStatistics.failureCount += 1;
+
+        bitcoinNode.removeCallback(pendingRequest.requestId);
+
+        _pendingRequest = null;
+        _attemptedNodeIds.add(nodeId);
+
+        if (! _requestBlockHeaders(pendingRequest.blockFinder)) {
+            _attemptedNodeIds.clear(); // Every peer has been attempted; allow them to be retried upon the next request.
+        }
+    }
+
+    protected Boolean _requestBlockHeaders(final List<Sha256Hash> blockFinder) {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final BitcoinNode bitcoinNode = _selectBitcoinNode(nowMs);
+        if (bitcoinNode == null) { return false; }
+
+        final RequestId requestId = bitcoinNode.requestBlockHeadersAfter(blockFinder, new BitcoinNode.DownloadBlockHeadersCallback() {
+            @Override
+            public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final List<BlockHeader> blockHeaders) {
+                synchronized (BlockHeaderRequestManager.this) {
+                    _onResponse(requestId, bitcoinNode);
+                }
+
+                _callback.onResult(requestId, bitcoinNode, blockHeaders);
+            }
+
+            @Override
+            public void onFailure(final RequestId requestId, final BitcoinNode bitcoinNode, final Sha256Hash blockHash) {
+                synchronized (BlockHeaderRequestManager.this) {
+                    final PendingRequest pendingRequest = _pendingRequest;
+                    if ( (pendingRequest != null) && Util.areEqual(requestId, pendingRequest.requestId) ) {
+                        Logger.debug("BlockHeaders request failed from " + bitcoinNode + "; retrying.");
+                        _retryPendingRequest(pendingRequest);
+                    }
+                }
+
+                _callback.onFailure(requestId, bitcoinNode, blockHash);
+            }
+        }, RequestPriority.NORMAL);
+
+        _pendingRequest = new PendingRequest(bitcoinNode, requestId, blockFinder, nowMs);
+        Logger.debug("Requested BlockHeaders from " + bitcoinNode + ".");
+        return true;
+    }
+
+    protected synchronized void _checkForStalledRequest() {
+        final PendingRequest pendingRequest = _pendingRequest;
+        if (pendingRequest == null) { return; }
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final long requestAgeMs = (nowMs - pendingRequest.requestTimeMs);
+        if (requestAgeMs < _requestTimeoutMs) { return; }
+
+        Logger.info("BlockHeaders request stalled after " + requestAgeMs + "ms from " + pendingRequest.bitcoinNode + "; retrying with another peer.");
+        _retryPendingRequest(pendingRequest);
+    }
+
+    public BlockHeaderRequestManager(final BitcoinNodeSelector nodeSelector, final BitcoinNode.DownloadBlockHeadersCallback callback) {
+        _nodeSelector = nodeSelector;
+        _callback = callback;
+    }
+
+    /**
+     * Requests the BlockHeaders following the provided block-finder from the most responsive peer.
+     *  Returns false if a request is already in-flight or if no peer is available.
+     */
+    public synchronized Boolean requestBlockHeaders(final List<Sha256Hash> blockFinder) {
+        final PendingRequest pendingRequest = _pendingRequest;
+        if (pendingRequest != null) { return false; }
+
+        _attemptedNodeIds.clear();
+        return _requestBlockHeaders(blockFinder);
+    }
+
+    /**
+     * Removes the statistics for a peer that has disconnected.
+     */
+    public synchronized void onNodeDisconnected(final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+        _peerStatistics.remove(nodeId);
+        _attemptedNodeIds.remove(nodeId);
+    }
+
+    public synchronized Long getAverageResponseMs(final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+        final PeerStatistics peerStatistics = _peerStatistics.get(nodeId);
+        if (peerStatistics == null) { return null; }
+
+        return peerStatistics.averageResponseMs;
+    }
+
+    public void start() {
+        if (! _isShutdown.compareAndSet(true, false)) { return; }
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (! _isShutdown.get()) {
+                        _checkForStalledRequest();
+                        Thread.sleep(_monitorIntervalMs);
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    // Nothing.
+                }
+                finally {
+                    _isShutdown.set(true);
+                }
+            }
+        });
+        _thread.setDaemon(true);
+        _thread.setName("BlockHeaderRequestManager");
+        _thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.debug(exception);
+            }
+        });
+        _thread.start();
+    }
+
+    public void stop() throws Exception {
+        if (! _isShutdown.compareAndSet(false, true)) { return; }
+
+        final Thread thread = _thread;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(1000L);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.filedb.WorkerManager;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.ByteUtil;
+import com.softwareverde.util.TimedPromise;
+import com.softwareverde.util.Tuple;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds Blocks to the BlockIndexer, in order of height, while the node is still synchronizing.
+ *  Blocks are offered directly after they are validated and applied, and are indexed from memory so that they are not
+ *  re-read and re-inflated from the BlockStore.  At most maxQueuedByteCount bytes of Blocks are held (though a single Block
+ *  is always accepted by an empty queue); once the queue is full, BlockIndexingQueue::offerBlock blocks the caller until
+ *  the indexer catches up, which bounds both the memory held and how far the index may lag behind the validated head.
+ *  Blocks that were never offered (i.e. indexing was enabled on an already-synced node, or the node restarted while the
+ *  index lagged behind) are loaded via the BlockLoader instead; several Blocks are loaded in parallel ahead of the indexer
+ *  so that reading and inflating is not serialized with indexing.  Offered Blocks that are not contiguous with the queue
+ *  are not held, since the catch-up will load them once it reaches them.
+ *  A Block that fails to be indexed is retried; if it continues to fail, indexing is stopped rather than skipping the
+ *  Block, so that the index never advances past a Block that was not indexed.
+ */
+public class BlockIndexingQueue {
+    public interface BlockIndexer {
+        void indexBlock(Block block, Long blockHeight) throws Exception;
+    }
+
+    public interface BlockLoader {
+        /**
+         * Returns the stored Block at the provided height, or null if the Block has not been validated and applied yet.
+         */
+        Block loadBlock(Long blockHeight);
+    }
+
+    public static final Long DEFAULT_MAX_QUEUED_BYTE_COUNT = (256L * ByteUtil.Unit.Binary.MEBIBYTES);
+    public static final Integer MAX_INDEX_ATTEMPT_COUNT = 3;
+
+    protected final Long _maxQueuedByteCount;
+    protected final int _catchUpDepth = 16;
+    protected final Long _idleTimeoutMs = 10000L;
+    protected Long _indexRetryDelayMs = 1000L; // Multiplied by the number of failed attempts.
+
+    protected final BlockIndexer _blockIndexer;
+    protected final BlockLoader _blockLoader;
+    protected final WorkerManager _blockLoaderWorker;
+
+    protected final Object _mutex = new Object();
+    protected final MutableHashMap<Long, Block> _queuedBlocks = new MutableHashMap<>(); // Contiguous from _indexedBlockHeight + 1; Blocks are removed once indexed.
+    protected long _queuedByteCount = 0L; // The sum of the byte counts of the _queuedBlocks; synchronized on _mutex.
+    protected final MutableHashMap<Long, TimedPromise<Block>> _catchUpBlocks = new MutableHashMap<>();
+    protected long _indexedBlockHeight;
+
+    protected Thread _thread;
+    protected final AtomicBoolean _isShutdown = new AtomicBoolean(true);
+
+    protected static <T> void _removeBlocks(final MutableHashMap<Long, T> blocks, final Long minBlockHeight) {
+        blocks.mutableVisit(new MutableMap.MutableVisitor<>() {
+            @Override
+            public boolean run(final Tuple<Long, T> entry) {
+                if (entry.first >= minBlockHeight) {
+                    entry.first = null; // Delete entry.
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Removes the queued Blocks at or above minBlockHeight and releases their bytes from the queue.
+     *  Must be invoked while synchronized on _mutex.
+     */
+    protected void _removeQueuedBlocks(final Long minBlockHeight) {
+        _queuedBlocks.mutableVisit(new MutableMap.MutableVisitor<>() {
+            @Override
+            public boolean run(final Tuple<Long, Block> entry) {
+                if (entry.first >= minBlockHeight) {
+                    final Block block = entry.second;
+                    _queuedByteCount -= block.getByteCount();
+                    entry.first = null; // Delete entry.
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Indexes the Block, retrying up to MAX_INDEX_ATTEMPT_COUNT times.
+     *  Returns false if the Block could not be indexed.
+     */
+    protected Boolean _indexBlock(final Block block, final Long blockHeight) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_INDEX_ATTEMPT_COUNT; ++attempt) {
+            try {
+                _blockIndexer.indexBlock(block, blockHeight);
+                return true;
+            }
+            catch (final Exception exception) {
+                Logger.warn("Unable to index Block " + block.getHash() + " at height " + blockHeight + ". (Attempt " + attempt + " of " + MAX_INDEX_ATTEMPT_COUNT + ")", exception);
+            }
+
+            if (attempt < MAX_INDEX_ATTEMPT_COUNT) {
+                Thread.sleep(_indexRetryDelayMs * attempt);
+                if (_isShutdown.get()) { return false; }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the stored Block at blockHeight, and starts loading the Blocks after it that have not been offered.
+     *  Must only be invoked by the indexing thread.
+     */
+    protected Block _loadStoredBlock(final Long blockHeight) throws InterruptedException {
+        final TimedPromise<Block> promise;
+        synchronized (_catchUpBlocks) {
+            for (int i = 0; i < _catchUpDepth; ++i) {
+                final Long catchUpBlockHeight = (blockHeight + i);
+                if (_catchUpBlocks.containsKey(catchUpBlockHeight)) { continue; }
+
+                synchronized (_mutex) {
+                    if (_queuedBlocks.containsKey(catchUpBlockHeight)) { break; } // The catch-up has reached the offered Blocks.
+                }
+
+                final TimedPromise<Block> catchUpPromise = new TimedPromise<>();
+                _catchUpBlocks.put(catchUpBlockHeight, catchUpPromise);
+                _blockLoaderWorker.submitTask(new WorkerManager.Task() {
+                    @Override
+                    public void run() {
+                        Block block = null;
+                        try {
+                            if (! _isShutdown.get()) {
+                                block = _blockLoader.loadBlock(catchUpBlockHeight);
+                            }
+                        }
+                        finally {
+                            catchUpPromise.setResult(block);
+                        }
+                    }
+                });
+            }
+
+            promise = _catchUpBlocks.remove(blockHeight);
+        }
+
+        final Block block = (promise != null ? promise.getResult(_idleTimeoutMs) : null);
+        if (block != null) { return block; }
+
+        // The Block was not available when it was loaded, so the Blocks loaded after it are likely also missing; the head may have since advanced.
+        synchronized (_catchUpBlocks) {
+            _catchUpBlocks.clear();
+        }
+        return _blockLoader.loadBlock(blockHeight);
+    }
+
+    protected void _run() throws InterruptedException {
+        while (! _isShutdown.get()) {
+            final Long blockHeight;
+            Block block;
+            synchronized (_mutex) {
+                blockHeight = (_indexedBlockHeight + 1L);
+                block = _queuedBlocks.get(blockHeight);
+            }
+
+            if (block == null) {
+                block = _loadStoredBlock(blockHeight);
+            }
+
+            if (block == null) {
+                synchronized (_mutex) {
+                    if ( (! _isShutdown.get()) && (! _queuedBlocks.containsKey(blockHeight)) ) {
+                        _mutex.wait(_idleTimeoutMs);
+                    }
+                }
+                continue;
+            }
+
+            final Boolean wasIndexed = _indexBlock(block, blockHeight);
+            if (! wasIndexed) {
+                if (! _isShutdown.get()) {
+                    Logger.error("Unable to index Block " + block.getHash() + " at height " + blockHeight + "; indexing stopped.");
+                }
+                return;
+            }
+
+            synchronized (_mutex) {
+                if (blockHeight == (_indexedBlockHeight + 1L)) {
+                    final Block queuedBlock = _queuedBlocks.get(blockHeight);
+                    if (queuedBlock != null) {
+                        _queuedBlocks.remove(blockHeight);
+                        _queuedByteCount -= queuedBlock.getByteCount();
+                    }
+                    _indexedBlockHeight = blockHeight;
+                }
+                _mutex.notifyAll();
+            }
+        }
+    }
+
+    public BlockIndexingQueue(final BlockIndexer blockIndexer, final BlockLoader blockLoader) {
+        this(blockIndexer, blockLoader, DEFAULT_MAX_QUEUED_BYTE_COUNT);
+    }
+
+    public BlockIndexingQueue(final BlockIndexer blockIndexer, final BlockLoader blockLoader, final Long maxQueuedByteCount) {
+        _blockIndexer = blockIndexer;
+        _blockLoader = blockLoader;
+        _maxQueuedByteCount = maxQueuedByteCount;
+
+        _blockLoaderWorker = new WorkerManager(4, 256);
+        _blockLoaderWorker.setName("Block Index Loader");
+    }
+
+    /**
+     * Starts indexing the Blocks after indexedBlockHeight.
+     */
+    public void start(final Long indexedBlockHeight) {
+        if (! _isShutdown.compareAndSet(true, false)) { return; }
+
+        synchronized (_mutex) {
+            _indexedBlockHeight = indexedBlockHeight;
+            _queuedBlocks.clear();
+            _queuedByteCount = 0L;
+        }
+
+        _blockLoaderWorker.start();
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Logger.debug("BlockIndexingQueue started.");
+                try {
+                    _run();
+                }
+                catch (final InterruptedException exception) { }
+                finally {
+                    _isShutdown.set(true);
+                    synchronized (_mutex) {
+                        _mutex.notifyAll();
+                    }
+                    Logger.debug("BlockIndexingQueue shutdown.");
+                }
+            }
+        });
+        _thread.setDaemon(true);
+        _thread.setName("Blockchain Indexer");
+        _thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.debug(exception);
+            }
+        });
+        _thread.start();
+    }
+
+    /**
+     * Queues the validated Block to be indexed from memory.
+     *  Blocks until the queue has room for the Block's bytes, or until the BlockIndexingQueue is stopped.
+     *  Offering a Block at or below a height that is already queued replaces the queued Blocks from that height onward.
+     */
+    public void offerBlock(final Block block, final Long blockHeight) throws InterruptedException {
+        synchronized (_mutex) {
+            if (_isShutdown.get()) { return; }
+            if (blockHeight <= _indexedBlockHeight) { return; }
+
+            _removeQueuedBlocks(blockHeight);
+
+            final long expectedBlockHeight = (_indexedBlockHeight + _queuedBlocks.getCount() + 1L);
+            if (blockHeight != expectedBlockHeight) {
+                _mutex.notifyAll(); // The Block will be loaded by the catch-up.
+                return;
+            }
+
+            final Integer blockByteCount = block.getByteCount();
+            while ( (! _queuedBlocks.isEmpty()) && ((_queuedByteCount + blockByteCount) > _maxQueuedByteCount) ) {
+                if (_isShutdown.get()) { return; }
+                _mutex.wait(_idleTimeoutMs);
+            }
+            if (blockHeight != (_indexedBlockHeight + _queuedBlocks.getCount() + 1L)) { return; } // The queue was changed while waiting; the Block will be loaded by the catch-up.
+
+            _queuedBlocks.put(blockHeight, block);
+            _queuedByteCount += blockByteCount;
+            _mutex.notifyAll();
+        }
+    }
+
+    /**
+     * Discards any queued or loaded Blocks at or above minBlockHeight, i.e. when those Blocks are undone.
+     *  Blocks that have already been indexed are not un-indexed.
+     */
+    public void removeBlocks(final Long minBlockHeight) {
+        synchronized (_catchUpBlocks) {
+            _removeBlocks(_catchUpBlocks, minBlockHeight);
+        }
+
+        synchronized (_mutex) {
+            _removeQueuedBlocks(minBlockHeight);
+            _mutex.notifyAll();
+        }
+    }
+
+    public Long getIndexedBlockHeight() {
+        synchronized (_mutex) {
+            return _indexedBlockHeight;
+        }
+    }
+
+    public Integer getQueuedBlockCount() {
+        synchronized (_mutex) {
+            return _queuedBlocks.getCount();
+        }
+    }
+
+    public Long getQueuedByteCount() {
+        synchronized (_mutex) {
+            return _queuedByteCount;
+        }
+    }
+
+    /**
+     * Returns true if the BlockIndexingQueue is not running, i.e. it was stopped or a Block could not be indexed.
+     */
+    public Boolean isShutdown() {
+        return _isShutdown.get();
+    }
+
+    public void stop() throws Exception {
+        _isShutdown.set(true);
+
+        final Thread thread = _thread;
+        if (thread == null) { return; } // Never started, or already stopped...
+        _thread = null;
+
+        synchronized (_mutex) {
+            _mutex.notifyAll();
+        }
+
+        _blockLoaderWorker.close(3000L);
+
+        thread.join(10000L);
+    }
+}
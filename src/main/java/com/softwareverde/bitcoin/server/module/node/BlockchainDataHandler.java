@@ -8,6 +8,7 @@ import com.softwareverde.bitcoin.block.validator.BlockValidationResult;
 import com.softwareverde.bitcoin.block.validator.ValidationResult;
 import com.softwareverde.bitcoin.block.validator.difficulty.DifficultyCalculator;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.utxo.UnspentTransactionOutputLevelDbManager;
+import com.softwareverde.bitcoin.server.module.node.handler.transaction.dsproof.DoubleSpendProofStore;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
 import com.softwareverde.bitcoin.server.module.node.store.BlockStore;
 import com.softwareverde.bitcoin.slp.SlpTokenId;
@@ -35,18 +36,20 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
     protected final TransactionIndexer _transactionIndexer;
     protected final TransactionMempool _mempool;
     protected final UnspentTransactionOutputLevelDbManager _utxoManager;
+    protected final DoubleSpendProofStore _doubleSpendProofStore;
 
     protected Container<Long> _headBlockHeightContainer;
     protected Container<Long> _headBlockHeaderHeightContainer;
     protected Container<Long> _indexedBlockHeightContainer;
 
-    public BlockchainDataHandler(final Blockchain blockchain, final BlockStore blockStore, final UpgradeSchedule upgradeSchedule, final TransactionIndexer transactionIndexer, final TransactionMempool transactionMempool, final UnspentTransactionOutputLevelDbManager utxoManager) {
+    public BlockchainDataHandler(final Blockchain blockchain, final BlockStore blockStore, final UpgradeSchedule upgradeSchedule, final TransactionIndexer transactionIndexer, final TransactionMempool transactionMempool, final UnspentTransactionOutputLevelDbManager utxoManager, final DoubleSpendProofStore doubleSpendProofStore) {
         _blockchain = blockchain;
         _blockStore = blockStore;
         _upgradeSchedule = upgradeSchedule;
         _transactionIndexer = transactionIndexer;
         _mempool = transactionMempool;
         _utxoManager = utxoManager;
+        _doubleSpendProofStore = doubleSpendProofStore;
     }
 
     public void setHeadBlockHeightContainer(final Container<Long> container) {
@@ -153,6 +156,23 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
         return this.getBlockTransactions(blockHeight, pageSize, pageNumber);
     }
 
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Long blockHeight) {
+        final BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
+        if (blockHeader == null) { return null; }
+
+        final Sha256Hash blockHash = blockHeader.getHash();
+        return _blockStore.getBlockTransactionHashes(blockHash, blockHeight);
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Sha256Hash blockHash) {
+        final Long blockHeight = _blockchain.getBlockHeight(blockHash);
+        if (blockHeight == null) { return null; }
+
+        return _blockStore.getBlockTransactionHashes(blockHash, blockHeight);
+    }
+
     @Override
     public List<BlockHeader> getBlockHeaders(final Long nullableBlockHeight, final Integer maxBlockCount, final Direction blockHeaderDirection) {
         final Long blockHeight = Util.coalesce(nullableBlockHeight, _blockchain.getHeadBlockHeaderHeight());
@@ -174,11 +194,12 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
     public Transaction getTransaction(final Sha256Hash transactionHash) {
         try {
             final IndexedTransaction indexedTransaction = _transactionIndexer.getIndexedTransaction(transactionHash);
-            if (indexedTransaction == null) { return null; }
-
-            final Transaction transaction = _blockchain.getTransaction(indexedTransaction);
-            if (transaction != null) { return transaction; }
+            if (indexedTransaction != null) {
+                final Transaction transaction = _blockchain.getTransaction(indexedTransaction);
+                if (transaction != null) { return transaction; }
+            }
 
+            // Unconfirmed Transactions are not indexed...
             final TransactionWithFee transactionWithFee = _mempool.getTransaction(transactionHash);
             return (transactionWithFee != null ? transactionWithFee.transaction : null);
         }
@@ -207,7 +228,6 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public Integer getTransactionBlockIndex(final Sha256Hash transactionHash) {
-        // TODO: Not very fast for large blocks.
         try {
             final IndexedTransaction indexedTransaction = _transactionIndexer.getIndexedTransaction(transactionHash);
             if (indexedTransaction == null) { return null; }
@@ -218,13 +238,12 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
             if (blockHeader == null) { return null; }
 
             final Sha256Hash blockHash = blockHeader.getHash();
-            final Block block = _blockStore.getBlock(blockHash, blockHeight);
-            if (block == null) { return null; }
+            final List<Sha256Hash> transactionHashes = _blockStore.getBlockTransactionHashes(blockHash, blockHeight);
+            if (transactionHashes == null) { return null; }
 
             int index = 0;
-            final List<Transaction> transactions = block.getTransactions();
-            for (final Transaction transaction : transactions) {
-                if (Util.areEqual(transactionHash, transaction.getHash())) {
+            for (final Sha256Hash blockTransactionHash : transactionHashes) {
+                if (Util.areEqual(transactionHash, blockTransactionHash)) {
                     return index;
                 }
                 index += 1;
@@ -327,20 +346,17 @@ public class BlockchainDataHandler implements NodeRpcHandler.DataHandler {
 
     @Override
     public List<DoubleSpendProof> getDoubleSpendProofs() {
-        // TODO: requires dsproofs...
-        return null;
+        return _doubleSpendProofStore.getDoubleSpendProofs();
     }
 
     @Override
     public DoubleSpendProof getDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
-        // TODO: requires dsproofs...
-        return null;
+        return _doubleSpendProofStore.getDoubleSpendProof(doubleSpendProofHash);
     }
 
     @Override
     public DoubleSpendProof getDoubleSpendProof(final TransactionOutputIdentifier transactionOutputIdentifierBeingSpent) {
-        // TODO: requires dsproofs...
-        return null;
+        return _doubleSpendProofStore.getDoubleSpendProof(transactionOutputIdentifierBeingSpent);
     }
 
     @Override
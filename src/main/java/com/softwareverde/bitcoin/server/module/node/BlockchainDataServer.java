@@ -0,0 +1,413 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
+import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
+import com.softwareverde.bitcoin.server.module.node.store.BlockStore;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.filedb.WorkerManager;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.node.NodeId;
+import com.softwareverde.util.Tuple;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves Blocks, MerkleBlocks, BlockHeaders, and BlockHashes to peers directly from the BlockStore and Blockchain.
+ *  Block requests are queued per-peer and served round-robin by a shared pool of workers.  Each peer may only have a bounded
+ *  number of queued Block requests; requests beyond that bound are answered with a NotFound message.  Each peer's upload
+ *  rate is limited by a token bucket that may go into debt by a single Block, so a peer's next Block is delayed until the
+ *  bytes of its previous Block have been paid for.
+ *  Full Blocks are transmitted as their stored bytes and are never inflated; MerkleBlocks require the Block to be inflated
+ *  since the peer's BloomFilter must be matched against each Transaction.
+ */
+public class BlockchainDataServer {
+    public static final Integer MAX_BLOCK_HEADER_COUNT = 2000;
+    public static final Integer MAX_BLOCK_HASH_COUNT = 500;
+
+    protected static class PeerState {
+        public final BitcoinNode bitcoinNode;
+        public final LinkedList<InventoryItem> queuedItems = new LinkedList<>();
+        public Long availableByteCount;
+        public Long lastRefillMs;
+        public Boolean isBeingServed = false;
+
+        public PeerState(final BitcoinNode bitcoinNode, final Long availableByteCount, final Long nowMs) {
+            this.bitcoinNode = bitcoinNode;
+            this.availableByteCount = availableByteCount;
+            this.lastRefillMs = nowMs;
+        }
+    }
+
+    protected final SystemTime _systemTime = new SystemTime();
+    protected final Long _monitorIntervalMs = 100L;
+    protected final Blockchain _blockchain;
+    protected final BlockStore _blockStore;
+    protected final Long _maxBytesPerSecond;
+    protected final Integer _maxQueuedRequestCount;
+
+    protected final MutableHashMap<NodeId, PeerState> _peerStates = new MutableHashMap<>();
+    protected final WorkerManager _workerManager;
+
+    protected final AtomicBoolean _isShutdown = new AtomicBoolean(true);
+    protected Thread _thread;
+
+    protected PeerState _getPeerState(final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+        synchronized (_peerStates) {
+            PeerState peerState = _peerStates.get(nodeId);
+            if (peerState == null) {
+                final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+                peerState = new PeerState(bitcoinNode, _maxBytesPerSecond, nowMs);
+                _peerStates.put(nodeId, peerState);
+            }
+            return peerState;
+        }
+    }
+
+    /**
+     * Refills the PeerState's token bucket for the time elapsed since its last refill.
+     *  The bucket holds at most one second of upload.  Must be invoked while synchronized on the PeerState.
+     */
+    protected void _refill(final PeerState peerState, final Long nowMs) {
+        final long elapsedMs = Math.max(0L, (nowMs - peerState.lastRefillMs));
+        final long refillByteCount = ((_maxBytesPerSecond * elapsedMs) / 1000L);
+        peerState.availableByteCount = Math.min(_maxBytesPerSecond, (peerState.availableByteCount + refillByteCount));
+        peerState.lastRefillMs = nowMs;
+    }
+
+    protected void _debit(final BitcoinNode bitcoinNode, final Long byteCount) {
+        final PeerState peerState = _getPeerState(bitcoinNode);
+        synchronized (peerState) {
+            peerState.availableByteCount -= byteCount;
+        }
+    }
+
+    /**
+     * Queues the PeerState to be served by a worker if it has queued requests, is not already being served, and has upload allowance.
+     */
+    protected void _schedule(final PeerState peerState) {
+        if (_isShutdown.get()) { return; }
+
+        synchronized (peerState) {
+            if (peerState.isBeingServed) { return; }
+            if (peerState.queuedItems.isEmpty()) { return; }
+
+            final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+            _refill(peerState, nowMs);
+            if (peerState.availableByteCount <= 0L) { return; } // The monitor thread will reschedule the peer once its allowance has been refilled.
+
+            peerState.isBeingServed = true;
+        }
+
+        final boolean wasQueued = _workerManager.offerTask(new WorkerManager.Task() {
+            @Override
+            public void run() {
+                _serveNextItem(peerState);
+            }
+        });
+
+        if (! wasQueued) {
+            synchronized (peerState) {
+                peerState.isBeingServed = false;
+            }
+        }
+    }
+
+    /**
+     * Serves a single queued request for the peer, then reschedules the peer so that the workers are shared evenly between peers.
+     */
+    protected void _serveNextItem(final PeerState peerState) {
+        final BitcoinNode bitcoinNode = peerState.bitcoinNode;
+        try {
+            final InventoryItem inventoryItem;
+            synchronized (peerState) {
+                inventoryItem = peerState.queuedItems.pollFirst();
+            }
+            if (inventoryItem == null) { return; }
+            if (! bitcoinNode.isConnected()) { return; }
+
+            final Long byteCount = _serveBlock(bitcoinNode, inventoryItem);
+            if (byteCount == null) {
+                final NotFoundResponseMessage notFoundResponseMessage = new NotFoundResponseMessage();
+                notFoundResponseMessage.addItem(inventoryItem);
+                bitcoinNode.queueMessage(notFoundResponseMessage);
+                return;
+            }
+
+            synchronized (peerState) {
+                peerState.availableByteCount -= byteCount;
+            }
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+        }
+        finally {
+            synchronized (peerState) {
+                peerState.isBeingServed = false;
+            }
+
+            _schedule(peerState);
+        }
+    }
+
+    /**
+     * Transmits the requested Block or MerkleBlock to the peer and returns the number of bytes transmitted.
+     *  Returns null if the Block is not available.
+     */
+    protected Long _serveBlock(final BitcoinNode bitcoinNode, final InventoryItem inventoryItem) {
+        final Sha256Hash blockHash = inventoryItem.getItemHash();
+
+        final Long blockHeight = _blockchain.getBlockHeight(blockHash);
+        if (blockHeight == null) { return null; }
+
+        final Long headBlockHeight = _blockchain.getHeadBlockHeight();
+        if (blockHeight > headBlockHeight) { return null; }
+
+        final long byteCount;
+        if (inventoryItem.getItemType() == InventoryItemType.MERKLE_BLOCK) {
+            if (! bitcoinNode.hasBloomFilter()) { return null; } // A MerkleBlock cannot be built without the peer's BloomFilter; the full Block is not sent in its place.
+
+            final Block block = _blockStore.getBlock(blockHash, blockHeight);
+            if (block == null) { return null; }
+
+            bitcoinNode.transmitMerkleBlock(block);
+            byteCount = block.getByteCount(); // The upper-bound of the MerkleBlock's size is its Block's size...
+        }
+        else {
+            final ByteArray blockBytes = _blockStore.getBlockBytes(blockHash, blockHeight);
+            if (blockBytes == null) { return null; }
+
+            bitcoinNode.transmitBlock(blockBytes);
+            byteCount = blockBytes.getByteCount();
+        }
+
+        final Sha256Hash batchContinueHash = bitcoinNode.getBatchContinueHash();
+        if (Util.areEqual(batchContinueHash, blockHash)) {
+            final Sha256Hash headBlockHash = _blockchain.getHeadBlockHash();
+            bitcoinNode.transmitBatchContinueHash(headBlockHash);
+            bitcoinNode.setBatchContinueHash(null);
+        }
+
+        return byteCount;
+    }
+
+    /**
+     * Returns the height of the first hash within the block-finder that is a part of the Blockchain, or null if none are found.
+     */
+    protected Long _getBlockFinderHeight(final List<Sha256Hash> blockFinder) {
+        for (final Sha256Hash blockHash : blockFinder) {
+            final Long blockHeight = _blockchain.getBlockHeight(blockHash);
+            if (blockHeight != null) {
+                return blockHeight;
+            }
+        }
+        return null;
+    }
+
+    protected void _purgeDisconnectedPeers() {
+        synchronized (_peerStates) {
+            _peerStates.mutableVisit(new MutableMap.MutableVisitor<>() {
+                @Override
+                public boolean run(final Tuple<NodeId, PeerState> entry) {
+                    final PeerState peerState = entry.second;
+                    if (! peerState.bitcoinNode.isConnected()) {
+                        entry.first = null;
+                    }
+                    return true;
+                }
+            });
+        }
+    }
+
+    protected void _scheduleAllPeers() {
+        final MutableList<PeerState> peerStates;
+        synchronized (_peerStates) {
+            peerStates = new MutableArrayList<>(_peerStates.getValues());
+        }
+
+        for (final PeerState peerState : peerStates) {
+            _schedule(peerState);
+        }
+    }
+
+    public BlockchainDataServer(final Blockchain blockchain, final BlockStore blockStore, final Integer workerCount, final Long maxBytesPerSecond, final Integer maxQueuedRequestCount) {
+        _blockchain = blockchain;
+        _blockStore = blockStore;
+        _maxBytesPerSecond = maxBytesPerSecond;
+        _maxQueuedRequestCount = maxQueuedRequestCount;
+
+        _workerManager = new WorkerManager(workerCount, 1024);
+        _workerManager.setName("BlockchainDataServer");
+    }
+
+    /**
+     * Queues the Block and MerkleBlock requests from the peer; other InventoryItem types are ignored.
+     *  Requests that would exceed the peer's queued-request bound are immediately answered with a NotFound message.
+     *  MerkleBlock requests from a peer without a BloomFilter are answered with a NotFound message.
+     */
+    public void onRequestData(final BitcoinNode bitcoinNode, final List<InventoryItem> inventoryItems) {
+        if (_isShutdown.get()) { return; }
+
+        final PeerState peerState = _getPeerState(bitcoinNode);
+        final MutableList<InventoryItem> rejectedItems = new MutableArrayList<>();
+        synchronized (peerState) {
+            for (final InventoryItem inventoryItem : inventoryItems) {
+                final InventoryItemType inventoryItemType = inventoryItem.getItemType();
+                if ( (inventoryItemType != InventoryItemType.BLOCK) && (inventoryItemType != InventoryItemType.MERKLE_BLOCK) ) { continue; }
+
+                if (peerState.queuedItems.size() >= _maxQueuedRequestCount) {
+                    rejectedItems.add(inventoryItem);
+                    continue;
+                }
+
+                if (peerState.queuedItems.contains(inventoryItem)) { continue; }
+                peerState.queuedItems.addLast(inventoryItem);
+            }
+        }
+
+        if (! rejectedItems.isEmpty()) {
+            Logger.debug("Rejecting " + rejectedItems.getCount() + " block requests from " + bitcoinNode + "; too many requests in-flight.");
+
+            final NotFoundResponseMessage notFoundResponseMessage = new NotFoundResponseMessage();
+            for (final InventoryItem inventoryItem : rejectedItems) {
+                notFoundResponseMessage.addItem(inventoryItem);
+            }
+            bitcoinNode.queueMessage(notFoundResponseMessage);
+        }
+
+        _schedule(peerState);
+    }
+
+    /**
+     * Transmits up to MAX_BLOCK_HEADER_COUNT BlockHeaders following the block-finder, including the stop-hash's BlockHeader.
+     *  If no block-finder is provided, only the stop-hash's BlockHeader is transmitted.
+     */
+    public void onRequestBlockHeaders(final BitcoinNode bitcoinNode, final List<Sha256Hash> blockFinder, final Sha256Hash stopBlockHash) {
+        if (_isShutdown.get()) { return; }
+
+        final MutableList<BlockHeader> blockHeaders = new MutableArrayList<>();
+        if (blockFinder.isEmpty()) {
+            final Long blockHeight = _blockchain.getBlockHeight(stopBlockHash);
+            if (blockHeight == null) { return; }
+
+            final BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
+            if (blockHeader == null) { return; }
+
+            blockHeaders.add(blockHeader);
+        }
+        else {
+            final Long blockFinderHeight = Util.coalesce(_getBlockFinderHeight(blockFinder), 0L);
+            final Long headBlockHeaderHeight = _blockchain.getHeadBlockHeaderHeight();
+
+            long blockHeight = (blockFinderHeight + 1L);
+            while ( (blockHeight <= headBlockHeaderHeight) && (blockHeaders.getCount() < MAX_BLOCK_HEADER_COUNT) ) {
+                final BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
+                if (blockHeader == null) { break; }
+
+                blockHeaders.add(blockHeader);
+
+                final Sha256Hash blockHash = blockHeader.getHash();
+                if (Util.areEqual(stopBlockHash, blockHash)) { break; }
+
+                blockHeight += 1L;
+            }
+        }
+
+        bitcoinNode.transmitBlockHeaders(blockHeaders);
+        _debit(bitcoinNode, (long) (blockHeaders.getCount() * (BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT + 1)));
+    }
+
+    /**
+     * Announces the hashes of up to MAX_BLOCK_HASH_COUNT stored Blocks following the block-finder, excluding the stop-hash.
+     *  When the limit is reached, the last announced hash is used as the peer's batch-continue hash.
+     */
+    public void onRequestBlockHashes(final BitcoinNode bitcoinNode, final List<Sha256Hash> blockFinder, final Sha256Hash stopBlockHash) {
+        if (_isShutdown.get()) { return; }
+
+        final Long blockFinderHeight = Util.coalesce(_getBlockFinderHeight(blockFinder), 0L);
+        final Long headBlockHeight = _blockchain.getHeadBlockHeight();
+
+        final MutableList<Sha256Hash> blockHashes = new MutableArrayList<>();
+        long blockHeight = (blockFinderHeight + 1L);
+        while ( (blockHeight <= headBlockHeight) && (blockHashes.getCount() < MAX_BLOCK_HASH_COUNT) ) {
+            final Sha256Hash blockHash = _blockchain.getBlockHash(blockHeight);
+            if (blockHash == null) { break; }
+            if (Util.areEqual(stopBlockHash, blockHash)) { break; }
+
+            blockHashes.add(blockHash);
+            blockHeight += 1L;
+        }
+        if (blockHashes.isEmpty()) { return; }
+
+        if (blockHashes.getCount() >= MAX_BLOCK_HASH_COUNT) {
+            final int lastIndex = (blockHashes.getCount() - 1);
+            bitcoinNode.setBatchContinueHash(blockHashes.get(lastIndex));
+        }
+
+        bitcoinNode.transmitBlockHashes(blockHashes);
+    }
+
+    public void onNodeDisconnected(final BitcoinNode bitcoinNode) {
+        final NodeId nodeId = bitcoinNode.getId();
+        synchronized (_peerStates) {
+            _peerStates.remove(nodeId);
+        }
+    }
+
+    public void start() {
+        if (! _isShutdown.compareAndSet(true, false)) { return; }
+
+        _workerManager.start();
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (! _isShutdown.get()) {
+                        _purgeDisconnectedPeers();
+                        _scheduleAllPeers();
+                        Thread.sleep(_monitorIntervalMs);
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    // Nothing.
+                }
+            }
+        });
+        _thread.setDaemon(true);
+        _thread.setName("BlockchainDataServer");
+        _thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.debug(exception);
+            }
+        });
+        _thread.start();
+    }
+
+    public void stop() throws Exception {
+        if (! _isShutdown.compareAndSet(false, true)) { return; }
+
+        final Thread thread = _thread;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(1000L);
+        }
+
+        _workerManager.close();
+    }
+}
@@ -1,6 +1,8 @@
 package com.softwareverde.bitcoin.server.module.node;
 
 import com.softwareverde.bitcoin.address.TypedAddress;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
 import com.softwareverde.bitcoin.server.module.node.indexing.IndexedAddress;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
 import com.softwareverde.bitcoin.transaction.Transaction;
@@ -27,6 +29,80 @@ public class BlockchainQueryAddressHandler implements NodeRpcHandler.QueryAddres
     protected final TransactionIndexer _transactionIndexer;
     protected final TransactionMempool _mempool;
 
+    /**
+     * Returns the ids of the Transactions that created or spent the address's outputs.
+     */
+    protected MutableHashSet<Long> _getAddressTransactionIds(final List<ShortTransactionOutputIdentifier> receivedOutputs) throws Exception {
+        final MutableHashSet<Long> transactionIds = new MutableHashSet<>(receivedOutputs.getCount());
+        for (final ShortTransactionOutputIdentifier transactionOutputIdentifier : receivedOutputs) {
+            transactionIds.add(transactionOutputIdentifier.getTransactionId());
+
+            final Long spendingTransactionId = _transactionIndexer.getSpendingTransactionId(transactionOutputIdentifier);
+            if (spendingTransactionId != null) {
+                transactionIds.add(spendingTransactionId);
+            }
+        }
+        return transactionIds;
+    }
+
+    /**
+     * Returns the mempool Transactions that spend or create one of the address's outputs.
+     *  The mempool indexes its Transactions by the script hashes they spend and create, so the mempool is not scanned.
+     */
+    protected List<AddressHistoryEntry> _getUnconfirmedAddressHistory(final Sha256Hash scriptHash) {
+        final List<TransactionWithFee> mempoolTransactions = _mempool.getTransactions(scriptHash);
+
+        final MutableList<AddressHistoryEntry> addressHistory = new MutableArrayList<>(mempoolTransactions.getCount());
+        for (final TransactionWithFee mempoolTransactionWithFee : mempoolTransactions) {
+            final Transaction mempoolTransaction = mempoolTransactionWithFee.transaction;
+
+            boolean hasUnconfirmedInputs = false;
+            for (final TransactionInput transactionInput : mempoolTransaction.getTransactionInputs()) {
+                final Sha256Hash previousTransactionHash = transactionInput.getPreviousOutputTransactionHash();
+                if (_mempool.contains(previousTransactionHash)) {
+                    hasUnconfirmedInputs = true;
+                    break;
+                }
+            }
+
+            addressHistory.add(new AddressHistoryEntry(mempoolTransaction.getHash(), null, hasUnconfirmedInputs, mempoolTransactionWithFee.transactionFee));
+        }
+        return addressHistory;
+    }
+
+    /**
+     * Reads the address's index, and locates each of its Transactions, once for the returned cursor's lifetime.
+     */
+    protected IndexedAddressHistoryCursor _createAddressHistoryCursor(final Sha256Hash scriptHash, final Long fromBlockHeight) throws Exception {
+        final MutableHashMap<Long, IndexedTransaction> indexedTransactions = new MutableHashMap<>();
+
+        final Long headBlockHeight = _blockchain.getHeadBlockHeaderHeight();
+        if (fromBlockHeight <= headBlockHeight) { // Otherwise only the unconfirmed history is requested, so the index is not read...
+            final IndexedAddress indexedAddress = _transactionIndexer.getIndexedAddress(scriptHash);
+            final List<ShortTransactionOutputIdentifier> receivedOutputs = ((indexedAddress != null) ? indexedAddress.getTransactionOutputs() : new MutableArrayList<>(0));
+            final MutableHashSet<Long> transactionIds = _getAddressTransactionIds(receivedOutputs);
+
+            for (final Long transactionId : transactionIds) {
+                final IndexedTransaction indexedTransaction = _transactionIndexer.getIndexedTransaction(transactionId);
+                if (indexedTransaction == null) { continue; }
+
+                indexedTransactions.put(transactionId, indexedTransaction);
+            }
+        }
+
+        return new IndexedAddressHistoryCursor(indexedTransactions, fromBlockHeight) {
+            @Override
+            protected Sha256Hash _getTransactionHash(final Long transactionId) throws Exception {
+                return _transactionIndexer.getTransactionHash(transactionId);
+            }
+
+            @Override
+            protected List<AddressHistoryEntry> _loadUnconfirmedAddressHistory() {
+                return _getUnconfirmedAddressHistory(scriptHash);
+            }
+        };
+    }
+
     public BlockchainQueryAddressHandler(final Blockchain blockchain, final TransactionIndexer transactionIndexer, final TransactionMempool transactionMempool) {
         _blockchain = blockchain;
         _transactionIndexer = transactionIndexer;
@@ -284,4 +360,23 @@ public class BlockchainQueryAddressHandler implements NodeRpcHandler.QueryAddres
             return null;
         }
     }
+
+    @Override
+    public List<AddressHistoryEntry> getAddressHistory(final Sha256Hash scriptHash, final Long fromBlockHeight, final Integer maxTransactionCount) {
+        final AddressHistoryCursor addressHistoryCursor = this.getAddressHistoryCursor(scriptHash, fromBlockHeight);
+        if (addressHistoryCursor == null) { return null; }
+
+        return addressHistoryCursor.getNextPage(maxTransactionCount);
+    }
+
+    @Override
+    public AddressHistoryCursor getAddressHistoryCursor(final Sha256Hash scriptHash, final Long fromBlockHeight) {
+        try {
+            return _createAddressHistoryCursor(scriptHash, fromBlockHeight);
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.block.thin.AssembleExtraThinBlockResult;
+import com.softwareverde.bitcoin.block.thin.ExtraThinBlockAssembler;
+import com.softwareverde.bitcoin.server.module.node.store.PendingBlockStore;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.server.node.ExtraThinBlockParameters;
+import com.softwareverde.bitcoin.server.node.RequestId;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.TimedPromise;
+import com.softwareverde.util.Util;
+
+/**
+ * Downloads new blocks at the chain tip as xThin blocks, reconstructing them from the memory pool.
+ *  Only the Transactions not found within the memory pool are requested from the peer.
+ *  The returned promise resolves to null if the block could not be reconstructed (i.e. a short-hash collision, a failed
+ *  request, or a mismatched merkle root), in which case the PendingBlockQueue falls back to downloading the full block.
+ *  Stalled requests are resolved by the PendingBlockQueue's request timeout.
+ */
+public class ExtraThinBlockDownloader {
+    protected final TransactionMempool _transactionMempool;
+    protected final PendingBlockStore _blockStore;
+    protected final ExtraThinBlockAssembler _extraThinBlockAssembler = new ExtraThinBlockAssembler();
+
+    protected void _onBlockAssembled(final Block block, final BitcoinNode bitcoinNode, final TimedPromise<Block> promise) {
+        if (block == null) {
+            Logger.debug("Unable to reconstruct xThin block from " + bitcoinNode + "; falling back to full download.");
+            promise.setResult(null);
+            return;
+        }
+
+        Logger.debug("Reconstructed xThin block " + block.getHash() + " from " + bitcoinNode + " in " + promise.getMsElapsed() + "ms.");
+        _blockStore.storePendingBlock(block);
+        promise.setResult(block);
+    }
+
+    protected void _onExtraThinBlockReceived(final BitcoinNode bitcoinNode, final Sha256Hash blockHash, final ExtraThinBlockParameters extraThinBlockParameters, final List<Transaction> memoryPoolTransactions, final TimedPromise<Block> promise) {
+        final BlockHeader blockHeader = extraThinBlockParameters.blockHeader;
+        if (! Util.areEqual(blockHash, blockHeader.getHash())) {
+            promise.setResult(null);
+            return;
+        }
+
+        final AssembleExtraThinBlockResult assembleExtraThinBlockResult = _extraThinBlockAssembler.assembleExtraThinBlock(blockHeader, extraThinBlockParameters.transactionHashes, extraThinBlockParameters.transactions, memoryPoolTransactions);
+        if (assembleExtraThinBlockResult.hasShortHashCollision) {
+            Logger.debug("xThin block " + blockHash + " contains a short-hash collision.");
+            promise.setResult(null);
+            return;
+        }
+
+        final List<ByteArray> missingTransactionShortHashes = assembleExtraThinBlockResult.missingTransactionShortHashes;
+        if (missingTransactionShortHashes.isEmpty()) {
+            _onBlockAssembled(assembleExtraThinBlockResult.block, bitcoinNode, promise);
+            return;
+        }
+
+        Logger.debug("Requesting " + missingTransactionShortHashes.getCount() + " missing xThin transactions for " + blockHash + " from " + bitcoinNode + ".");
+        bitcoinNode.requestExtraThinTransactions(blockHash, missingTransactionShortHashes, new BitcoinNode.DownloadThinTransactionsCallback() {
+            @Override
+            public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final List<Transaction> transactions) {
+                final Block block = _extraThinBlockAssembler.reassembleExtraThinBlock(assembleExtraThinBlockResult, transactions);
+                _onBlockAssembled(block, bitcoinNode, promise);
+            }
+
+            @Override
+            public void onFailure(final RequestId requestId, final BitcoinNode bitcoinNode, final Sha256Hash blockHash) {
+                promise.setResult(null);
+            }
+        });
+    }
+
+    public ExtraThinBlockDownloader(final TransactionMempool transactionMempool, final PendingBlockStore blockStore) {
+        _transactionMempool = transactionMempool;
+        _blockStore = blockStore;
+    }
+
+    /**
+     * Requests the block from the peer as an xThin block.
+     *  The memory pool is snapshotted once so that the bloom filter sent to the peer and the reconstruction use the same Transactions.
+     */
+    public TimedPromise<Block> requestBlock(final BitcoinNode bitcoinNode, final Sha256Hash blockHash) {
+        final TimedPromise<Block> promise = new TimedPromise<>();
+
+        final List<TransactionWithFee> transactionsWithFees = _transactionMempool.getTransactions();
+        final int transactionCount = transactionsWithFees.getCount();
+
+        final MutableBloomFilter bloomFilter = MutableBloomFilter.newInstance(Math.max(1L, transactionCount), 0.01D);
+        final ImmutableListBuilder<Transaction> memoryPoolTransactionsBuilder = new ImmutableListBuilder<>(transactionCount);
+        for (final TransactionWithFee transactionWithFee : transactionsWithFees) {
+            final Transaction transaction = transactionWithFee.transaction;
+            bloomFilter.addItem(transaction.getHash());
+            memoryPoolTransactionsBuilder.add(transaction);
+        }
+        final List<Transaction> memoryPoolTransactions = memoryPoolTransactionsBuilder.build();
+
+        Logger.debug("Requested xThin block " + blockHash + " from " + bitcoinNode + ".");
+        bitcoinNode.requestExtraThinBlock(blockHash, bloomFilter, new BitcoinNode.DownloadExtraThinBlockCallback() {
+            @Override
+            public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final ExtraThinBlockParameters extraThinBlockParameters) {
+                if (extraThinBlockParameters == null) {
+                    promise.setResult(null);
+                    return;
+                }
+
+                _onExtraThinBlockReceived(bitcoinNode, blockHash, extraThinBlockParameters, memoryPoolTransactions, promise);
+            }
+
+            @Override
+            public void onFailure(final RequestId requestId, final BitcoinNode bitcoinNode, final Sha256Hash blockHash) {
+                Logger.debug("xThin block request failed for " + blockHash + " from " + bitcoinNode + ".");
+                promise.setResult(null);
+            }
+        });
+
+        return promise;
+    }
+}
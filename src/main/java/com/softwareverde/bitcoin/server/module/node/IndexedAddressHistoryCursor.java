@@ -0,0 +1,107 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.Map;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.logging.Logger;
+
+import java.util.Comparator;
+
+/**
+ * An AddressHistoryCursor over the address's indexed Transactions.
+ *  The Transactions are located (and sorted by block height and disk offset) once, when the cursor is created; afterwards,
+ *  only the ids and block heights are retained, and each page only resolves the hashes of its own Transactions.
+ */
+public abstract class IndexedAddressHistoryCursor implements AddressHistoryCursor {
+    protected final long[] _transactionIds;
+    protected final long[] _blockHeights;
+    protected int _nextIndex = 0;
+    protected boolean _isFinished = false;
+
+    protected abstract Sha256Hash _getTransactionHash(Long transactionId) throws Exception;
+
+    /**
+     * Returns the address's unconfirmed history, which is appended to the final page.
+     */
+    protected abstract List<AddressHistoryEntry> _loadUnconfirmedAddressHistory() throws Exception;
+
+    /**
+     * Creates a cursor over the indexedTransactions (keyed by their TransactionId) mined at or above fromBlockHeight.
+     */
+    public IndexedAddressHistoryCursor(final Map<Long, IndexedTransaction> indexedTransactions, final Long fromBlockHeight) {
+        final MutableList<Long> transactionIds = new MutableArrayList<>(indexedTransactions.getCount());
+        for (final Long transactionId : indexedTransactions.getKeys()) {
+            final IndexedTransaction indexedTransaction = indexedTransactions.get(transactionId);
+            if (indexedTransaction.blockHeight < fromBlockHeight) { continue; }
+
+            transactionIds.add(transactionId);
+        }
+
+        transactionIds.sort(new Comparator<>() {
+            @Override
+            public int compare(final Long transactionId0, final Long transactionId1) {
+                final IndexedTransaction indexedTransaction0 = indexedTransactions.get(transactionId0);
+                final IndexedTransaction indexedTransaction1 = indexedTransactions.get(transactionId1);
+
+                final int blockHeightCompare = indexedTransaction0.blockHeight.compareTo(indexedTransaction1.blockHeight);
+                if (blockHeightCompare != 0) { return blockHeightCompare; }
+                return indexedTransaction0.diskOffset.compareTo(indexedTransaction1.diskOffset);
+            }
+        });
+
+        final int transactionCount = transactionIds.getCount();
+        _transactionIds = new long[transactionCount];
+        _blockHeights = new long[transactionCount];
+        for (int i = 0; i < transactionCount; ++i) {
+            final Long transactionId = transactionIds.get(i);
+            _transactionIds[i] = transactionId;
+            _blockHeights[i] = indexedTransactions.get(transactionId).blockHeight;
+        }
+    }
+
+    @Override
+    public List<AddressHistoryEntry> getNextPage(final Integer maxTransactionCount) {
+        if (_isFinished) { return new MutableArrayList<>(0); }
+
+        try {
+            final int transactionCount = _transactionIds.length;
+
+            int endIndex = Math.min(transactionCount, (_nextIndex + Math.max(1, maxTransactionCount)));
+            while ( (endIndex < transactionCount) && (_blockHeights[endIndex] == _blockHeights[endIndex - 1]) ) {
+                endIndex += 1; // The page always completes its final block...
+            }
+
+            final MutableList<AddressHistoryEntry> addressHistory = new MutableArrayList<>(endIndex - _nextIndex);
+            for (int i = _nextIndex; i < endIndex; ++i) {
+                final Sha256Hash transactionHash = _getTransactionHash(_transactionIds[i]);
+                if (transactionHash == null) { return null; }
+
+                addressHistory.add(new AddressHistoryEntry(transactionHash, _blockHeights[i], false, null));
+            }
+
+            if (endIndex >= transactionCount) {
+                final List<AddressHistoryEntry> unconfirmedAddressHistory = _loadUnconfirmedAddressHistory();
+                if (unconfirmedAddressHistory == null) { return null; }
+
+                addressHistory.addAll(unconfirmedAddressHistory);
+                _isFinished = true;
+            }
+
+            _nextIndex = endIndex;
+            return addressHistory;
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+            return null;
+        }
+    }
+
+    @Override
+    public Boolean hasNextPage() {
+        return (! _isFinished);
+    }
+}
@@ -1,5 +1,6 @@
 package com.softwareverde.bitcoin.server.module.node;
 
+import com.softwareverde.bitcoin.CoreInflater;
 import com.softwareverde.bitcoin.bip.ChipNetUpgradeSchedule;
 import com.softwareverde.bitcoin.bip.CoreUpgradeSchedule;
 import com.softwareverde.bitcoin.bip.TestNet4UpgradeSchedule;
@@ -18,22 +19,28 @@ import com.softwareverde.bitcoin.block.validator.BlockValidator;
 import com.softwareverde.bitcoin.block.validator.difficulty.AsertReferenceBlock;
 import com.softwareverde.bitcoin.block.validator.difficulty.DifficultyCalculator;
 import com.softwareverde.bitcoin.block.validator.difficulty.TestNetDifficultyCalculator;
+import com.softwareverde.bitcoin.chain.time.MedianBlockTime;
 import com.softwareverde.bitcoin.context.UnspentTransactionOutputContext;
 import com.softwareverde.bitcoin.context.core.MutableUnspentTransactionOutputSet;
 import com.softwareverde.bitcoin.server.configuration.BitcoinProperties;
 import com.softwareverde.bitcoin.server.configuration.CheckpointConfiguration;
 import com.softwareverde.bitcoin.server.configuration.ChipNetCheckpointConfiguration;
 import com.softwareverde.bitcoin.server.configuration.DisabledCheckpointConfiguration;
+import com.softwareverde.bitcoin.server.configuration.ElectrumProperties;
 import com.softwareverde.bitcoin.server.configuration.TestNetCheckpointConfiguration;
 import com.softwareverde.bitcoin.server.main.BitcoinConstants;
 import com.softwareverde.bitcoin.server.main.NetworkType;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
 import com.softwareverde.bitcoin.server.message.type.node.feature.LocalNodeFeatures;
 import com.softwareverde.bitcoin.server.message.type.node.feature.NodeFeatures;
 import com.softwareverde.bitcoin.server.message.type.query.header.RequestBlockHeadersMessage;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
 import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
+import com.softwareverde.bitcoin.server.module.electrum.ElectrumModule;
+import com.softwareverde.bitcoin.server.module.electrum.NodeElectrumDataSource;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.utxo.UnspentTransactionOutputEntryInflater;
 import com.softwareverde.bitcoin.server.module.node.database.transaction.fullnode.utxo.UnspentTransactionOutputLevelDbManager;
+import com.softwareverde.bitcoin.server.module.node.handler.transaction.dsproof.DoubleSpendProofStore;
 import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
 import com.softwareverde.bitcoin.server.module.node.rpc.handler.MetadataHandler;
 import com.softwareverde.bitcoin.server.module.node.store.BlockStore;
@@ -41,16 +48,21 @@ import com.softwareverde.bitcoin.server.module.node.store.DiskKeyValueStore;
 import com.softwareverde.bitcoin.server.module.node.store.PendingBlockStoreCore;
 import com.softwareverde.bitcoin.server.module.node.sync.BlockFinderHashesBuilder;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.server.node.BitcoinNodeObserver;
 import com.softwareverde.bitcoin.server.node.RequestId;
-import com.softwareverde.bitcoin.server.node.RequestPriority;
 import com.softwareverde.bitcoin.server.node.request.UnfulfilledPublicKeyRequest;
 import com.softwareverde.bitcoin.server.node.request.UnfulfilledSha256HashRequest;
 import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
+import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProofValidator;
+import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProofWithTransactions;
 import com.softwareverde.bitcoin.transaction.output.MutableUnspentTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.UnspentTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.script.ScriptPatternMatcher;
+import com.softwareverde.bitcoin.transaction.script.ScriptType;
 import com.softwareverde.bitcoin.util.BlockUtil;
 import com.softwareverde.btreedb.file.InputFile;
 import com.softwareverde.btreedb.file.InputOutputFileCore;
@@ -60,12 +72,13 @@ import com.softwareverde.constable.Visitor;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.Map;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
 import com.softwareverde.constable.set.mutable.MutableHashSet;
-import com.softwareverde.constable.set.mutable.MutableSet;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.filedb.WorkerManager;
 import com.softwareverde.logging.Log;
@@ -76,6 +89,8 @@ import com.softwareverde.network.ip.Ip;
 import com.softwareverde.network.p2p.node.Node;
 import com.softwareverde.network.p2p.node.NodeId;
 import com.softwareverde.network.p2p.node.address.NodeIpAddress;
+import com.softwareverde.network.socket.BinarySocket;
+import com.softwareverde.network.socket.BinarySocketServer;
 import com.softwareverde.network.socket.JsonSocket;
 import com.softwareverde.network.socket.JsonSocketServer;
 import com.softwareverde.network.socket.SocketServer;
@@ -84,16 +99,15 @@ import com.softwareverde.network.time.VolatileNetworkTime;
 import com.softwareverde.util.ByteUtil;
 import com.softwareverde.util.CircleBuffer;
 import com.softwareverde.util.Container;
-import com.softwareverde.util.Function;
 import com.softwareverde.util.TimedPromise;
 import com.softwareverde.util.Util;
 import com.softwareverde.util.timer.NanoTimer;
 import com.softwareverde.util.type.time.SystemTime;
 
 import java.io.File;
-import java.util.LinkedHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class NodeModule {
@@ -102,12 +116,6 @@ public class NodeModule {
         public static final String HEAD_BLOCK_HASH = "headBlockHash";
     }
 
-    protected String _toCanonicalConnectionString(final NodeIpAddress nodeIpAddress) {
-        final Ip ip = nodeIpAddress.getIp();
-        final Integer port = nodeIpAddress.getPort();
-        return (ip + ":" + port);
-    }
-
     protected final SystemTime _systemTime = new SystemTime();
     protected final AtomicLong _timeAtLastBlock = new AtomicLong(0L);
     protected final Long _maxTimeoutMs = 30000L;
@@ -121,24 +129,35 @@ public class NodeModule {
     protected final UpgradeSchedule _upgradeSchedule;
     protected final VolatileNetworkTime _networkTime;
     protected final JsonSocketServer _jsonSocketServer;
+    protected final BinarySocketServer _binarySocketServer;
+    protected final BlockchainDataServer _blockchainDataServer;
+    protected final TransactionRelay _transactionRelay;
     protected final NodeRpcHandler _rpcHandler;
     protected final DifficultyCalculator _difficultyCalculator;
-    protected final WorkerManager _blockchainIndexerWorker;
+    protected final BlockHeaderValidator _blockHeaderValidator; // Validates received BlockHeaders; owns the thread pool used to validate their proof-of-work.
+    protected final BlockIndexingQueue _blockIndexingQueue;
     protected final WorkerManager _syncWorker;
     protected final WorkerManager _undoBlockWorker;
     protected final WorkerManager _rpcWorkerManager;
     protected final ReentrantReadWriteLock.WriteLock _blockProcessLock;
     protected final TransactionMempool _transactionMempool;
-    protected final CircleBuffer<Transaction> _submittedTransactions;
+    protected final SubmittedTransactionStore _submittedTransactions;
+    protected final DoubleSpendProofStore _doubleSpendProofStore;
     protected final BlockchainSynchronizationStatusHandler _synchronizationStatusHandler;
+    protected final NodeElectrumDataSource _electrumDataSource; // Null unless the ElectrumModule runs within the node.
+    protected final WorkerManager _electrumWorkerManager; // Null unless the ElectrumModule runs within the node.
+    protected final AtomicReference<BlockHeader> _pendingElectrumBlockHeader = new AtomicReference<>();
+    protected final Thread _electrumThread;
 
     protected final MutableList<BitcoinNode> _bitcoinNodes = new MutableArrayList<>();
-    protected final MutableHashSet<NodeIpAddress> _availablePeers = new MutableHashSet<>();
-    protected int _attemptsWithEmptyIps = 0;
-    protected final MutableHashSet<Ip> _previouslyConnectedIps = new MutableHashSet<>();
+    protected final MutableList<BitcoinNode> _inboundBitcoinNodes = new MutableArrayList<>();
+    protected final File _peerAddressesFile;
+    protected final PeerAddressManager _peerAddressManager = new PeerAddressManager();
+    protected final MutableHashSet<Ip> _bannedIps = new MutableHashSet<>();
     protected final PendingBlockQueue _blockDownloader;
+    protected final ExtraThinBlockDownloader _extraThinBlockDownloader;
 
-    protected final java.util.LinkedHashMap<Sha256Hash, Integer> _recentlyAnnouncedTransactions;
+    protected final TransactionAnnouncementTracker _transactionAnnouncementTracker;
 
     protected final Pin _shutdownPin = new Pin();
     protected final AtomicBoolean _isShuttingDown = new AtomicBoolean(false);
@@ -146,13 +165,24 @@ public class NodeModule {
     protected final Container<Long> _headBlockHeightContainer = new Container<>(0L);
     protected final Container<Long> _headBlockHeaderHeightContainer = new Container<>(0L);
     protected final Container<Long> _indexedBlockHeightContainer = new Container<>(0L);
-    protected final WorkerManager.UnsafeTask _indexBlockTask;
     protected boolean _skipNetworking = false;
 
     protected final CircleBuffer<Double> _blockProcessMs = new CircleBuffer<>(100);
     protected final CircleBuffer<Double> _headerProcessMs = new CircleBuffer<>(100);
     protected final CircleBuffer<Double> _indexProcessMs = new CircleBuffer<>(100);
 
+    protected final LocalNodeFeatures _localNodeFeatures = new LocalNodeFeatures() {
+        @Override
+        public NodeFeatures getNodeFeatures() {
+            final NodeFeatures nodeFeatures = new NodeFeatures();
+            nodeFeatures.enableFeature(NodeFeatures.Feature.BITCOIN_CASH_ENABLED);
+            nodeFeatures.enableFeature(NodeFeatures.Feature.BLOCKCHAIN_ENABLED);
+            nodeFeatures.enableFeature(NodeFeatures.Feature.BLOOM_CONNECTIONS_ENABLED);
+            nodeFeatures.enableFeature(NodeFeatures.Feature.MINIMUM_OF_TWO_DAYS_BLOCKCHAIN_ENABLED);
+            return nodeFeatures;
+        }
+    };
+
     /**
      * After execution, the head block header height will be equal to `endingBlockHeight`;
      *  if the blockchain is synced past `endingBlockHeight`, the UTXOs will also be undone.
@@ -181,6 +211,8 @@ public class NodeModule {
                 }
             }
 
+            _blockIndexingQueue.removeBlocks(currentBlockHeight + 1L);
+
             // TODO: Undo any block-indexing that may have occurred.
         }
         catch (final Exception exception) {
@@ -192,25 +224,29 @@ public class NodeModule {
     }
 
     protected final BitcoinNode.DownloadBlockHeadersCallback _downloadBlockHeadersCallback;
+    protected final BlockHeaderRequestManager _blockHeaderRequestManager;
 
+    /**
+     * Requests the next batch of BlockHeaders from the most responsive peer.
+     *  Does nothing if a BlockHeaders request is already in-flight; stalled requests are retried on another peer by the BlockHeaderRequestManager.
+     */
     protected void _syncHeaders() {
         if (_isShuttingDown.get()) { return; }
 
-        final BitcoinNode bitcoinNode;
-        synchronized (_bitcoinNodes) {
-            if (_bitcoinNodes.isEmpty()) { return; }
-            bitcoinNode = _bitcoinNodes.get(0);
-        }
+        final BlockFinderHashesBuilder blockFinderHashesBuilder = new BlockFinderHashesBuilder(_blockchain);
+        final List<Sha256Hash> blockHashes = blockFinderHashesBuilder.createBlockHeaderFinderBlockHashes();
+        _blockHeaderRequestManager.requestBlockHeaders(blockHashes);
+    }
 
-        _syncWorker.offerTask(new WorkerManager.Task() {
-            @Override
-            public void run() {
-                if (_isShuttingDown.get()) { return; }
-                final BlockFinderHashesBuilder blockFinderHashesBuilder = new BlockFinderHashesBuilder(_blockchain);
-                final List<Sha256Hash> blockHashes = blockFinderHashesBuilder.createBlockHeaderFinderBlockHashes();
-                bitcoinNode.requestBlockHeadersAfter(blockHashes, _downloadBlockHeadersCallback, RequestPriority.NORMAL);
-            }
-        });
+    /**
+     * Returns the BlockHeaders as Const so that their hashes and validity are cached across the multiple validation passes.
+     */
+    protected static List<BlockHeader> _toConstBlockHeaders(final List<BlockHeader> blockHeaders) {
+        final ImmutableListBuilder<BlockHeader> listBuilder = new ImmutableListBuilder<>(blockHeaders.getCount());
+        for (final BlockHeader blockHeader : blockHeaders) {
+            listBuilder.add(blockHeader.asConst());
+        }
+        return listBuilder.build();
     }
 
     protected MutableUnspentTransactionOutputSet _getUnspentTransactionOutputContext(final Block block) throws Exception {
@@ -313,8 +349,7 @@ public class NodeModule {
                 // Logger.info("Syncing blocks.");
 
                 final long trustedBlockHeight = _bitcoinProperties.getTrustedBlockHeight();
-                final BlockHeaderValidator blockHeaderValidator = new BlockHeaderValidator(_upgradeSchedule, _blockchain, _networkTime, _difficultyCalculator);
-                final BlockValidator blockValidator = new BlockValidator(_upgradeSchedule, _blockchain, _networkTime, blockHeaderValidator);
+                final BlockValidator blockValidator = new BlockValidator(_upgradeSchedule, _blockchain, _networkTime, _blockHeaderValidator);
 
                 long blockHeight = _blockchain.getHeadBlockHeight() + 1L;
                 BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
@@ -416,14 +451,11 @@ public class NodeModule {
                         applyBlockTimer.stop();
 
                         miscTimer.start();
-                        _headBlockHeaderHeightContainer.value = _blockchain.getHeadBlockHeaderHeight();
-                        _headBlockHeightContainer.value = _blockchain.getHeadBlockHeight();
+                        _updateHeadBlockHeights();
 
                         _transactionMempool.revalidate();
 
-                        if (_transactionIndexer != null) {
-                            _blockchainIndexerWorker.offerTask(_indexBlockTask);
-                        }
+                        _blockIndexingQueue.offerBlock(block, blockHeight); // Blocks while the indexer is too far behind.
 
                         _synchronizationStatusHandler.recalculateState();
                         _blockDownloader.onBlockProcessed();
@@ -435,6 +467,7 @@ public class NodeModule {
                                 _rpcHandler.onNewBlock(rpcBlockHeader);
                             }
                         });
+                        _announceElectrumBlockHeader(rpcBlockHeader);
                         miscTimer.stop();
 
                         Logger.debug("Finished: " + blockHeight + " " + blockHash + " " +
@@ -473,7 +506,77 @@ public class NodeModule {
         });
     }
 
+    /**
+     * Updates the head Block and BlockHeader heights shared with the indexer, and the head gauges reported by the RPC STATUS.
+     */
+    /**
+     * Hands the new head BlockHeader to the in-process ElectrumModule without blocking the caller.
+     *  Headers announced while a previous header is still queued are coalesced into the most recent header; the
+     *  ElectrumModule detects the skipped headers (via the previous-block-hash) and recalculates its subscriptions.
+     */
+    protected void _announceElectrumBlockHeader(final BlockHeader blockHeader) {
+        if (_electrumDataSource == null) { return; }
+
+        final BlockHeader previouslyPendingBlockHeader = _pendingElectrumBlockHeader.getAndSet(blockHeader);
+        if (previouslyPendingBlockHeader != null) { return; } // The queued Task announces the most recent header.
+
+        final Boolean wasQueued = _electrumWorkerManager.offerTask(new WorkerManager.Task() {
+            @Override
+            public void run() {
+                final BlockHeader pendingBlockHeader = _pendingElectrumBlockHeader.getAndSet(null);
+                if (pendingBlockHeader == null) { return; }
+
+                _electrumDataSource.onNewBlockHeader(pendingBlockHeader);
+            }
+        });
+
+        if (! wasQueued) {
+            _pendingElectrumBlockHeader.compareAndSet(blockHeader, null);
+            Logger.debug("Electrum worker queue full; dropped BlockHeader announcement: " + blockHeader.getHash());
+        }
+    }
+
+    /**
+     * Hands the accepted Transaction to the in-process ElectrumModule without blocking the caller.
+     *  The announcement is dropped if the ElectrumModule has fallen too far behind; the affected subscriptions are
+     *  reconciled when the next block is announced.
+     */
+    protected void _announceElectrumTransaction(final TransactionWithFee transactionWithFee) {
+        if (_electrumDataSource == null) { return; }
+
+        final Boolean wasQueued = _electrumWorkerManager.offerTask(new WorkerManager.Task() {
+            @Override
+            public void run() {
+                _electrumDataSource.onNewTransaction(transactionWithFee);
+            }
+        });
+
+        if (! wasQueued) {
+            final Transaction transaction = transactionWithFee.transaction;
+            Logger.debug("Electrum worker queue full; dropped Transaction announcement: " + transaction.getHash());
+        }
+    }
+
+    protected void _updateHeadBlockHeights() {
+        final Long headBlockHeaderHeight = _blockchain.getHeadBlockHeaderHeight();
+        final Long headBlockHeight = _blockchain.getHeadBlockHeight();
+        _headBlockHeaderHeightContainer.value = headBlockHeaderHeight;
+        _headBlockHeightContainer.value = headBlockHeight;
+
+        final NodeRpcHandler rpcHandler = _rpcHandler;
+        if (rpcHandler == null) { return; } // The RPC handler has not been created yet...
+
+        final BlockHeader headBlockHeader = _blockchain.getBlockHeader(headBlockHeaderHeight);
+        rpcHandler.onHeadBlockHeaderChanged(headBlockHeaderHeight, (headBlockHeader != null ? headBlockHeader.getTimestamp() : null));
+
+        final BlockHeader headBlock = _blockchain.getBlockHeader(headBlockHeight);
+        rpcHandler.onHeadBlockChanged(headBlockHeight, (headBlock != null ? headBlock.getTimestamp() : null));
+    }
+
     protected void _removeBitcoinNode(final BitcoinNode bitcoinNode) {
+        _blockHeaderRequestManager.onNodeDisconnected(bitcoinNode);
+        _blockchainDataServer.onNodeDisconnected(bitcoinNode);
+
         final NodeId nodeId = bitcoinNode.getId();
         synchronized (_bitcoinNodes) {
             _bitcoinNodes.mutableVisit(new MutableList.MutableVisitor<>() {
@@ -488,27 +591,198 @@ public class NodeModule {
         }
     }
 
+    /**
+     * Stores the valid DoubleSpendProof, announces it to peers, and notifies the RPC hooks.
+     *  Only the first DoubleSpendProof for each double-spent output is relayed; the DoubleSpendProof is not announced to the peer it was received from.
+     *  firstSeenTransaction is the mempool Transaction the DoubleSpendProof conflicts with, and is used to honor each peer's bloom filter.
+     */
+    protected void _relayDoubleSpendProof(final DoubleSpendProof doubleSpendProof, final Transaction firstSeenTransaction, final BitcoinNode sourceBitcoinNode) {
+        final Boolean wasStored = _doubleSpendProofStore.storeDoubleSpendProof(doubleSpendProof);
+        if (! wasStored) { return; }
+
+        final Sha256Hash doubleSpendProofHash = doubleSpendProof.getHash();
+        Logger.debug("DoubleSpendProof accepted: " + doubleSpendProofHash);
+
+        final MutableList<BitcoinNode> bitcoinNodes = new MutableArrayList<>();
+        synchronized (_bitcoinNodes) {
+            bitcoinNodes.addAll(_bitcoinNodes);
+        }
+        synchronized (_inboundBitcoinNodes) {
+            bitcoinNodes.addAll(_inboundBitcoinNodes);
+        }
+
+        final Boolean isExtendedDoubleSpendProof = doubleSpendProof.usesExtendedFormat();
+        final NodeId sourceNodeId = (sourceBitcoinNode != null ? sourceBitcoinNode.getId() : null);
+        for (final BitcoinNode bitcoinNode : bitcoinNodes) {
+            if (bitcoinNode == null) { continue; }
+            if (! bitcoinNode.isHandshakeComplete()) { continue; }
+            if (Util.areEqual(sourceNodeId, bitcoinNode.getId())) { continue; }
+            if (isExtendedDoubleSpendProof && (! bitcoinNode.hasFeatureEnabled(NodeFeatures.Feature.EXTENDED_DOUBLE_SPEND_PROOFS_ENABLED))) { continue; }
+            if (! bitcoinNode.matchesFilter(firstSeenTransaction)) { continue; }
+
+            bitcoinNode.transmitDoubleSpendProofHash(doubleSpendProofHash);
+        }
+
+        _rpcHandler.onNewDoubleSpendProof(doubleSpendProof);
+    }
+
+    /**
+     * Validates the DoubleSpendProof against the mempool Transaction spending the same output.
+     *  If no mempool Transaction spends the output yet, the DoubleSpendProof is stored as pending until a Transaction that may resolve it is accepted.
+     *  Invalid DoubleSpendProofs are banned so that they are not requested again.
+     */
+    protected void _onDoubleSpendProofReceived(final DoubleSpendProof doubleSpendProof, final BitcoinNode bitcoinNode) {
+        final Sha256Hash doubleSpendProofHash = doubleSpendProof.getHash();
+        if (_doubleSpendProofStore.isDoubleSpendProofBanned(doubleSpendProofHash)) { return; }
+
+        final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
+        if (_doubleSpendProofStore.getDoubleSpendProof(transactionOutputIdentifier) != null) { return; } // The output is already known to be double-spent...
+
+        final Transaction conflictingTransaction = _transactionMempool.getSpendingTransaction(transactionOutputIdentifier);
+        if (conflictingTransaction == null) {
+            _doubleSpendProofStore.storePendingDoubleSpendProof(doubleSpendProof);
+            return;
+        }
+
+        final Long headBlockHeight = _blockchain.getHeadBlockHeight();
+        final MedianBlockTime medianBlockTime = _blockchain.getMedianBlockTime(headBlockHeight);
+        final Map<TransactionOutputIdentifier, TransactionOutput> previousTransactionOutputs = _transactionMempool.getPreviousTransactionOutputs(conflictingTransaction);
+        final DoubleSpendProofValidator.Context context = new DoubleSpendProofValidator.Context(headBlockHeight, medianBlockTime, previousTransactionOutputs, conflictingTransaction, _upgradeSchedule);
+        final DoubleSpendProofValidator doubleSpendProofValidator = new DoubleSpendProofValidator(context);
+        if (! doubleSpendProofValidator.isDoubleSpendValid(doubleSpendProof)) {
+            Logger.debug("Invalid DoubleSpendProof " + doubleSpendProofHash + " from " + bitcoinNode + "; banning.");
+            _doubleSpendProofStore.banDoubleSpendProof(doubleSpendProofHash);
+            return;
+        }
+
+        _relayDoubleSpendProof(doubleSpendProof, conflictingTransaction, bitcoinNode);
+    }
+
+    /**
+     * Validates the pending DoubleSpendProofs that may be resolved by the newly accepted Transaction.
+     */
+    protected void _processPendingDoubleSpendProofs(final Transaction transaction) {
+        final List<DoubleSpendProof> triggeredDoubleSpendProofs = _doubleSpendProofStore.getTriggeredPendingDoubleSpendProof(new ImmutableList<>(transaction));
+        for (final DoubleSpendProof doubleSpendProof : triggeredDoubleSpendProofs) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
+            if (_transactionMempool.getSpendingTransaction(transactionOutputIdentifier) == null) { continue; } // Still unable to be validated...
+
+            _doubleSpendProofStore.removePendingDoubleSpendProof(doubleSpendProof.getHash());
+            _onDoubleSpendProofReceived(doubleSpendProof, null);
+        }
+    }
+
+    /**
+     * Configures the BitcoinNode to serve Transactions, DoubleSpendProofs, Blocks, MerkleBlocks, BlockHeaders, and BlockHashes to the peer.
+     */
+    protected void _setRequestHandlers(final BitcoinNode bitcoinNode) {
+        bitcoinNode.setRequestDataHandler(new BitcoinNode.RequestDataHandler() {
+            @Override
+            public void run(final BitcoinNode bitcoinNode, final List<InventoryItem> dataHashes) {
+                if (_isShuttingDown.get()) { return; }
+
+                for (final InventoryItem inventoryItem : dataHashes) {
+                    final Sha256Hash itemHash = inventoryItem.getItemHash();
+                    if (inventoryItem.getItemType() == InventoryItemType.TRANSACTION) {
+                        if (_transactionMempool.contains(itemHash)) {
+                            final Transaction transaction = _transactionMempool.getTransaction(itemHash).transaction;
+                            bitcoinNode.transmitTransaction(transaction);
+                        }
+                        else {
+                            final Transaction transaction = _submittedTransactions.getTransaction(itemHash);
+                            if (transaction != null) {
+                                bitcoinNode.transmitTransaction(transaction);
+                            }
+                        }
+                    }
+                    else if (inventoryItem.getItemType() == InventoryItemType.DOUBLE_SPEND_PROOF) {
+                        final DoubleSpendProof doubleSpendProof = _doubleSpendProofStore.getDoubleSpendProof(itemHash);
+                        if (doubleSpendProof != null) {
+                            bitcoinNode.transmitDoubleSpendProof(doubleSpendProof);
+                        }
+                    }
+                }
+
+                _blockchainDataServer.onRequestData(bitcoinNode, dataHashes); // Blocks and MerkleBlocks are queued and rate-limited per peer...
+            }
+        });
+
+        bitcoinNode.setRequestBlockHeadersHandler(new BitcoinNode.RequestBlockHeadersHandler() {
+            @Override
+            public void run(final BitcoinNode bitcoinNode, final List<Sha256Hash> blockHashes, final Sha256Hash desiredBlockHash) {
+                if (_isShuttingDown.get()) { return; }
+
+                _blockchainDataServer.onRequestBlockHeaders(bitcoinNode, blockHashes, desiredBlockHash);
+            }
+        });
+
+        bitcoinNode.setRequestBlockHashesHandler(new BitcoinNode.RequestBlockHashesHandler() {
+            @Override
+            public void run(final BitcoinNode bitcoinNode, final List<Sha256Hash> blockHashes, final Sha256Hash desiredBlockHash) {
+                if (_isShuttingDown.get()) { return; }
+
+                _blockchainDataServer.onRequestBlockHashes(bitcoinNode, blockHashes, desiredBlockHash);
+            }
+        });
+    }
+
+    /**
+     * Accepts a connection from a peer that is syncing from this node.
+     *  Inbound peers are only served data; they are not used for synchronizing the Blockchain.
+     */
+    protected void _onInboundConnection(final BinarySocket binarySocket) {
+        if (_isShuttingDown.get()) {
+            binarySocket.close();
+            return;
+        }
+
+        final BitcoinNode bitcoinNode = new BitcoinNode(binarySocket, _localNodeFeatures);
+        bitcoinNode.setSynchronizationStatusHandler(_synchronizationStatusHandler);
+        bitcoinNode.setDisconnectedCallback(new Node.DisconnectedCallback() {
+            @Override
+            public void onNodeDisconnected() {
+                _blockchainDataServer.onNodeDisconnected(bitcoinNode);
+
+                final NodeId nodeId = bitcoinNode.getId();
+                synchronized (_inboundBitcoinNodes) {
+                    _inboundBitcoinNodes.mutableVisit(new MutableList.MutableVisitor<>() {
+                        @Override
+                        public boolean run(final Container<BitcoinNode> bitcoinNodeContainer) {
+                            if (! Util.areEqual(nodeId, bitcoinNodeContainer.value.getId())) { return true; }
+
+                            bitcoinNodeContainer.value = null;
+                            return false;
+                        }
+                    });
+                }
+            }
+        });
+        _setRequestHandlers(bitcoinNode);
+
+        final Integer maxPeerCount = _bitcoinProperties.getMaxPeerCount();
+        synchronized (_inboundBitcoinNodes) { // The count check and the add must be atomic, otherwise concurrent accepts may exceed the cap.
+            if (_inboundBitcoinNodes.getCount() >= maxPeerCount) {
+                Logger.debug("Rejecting inbound connection from " + binarySocket + "; too many inbound peers.");
+                binarySocket.close();
+                return;
+            }
+
+            _inboundBitcoinNodes.add(bitcoinNode);
+        }
+
+        Logger.info("Inbound connection from: " + binarySocket);
+        bitcoinNode.connect();
+    }
+
     protected void _connectToNode(final NodeIpAddress nodeIpAddress) {
         final Ip ip = nodeIpAddress.getIp();
         if (ip == null) { return; }
 
-        synchronized (_previouslyConnectedIps) {
-            _previouslyConnectedIps.add(ip);
-        }
+        _peerAddressManager.onConnectionAttempt(nodeIpAddress);
 
         final String host = ip.toString();
         final Integer port = nodeIpAddress.getPort();
-        final BitcoinNode bitcoinNode = new BitcoinNode(host, port, new LocalNodeFeatures() {
-            @Override
-            public NodeFeatures getNodeFeatures() {
-                final NodeFeatures nodeFeatures = new NodeFeatures();
-                nodeFeatures.enableFeature(NodeFeatures.Feature.BITCOIN_CASH_ENABLED);
-                nodeFeatures.enableFeature(NodeFeatures.Feature.BLOCKCHAIN_ENABLED);
-                nodeFeatures.enableFeature(NodeFeatures.Feature.BLOOM_CONNECTIONS_ENABLED);
-                nodeFeatures.enableFeature(NodeFeatures.Feature.MINIMUM_OF_TWO_DAYS_BLOCKCHAIN_ENABLED);
-                return nodeFeatures;
-            }
-        });
+        final BitcoinNode bitcoinNode = new BitcoinNode(host, port, _localNodeFeatures);
         bitcoinNode.setSynchronizationStatusHandler(_synchronizationStatusHandler);
         bitcoinNode.setNodeConnectedCallback(new Node.NodeConnectedCallback() {
             @Override
@@ -522,6 +796,7 @@ public class NodeModule {
             public void onFailure() {
                 if (_isShuttingDown.get()) { return; }
 
+                _peerAddressManager.onConnectionFailure(nodeIpAddress);
                 _removeBitcoinNode(bitcoinNode);
                 _addNewNodes(1);
             }
@@ -532,6 +807,7 @@ public class NodeModule {
             public void onNodeDisconnected() {
                 if (_isShuttingDown.get()) { return; }
 
+                _peerAddressManager.onDisconnected(nodeIpAddress);
                 _removeBitcoinNode(bitcoinNode);
 
                 _addNewNodes(1);
@@ -549,30 +825,33 @@ public class NodeModule {
                     return;
                 }
 
+                _peerAddressManager.onConnectionSuccess(nodeIpAddress);
+
                 bitcoinNode.setNodeAddressesReceivedCallback(new Node.NodeAddressesReceivedCallback() {
                     @Override
                     public void onNewNodeAddresses(final List<NodeIpAddress> nodeIpAddresses) {
                         if (_isShuttingDown.get()) { return; }
 
+                        final MutableList<NodeIpAddress> advertisedNodeIpAddresses = new MutableArrayList<>(nodeIpAddresses.getCount());
                         for (final NodeIpAddress nodeIpAddress : nodeIpAddresses) {
-                            synchronized (_previouslyConnectedIps) {
-                                if (_previouslyConnectedIps.contains(nodeIpAddress.getIp())) {
-                                    continue;
-                                }
-                            }
-
                             if (! Util.areEqual(BitcoinConstants.getDefaultNetworkPort(), nodeIpAddress.getPort())) { continue; }
-
-                            synchronized (NodeModule.this) {
-                                _availablePeers.add(nodeIpAddress);
-                            }
+                            advertisedNodeIpAddresses.add(nodeIpAddress);
                         }
+
+                        _peerAddressManager.addAddresses(advertisedNodeIpAddresses, bitcoinNode.getIp());
                     }
                 });
 
                 _syncHeaders();
             }
         });
+        bitcoinNode.addObserver(new BitcoinNodeObserver() {
+            @Override
+            public void onPongReceived(final BitcoinNode bitcoinNode, final Long msElapsed) {
+                _peerAddressManager.recordPing(nodeIpAddress, msElapsed);
+            }
+        });
+
         bitcoinNode.setUnsolicitedBlockReceivedCallback(new BitcoinNode.DownloadBlockCallback() {
             @Override
             public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final Block block) {
@@ -613,17 +892,12 @@ public class NodeModule {
                 if (! isSynced) { return; }
 
                 final MutableList<Sha256Hash> unseenTransactions = new MutableArrayList<>();
-                synchronized (_recentlyAnnouncedTransactions) {
-                    for (final Sha256Hash transactionHash : transactionHashes) {
-                        final int attemptCount = _recentlyAnnouncedTransactions.getOrDefault(transactionHash, 0);
-                        if (attemptCount > 3) {
-                            continue;
-                        }
+                for (final Sha256Hash transactionHash : transactionHashes) {
+                    final Boolean shouldRequestTransaction = _transactionAnnouncementTracker.onTransactionAnnounced(transactionHash);
+                    if (! shouldRequestTransaction) { continue; }
 
-                        _recentlyAnnouncedTransactions.put(transactionHash, attemptCount + 1);
-                        if (! _transactionMempool.contains(transactionHash)) {
-                            unseenTransactions.add(transactionHash);
-                        }
+                    if (! _transactionMempool.contains(transactionHash)) {
+                        unseenTransactions.add(transactionHash);
                     }
                 }
                 if (unseenTransactions.isEmpty()) { return; }
@@ -633,44 +907,49 @@ public class NodeModule {
                     public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final Transaction transaction) {
                         final boolean wasAccepted = _transactionMempool.addTransaction(transaction);
 
+                        // Rejected Transactions (i.e. orphans whose parents have not arrived) keep their retry entry so that they are requested again when re-announced.
                         if (wasAccepted) {
                             final Sha256Hash transactionHash = transaction.getHash();
+                            _transactionAnnouncementTracker.onTransactionReceived(transactionHash);
+
                             final TransactionWithFee transactionWithFee = _transactionMempool.getTransaction(transactionHash);
                             _rpcHandler.onNewTransaction(transactionWithFee);
+                            _announceElectrumTransaction(transactionWithFee);
+                            _transactionRelay.relayTransaction(transaction, transactionWithFee.transactionFee);
+                            _processPendingDoubleSpendProofs(transaction);
                         }
                     }
                 });
             }
         });
 
-        bitcoinNode.setRequestDataHandler(new BitcoinNode.RequestDataHandler() {
+        bitcoinNode.setDoubleSpendProofAnnouncementCallback(new BitcoinNode.DoubleSpendProofAnnouncementHandler() {
             @Override
-            public void run(final BitcoinNode bitcoinNode, final List<InventoryItem> dataHashes) {
+            public void onResult(final BitcoinNode bitcoinNode, final List<Sha256Hash> doubleSpendProofHashes) {
                 if (_isShuttingDown.get()) { return; }
 
-                for (final InventoryItem inventoryItem : dataHashes) {
-                    final Sha256Hash itemHash = inventoryItem.getItemHash();
-                    if (inventoryItem.getItemType() == InventoryItemType.TRANSACTION) {
-                        if (_transactionMempool.contains(itemHash)) {
-                            final Transaction transaction = _transactionMempool.getTransaction(itemHash).transaction;
-                            bitcoinNode.transmitTransaction(transaction);
-                        }
-                        else {
-                            synchronized (_submittedTransactions) {
-                                for (final Transaction transaction : _submittedTransactions) {
-                                    final Sha256Hash transactionHash = transaction.getHash();
-                                    if (Util.areEqual(itemHash, transactionHash)) {
-                                        bitcoinNode.transmitTransaction(transaction);
-                                        break;
-                                    }
-                                }
-                            }
+                final boolean isSynced = Util.areEqual(_blockchain.getHeadBlockHeaderHeight(), _blockchain.getHeadBlockHeight());
+                if (! isSynced) { return; }
+
+                for (final Sha256Hash doubleSpendProofHash : doubleSpendProofHashes) {
+                    if (_doubleSpendProofStore.isDoubleSpendProofBanned(doubleSpendProofHash)) { continue; }
+                    if (_doubleSpendProofStore.getDoubleSpendProof(doubleSpendProofHash) != null) { continue; }
+                    if (_doubleSpendProofStore.getPendingDoubleSpendProof(doubleSpendProofHash) != null) { continue; }
+
+                    bitcoinNode.requestDoubleSpendProof(doubleSpendProofHash, new BitcoinNode.DownloadDoubleSpendProofCallback() {
+                        @Override
+                        public void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final DoubleSpendProof doubleSpendProof) {
+                            if (_isShuttingDown.get()) { return; }
+
+                            _onDoubleSpendProofReceived(doubleSpendProof, bitcoinNode);
                         }
-                    }
+                    });
                 }
             }
         });
 
+        _setRequestHandlers(bitcoinNode);
+
         bitcoinNode.setBlockInventoryMessageHandler(new BitcoinNode.BlockInventoryAnnouncementHandler() {
             @Override
             public void onNewInventory(final BitcoinNode bitcoinNode, final List<Sha256Hash> blockHashes) {
@@ -688,33 +967,49 @@ public class NodeModule {
             }
 
             @Override
-            public void onNewHeaders(final BitcoinNode bitcoinNode, final List<BlockHeader> blockHeaders) {
+            public void onNewHeaders(final BitcoinNode bitcoinNode, final List<BlockHeader> announcedBlockHeaders) {
                 if (_isShuttingDown.get()) { return; }
+                if (announcedBlockHeaders == null) {
+                    bitcoinNode.disconnect();
+                    return;
+                }
 
-                final BlockHeaderValidator blockHeaderValidator = new BlockHeaderValidator(_upgradeSchedule, _blockchain, _networkTime, _difficultyCalculator);
+                final List<BlockHeader> blockHeaders = _toConstBlockHeaders(announcedBlockHeaders);
+                if (! _blockHeaderValidator.validateProofOfWork(blockHeaders)) {
+                    bitcoinNode.disconnect();
+                    return;
+                }
 
-                for (final BlockHeader blockHeader : blockHeaders) {
-                    if (! blockHeader.isValid()) {
-                        bitcoinNode.disconnect();
-                        return;
-                    }
+                final boolean wasSynced = Util.areEqual(_blockchain.getHeadBlockHeaderHeight(), _blockchain.getHeadBlockHeight());
 
+                int addedBlockHeaderCount = 0;
+                for (final BlockHeader blockHeader : blockHeaders) {
                     final Long headBlockHeight = _blockchain.getHeadBlockHeaderHeight();
                     final Sha256Hash headBlockHash = _blockchain.getHeadBlockHeaderHash();
 
                     final Sha256Hash blockHash = blockHeader.getHash();
                     final Sha256Hash previousBlockHash = blockHeader.getPreviousBlockHash();
-                    if (! Util.areEqual(headBlockHash, previousBlockHash)) { return; }
+                    if (! Util.areEqual(headBlockHash, previousBlockHash)) { break; }
 
-                    final BlockHeaderValidator.BlockHeaderValidationResult validationResult = blockHeaderValidator.validateBlockHeader(blockHeader, headBlockHeight + 1L);
+                    final BlockHeaderValidator.BlockHeaderValidationResult validationResult = _blockHeaderValidator.validateBlockHeader(blockHeader, headBlockHeight + 1L);
                     if (! validationResult.isValid) {
                         Logger.debug(validationResult.errorMessage + " " + blockHash);
                         bitcoinNode.disconnect();
-                        return;
+                        break;
                     }
 
-                    _blockchain.addBlockHeader(blockHeader);
+                    if (! _blockchain.addBlockHeader(blockHeader)) { break; }
+                    addedBlockHeaderCount += 1;
+
+                    final boolean isNextBlock = (addedBlockHeaderCount == 1);
+                    if (wasSynced && isNextBlock && bitcoinNode.supportsExtraThinBlocks()) { // Only the new tip is likely to be reconstructable from the mempool...
+                        final TimedPromise<Block> promise = _extraThinBlockDownloader.requestBlock(bitcoinNode, blockHash);
+                        _blockDownloader.addBlock(headBlockHeight + 1L, promise);
+                    }
+                }
 
+                if (addedBlockHeaderCount > 0) {
+                    _updateHeadBlockHeights();
                     _syncBlocks();
                 }
             }
@@ -730,71 +1025,97 @@ public class NodeModule {
         }
     }
 
-    protected synchronized void _addNewNodes(final int numberOfNodesToAttemptConnectionsTo) {
-        if (_isShuttingDown.get()) { return; }
-        if (_skipNetworking) { return; }
-
+    /**
+     * Adds the addresses resolved from the configured DNS seeds to the PeerAddressManager.
+     */
+    protected void _addDnsSeedAddresses() {
         final Integer networkPort = BitcoinConstants.getNetworkDefaults(_bitcoinProperties.getNetworkType()).defaultNetworkPort;
-        while (_availablePeers.isEmpty()) { // Connect to DNS seeded nodes...
-            final MutableHashSet<String> uniqueConnectionStrings = new MutableHashSet<>();
-            final List<String> dnsSeeds = _bitcoinProperties.getDnsSeeds();
-            for (final String seedHost : dnsSeeds) {
-                Logger.info("seedHost=" + seedHost);
-                final List<Ip> seedIps = Ip.allFromHostName(seedHost);
-                if (seedIps == null) { continue; }
-
-                for (final Ip ip : seedIps) {
-                    final NodeIpAddress nodeIpAddress = new NodeIpAddress(ip, networkPort);
-
-                    synchronized (_previouslyConnectedIps) {
-                        if (_previouslyConnectedIps.contains(ip)) {
-                            continue;
-                        }
-                    }
 
-                    final String connectionString = _toCanonicalConnectionString(nodeIpAddress);
-                    final boolean isUnique = uniqueConnectionStrings.add(connectionString);
-                    if (! isUnique) { continue; }
+        final MutableList<NodeIpAddress> seedNodeIpAddresses = new MutableArrayList<>();
+        final List<String> dnsSeeds = _bitcoinProperties.getDnsSeeds();
+        for (final String seedHost : dnsSeeds) {
+            Logger.info("seedHost=" + seedHost);
+            final List<Ip> seedIps = Ip.allFromHostName(seedHost);
+            if (seedIps == null) { continue; }
 
-                    _availablePeers.add(nodeIpAddress);
-                }
+            for (final Ip ip : seedIps) {
+                seedNodeIpAddresses.add(new NodeIpAddress(ip, networkPort));
             }
+        }
 
-            if (_availablePeers.isEmpty()) {
-                _attemptsWithEmptyIps += 1;
-                try { Thread.sleep(3000); }
-                catch (final InterruptedException exception) { return; }
+        _peerAddressManager.addAddresses(seedNodeIpAddresses, null);
+    }
 
-                // Clear the previously-connected list in case all seeds have been exhausted.
-                if (_attemptsWithEmptyIps >= 5) {
-                    synchronized (_previouslyConnectedIps) {
-                        _previouslyConnectedIps.clear();
-                    }
-                    _attemptsWithEmptyIps = 0;
-                }
+    /**
+     * Returns the Ips that should not be selected as new outbound peers: banned Ips and peers that are already connected.
+     */
+    protected MutableHashSet<Ip> _getExcludedIps() {
+        final MutableHashSet<Ip> excludedIps = new MutableHashSet<>();
+        synchronized (_bannedIps) {
+            for (final Ip ip : _bannedIps) {
+                excludedIps.add(ip);
             }
         }
 
-        final Container<Integer> newPeerCount = new Container<>(0);
-        _availablePeers.mutableVisit(new MutableSet.MutableVisitor<>() {
-            @Override
-            public boolean run(final Container<NodeIpAddress> container) {
-                if (_isShuttingDown.get()) { return false; }
+        synchronized (_bitcoinNodes) {
+            for (final BitcoinNode bitcoinNode : _bitcoinNodes) {
+                final Ip ip = bitcoinNode.getIp();
+                if (ip == null) { continue; }
+                excludedIps.add(ip);
+            }
+        }
+
+        synchronized (_inboundBitcoinNodes) {
+            for (final BitcoinNode bitcoinNode : _inboundBitcoinNodes) {
+                final Ip ip = bitcoinNode.getIp();
+                if (ip == null) { continue; }
+                excludedIps.add(ip);
+            }
+        }
 
-                final NodeIpAddress nodeIpAddress = container.value;
-                if (nodeIpAddress.getIp() == null) { return true; }
+        return excludedIps;
+    }
 
-                _connectToNode(nodeIpAddress);
+    protected synchronized void _addNewNodes(final int numberOfNodesToAttemptConnectionsTo) {
+        if (_isShuttingDown.get()) { return; }
+        if (_skipNetworking) { return; }
+
+        final MutableHashSet<Ip> excludedIps = _getExcludedIps();
+
+        int newPeerCount = 0;
+        int seedAttemptCount = 0;
+        while (newPeerCount < numberOfNodesToAttemptConnectionsTo) {
+            if (_isShuttingDown.get()) { return; }
 
-                container.value = null;
+            final NodeIpAddress nodeIpAddress = _peerAddressManager.selectPeer(excludedIps);
+            if (nodeIpAddress == null) { // Connect to DNS seeded nodes...
+                if (seedAttemptCount >= 5) { return; }
 
-                newPeerCount.value += 1;
-                return (newPeerCount.value < numberOfNodesToAttemptConnectionsTo);
+                if (seedAttemptCount > 0) {
+                    try { Thread.sleep(3000); }
+                    catch (final InterruptedException exception) { return; }
+                }
+
+                _addDnsSeedAddresses();
+                seedAttemptCount += 1;
+                continue;
             }
-        });
+
+            excludedIps.add(nodeIpAddress.getIp());
+            _connectToNode(nodeIpAddress);
+            newPeerCount += 1;
+        }
     }
 
     public NodeModule(final BitcoinProperties bitcoinProperties) {
+        this(bitcoinProperties, null);
+    }
+
+    /**
+     * If electrumProperties is provided, then an ElectrumModule is run within the node's process, serving its data directly
+     *  from the node's components.
+     */
+    public NodeModule(final BitcoinProperties bitcoinProperties, final ElectrumProperties electrumProperties) {
         _bitcoinProperties = bitcoinProperties;
 
         final Thread mainThread = Thread.currentThread();
@@ -809,16 +1130,19 @@ public class NodeModule {
             }
         });
 
-        _recentlyAnnouncedTransactions = new LinkedHashMap<>() {
-            @Override
-            protected boolean removeEldestEntry(java.util.Map.Entry<Sha256Hash, Integer> eldest) {
-                return this.size() > (32 * 1024);
-            }
-        };
+        _transactionAnnouncementTracker = new TransactionAnnouncementTracker();
 
         final File dataDirectory = new File(bitcoinProperties.getDataDirectory());
         _blockchainFile = new File(dataDirectory, "block-headers.dat");
 
+        _peerAddressesFile = new File(dataDirectory, "peers.dat");
+        try {
+            _peerAddressManager.load(_peerAddressesFile);
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+        }
+
         _blockStore = new PendingBlockStoreCore(dataDirectory);
         try {
             Logger.info("Loading BlockStore");
@@ -900,69 +1224,67 @@ public class NodeModule {
         }
 
         _networkTime = new MutableNetworkTime();
+        _blockHeaderValidator = new BlockHeaderValidator(_upgradeSchedule, _blockchain, _networkTime, _difficultyCalculator);
 
         _transactionMempool = new TransactionMempool(_blockchain, _upgradeSchedule, _networkTime, _unspentTransactionOutputDatabaseManager);
-        _submittedTransactions = new CircleBuffer<>(1024);
+        _submittedTransactions = new SubmittedTransactionStore(1024);
+        _doubleSpendProofStore = new DoubleSpendProofStore(8192);
 
-        _indexBlockTask = new WorkerManager.Task() {
+        _transactionMempool.setDoubleSpendCallback(new TransactionMempool.DoubleSpendCallback() {
             @Override
-            public void run() {
-                if (! _bitcoinProperties.isIndexingModeEnabled()) { return; }
-
-                final Function<Boolean> isSynced = () -> {
-                    final Long blockHeight = _blockchain.getHeadBlockHeight();
-                    final Long headerHeight = _blockchain.getHeadBlockHeaderHeight();
-                    return Util.areEqual(blockHeight, headerHeight);
-                };
+            public void onDoubleSpend(final TransactionOutputIdentifier transactionOutputIdentifier, final TransactionOutput transactionOutputBeingSpent, final Transaction firstSeenTransaction, final Transaction doubleSpendTransaction) {
+                if (transactionOutputBeingSpent == null) { return; }
+                if (_doubleSpendProofStore.getDoubleSpendProof(transactionOutputIdentifier) != null) { return; }
 
-                if (! isSynced.run()) { return; }
+                final ScriptPatternMatcher scriptPatternMatcher = new ScriptPatternMatcher();
+                final ScriptType scriptType = scriptPatternMatcher.getScriptType(transactionOutputBeingSpent.getLockingScript());
 
-                long lastIndexedBlockHeight = Util.parseLong(_keyValueStore.getString(KeyValues.INDEXED_BLOCK_HEIGHT), 0L);
-                long blockHeight = lastIndexedBlockHeight + 1L;
-
-                while (true) {
-                    if (_isShuttingDown.get()) { return; }
+                final DoubleSpendProofWithTransactions doubleSpendProof = DoubleSpendProof.createDoubleSpendProof(transactionOutputIdentifier, scriptType, firstSeenTransaction, doubleSpendTransaction);
+                if (doubleSpendProof == null) {
+                    Logger.debug("Unable to create DoubleSpendProof for Transaction: " + doubleSpendTransaction.getHash());
+                    return;
+                }
 
-                    // Only index when syncing is complete.
-                    if (! isSynced.run()) { return; }
+                Logger.debug("DoubleSpendProof created: " + doubleSpendProof.getHash());
+                _relayDoubleSpendProof(doubleSpendProof, firstSeenTransaction, null);
+            }
+        });
 
-                    final BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
-                    if (blockHeader == null) { return; }
-                    final Sha256Hash blockHash = blockHeader.getHash();
+        _blockIndexingQueue = new BlockIndexingQueue(new BlockIndexingQueue.BlockIndexer() {
+            @Override
+            public void indexBlock(final Block block, final Long blockHeight) throws Exception {
+                final Sha256Hash blockHash = block.getHash();
 
-                    final Block block = _blockStore.getBlock(blockHash, blockHeight);
-                    if (block == null) { return; }
+                final NanoTimer indexTimer = new NanoTimer();
+                indexTimer.start();
+                _transactionIndexer.indexTransactions(block, blockHeight);
+                _keyValueStore.putString(KeyValues.INDEXED_BLOCK_HEIGHT, "" + blockHeight);
+                _indexedBlockHeightContainer.value = blockHeight;
+                indexTimer.stop();
+                Logger.debug("Indexed " + blockHash + " in " + indexTimer.getMillisecondsElapsed() + "ms.");
 
-                    final NanoTimer indexTimer = new NanoTimer();
-                    indexTimer.start();
-                    try {
-                        _transactionIndexer.indexTransactions(block, blockHeight);
-                        _keyValueStore.putString(KeyValues.INDEXED_BLOCK_HEIGHT, "" + blockHeight);
-                        _indexedBlockHeightContainer.value = blockHeight;
-                    }
-                    catch (final Exception exception) {
-                        Logger.debug(exception);
-                    }
-                    indexTimer.stop();
-                    Logger.debug("Indexed " + blockHash + " in " + indexTimer.getMillisecondsElapsed() + "ms.");
+                synchronized (_indexProcessMs) {
+                    _indexProcessMs.push(indexTimer.getMillisecondsElapsed());
+                }
+            }
+        }, new BlockIndexingQueue.BlockLoader() {
+            @Override
+            public Block loadBlock(final Long blockHeight) {
+                final Long headBlockHeight = _blockchain.getHeadBlockHeight();
+                if ( (headBlockHeight == null) || (blockHeight > headBlockHeight) ) { return null; }
 
-                    synchronized (_indexProcessMs) {
-                        _indexProcessMs.push(indexTimer.getMillisecondsElapsed());
-                    }
+                final BlockHeader blockHeader = _blockchain.getBlockHeader(blockHeight);
+                if (blockHeader == null) { return null; }
 
-                    blockHeight += 1L;
-                }
+                final Sha256Hash blockHash = blockHeader.getHash();
+                return _blockStore.getBlock(blockHash, blockHeight);
             }
-        };
+        }, bitcoinProperties.getMaxIndexingQueueByteCount());
 
         _indexedBlockHeightContainer.value = Util.parseLong(_keyValueStore.getString(KeyValues.INDEXED_BLOCK_HEIGHT), 0L);
         _headBlockHeaderHeightContainer.value = _blockchain.getHeadBlockHeaderHeight();
         _headBlockHeightContainer.value = _blockchain.getHeadBlockHeight();
 
-        _blockchainIndexerWorker = new WorkerManager(1, 128);
-        _blockchainIndexerWorker.setName("Blockchain Indexer");
-        _blockchainIndexerWorker.start();
-
         final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
         _blockProcessLock = readWriteLock.writeLock();
 
@@ -978,29 +1300,37 @@ public class NodeModule {
         _rpcWorkerManager.setName("RPC Worker");
         _rpcWorkerManager.start();
 
+        _blockchainDataServer = new BlockchainDataServer(_blockchain, _blockStore, bitcoinProperties.getMaxThreadCount(), bitcoinProperties.getMaxPeerUploadBytesPerSecond(), bitcoinProperties.getMaxPeerBlockRequestCount());
+        _blockchainDataServer.start();
+
+        _transactionRelay = new TransactionRelay(new TransactionRelay.BitcoinNodeSelector() {
+            @Override
+            public List<BitcoinNode> getBitcoinNodes() {
+                final MutableList<BitcoinNode> bitcoinNodes = new MutableArrayList<>();
+                synchronized (_bitcoinNodes) {
+                    bitcoinNodes.addAll(_bitcoinNodes);
+                }
+                synchronized (_inboundBitcoinNodes) {
+                    bitcoinNodes.addAll(_inboundBitcoinNodes);
+                }
+                return bitcoinNodes;
+            }
+        }, 2000L);
+        _transactionRelay.start();
+
         _synchronizationStatusHandler = new BlockchainSynchronizationStatusHandler(_blockchain);
-        final BlockchainDataHandler blockchainDataHandler = new BlockchainDataHandler(_blockchain, _blockStore, _upgradeSchedule, _transactionIndexer, _transactionMempool, _unspentTransactionOutputDatabaseManager) {
+        final BlockchainDataHandler blockchainDataHandler = new BlockchainDataHandler(_blockchain, _blockStore, _upgradeSchedule, _transactionIndexer, _transactionMempool, _unspentTransactionOutputDatabaseManager, _doubleSpendProofStore) {
             @Override
             public void submitTransaction(final Transaction transaction) {
                 if (transaction == null) { return; }
 
-                synchronized (_submittedTransactions) {
-                    _submittedTransactions.push(transaction);
-                }
-
-                synchronized (_bitcoinNodes) {
-                    final Sha256Hash transactionHash = transaction.getHash();
-                    final MutableArrayList<Sha256Hash> transactionHashes = new MutableArrayList<>();
-                    transactionHashes.add(transactionHash);
+                _submittedTransactions.storeTransaction(transaction);
 
-                    for (final BitcoinNode bitcoinNode : _bitcoinNodes) {
-                        bitcoinNode.transmitTransactionHashes(transactionHashes);
-                    }
-                }
+                _transactionRelay.relayTransaction(transaction, null);
             }
         };
         final BlockchainQueryAddressHandler queryAddressHandler = new BlockchainQueryAddressHandler(_blockchain, _transactionIndexer, _transactionMempool);
-        final NodeRpcHandler.MetadataHandler metadataHandler = new MetadataHandler(_blockchain, _transactionIndexer, null);
+        final NodeRpcHandler.MetadataHandler metadataHandler = new MetadataHandler(_blockchain, _transactionIndexer, _doubleSpendProofStore);
         final NodeRpcHandler.NodeHandler nodeHandler = new NodeRpcHandler.NodeHandler() {
             @Override
             public void addNode(final Ip ip, final Integer port) {
@@ -1024,8 +1354,8 @@ public class NodeModule {
 
             @Override
             public void banNode(final Ip ip) {
-                synchronized (_previouslyConnectedIps) {
-                    _previouslyConnectedIps.add(ip);
+                synchronized (_bannedIps) {
+                    _bannedIps.add(ip);
                 }
 
                 synchronized (_bitcoinNodes) {
@@ -1044,8 +1374,8 @@ public class NodeModule {
 
             @Override
             public void unbanNode(final Ip ip) {
-                synchronized (_previouslyConnectedIps) {
-                    _previouslyConnectedIps.remove(ip);
+                synchronized (_bannedIps) {
+                    _bannedIps.remove(ip);
                 }
             }
 
@@ -1071,9 +1401,18 @@ public class NodeModule {
                 }
             }
         });
+        _blockDownloader.setBlockDownloadObserver(new PendingBlockQueue.BlockDownloadObserver() {
+            @Override
+            public void onBlockDownloaded(final BitcoinNode bitcoinNode, final Integer byteCount, final Double msElapsed) {
+                final NodeIpAddress nodeIpAddress = new NodeIpAddress(bitcoinNode.getIp(), bitcoinNode.getPort());
+                _peerAddressManager.recordBlockDownload(nodeIpAddress, byteCount, msElapsed);
+            }
+        });
         _blockDownloader.start();
 
-        _rpcHandler = new NodeRpcHandler();
+        _extraThinBlockDownloader = new ExtraThinBlockDownloader(_transactionMempool, _blockStore);
+
+        _rpcHandler = new NodeRpcHandler(new CoreInflater(), _bitcoinProperties.getRpcThreadCount(), _bitcoinProperties.getMaxRpcRequestsPerConnection());
         _rpcHandler.setShutdownHandler(new NodeRpcHandler.ShutdownHandler() {
             @Override
             public Boolean shutdown() {
@@ -1091,6 +1430,31 @@ public class NodeModule {
         _rpcHandler.setNodeHandler(nodeHandler);
         _rpcHandler.setMetadataHandler(metadataHandler);
         _rpcHandler.setQueryAddressHandler(queryAddressHandler);
+
+        if ( (electrumProperties != null) && (! _bitcoinProperties.isIndexingModeEnabled()) ) {
+            Logger.warn("Electrum requires indexing mode; the ElectrumModule will not be started.");
+        }
+        if ( (electrumProperties != null) && _bitcoinProperties.isIndexingModeEnabled() ) {
+            _electrumDataSource = new NodeElectrumDataSource(blockchainDataHandler, queryAddressHandler);
+            final ElectrumModule electrumModule = new ElectrumModule(electrumProperties, _electrumDataSource);
+            _electrumThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    electrumModule.loop();
+                }
+            });
+            _electrumThread.setName("Electrum");
+            _electrumThread.setDaemon(true);
+
+            _electrumWorkerManager = new WorkerManager(1, 1024);
+            _electrumWorkerManager.setName("Electrum Worker");
+            _electrumWorkerManager.start();
+        }
+        else {
+            _electrumDataSource = null;
+            _electrumWorkerManager = null;
+            _electrumThread = null;
+        }
         _rpcHandler.setSynchronizationStatusHandler(_synchronizationStatusHandler);
         _rpcHandler.setLogLevelSetter(new NodeRpcHandler.LogLevelSetter() {
             @Override
@@ -1123,6 +1487,7 @@ public class NodeModule {
                 Logger.setLogLevel(packageName, logLevel);
             }
         });
+        _updateHeadBlockHeights();
         _rpcHandler.setStatisticsHandler(new NodeRpcHandler.StatisticsHandler() {
             @Override
             public Float getAverageBlocksIndexedPerSecond() {
@@ -1183,12 +1548,23 @@ public class NodeModule {
         });
 
         _downloadBlockHeadersCallback = new BitcoinNode.DownloadBlockHeadersCallback() {
-            final BlockHeaderValidator blockHeaderValidator = new BlockHeaderValidator(_upgradeSchedule, _blockchain, _networkTime, _difficultyCalculator);
-
             @Override
-            public synchronized void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final List<BlockHeader> response) {
+            public synchronized void onResult(final RequestId requestId, final BitcoinNode bitcoinNode, final List<BlockHeader> blockHeaders) {
                 if (_isShuttingDown.get()) { return; }
-                if (response.isEmpty()) { return; }
+                if (blockHeaders == null) {
+                    Logger.info("Invalid blockHeaders received from " + bitcoinNode + "; disconnecting.");
+                    bitcoinNode.disconnect();
+                    return;
+                }
+                if (blockHeaders.isEmpty()) { return; }
+
+                // The proof-of-work of the whole batch is validated in parallel; contextual validation must remain sequential.
+                final List<BlockHeader> response = _toConstBlockHeaders(blockHeaders);
+                if (! _blockHeaderValidator.validateProofOfWork(response)) {
+                    Logger.info("Invalid proof-of-work received from " + bitcoinNode + "; disconnecting.");
+                    bitcoinNode.disconnect();
+                    return;
+                }
 
                 { // Validate headers are sequential.
                     Sha256Hash previousBlockHash;
@@ -1230,7 +1606,7 @@ public class NodeModule {
                             return;
                         }
 
-                        final BlockHeaderValidator.BlockHeaderValidationResult validationResult = this.blockHeaderValidator.validateBlockHeader(blockHeader, sharedParentBlockHeight + 1L);
+                        final BlockHeaderValidator.BlockHeaderValidationResult validationResult = _blockHeaderValidator.validateBlockHeader(blockHeader, sharedParentBlockHeight + 1L);
                         if (! validationResult.isValid) {
                             Logger.info("Invalid header (" + blockHash + ") received from " + bitcoinNode + "; disconnecting.");
                             bitcoinNode.disconnect();
@@ -1280,7 +1656,7 @@ public class NodeModule {
                     final Long existingBlockHeight = _blockchain.getBlockHeight(blockHash);
                     if (existingBlockHeight == null) {
                         if (blockHeight > 0L) {
-                            final BlockHeaderValidator.BlockHeaderValidationResult validationResult = blockHeaderValidator.validateBlockHeader(blockHeader, blockHeight + 1L);
+                            final BlockHeaderValidator.BlockHeaderValidationResult validationResult = _blockHeaderValidator.validateBlockHeader(blockHeader, blockHeight + 1L);
                             if (! validationResult.isValid) {
                                 bitcoinNode.disconnect();
                                 Logger.debug(validationResult.errorMessage + " " + blockHash);
@@ -1311,8 +1687,7 @@ public class NodeModule {
                 final Sha256Hash headBlockHash = _blockchain.getHeadBlockHeaderHash();
                 Logger.info("Head: " + headBlockHash + " " + _blockchain.getHeadBlockHeaderHeight());
 
-                _headBlockHeaderHeightContainer.value = _blockchain.getHeadBlockHeaderHeight();
-                _headBlockHeightContainer.value = _blockchain.getHeadBlockHeight();
+                _updateHeadBlockHeights();
 
                 _synchronizationStatusHandler.recalculateState();
 
@@ -1325,17 +1700,18 @@ public class NodeModule {
                         catch (final Exception exception) {
                             Logger.debug(exception);
                         }
-
-                        if (_blockchain.getHeadBlockHeight() < _blockchain.getHeadBlockHeaderHeight()) {
-                            _syncBlocks();
-                        }
                     }
                     else {
-                        final BlockFinderHashesBuilder blockFinderHashesBuilder = new BlockFinderHashesBuilder(_blockchain);
-                        final List<Sha256Hash> blockHashes = blockFinderHashesBuilder.createBlockHeaderFinderBlockHashes();
-                        bitcoinNode.requestBlockHeadersAfter(blockHashes, this, RequestPriority.NORMAL);
+                        _syncHeaders();
+                    }
+
+                    if (_blockchain.getHeadBlockHeight() < _blockchain.getHeadBlockHeaderHeight()) {
+                        _syncBlocks(); // Begin downloading blocks while the remaining headers are downloaded...
                     }
                 }
+                else if (hadInvalid) {
+                    _syncHeaders(); // Retry with another peer, since the invalid peer was disconnected...
+                }
             }
 
             @Override
@@ -1344,6 +1720,16 @@ public class NodeModule {
             }
         };
 
+        _blockHeaderRequestManager = new BlockHeaderRequestManager(new BlockHeaderRequestManager.BitcoinNodeSelector() {
+            @Override
+            public List<BitcoinNode> getBitcoinNodes() {
+                synchronized (_bitcoinNodes) {
+                    return new MutableArrayList<>(_bitcoinNodes);
+                }
+            }
+        }, _downloadBlockHeadersCallback);
+        _blockHeaderRequestManager.start();
+
         _addNewNodes(8);
 
         if (_skipNetworking) {
@@ -1358,8 +1744,24 @@ public class NodeModule {
             }
         });
 
+        _rpcHandler.start();
         _jsonSocketServer.start();
 
+        if (_electrumThread != null) {
+            _electrumThread.start();
+        }
+
+        _binarySocketServer = new BinarySocketServer(_bitcoinProperties.getBitcoinPort(), BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+        _binarySocketServer.setSocketConnectedCallback(new BinarySocketServer.SocketConnectedCallback() {
+            @Override
+            public void run(final BinarySocket binarySocket) {
+                _onInboundConnection(binarySocket);
+            }
+        });
+        if (! _skipNetworking) {
+            _binarySocketServer.start();
+        }
+
         final Thread shutdownThread = new Thread() {
             @Override
             public void run() {
@@ -1378,7 +1780,19 @@ public class NodeModule {
         runtime.addShutdownHook(shutdownThread);
 
         _synchronizationStatusHandler.recalculateState();
-        _blockchainIndexerWorker.offerTask(_indexBlockTask);
+
+        if (_bitcoinProperties.isIndexingModeEnabled()) {
+            _blockIndexingQueue.start(_indexedBlockHeightContainer.value);
+        }
+    }
+
+    protected void _savePeerAddresses() {
+        try {
+            _peerAddressManager.save(_peerAddressesFile);
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+        }
     }
 
     public void loop() {
@@ -1389,6 +1803,9 @@ public class NodeModule {
                 if (count % 3 == 0) {
                     System.gc();
                 }
+                if (count % 30 == 0) {
+                    _savePeerAddresses();
+                }
                 count += 1L;
                 if (count < 0L) { count = 0L; }
             }
@@ -1408,12 +1825,30 @@ public class NodeModule {
 
     public void close() throws Exception {
         if (! _isShuttingDown.compareAndSet(false, true)) { return; }
+
+        try {
+            _blockIndexingQueue.stop(); // Releases the sync thread if it is waiting on the indexer.
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+        }
+
         _blockProcessLock.lock();
 
         try {
+            _binarySocketServer.stop();
+
             for (final BitcoinNode bitcoinNode : _bitcoinNodes) {
+                _peerAddressManager.onDisconnected(new NodeIpAddress(bitcoinNode.getIp(), bitcoinNode.getPort()));
                 bitcoinNode.disconnect();
             }
+            _savePeerAddresses();
+
+            synchronized (_inboundBitcoinNodes) {
+                for (final BitcoinNode bitcoinNode : _inboundBitcoinNodes) {
+                    bitcoinNode.disconnect();
+                }
+            }
         }
         catch (final Exception exception) {
             Logger.debug(exception);
@@ -1421,21 +1856,33 @@ public class NodeModule {
 
         try {
             _jsonSocketServer.stop();
+            _rpcHandler.stop();
+
+            if (_electrumThread != null) {
+                _electrumThread.interrupt();
+                _electrumThread.join(30000L);
+            }
+
+            _blockHeaderRequestManager.stop();
+            _blockchainDataServer.stop();
+            _transactionRelay.stop();
             _blockDownloader.stop();
 
             _syncWorker.close();
 
             _unspentTransactionOutputDatabaseManager.close();
 
-            _blockchainIndexerWorker.close();
-
             _transactionIndexer.close();
 
             final Sha256Hash headBlockHash = _blockchain.getHeadBlockHash();
             _blockchain.save(_blockchainFile);
 
             _undoBlockWorker.close();
+            _blockHeaderValidator.close();
             _rpcWorkerManager.close();
+            if (_electrumWorkerManager != null) {
+                _electrumWorkerManager.close();
+            }
 
             if (headBlockHash != null) {
                 _keyValueStore.putString(KeyValues.HEAD_BLOCK_HASH, headBlockHash.toString());
@@ -0,0 +1,537 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.constable.set.Set;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.ip.Ip;
+import com.softwareverde.network.ip.Ipv4;
+import com.softwareverde.network.ip.Ipv6;
+import com.softwareverde.network.p2p.node.address.NodeIpAddress;
+import com.softwareverde.util.ByteUtil;
+import com.softwareverde.util.IoUtil;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.bytearray.ByteArrayReader;
+import com.softwareverde.util.bytearray.Endian;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Tracks known peer addresses across restarts and selects which peers to connect to.
+ *  Addresses are kept within two bucketed tables: "new" addresses have been advertised but never successfully connected to,
+ *  and "tried" addresses have completed a handshake at least once.  Buckets are derived from a persisted secret and the
+ *  address's network group, so that a single network range (or a single advertising peer) cannot fill the tables.
+ *  Each address records its connection attempts, failures, and the latency, throughput, and uptime measured while connected;
+ *  selection samples each table and prefers the best-scoring candidate, so restarted nodes reconnect to known good peers first.
+ */
+public class PeerAddressManager {
+    public static final Integer NEW_BUCKET_COUNT = 256;
+    public static final Integer TRIED_BUCKET_COUNT = 64;
+    public static final Integer BUCKET_SIZE = 64;
+
+    protected static final Integer FILE_VERSION = 1;
+    protected static final Integer SELECTION_BUCKET_SAMPLE_COUNT = 4;
+    protected static final Long RECENT_ATTEMPT_MS = (10L * 60L * 1000L);
+    protected static final Long MIN_RETRY_INTERVAL_MS = (60L * 1000L);
+    protected static final Long MAX_ADDRESS_AGE_MS = (30L * 24L * 60L * 60L * 1000L);
+
+    public static class PeerAddress {
+        public final NodeIpAddress nodeIpAddress;
+        protected Boolean _isTried = false;
+        protected Integer _bucketIndex;
+
+        protected Long _firstSeenMs;
+        protected Long _lastSeenMs;
+        protected Long _lastAttemptMs = null;
+        protected Long _lastSuccessMs = null;
+        protected Integer _failureCount = 0;
+        protected Integer _successCount = 0;
+        protected Long _averagePingMs = null;
+        protected Double _averageBytesPerMs = null;
+        protected Long _totalConnectedMs = 0L;
+        protected Long _connectedAtMs = null; // Not persisted.
+
+        protected PeerAddress(final NodeIpAddress nodeIpAddress, final Long firstSeenMs) {
+            this.nodeIpAddress = nodeIpAddress;
+            _firstSeenMs = firstSeenMs;
+            _lastSeenMs = firstSeenMs;
+        }
+
+        public Boolean isTried() { return _isTried; }
+        public Long getLastSuccessMs() { return _lastSuccessMs; }
+        public Integer getFailureCount() { return _failureCount; }
+        public Long getAveragePingMs() { return _averagePingMs; }
+        public Double getAverageBytesPerMs() { return _averageBytesPerMs; }
+        public Long getTotalConnectedMs() { return _totalConnectedMs; }
+    }
+
+    protected static ByteArray _getNetworkGroup(final Ip ip) {
+        if (ip == null) { return new MutableByteArray(0); }
+
+        final ByteArray bytes = ip.getBytes();
+        final int groupByteCount = ((ip instanceof Ipv4) ? 2 : 4); // IPv4 /16, IPv6 /32.
+        return ByteArray.wrap(bytes.getBytes(0, Math.min(groupByteCount, bytes.getByteCount())));
+    }
+
+    protected static Long _writeNullableLong(final Long value) {
+        return Util.coalesce(value, -1L);
+    }
+
+    protected final SystemTime _systemTime;
+    protected final Random _random = new Random();
+    protected Long _secretKey;
+
+    protected final MutableHashMap<NodeIpAddress, PeerAddress> _peerAddresses = new MutableHashMap<>();
+    protected final MutableList<MutableList<NodeIpAddress>> _newBuckets = new MutableArrayList<>(NEW_BUCKET_COUNT);
+    protected final MutableList<MutableList<NodeIpAddress>> _triedBuckets = new MutableArrayList<>(TRIED_BUCKET_COUNT);
+    protected int _newCount = 0;
+    protected int _triedCount = 0;
+
+    protected int _calculateBucketIndex(final ByteArray key, final int bucketCount) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_secretKey));
+        byteArrayBuilder.appendBytes(key);
+        final Sha256Hash hash = HashUtil.sha256(byteArrayBuilder);
+        final long value = ByteUtil.bytesToLong(hash.getBytes(0, 8));
+        return (int) Math.floorMod(value, (long) bucketCount);
+    }
+
+    protected int _calculateNewBucketIndex(final NodeIpAddress nodeIpAddress, final Ip sourceIp) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(_getNetworkGroup(nodeIpAddress.getIp()));
+        byteArrayBuilder.appendBytes(_getNetworkGroup(sourceIp));
+        return _calculateBucketIndex(byteArrayBuilder, NEW_BUCKET_COUNT);
+    }
+
+    protected int _calculateTriedBucketIndex(final NodeIpAddress nodeIpAddress) {
+        final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+        byteArrayBuilder.appendBytes(nodeIpAddress.getIp().getBytes());
+        byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(nodeIpAddress.getPort()));
+        return _calculateBucketIndex(byteArrayBuilder, TRIED_BUCKET_COUNT);
+    }
+
+    /**
+     * Returns the relative preference for connecting to the peer; higher is better.
+     *  Recently attempted and repeatedly failing peers are heavily discounted, and measured latency, throughput, and uptime adjust the remainder.
+     */
+    protected double _calculateScore(final PeerAddress peerAddress, final Long nowMs) {
+        double score = 1.0D;
+
+        if ( (peerAddress._lastAttemptMs != null) && ((nowMs - peerAddress._lastAttemptMs) < RECENT_ATTEMPT_MS) ) {
+            score *= 0.01D;
+        }
+
+        score *= Math.pow(0.66D, Math.min(peerAddress._failureCount, 8));
+
+        if (peerAddress._averagePingMs != null) {
+            score *= (1.0D / (1.0D + (peerAddress._averagePingMs / 250.0D))); // A 250ms ping halves the score...
+        }
+
+        if (peerAddress._averageBytesPerMs != null) {
+            score *= (1.0D + Math.min(4.0D, (peerAddress._averageBytesPerMs / 1000.0D))); // Up to 5x for peers serving blocks at 4MB/s or more...
+        }
+
+        final double connectedHours = (peerAddress._totalConnectedMs / (60.0D * 60.0D * 1000.0D));
+        score *= (1.0D + (Math.min(24.0D, connectedHours) / 24.0D));
+
+        return score;
+    }
+
+    protected Boolean _isTerrible(final PeerAddress peerAddress, final Long nowMs) {
+        if ((nowMs - peerAddress._lastSeenMs) > MAX_ADDRESS_AGE_MS) { return true; }
+        return ( (peerAddress._lastSuccessMs == null) && (peerAddress._failureCount >= 10) );
+    }
+
+    protected void _removeFromBucket(final PeerAddress peerAddress) {
+        final MutableList<MutableList<NodeIpAddress>> buckets = (peerAddress._isTried ? _triedBuckets : _newBuckets);
+        final MutableList<NodeIpAddress> bucket = buckets.get(peerAddress._bucketIndex);
+        final int index = bucket.indexOf(peerAddress.nodeIpAddress);
+        if (index >= 0) {
+            bucket.remove(index);
+        }
+
+        if (peerAddress._isTried) {
+            _triedCount -= 1;
+        }
+        else {
+            _newCount -= 1;
+        }
+    }
+
+    /**
+     * Returns the worst entry within the bucket, preferring entries considered terrible.
+     */
+    protected PeerAddress _getWorstPeerAddress(final List<NodeIpAddress> bucket, final Long nowMs) {
+        PeerAddress worstPeerAddress = null;
+        double worstScore = Double.MAX_VALUE;
+        for (final NodeIpAddress nodeIpAddress : bucket) {
+            final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+            if (_isTerrible(peerAddress, nowMs)) { return peerAddress; }
+
+            final double score = _calculateScore(peerAddress, nowMs);
+            if (score < worstScore) {
+                worstPeerAddress = peerAddress;
+                worstScore = score;
+            }
+        }
+        return worstPeerAddress;
+    }
+
+    protected void _addToBucket(final PeerAddress peerAddress, final Boolean isTried, final Integer bucketIndex, final Long nowMs) {
+        final MutableList<MutableList<NodeIpAddress>> buckets = (isTried ? _triedBuckets : _newBuckets);
+        final MutableList<NodeIpAddress> bucket = buckets.get(bucketIndex);
+
+        if (bucket.getCount() >= BUCKET_SIZE) {
+            final PeerAddress evictedPeerAddress = _getWorstPeerAddress(bucket, nowMs);
+            _removeFromBucket(evictedPeerAddress);
+            _peerAddresses.remove(evictedPeerAddress.nodeIpAddress);
+
+            if (isTried) { // Evicted tried entries are demoted to the new table rather than being forgotten...
+                final int newBucketIndex = _calculateNewBucketIndex(evictedPeerAddress.nodeIpAddress, null);
+                final MutableList<NodeIpAddress> newBucket = _newBuckets.get(newBucketIndex);
+                if (newBucket.getCount() < BUCKET_SIZE) {
+                    _peerAddresses.put(evictedPeerAddress.nodeIpAddress, evictedPeerAddress);
+                    _addToBucket(evictedPeerAddress, false, newBucketIndex, nowMs);
+                }
+            }
+        }
+
+        peerAddress._isTried = isTried;
+        peerAddress._bucketIndex = bucketIndex;
+        bucket.add(peerAddress.nodeIpAddress);
+
+        if (isTried) {
+            _triedCount += 1;
+        }
+        else {
+            _newCount += 1;
+        }
+    }
+
+    /**
+     * Scans the table's buckets, starting at a random bucket, and returns the best-scoring eligible address within the first few non-empty buckets.
+     */
+    protected PeerAddress _selectFromTable(final Boolean isTried, final Set<Ip> excludedIps, final Long nowMs) {
+        final MutableList<MutableList<NodeIpAddress>> buckets = (isTried ? _triedBuckets : _newBuckets);
+        final int bucketCount = buckets.getCount();
+        final int firstBucketIndex = _random.nextInt(bucketCount);
+
+        PeerAddress selectedPeerAddress = null;
+        double selectedScore = 0D;
+        int sampledBucketCount = 0;
+        for (int i = 0; i < bucketCount; ++i) {
+            if ( (selectedPeerAddress != null) && (sampledBucketCount >= SELECTION_BUCKET_SAMPLE_COUNT) ) { break; }
+
+            final MutableList<NodeIpAddress> bucket = buckets.get((firstBucketIndex + i) % bucketCount);
+            if (bucket.isEmpty()) { continue; }
+            sampledBucketCount += 1;
+
+            for (final NodeIpAddress nodeIpAddress : bucket) {
+                if (excludedIps.contains(nodeIpAddress.getIp())) { continue; }
+
+                final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+                if ( (peerAddress._lastAttemptMs != null) && ((nowMs - peerAddress._lastAttemptMs) < MIN_RETRY_INTERVAL_MS) ) { continue; }
+
+                final double score = _calculateScore(peerAddress, nowMs);
+                if ( (selectedPeerAddress == null) || (score > selectedScore) ) {
+                    selectedPeerAddress = peerAddress;
+                    selectedScore = score;
+                }
+            }
+        }
+
+        return selectedPeerAddress;
+    }
+
+    protected void _initBuckets() {
+        _peerAddresses.clear();
+        _newBuckets.clear();
+        _triedBuckets.clear();
+        _newCount = 0;
+        _triedCount = 0;
+
+        for (int i = 0; i < NEW_BUCKET_COUNT; ++i) {
+            _newBuckets.add(new MutableArrayList<>(0));
+        }
+        for (int i = 0; i < TRIED_BUCKET_COUNT; ++i) {
+            _triedBuckets.add(new MutableArrayList<>(0));
+        }
+    }
+
+    protected static Ip _inflateIp(final byte[] bytes) {
+        if (bytes.length == Ipv4.BYTE_COUNT) {
+            return Ipv4.fromBytes(bytes);
+        }
+        else if (bytes.length == Ipv6.BYTE_COUNT) {
+            return Ipv6.fromBytes(bytes);
+        }
+        return null;
+    }
+
+    public PeerAddressManager() {
+        this(new SystemTime());
+    }
+
+    public PeerAddressManager(final SystemTime systemTime) {
+        _systemTime = systemTime;
+        _secretKey = new SecureRandom().nextLong();
+        _initBuckets();
+    }
+
+    /**
+     * Adds addresses advertised by the source peer (or by a DNS seed, if sourceIp is null) to the new table.
+     *  Addresses that are already known only have their last-seen time updated.
+     */
+    public synchronized void addAddresses(final List<NodeIpAddress> nodeIpAddresses, final Ip sourceIp) {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        for (final NodeIpAddress nodeIpAddress : nodeIpAddresses) {
+            if (nodeIpAddress.getIp() == null) { continue; }
+
+            final PeerAddress existingPeerAddress = _peerAddresses.get(nodeIpAddress);
+            if (existingPeerAddress != null) {
+                existingPeerAddress._lastSeenMs = nowMs;
+                continue;
+            }
+
+            final NodeIpAddress nodeIpAddressCopy = nodeIpAddress.copy();
+            final PeerAddress peerAddress = new PeerAddress(nodeIpAddressCopy, nowMs);
+            final int bucketIndex = _calculateNewBucketIndex(nodeIpAddressCopy, sourceIp);
+            _peerAddresses.put(nodeIpAddressCopy, peerAddress);
+            _addToBucket(peerAddress, false, bucketIndex, nowMs);
+        }
+    }
+
+    /**
+     * Selects the next peer to connect to, excluding peers whose Ip is within excludedIps and peers attempted within the last minute.
+     *  Tried and new addresses are each chosen half of the time (when both are available) so that the node keeps discovering peers.
+     *  Returns null if no eligible address is known.
+     */
+    public synchronized NodeIpAddress selectPeer(final Set<Ip> excludedIps) {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+
+        final boolean preferTried = ( (_triedCount > 0) && ((_newCount == 0) || _random.nextBoolean()) );
+        PeerAddress peerAddress = null;
+        if (_triedCount > 0 || _newCount > 0) {
+            peerAddress = _selectFromTable(preferTried, excludedIps, nowMs);
+            if (peerAddress == null) {
+                final boolean otherTableIsTried = (! preferTried);
+                if ((otherTableIsTried ? _triedCount : _newCount) > 0) {
+                    peerAddress = _selectFromTable(otherTableIsTried, excludedIps, nowMs);
+                }
+            }
+        }
+        if (peerAddress == null) { return null; }
+
+        return peerAddress.nodeIpAddress;
+    }
+
+    public synchronized void onConnectionAttempt(final NodeIpAddress nodeIpAddress) {
+        final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) { return; }
+
+        peerAddress._lastAttemptMs = _systemTime.getCurrentTimeInMilliSeconds();
+    }
+
+    public synchronized void onConnectionFailure(final NodeIpAddress nodeIpAddress) {
+        final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) { return; }
+
+        peerAddress._failureCount += 1;
+        peerAddress._connectedAtMs = null;
+    }
+
+    /**
+     * Records a completed handshake with the peer and moves its address into the tried table.
+     *  Addresses that were not previously known (e.g. manually added peers) are added directly to the tried table.
+     */
+    public synchronized void onConnectionSuccess(final NodeIpAddress nodeIpAddress) {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+
+        PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) {
+            final NodeIpAddress nodeIpAddressCopy = nodeIpAddress.copy();
+            peerAddress = new PeerAddress(nodeIpAddressCopy, nowMs);
+            _peerAddresses.put(nodeIpAddressCopy, peerAddress);
+        }
+        else {
+            _removeFromBucket(peerAddress);
+        }
+
+        peerAddress._lastSeenMs = nowMs;
+        peerAddress._lastSuccessMs = nowMs;
+        peerAddress._failureCount = 0;
+        peerAddress._successCount += 1;
+        peerAddress._connectedAtMs = nowMs;
+
+        final int bucketIndex = _calculateTriedBucketIndex(peerAddress.nodeIpAddress);
+        _addToBucket(peerAddress, true, bucketIndex, nowMs);
+    }
+
+    public synchronized void onDisconnected(final NodeIpAddress nodeIpAddress) {
+        final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) { return; }
+        if (peerAddress._connectedAtMs == null) { return; }
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        peerAddress._totalConnectedMs += (nowMs - peerAddress._connectedAtMs);
+        peerAddress._lastSeenMs = nowMs;
+        peerAddress._connectedAtMs = null;
+    }
+
+    /**
+     * Records a ping round-trip with the peer, as an exponentially weighted moving average.
+     */
+    public synchronized void recordPing(final NodeIpAddress nodeIpAddress, final Long pingMs) {
+        final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) { return; }
+        if (pingMs == null) { return; }
+
+        if (peerAddress._averagePingMs == null) {
+            peerAddress._averagePingMs = pingMs;
+        }
+        else {
+            peerAddress._averagePingMs = (((peerAddress._averagePingMs * 3L) + pingMs) / 4L);
+        }
+    }
+
+    /**
+     * Records the throughput of a block downloaded from the peer, as an exponentially weighted moving average.
+     */
+    public synchronized void recordBlockDownload(final NodeIpAddress nodeIpAddress, final Integer byteCount, final Double msElapsed) {
+        final PeerAddress peerAddress = _peerAddresses.get(nodeIpAddress);
+        if (peerAddress == null) { return; }
+        if ( (byteCount == null) || (msElapsed == null) ) { return; }
+
+        final double bytesPerMs = (byteCount / Math.max(1.0D, msElapsed));
+        if (peerAddress._averageBytesPerMs == null) {
+            peerAddress._averageBytesPerMs = bytesPerMs;
+        }
+        else {
+            peerAddress._averageBytesPerMs = (((peerAddress._averageBytesPerMs * 3.0D) + bytesPerMs) / 4.0D);
+        }
+    }
+
+    public synchronized PeerAddress getPeerAddress(final NodeIpAddress nodeIpAddress) {
+        return _peerAddresses.get(nodeIpAddress);
+    }
+
+    public synchronized Integer getNewCount() {
+        return _newCount;
+    }
+
+    public synchronized Integer getTriedCount() {
+        return _triedCount;
+    }
+
+    public synchronized void load(final File file) throws Exception {
+        if (! file.exists()) { return; }
+
+        final byte[] bytes = IoUtil.getFileContents(file);
+        if (bytes == null) { return; }
+
+        final ByteArrayReader byteArrayReader = new ByteArrayReader(bytes);
+
+        final int version = byteArrayReader.readInteger(4, Endian.BIG);
+        if (version != FILE_VERSION) {
+            Logger.debug("Ignoring peer address file with unknown version: " + version);
+            return;
+        }
+
+        _initBuckets();
+        _secretKey = byteArrayReader.readLong(8, Endian.BIG);
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final int peerCount = byteArrayReader.readInteger(4, Endian.BIG);
+        for (int i = 0; i < peerCount; ++i) {
+            final int ipByteCount = byteArrayReader.readInteger(1);
+            final Ip ip = _inflateIp(byteArrayReader.readBytes(ipByteCount));
+            final Integer port = byteArrayReader.readInteger(4, Endian.BIG);
+            final boolean isTried = (byteArrayReader.readByte() != 0x00);
+            final int bucketIndex = byteArrayReader.readInteger(4, Endian.BIG);
+
+            final Long firstSeenMs = byteArrayReader.readLong(8, Endian.BIG);
+            final Long lastSeenMs = byteArrayReader.readLong(8, Endian.BIG);
+            final Long lastAttemptMs = byteArrayReader.readLong(8, Endian.BIG);
+            final Long lastSuccessMs = byteArrayReader.readLong(8, Endian.BIG);
+            final Integer failureCount = byteArrayReader.readInteger(4, Endian.BIG);
+            final Integer successCount = byteArrayReader.readInteger(4, Endian.BIG);
+            final Long averagePingMs = byteArrayReader.readLong(8, Endian.BIG);
+            final Long averageBytesPerMsBits = byteArrayReader.readLong(8, Endian.BIG);
+            final Long totalConnectedMs = byteArrayReader.readLong(8, Endian.BIG);
+
+            if (byteArrayReader.didOverflow()) { break; }
+            if (ip == null) { continue; }
+
+            final NodeIpAddress nodeIpAddress = new NodeIpAddress(ip, port);
+            if (_peerAddresses.get(nodeIpAddress) != null) { continue; }
+
+            final PeerAddress peerAddress = new PeerAddress(nodeIpAddress, firstSeenMs);
+            peerAddress._lastSeenMs = lastSeenMs;
+            peerAddress._lastAttemptMs = (lastAttemptMs < 0L ? null : lastAttemptMs);
+            peerAddress._lastSuccessMs = (lastSuccessMs < 0L ? null : lastSuccessMs);
+            peerAddress._failureCount = failureCount;
+            peerAddress._successCount = successCount;
+            peerAddress._averagePingMs = (averagePingMs < 0L ? null : averagePingMs);
+            peerAddress._averageBytesPerMs = (averageBytesPerMsBits < 0L ? null : Double.longBitsToDouble(averageBytesPerMsBits));
+            peerAddress._totalConnectedMs = totalConnectedMs;
+            if (_isTerrible(peerAddress, nowMs)) { continue; }
+
+            final int bucketCount = (isTried ? TRIED_BUCKET_COUNT : NEW_BUCKET_COUNT);
+            if ( (bucketIndex < 0) || (bucketIndex >= bucketCount) ) { continue; }
+
+            _peerAddresses.put(nodeIpAddress, peerAddress);
+            _addToBucket(peerAddress, isTried, bucketIndex, nowMs);
+        }
+
+        Logger.debug("Loaded " + _triedCount + " tried and " + _newCount + " new peer addresses.");
+    }
+
+    public synchronized void save(final File file) throws Exception {
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            outputStream.write(ByteUtil.integerToBytes(FILE_VERSION));
+            outputStream.write(ByteUtil.longToBytes(_secretKey));
+            outputStream.write(ByteUtil.integerToBytes(_peerAddresses.getCount()));
+
+            for (final PeerAddress peerAddress : _peerAddresses.getValues()) {
+                final NodeIpAddress nodeIpAddress = peerAddress.nodeIpAddress;
+                final ByteArray ipBytes = nodeIpAddress.getIp().getBytes();
+
+                final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+                byteArrayBuilder.appendByte((byte) ipBytes.getByteCount());
+                byteArrayBuilder.appendBytes(ipBytes);
+                byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(nodeIpAddress.getPort()));
+                byteArrayBuilder.appendByte((byte) (peerAddress._isTried ? 0x01 : 0x00));
+                byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(peerAddress._bucketIndex));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(peerAddress._firstSeenMs));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(peerAddress._lastSeenMs));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_writeNullableLong(peerAddress._lastAttemptMs)));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_writeNullableLong(peerAddress._lastSuccessMs)));
+                byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(peerAddress._failureCount));
+                byteArrayBuilder.appendBytes(ByteUtil.integerToBytes(peerAddress._successCount));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(_writeNullableLong(peerAddress._averagePingMs)));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(peerAddress._averageBytesPerMs != null ? Double.doubleToLongBits(peerAddress._averageBytesPerMs) : -1L));
+                byteArrayBuilder.appendBytes(ByteUtil.longToBytes(peerAddress._totalConnectedMs));
+                outputStream.write(byteArrayBuilder.build());
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -27,6 +27,10 @@ public class PendingBlockQueue {
         BitcoinNode getBitcoinNode(Long blockHeight);
     }
 
+    public interface BlockDownloadObserver {
+        void onBlockDownloaded(BitcoinNode bitcoinNode, Integer byteCount, Double msElapsed);
+    }
+
     protected final double _minMegabitsPerSecond = 15.0D;
 
     protected final Blockchain _blockchain;
@@ -38,6 +42,7 @@ public class PendingBlockQueue {
     protected Thread _thread;
     protected final AtomicBoolean _isShutdown = new AtomicBoolean(true);
     protected final BitcoinNodeSelector _nodeSelector;
+    protected BlockDownloadObserver _blockDownloadObserver;
 
     protected final MutableHashMap<RequestId, BlockRequest> _pendingRequests = new MutableHashMap<>(0);
 
@@ -81,6 +86,11 @@ public class PendingBlockQueue {
                     blockRequest.isComplete.set(true);
                 }
 
+                final BlockDownloadObserver blockDownloadObserver = _blockDownloadObserver;
+                if (blockDownloadObserver != null) {
+                    blockDownloadObserver.onBlockDownloaded(bitcoinNode, block.getByteCount(), promise.getMsElapsed());
+                }
+
                 final double mbps = _calculateMegabitsPerSecond(promise);
                 final boolean wasSlowDownload = (mbps < _minMegabitsPerSecond);
                 if (wasSlowDownload) {
@@ -187,6 +197,10 @@ public class PendingBlockQueue {
         _blockLoader.setName("Block Loader");
     }
 
+    public void setBlockDownloadObserver(final BlockDownloadObserver blockDownloadObserver) {
+        _blockDownloadObserver = blockDownloadObserver;
+    }
+
     public void start() {
         if (! _isShutdown.compareAndSet(true, false)) { return; }
 
@@ -303,9 +317,20 @@ public class PendingBlockQueue {
         }
     }
 
-    public void addBlock(final Long blockHeight, final TimedPromise<Block> promise) {
+    /**
+     * Uses the provided promise for the Block at blockHeight, unless a request for the Block is already in-flight or has completed.
+     *  An existing request is only replaced if it failed.  Returns true if the promise was added.
+     */
+    public Boolean addBlock(final Long blockHeight, final TimedPromise<Block> promise) {
         synchronized (_requests) {
+            final TimedPromise<Block> existingPromise = _requests.get(blockHeight);
+            if (existingPromise != null) {
+                final boolean existingPromiseFailed = (existingPromise.isComplete() && (existingPromise.pollResult() == null));
+                if (! existingPromiseFailed) { return false; }
+            }
+
             _requests.put(blockHeight, promise);
+            return true;
         }
     }
 
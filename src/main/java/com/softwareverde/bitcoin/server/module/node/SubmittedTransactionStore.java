@@ -0,0 +1,45 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Retains the most recently submitted Transactions, indexed by their hash, so that they may be served to peers that request them.
+ *  Once more than maxTransactionCount Transactions have been stored, the oldest Transactions are evicted.
+ *  SubmittedTransactionStore is thread-safe.
+ */
+public class SubmittedTransactionStore {
+    protected final Integer _maxTransactionCount;
+    protected final ConcurrentHashMap<Sha256Hash, Transaction> _transactions;
+    protected final ConcurrentLinkedQueue<Sha256Hash> _insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public SubmittedTransactionStore(final Integer maxTransactionCount) {
+        _maxTransactionCount = maxTransactionCount;
+        _transactions = new ConcurrentHashMap<>(maxTransactionCount);
+    }
+
+    public void storeTransaction(final Transaction transaction) {
+        final Sha256Hash transactionHash = transaction.getHash();
+        final Transaction existingTransaction = _transactions.putIfAbsent(transactionHash, transaction);
+        if (existingTransaction != null) { return; }
+
+        _insertionOrder.add(transactionHash);
+        while (_transactions.size() > _maxTransactionCount) {
+            final Sha256Hash oldestTransactionHash = _insertionOrder.poll();
+            if (oldestTransactionHash == null) { break; }
+
+            _transactions.remove(oldestTransactionHash);
+        }
+    }
+
+    public Transaction getTransaction(final Sha256Hash transactionHash) {
+        return _transactions.get(transactionHash);
+    }
+
+    public Integer getTransactionCount() {
+        return _transactions.size();
+    }
+}
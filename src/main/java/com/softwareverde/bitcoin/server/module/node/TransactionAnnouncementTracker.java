@@ -0,0 +1,124 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.bloomfilter.RollingBloomFilter;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Tracks Transaction announcements so that each announced Transaction is only requested a bounded number of times.
+ *  Transactions that are being retried are tracked exactly (with their attempt count) within a small concurrent map, while
+ *  Transactions that have been received or have exhausted their attempts are remembered within a RollingBloomFilter.
+ *  Retry entries expire after RETRY_EXPIRATION_MS and the map is pruned once it exceeds its capacity; pruned entries are
+ *  treated as exhausted.  No global lock is held while processing an announcement.
+ */
+public class TransactionAnnouncementTracker {
+    public static final Integer MAX_ATTEMPT_COUNT = 4;
+    public static final Long RETRY_EXPIRATION_MS = (10L * 60L * 1000L);
+
+    protected static class RetryEntry {
+        public final Long firstAnnouncedMs;
+        public final Integer attemptCount;
+
+        public RetryEntry(final Long firstAnnouncedMs, final Integer attemptCount) {
+            this.firstAnnouncedMs = firstAnnouncedMs;
+            this.attemptCount = attemptCount;
+        }
+    }
+
+    protected final SystemTime _systemTime;
+    protected final Integer _maxRetryEntryCount;
+    protected final RollingBloomFilter _seenTransactions;
+    protected final ConcurrentHashMap<Sha256Hash, RetryEntry> _retryEntries;
+    protected final AtomicBoolean _isPruning = new AtomicBoolean(false);
+
+    protected void _pruneRetryEntries(final Long nowMs) {
+        if (! _isPruning.compareAndSet(false, true)) { return; } // Another thread is already pruning...
+
+        try {
+            final int targetEntryCount = ((_maxRetryEntryCount * 3) / 4);
+
+            final Iterator<Map.Entry<Sha256Hash, RetryEntry>> iterator = _retryEntries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Sha256Hash, RetryEntry> entry = iterator.next();
+                final RetryEntry retryEntry = entry.getValue();
+                if ((nowMs - retryEntry.firstAnnouncedMs) >= RETRY_EXPIRATION_MS) {
+                    _seenTransactions.addItem(entry.getKey());
+                    iterator.remove();
+                }
+            }
+
+            if (_retryEntries.size() <= targetEntryCount) { return; }
+
+            final Iterator<Sha256Hash> keyIterator = _retryEntries.keySet().iterator();
+            while (keyIterator.hasNext() && (_retryEntries.size() > targetEntryCount)) {
+                final Sha256Hash transactionHash = keyIterator.next();
+                _seenTransactions.addItem(transactionHash);
+                keyIterator.remove();
+            }
+        }
+        finally {
+            _isPruning.set(false);
+        }
+    }
+
+    public TransactionAnnouncementTracker() {
+        this(new SystemTime(), (32 * 1024));
+    }
+
+    public TransactionAnnouncementTracker(final SystemTime systemTime, final Integer maxRetryEntryCount) {
+        _systemTime = systemTime;
+        _maxRetryEntryCount = maxRetryEntryCount;
+        _seenTransactions = new RollingBloomFilter((maxRetryEntryCount * 8L), 0.000001D);
+        _retryEntries = new ConcurrentHashMap<>(maxRetryEntryCount);
+    }
+
+    /**
+     * Records an announcement of the Transaction and returns true if the Transaction should be requested.
+     *  Returns false if the Transaction has already been received or has already been requested MAX_ATTEMPT_COUNT times.
+     */
+    public Boolean onTransactionAnnounced(final Sha256Hash transactionHash) {
+        if (_seenTransactions.containsItem(transactionHash)) { return false; }
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final RetryEntry retryEntry = _retryEntries.compute(transactionHash, new BiFunction<Sha256Hash, RetryEntry, RetryEntry>() {
+            @Override
+            public RetryEntry apply(final Sha256Hash transactionHash, final RetryEntry retryEntry) {
+                if (retryEntry == null) {
+                    return new RetryEntry(nowMs, 1);
+                }
+                return new RetryEntry(retryEntry.firstAnnouncedMs, (retryEntry.attemptCount + 1));
+            }
+        });
+
+        if (retryEntry.attemptCount >= MAX_ATTEMPT_COUNT) {
+            _seenTransactions.addItem(transactionHash);
+            _retryEntries.remove(transactionHash);
+        }
+
+        if (_retryEntries.size() > _maxRetryEntryCount) {
+            _pruneRetryEntries(nowMs);
+        }
+
+        return (retryEntry.attemptCount <= MAX_ATTEMPT_COUNT);
+    }
+
+    /**
+     * Marks the Transaction as received so that further announcements of it are ignored.
+     *  Only Transactions that were accepted should be marked; a rejected Transaction (i.e. an orphan) may become valid later
+     *  and so remains eligible to be requested until its attempts are exhausted.
+     */
+    public void onTransactionReceived(final Sha256Hash transactionHash) {
+        _seenTransactions.addItem(transactionHash);
+        _retryEntries.remove(transactionHash);
+    }
+
+    public Integer getRetryEntryCount() {
+        return _retryEntries.size();
+    }
+}
@@ -13,12 +13,14 @@ import com.softwareverde.bitcoin.transaction.output.ImmutableUnspentTransactionO
 import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.UnspentTransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidationResult;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidator;
 import com.softwareverde.bitcoin.transaction.validator.TransactionValidatorCore;
 import com.softwareverde.constable.list.List;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.Map;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableMap;
 import com.softwareverde.constable.set.mutable.MutableHashSet;
@@ -26,8 +28,17 @@ import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.network.time.NetworkTime;
 import com.softwareverde.util.Tuple;
+import com.softwareverde.util.Util;
 
 public class TransactionMempool {
+    public interface DoubleSpendCallback {
+        /**
+         * Invoked when a Transaction, that would otherwise have been valid, spends an output already spent by a Transaction within the mempool.
+         *  The callback is invoked while the mempool is locked.
+         */
+        void onDoubleSpend(TransactionOutputIdentifier transactionOutputIdentifier, TransactionOutput transactionOutputBeingSpent, Transaction firstSeenTransaction, Transaction doubleSpendTransaction);
+    }
+
     protected final UpgradeSchedule _upgradeSchedule;
     protected final Blockchain _blockchain;
     protected final NetworkTime _networkTime;
@@ -36,6 +47,9 @@ public class TransactionMempool {
     protected final MutableList<Transaction> _transactions = new MutableArrayList<>();
     protected final MutableMap<Sha256Hash, MutableHashSet<Sha256Hash>> _invalidTransactionDependencies = new MutableHashMap<>();
     protected final MutableMap<Sha256Hash, Transaction> _invalidTransactions = new MutableHashMap<>();
+    protected final MutableMap<TransactionOutputIdentifier, Transaction> _spendingTransactions = new MutableHashMap<>();
+    protected final MutableMap<Sha256Hash, MutableList<Sha256Hash>> _scriptHashTransactions = new MutableHashMap<>(); // The hashes of the Transactions spending or creating each script hash's outputs.
+    protected DoubleSpendCallback _doubleSpendCallback;
     protected long _minFee = 0L;
     protected long _totalFees = 0L;
     protected int _signatureOperationCount = 0;
@@ -54,6 +68,37 @@ public class TransactionMempool {
         return totalAmount;
     }
 
+    /**
+     * Returns the distinct script hashes of the outputs spent and created by the Transaction.
+     */
+    protected List<Sha256Hash> _getScriptHashes(final Transaction transaction, final UnspentTransactionOutputContext utxoContext) {
+        final MutableHashSet<Sha256Hash> scriptHashes = new MutableHashSet<>();
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+
+            final TransactionOutput previousTransactionOutput = utxoContext.getTransactionOutput(transactionOutputIdentifier);
+            if (previousTransactionOutput == null) { continue; }
+
+            final Sha256Hash scriptHash = ScriptBuilder.computeScriptHash(previousTransactionOutput.getLockingScript());
+            if (scriptHash == null) { continue; }
+
+            scriptHashes.add(scriptHash);
+        }
+
+        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+            final Sha256Hash scriptHash = ScriptBuilder.computeScriptHash(transactionOutput.getLockingScript());
+            if (scriptHash == null) { continue; }
+
+            scriptHashes.add(scriptHash);
+        }
+
+        final MutableList<Sha256Hash> scriptHashList = new MutableArrayList<>(scriptHashes.getCount());
+        for (final Sha256Hash scriptHash : scriptHashes) {
+            scriptHashList.add(scriptHash);
+        }
+        return scriptHashList;
+    }
+
     protected UnspentTransactionOutputContext _getUnspentTransactionOutputContext(final Transaction transaction, final boolean allowUnfound) {
         final MutableHashMap<TransactionOutputIdentifier, UnspentTransactionOutput> unspentOutputs = new MutableHashMap<>();
         try {
@@ -149,9 +194,37 @@ public class TransactionMempool {
         if (fee < 0L) { return false; }
         if (fee < _minFee) { return false; }
 
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+            final Transaction firstSeenTransaction = _spendingTransactions.get(transactionOutputIdentifier);
+            if (firstSeenTransaction == null) { continue; }
+            if (Util.areEqual(firstSeenTransaction.getHash(), transaction.getHash())) { return false; } // The Transaction is already within the mempool...
+
+            final DoubleSpendCallback doubleSpendCallback = _doubleSpendCallback;
+            if (doubleSpendCallback != null) {
+                final TransactionOutput transactionOutputBeingSpent = utxoContext.getTransactionOutput(transactionOutputIdentifier);
+                doubleSpendCallback.onDoubleSpend(transactionOutputIdentifier, transactionOutputBeingSpent, firstSeenTransaction, transaction);
+            }
+            return false;
+        }
+
+        final List<Sha256Hash> scriptHashes = _getScriptHashes(transaction, utxoContext); // Computed while the spent outputs are available so announcements may be matched by script hash...
+
         final Sha256Hash transactionHash = transaction.getHash();
-        _transactionHashes.put(transactionHash, new TransactionWithFee(transaction, fee));
+        _transactionHashes.put(transactionHash, new TransactionWithFee(transaction, fee, scriptHashes));
         _transactions.add(transaction);
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+            _spendingTransactions.put(transactionOutputIdentifier, transaction);
+        }
+        for (final Sha256Hash scriptHash : scriptHashes) {
+            MutableList<Sha256Hash> transactionHashes = _scriptHashTransactions.get(scriptHash);
+            if (transactionHashes == null) {
+                transactionHashes = new MutableArrayList<>(1);
+                _scriptHashTransactions.put(scriptHash, transactionHashes);
+            }
+            transactionHashes.add(transactionHash);
+        }
         _totalFees += fee;
         _signatureOperationCount += validationResult.signatureOperationCount;
         return true;
@@ -160,6 +233,8 @@ public class TransactionMempool {
     protected void _clear() {
         _transactionHashes.clear();
         _transactions.clear();
+        _spendingTransactions.clear();
+        _scriptHashTransactions.clear();
         _totalFees = 0L;
         _signatureOperationCount = 0;
         _invalidTransactionDependencies.clear();
@@ -234,6 +309,37 @@ public class TransactionMempool {
         return _transactionHashes.get(transactionHash);
     }
 
+    /**
+     * Returns the mempool Transaction spending the output, or null if the output is not spent within the mempool.
+     */
+    public synchronized Transaction getSpendingTransaction(final TransactionOutputIdentifier transactionOutputIdentifier) {
+        return _spendingTransactions.get(transactionOutputIdentifier);
+    }
+
+    /**
+     * Returns the outputs spent by the Transaction's inputs, from either the mempool or the UTXO set.
+     *  Outputs that cannot be found are excluded.
+     */
+    public synchronized Map<TransactionOutputIdentifier, TransactionOutput> getPreviousTransactionOutputs(final Transaction transaction) {
+        final MutableHashMap<TransactionOutputIdentifier, TransactionOutput> previousTransactionOutputs = new MutableHashMap<>();
+
+        final UnspentTransactionOutputContext utxoContext = _getUnspentTransactionOutputContext(transaction, true);
+        if (utxoContext == null) { return previousTransactionOutputs; }
+
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+            final TransactionOutput transactionOutput = utxoContext.getTransactionOutput(transactionOutputIdentifier);
+            if (transactionOutput == null) { continue; }
+
+            previousTransactionOutputs.put(transactionOutputIdentifier, transactionOutput);
+        }
+        return previousTransactionOutputs;
+    }
+
+    public synchronized void setDoubleSpendCallback(final DoubleSpendCallback doubleSpendCallback) {
+        _doubleSpendCallback = doubleSpendCallback;
+    }
+
     public synchronized void setMinimumFee(final long fee) {
         if (fee < 0L) { return; }
         _minFee = fee;
@@ -243,6 +349,20 @@ public class TransactionMempool {
         return new MutableArrayList<>(_transactionHashes.getValues());
     }
 
+    /**
+     * Returns the mempool Transactions that spend or create an output with the provided script hash, in the order they were added.
+     */
+    public synchronized List<TransactionWithFee> getTransactions(final Sha256Hash scriptHash) {
+        final List<Sha256Hash> transactionHashes = _scriptHashTransactions.get(scriptHash);
+        if (transactionHashes == null) { return new MutableArrayList<>(0); }
+
+        final MutableList<TransactionWithFee> transactions = new MutableArrayList<>(transactionHashes.getCount());
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            transactions.add(_transactionHashes.get(transactionHash));
+        }
+        return transactions;
+    }
+
     public synchronized long getTotalFees() {
         return _totalFees;
     }
@@ -0,0 +1,141 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.logging.Logger;
+import com.softwareverde.network.p2p.node.NodeId;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Announces accepted Transactions to peers in batches.
+ *  Transactions are queued on each peer (which filters out Transactions the peer already knows about, or does not want) and
+ *  each peer's queue is flushed as a single InventoryMessage on a randomized "trickle" interval.  The interval is drawn from an
+ *  exponential distribution per peer so that the origin of a Transaction cannot be inferred from the order in which peers receive it.
+ */
+public class TransactionRelay {
+    public interface BitcoinNodeSelector {
+        List<BitcoinNode> getBitcoinNodes();
+    }
+
+    public static final Integer MAX_INVENTORY_ITEM_COUNT_PER_TRICKLE = 1000;
+
+    protected final SystemTime _systemTime = new SystemTime();
+    protected final Random _random = new Random();
+    protected final BitcoinNodeSelector _nodeSelector;
+    protected final Long _averageTrickleIntervalMs;
+    protected final Long _monitorIntervalMs = 100L;
+
+    protected final MutableHashMap<NodeId, Long> _nextTrickleTimes = new MutableHashMap<>();
+
+    protected final AtomicBoolean _isShutdown = new AtomicBoolean(true);
+    protected Thread _thread;
+
+    protected Long _calculateNextTrickleTime(final Long nowMs) {
+        final double uniform = Math.max(Double.MIN_VALUE, _random.nextDouble());
+        final long delayMs = (long) (-Math.log(uniform) * _averageTrickleIntervalMs);
+        return (nowMs + Math.min(delayMs, (_averageTrickleIntervalMs * 8L)));
+    }
+
+    protected void _trickle() {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final List<BitcoinNode> bitcoinNodes = _nodeSelector.getBitcoinNodes();
+
+        final MutableHashMap<NodeId, Long> nextTrickleTimes = new MutableHashMap<>(bitcoinNodes.getCount());
+        for (final BitcoinNode bitcoinNode : bitcoinNodes) {
+            if (bitcoinNode == null) { continue; }
+
+            final NodeId nodeId = bitcoinNode.getId();
+            Long nextTrickleTime = _nextTrickleTimes.get(nodeId);
+            if (nextTrickleTime == null) {
+                nextTrickleTime = _calculateNextTrickleTime(nowMs);
+            }
+
+            if (nowMs >= nextTrickleTime) {
+                if (bitcoinNode.isConnected() && bitcoinNode.isHandshakeComplete()) {
+                    bitcoinNode.flushQueuedTransactionInventory(MAX_INVENTORY_ITEM_COUNT_PER_TRICKLE);
+                }
+                nextTrickleTime = _calculateNextTrickleTime(nowMs);
+            }
+
+            nextTrickleTimes.put(nodeId, nextTrickleTime);
+        }
+
+        _nextTrickleTimes.clear(); // Disconnected peers are dropped...
+        for (final NodeId nodeId : nextTrickleTimes.getKeys()) {
+            _nextTrickleTimes.put(nodeId, nextTrickleTimes.get(nodeId));
+        }
+    }
+
+    public TransactionRelay(final BitcoinNodeSelector nodeSelector, final Long averageTrickleIntervalMs) {
+        _nodeSelector = nodeSelector;
+        _averageTrickleIntervalMs = averageTrickleIntervalMs;
+    }
+
+    /**
+     * Queues the Transaction to be announced to every peer that does not already know of it.
+     *  The transactionFee is used to honor each peer's fee filter; a null transactionFee announces the Transaction regardless of fee.
+     */
+    public void relayTransaction(final Transaction transaction, final Long transactionFee) {
+        if (_isShutdown.get()) { return; }
+
+        final List<BitcoinNode> bitcoinNodes = _nodeSelector.getBitcoinNodes();
+        for (final BitcoinNode bitcoinNode : bitcoinNodes) {
+            if (bitcoinNode == null) { continue; }
+            if (! bitcoinNode.isHandshakeComplete()) { continue; }
+
+            bitcoinNode.queueTransactionInventory(transaction, transactionFee);
+        }
+    }
+
+    public void start() {
+        if (! _isShutdown.compareAndSet(true, false)) { return; }
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (! _isShutdown.get()) {
+                        try {
+                            _trickle();
+                        }
+                        catch (final Exception exception) {
+                            Logger.debug(exception);
+                        }
+
+                        Thread.sleep(_monitorIntervalMs);
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    // Nothing.
+                }
+                finally {
+                    _isShutdown.set(true);
+                }
+            }
+        });
+        _thread.setDaemon(true);
+        _thread.setName("TransactionRelay");
+        _thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.debug(exception);
+            }
+        });
+        _thread.start();
+    }
+
+    public void stop() throws Exception {
+        if (! _isShutdown.compareAndSet(false, true)) { return; }
+
+        final Thread thread = _thread;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(1000L);
+        }
+    }
+}
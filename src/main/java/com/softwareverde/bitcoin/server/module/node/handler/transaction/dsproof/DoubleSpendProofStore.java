@@ -9,86 +9,111 @@ import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
-import com.softwareverde.util.CircleBuffer;
-import com.softwareverde.util.Util;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Stores valid, pending, and banned DoubleSpendProofs.
+ *  Each collection is a bounded ring ordered by insertion; once a collection is full, its oldest item is evicted.
+ *  Every collection is indexed so that lookups by hash, by the TransactionOutputIdentifier being double-spent, and by the
+ *  Transactions that may resolve a pending DoubleSpendProof are O(1) rather than scans of the ring.
+ */
 public class DoubleSpendProofStore {
     protected final Float _percentCapacityAllocatedToPendingProofs = 0.10F;
     protected final Integer _banCapacity = 128; // ~1 minute of invalid proofs at 32MB capacity, assuming every Transaction is double-spent...
 
+    protected final Integer _maxItemCount;
+    protected final Integer _maxPendingItemCount;
+
     // DSProofs that have been deemed valid...
     protected final ReentrantReadWriteLock.ReadLock _readLock;
     protected final ReentrantReadWriteLock.WriteLock _writeLock;
-    protected final CircleBuffer<DoubleSpendProof> _doubleSpendProofs;
+    protected final LinkedHashMap<Sha256Hash, DoubleSpendProof> _doubleSpendProofs = new LinkedHashMap<>();
+    protected final HashMap<TransactionOutputIdentifier, DoubleSpendProof> _doubleSpendProofsByTransactionOutputIdentifier = new HashMap<>();
 
     // DSProofs that cannot be validated due to missing dependent transactions...
     protected final ReentrantReadWriteLock.ReadLock _pendingReadLock;
     protected final ReentrantReadWriteLock.WriteLock _pendingWriteLock;
-    protected final CircleBuffer<DoubleSpendProof> _pendingDoubleSpendProofs;
+    protected final LinkedHashMap<Sha256Hash, DoubleSpendProof> _pendingDoubleSpendProofs = new LinkedHashMap<>();
+    protected final HashMap<Sha256Hash, HashSet<Sha256Hash>> _pendingDoubleSpendProofsByTransactionHash = new HashMap<>(); // The hash of the Transaction being double-spent -> the hashes of its pending DSProofs.
 
     // DSProofs that have been banned...
     protected final ReentrantReadWriteLock.ReadLock _bannedReadLock;
     protected final ReentrantReadWriteLock.WriteLock _bannedWriteLock;
-    protected final CircleBuffer<Sha256Hash> _bannedDoubleSpendProofs;
+    protected final LinkedHashSet<Sha256Hash> _bannedDoubleSpendProofs = new LinkedHashSet<>();
 
-    protected DoubleSpendProof _getDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
-        for (final DoubleSpendProof doubleSpendProof : _doubleSpendProofs) {
-            final Sha256Hash existingDoubleSpendProofHash = doubleSpendProof.getHash();
-            if (Util.areEqual(doubleSpendProofHash, existingDoubleSpendProofHash)) {
-                return doubleSpendProof;
-            }
+    protected void _unindexDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
+        final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
+        final DoubleSpendProof indexedDoubleSpendProof = _doubleSpendProofsByTransactionOutputIdentifier.get(transactionOutputIdentifier);
+        if (indexedDoubleSpendProof == doubleSpendProof) {
+            _doubleSpendProofsByTransactionOutputIdentifier.remove(transactionOutputIdentifier);
         }
-        return null;
     }
 
-    protected DoubleSpendProof _getDoubleSpendProof(final TransactionOutputIdentifier transactionOutputIdentifier) {
-        for (final DoubleSpendProof doubleSpendProof : _doubleSpendProofs) {
-            final TransactionOutputIdentifier existingTransactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
-            if (Util.areEqual(transactionOutputIdentifier, existingTransactionOutputIdentifier)) {
-                return doubleSpendProof;
-            }
+    protected void _unindexPendingDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
+        final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
+        final Sha256Hash transactionHash = transactionOutputIdentifier.getTransactionHash();
+
+        final HashSet<Sha256Hash> doubleSpendProofHashes = _pendingDoubleSpendProofsByTransactionHash.get(transactionHash);
+        if (doubleSpendProofHashes == null) { return; }
+
+        doubleSpendProofHashes.remove(doubleSpendProof.getHash());
+        if (doubleSpendProofHashes.isEmpty()) {
+            _pendingDoubleSpendProofsByTransactionHash.remove(transactionHash);
         }
-        return null;
     }
 
     public DoubleSpendProofStore(final Integer maxCachedItemCount) {
-        final int itemCount = Math.max(1, (int) (maxCachedItemCount * _percentCapacityAllocatedToPendingProofs));
-        final int pendingItemCount = Math.max(1, (maxCachedItemCount - itemCount));
+        final int pendingItemCount = Math.max(1, (int) (maxCachedItemCount * _percentCapacityAllocatedToPendingProofs));
+        _maxPendingItemCount = pendingItemCount;
+        _maxItemCount = Math.max(1, (maxCachedItemCount - pendingItemCount));
 
         { // DSProof Buffer
             final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
             _readLock = readWriteLock.readLock();
             _writeLock = readWriteLock.writeLock();
-            _doubleSpendProofs = new CircleBuffer<>(itemCount);
         }
 
         { // Pending DSProof Buffer
             final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
             _pendingReadLock = readWriteLock.readLock();
             _pendingWriteLock = readWriteLock.writeLock();
-            _pendingDoubleSpendProofs = new CircleBuffer<>(pendingItemCount);
         }
 
         { // Banned DSProof Buffer
             final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
             _bannedReadLock = readWriteLock.readLock();
             _bannedWriteLock = readWriteLock.writeLock();
-            _bannedDoubleSpendProofs = new CircleBuffer<>(_banCapacity);
         }
     }
 
+    /**
+     * Stores the valid DoubleSpendProof.
+     *  Returns false if a DoubleSpendProof for the same TransactionOutputIdentifier is already stored.
+     */
     public Boolean storeDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
         _writeLock.lock();
         try {
             // NOTE: The DoubleSpendProof is looked-up via the PreviousOutputIdentifier (vs hash) so that the store is always unique for multiple double-spends.
             final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
-            final DoubleSpendProof existingDoubleSpendProof = _getDoubleSpendProof(transactionOutputIdentifier);
-            if (existingDoubleSpendProof != null) { return false; }
+            if (_doubleSpendProofsByTransactionOutputIdentifier.containsKey(transactionOutputIdentifier)) { return false; }
+
+            final Sha256Hash doubleSpendProofHash = doubleSpendProof.getHash();
+            _doubleSpendProofs.put(doubleSpendProofHash, doubleSpendProof);
+            _doubleSpendProofsByTransactionOutputIdentifier.put(transactionOutputIdentifier, doubleSpendProof);
+
+            final Iterator<DoubleSpendProof> iterator = _doubleSpendProofs.values().iterator();
+            while ( (_doubleSpendProofs.size() > _maxItemCount) && iterator.hasNext() ) {
+                final DoubleSpendProof evictedDoubleSpendProof = iterator.next();
+                iterator.remove();
+                _unindexDoubleSpendProof(evictedDoubleSpendProof);
+            }
 
-            _doubleSpendProofs.push(doubleSpendProof);
             return true;
         }
         finally {
@@ -99,8 +124,8 @@ public class DoubleSpendProofStore {
     public List<DoubleSpendProof> getDoubleSpendProofs() {
         _readLock.lock();
         try {
-            final ImmutableListBuilder<DoubleSpendProof> listBuilder = new ImmutableListBuilder<>();
-            for (final DoubleSpendProof doubleSpendProof : _doubleSpendProofs) {
+            final ImmutableListBuilder<DoubleSpendProof> listBuilder = new ImmutableListBuilder<>(_doubleSpendProofs.size());
+            for (final DoubleSpendProof doubleSpendProof : _doubleSpendProofs.values()) {
                 listBuilder.add(doubleSpendProof);
             }
             return listBuilder.build();
@@ -113,7 +138,7 @@ public class DoubleSpendProofStore {
     public DoubleSpendProof getDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
         _readLock.lock();
         try {
-            return _getDoubleSpendProof(doubleSpendProofHash);
+            return _doubleSpendProofs.get(doubleSpendProofHash);
         }
         finally {
             _readLock.unlock();
@@ -123,7 +148,38 @@ public class DoubleSpendProofStore {
     public DoubleSpendProof getDoubleSpendProof(final TransactionOutputIdentifier transactionOutputIdentifier) {
         _readLock.lock();
         try {
-            return _getDoubleSpendProof(transactionOutputIdentifier);
+            return _doubleSpendProofsByTransactionOutputIdentifier.get(transactionOutputIdentifier);
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the DoubleSpendProofs for any of the Transaction's inputs, or an empty list if none of its inputs have been double-spent.
+     */
+    public List<DoubleSpendProof> getDoubleSpendProofs(final Transaction transaction) {
+        _readLock.lock();
+        try {
+            final MutableList<DoubleSpendProof> doubleSpendProofs = new MutableArrayList<>(0);
+            for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+                final TransactionOutputIdentifier transactionOutputIdentifier = TransactionOutputIdentifier.fromTransactionInput(transactionInput);
+                final DoubleSpendProof doubleSpendProof = _doubleSpendProofsByTransactionOutputIdentifier.get(transactionOutputIdentifier);
+                if (doubleSpendProof != null) {
+                    doubleSpendProofs.add(doubleSpendProof);
+                }
+            }
+            return doubleSpendProofs;
+        }
+        finally {
+            _readLock.unlock();
+        }
+    }
+
+    public Integer getDoubleSpendProofCount() {
+        _readLock.lock();
+        try {
+            return _doubleSpendProofs.size();
         }
         finally {
             _readLock.unlock();
@@ -133,23 +189,60 @@ public class DoubleSpendProofStore {
     public void storePendingDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
         _pendingWriteLock.lock();
         try {
-            _pendingDoubleSpendProofs.push(doubleSpendProof);
+            final Sha256Hash doubleSpendProofHash = doubleSpendProof.getHash();
+            if (_pendingDoubleSpendProofs.containsKey(doubleSpendProofHash)) { return; }
+
+            _pendingDoubleSpendProofs.put(doubleSpendProofHash, doubleSpendProof);
+
+            final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
+            final Sha256Hash transactionHash = transactionOutputIdentifier.getTransactionHash();
+            HashSet<Sha256Hash> doubleSpendProofHashes = _pendingDoubleSpendProofsByTransactionHash.get(transactionHash);
+            if (doubleSpendProofHashes == null) {
+                doubleSpendProofHashes = new HashSet<>(1);
+                _pendingDoubleSpendProofsByTransactionHash.put(transactionHash, doubleSpendProofHashes);
+            }
+            doubleSpendProofHashes.add(doubleSpendProofHash);
+
+            final Iterator<DoubleSpendProof> iterator = _pendingDoubleSpendProofs.values().iterator();
+            while ( (_pendingDoubleSpendProofs.size() > _maxPendingItemCount) && iterator.hasNext() ) {
+                final DoubleSpendProof evictedDoubleSpendProof = iterator.next();
+                iterator.remove();
+                _unindexPendingDoubleSpendProof(evictedDoubleSpendProof);
+            }
         }
         finally {
             _pendingWriteLock.unlock();
         }
     }
 
-    public void getPendingDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
+    public DoubleSpendProof getPendingDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
         _pendingReadLock.lock();
         try {
-            _pendingDoubleSpendProofs.push(doubleSpendProof);
+            return _pendingDoubleSpendProofs.get(doubleSpendProofHash);
         }
         finally {
             _pendingReadLock.unlock();
         }
     }
 
+    public void removePendingDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
+        _pendingWriteLock.lock();
+        try {
+            final DoubleSpendProof doubleSpendProof = _pendingDoubleSpendProofs.remove(doubleSpendProofHash);
+            if (doubleSpendProof == null) { return; }
+
+            _unindexPendingDoubleSpendProof(doubleSpendProof);
+        }
+        finally {
+            _pendingWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the pending DoubleSpendProofs that may now be validated due to the arrival of the provided Transactions.
+     *  A pending DoubleSpendProof is triggered by the Transaction it double-spends, or by a Transaction spending the same Transaction's outputs.
+     *  The triggered DoubleSpendProofs remain pending until removed via DoubleSpendProofStore::removePendingDoubleSpendProof.
+     */
     public List<DoubleSpendProof> getTriggeredPendingDoubleSpendProof(final List<Transaction> transactions) {
         final HashSet<Sha256Hash> triggeringTransactionHashes = new HashSet<>();
 
@@ -170,11 +263,17 @@ public class DoubleSpendProofStore {
         _pendingReadLock.lock();
         try {
             final MutableList<DoubleSpendProof> triggeredDoubleSpendProofs = new MutableArrayList<>(0);
-            for (final DoubleSpendProof doubleSpendProof : _pendingDoubleSpendProofs) {
-                final TransactionOutputIdentifier transactionOutputIdentifier = doubleSpendProof.getTransactionOutputIdentifierBeingDoubleSpent();
-                final Sha256Hash transactionHash = transactionOutputIdentifier.getTransactionHash();
-                if (triggeringTransactionHashes.contains(transactionHash)) {
-                    triggeredDoubleSpendProofs.add(doubleSpendProof);
+            if (_pendingDoubleSpendProofs.isEmpty()) { return triggeredDoubleSpendProofs; }
+
+            for (final Sha256Hash transactionHash : triggeringTransactionHashes) {
+                final HashSet<Sha256Hash> doubleSpendProofHashes = _pendingDoubleSpendProofsByTransactionHash.get(transactionHash);
+                if (doubleSpendProofHashes == null) { continue; }
+
+                for (final Sha256Hash doubleSpendProofHash : doubleSpendProofHashes) {
+                    final DoubleSpendProof doubleSpendProof = _pendingDoubleSpendProofs.get(doubleSpendProofHash);
+                    if (doubleSpendProof != null) {
+                        triggeredDoubleSpendProofs.add(doubleSpendProof);
+                    }
                 }
             }
             return triggeredDoubleSpendProofs;
@@ -184,10 +283,26 @@ public class DoubleSpendProofStore {
         }
     }
 
+    public Integer getPendingDoubleSpendProofCount() {
+        _pendingReadLock.lock();
+        try {
+            return _pendingDoubleSpendProofs.size();
+        }
+        finally {
+            _pendingReadLock.unlock();
+        }
+    }
+
     public void banDoubleSpendProof(final Sha256Hash doubleSpendProofHash) {
         _bannedWriteLock.lock();
         try {
-            _bannedDoubleSpendProofs.push(doubleSpendProofHash);
+            if (! _bannedDoubleSpendProofs.add(doubleSpendProofHash)) { return; }
+
+            final Iterator<Sha256Hash> iterator = _bannedDoubleSpendProofs.iterator();
+            while ( (_bannedDoubleSpendProofs.size() > _banCapacity) && iterator.hasNext() ) {
+                iterator.next();
+                iterator.remove();
+            }
         }
         finally {
             _bannedWriteLock.unlock();
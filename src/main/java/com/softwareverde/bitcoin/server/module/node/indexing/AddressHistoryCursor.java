@@ -0,0 +1,17 @@
+package com.softwareverde.bitcoin.server.module.node.indexing;
+
+import com.softwareverde.constable.list.List;
+
+/**
+ * Iterates an address's history one page at a time, ordered by block height.
+ *  Each page completes its final block; unconfirmed Transactions are included within the final page only.
+ */
+public interface AddressHistoryCursor {
+    /**
+     * Returns the next page of the address's history, containing at least maxTransactionCount Transactions (if available).
+     *  Returns an empty list once the history has been exhausted, or null if the page could not be loaded.
+     */
+    List<AddressHistoryEntry> getNextPage(Integer maxTransactionCount);
+
+    Boolean hasNextPage();
+}
@@ -0,0 +1,48 @@
+package com.softwareverde.bitcoin.server.module.node.indexing;
+
+import com.softwareverde.constable.Const;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+import com.softwareverde.json.Jsonable;
+
+/**
+ * A single Transaction within an address's history.
+ *  The blockHeight is null if the Transaction is unconfirmed; the transactionFee is only provided for unconfirmed Transactions.
+ */
+public class AddressHistoryEntry implements Const, Jsonable {
+    public static AddressHistoryEntry fromJson(final Json json) {
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString(json.getString("hash"));
+        if (transactionHash == null) { return null; }
+
+        final Long blockHeight = json.getOrNull("blockHeight", Json.Types.LONG);
+        final Boolean hasUnconfirmedInputs = json.getBoolean("hasUnconfirmedInputs");
+        final Long transactionFee = json.getOrNull("fee", Json.Types.LONG);
+        return new AddressHistoryEntry(transactionHash, blockHeight, hasUnconfirmedInputs, transactionFee);
+    }
+
+    public final Sha256Hash transactionHash;
+    public final Long blockHeight;
+    public final Boolean hasUnconfirmedInputs;
+    public final Long transactionFee;
+
+    public AddressHistoryEntry(final Sha256Hash transactionHash, final Long blockHeight, final Boolean hasUnconfirmedInputs, final Long transactionFee) {
+        this.transactionHash = transactionHash;
+        this.blockHeight = blockHeight;
+        this.hasUnconfirmedInputs = hasUnconfirmedInputs;
+        this.transactionFee = transactionFee;
+    }
+
+    public Boolean isUnconfirmedTransaction() {
+        return (this.blockHeight == null);
+    }
+
+    @Override
+    public Json toJson() {
+        final Json json = new Json(false);
+        json.put("hash", this.transactionHash);
+        json.put("blockHeight", this.blockHeight);
+        json.put("hasUnconfirmedInputs", this.hasUnconfirmedInputs);
+        json.put("fee", this.transactionFee);
+        return json;
+    }
+}
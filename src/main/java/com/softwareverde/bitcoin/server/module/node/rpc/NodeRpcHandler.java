@@ -10,14 +10,18 @@ import com.softwareverde.bitcoin.block.BlockDeflater;
 import com.softwareverde.bitcoin.block.BlockInflater;
 import com.softwareverde.bitcoin.block.header.BlockHeader;
 import com.softwareverde.bitcoin.block.header.BlockHeaderDeflater;
+import com.softwareverde.bitcoin.block.header.BlockHeaderInflater;
 import com.softwareverde.bitcoin.block.header.ImmutableBlockHeader;
 import com.softwareverde.bitcoin.block.header.difficulty.Difficulty;
 import com.softwareverde.bitcoin.block.validator.BlockValidationResult;
 import com.softwareverde.bitcoin.block.validator.ValidationResult;
 import com.softwareverde.bitcoin.inflater.MasterInflater;
+import com.softwareverde.bitcoin.server.State;
 import com.softwareverde.bitcoin.server.SynchronizationStatus;
 import com.softwareverde.bitcoin.server.message.type.node.feature.NodeFeatures;
 import com.softwareverde.bitcoin.server.message.type.query.header.RequestBlockHeadersMessage;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
 import com.softwareverde.bitcoin.server.module.node.rpc.blockchain.BlockchainMetadata;
 import com.softwareverde.bitcoin.server.node.BitcoinNode;
 import com.softwareverde.bitcoin.server.node.request.UnfulfilledPublicKeyRequest;
@@ -29,9 +33,15 @@ import com.softwareverde.bitcoin.transaction.TransactionInflater;
 import com.softwareverde.bitcoin.transaction.TransactionWithFee;
 import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
 import com.softwareverde.bitcoin.transaction.input.TransactionInput;
+import com.softwareverde.bitcoin.transaction.output.TransactionOutput;
 import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
-import com.softwareverde.bloomfilter.BloomFilter;
-import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.bitcoin.transaction.script.ScriptBuilder;
+import com.softwareverde.bitcoin.transaction.script.ScriptPatternMatcher;
+import com.softwareverde.bitcoin.transaction.script.locking.LockingScript;
+import com.softwareverde.bitcoin.transaction.script.unlocking.UnlockingScript;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.concurrent.service.SleepyService;
+import com.softwareverde.concurrent.threadpool.CachedThreadPool;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.List;
@@ -40,7 +50,7 @@ import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.Map;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
-import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.constable.set.Set;
 import com.softwareverde.constable.set.mutable.MutableHashSet;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.json.Json;
@@ -48,22 +58,44 @@ import com.softwareverde.logging.Logger;
 import com.softwareverde.network.ip.Ip;
 import com.softwareverde.network.p2p.message.ProtocolMessage;
 import com.softwareverde.network.p2p.node.address.NodeIpAddress;
+import com.softwareverde.network.socket.JsonFrameProtocolMessage;
 import com.softwareverde.network.socket.JsonProtocolMessage;
 import com.softwareverde.network.socket.JsonSocket;
 import com.softwareverde.network.socket.JsonSocketServer;
 import com.softwareverde.util.DateUtil;
 import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.StringUtil;
 import com.softwareverde.util.Tuple;
 import com.softwareverde.util.Util;
+import com.softwareverde.util.bytearray.ByteArrayBuilder;
+import com.softwareverde.util.timer.NanoTimer;
+import com.softwareverde.util.type.time.SystemTime;
 
 import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
 
 
 public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback {
-    public static final Integer MAX_ADDRESS_FILTER_SIZE = 256;
+    public static final Integer MAX_ADDRESS_HISTORY_PAGE_SIZE = 10000;
+    public static final Integer MAX_QUEUED_HOOK_MESSAGE_COUNT = 1024;
+    public static final Long MAX_HOOK_SOCKET_BUFFER_BYTE_COUNT = (8L * 1024L * 1024L);
+    public static final Long MAX_HOOK_STALL_MS = 30000L;
+
+    protected static final Long HOOK_BACKLOG_RETRY_MS = 100L;
+
+    public static final Long DEFAULT_RESPONSE_CACHE_BYTE_COUNT = (64L * 1024L * 1024L);
+    public static final Long MAX_CACHED_METADATA_RESPONSE_AGE_MS = 5000L;
+
+    public static final Long MAX_STATUS_SNAPSHOT_AGE_MS = 10000L;
+    public static final Long MAX_STALE_STATUS_SNAPSHOT_AGE_MS = 60000L;
+
+    public static final Integer DEFAULT_REQUEST_THREAD_COUNT = 8;
+    public static final Integer DEFAULT_MAX_PIPELINED_REQUEST_COUNT = 16;
 
     protected static final String ERROR_MESSAGE_KEY = "errorMessage";
     protected static final String WAS_SUCCESS_KEY = "wasSuccess";
+    protected static final String REQUEST_ID_KEY = "requestId";
 
     public interface ShutdownHandler {
         Boolean shutdown();
@@ -96,6 +128,20 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         List<Transaction> getAddressTransactions(Sha256Hash scriptHash);
         List<Sha256Hash> getAddressTransactionHashes(TypedAddress address);
         List<Sha256Hash> getAddressTransactionHashes(Sha256Hash scriptHash);
+
+        /**
+         * Returns a page of the address's history, ordered by block height, beginning at fromBlockHeight.
+         *  The page contains at least maxTransactionCount Transactions (if available), and always completes its final block,
+         *  so the subsequent page begins at the final block's height + 1.  Unconfirmed Transactions are included within the
+         *  final page only.
+         */
+        List<AddressHistoryEntry> getAddressHistory(Sha256Hash scriptHash, Long fromBlockHeight, Integer maxTransactionCount);
+
+        /**
+         * Returns a cursor over the address's history beginning at fromBlockHeight, with the same paging as getAddressHistory.
+         *  Unlike repeated calls to getAddressHistory, the address's index is only read once for the cursor's lifetime.
+         */
+        AddressHistoryCursor getAddressHistoryCursor(Sha256Hash scriptHash, Long fromBlockHeight);
     }
 
     public interface ThreadPoolInquisitor {
@@ -145,6 +191,9 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         List<Transaction> getBlockTransactions(Long blockHeight, Integer pageSize, Integer pageNumber);
         List<Transaction> getBlockTransactions(Sha256Hash blockHash, Integer pageSize, Integer pageNumber);
 
+        List<Sha256Hash> getBlockTransactionHashes(Long blockHeight);
+        List<Sha256Hash> getBlockTransactionHashes(Sha256Hash blockHash);
+
         List<BlockHeader> getBlockHeaders(Long nullableBlockHeight, Integer maxBlockCount, Direction blockHeaderDirection);
 
         Transaction getTransaction(Sha256Hash transactionHash);
@@ -214,7 +263,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
 
         protected abstract ProtocolMessage _createProtocolMessage();
 
-        public ProtocolMessage getProtocolMessage() {
+        public synchronized ProtocolMessage getProtocolMessage() {
             if (_cachedProtocolMessage == null) {
                 _cachedProtocolMessage = _createProtocolMessage();
             }
@@ -223,38 +272,316 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         }
     }
 
+    /**
+     * A connection's subscription to one or more HookEvents.
+     *  Messages are queued to the HookListener without blocking the publishing thread, and are written to the connection
+     *  by the HookEventDispatcher; at most MAX_QUEUED_HOOK_MESSAGE_COUNT messages are queued, and messages published while
+     *  the queue is full are dropped.
+     */
     protected static class HookListener {
         public final JsonSocket socket;
+        public final Set<HookEvent> events;
         public final Boolean rawFormat;
         public final Boolean includeTransactionFees;
-        public final BloomFilter addressFilter;
+        public final Boolean binaryFramingIsEnabled; // Raw-format messages are sent as JsonFrameProtocolMessages.
+        public final List<Address> addressFilter; // Null if the listener receives every Transaction.
+
+        protected final ArrayBlockingQueue<LazyProtocolMessage> _queuedMessages = new ArrayBlockingQueue<>(MAX_QUEUED_HOOK_MESSAGE_COUNT);
+        protected volatile Long _firstDroppedMessageTimeMs = null; // The time the listener began dropping messages, or null if it has kept up.
 
-        public HookListener(final JsonSocket socket, final Boolean rawFormat, final Boolean includeTransactionFees, final List<Address> addressesFilter) {
+        public HookListener(final JsonSocket socket, final Set<HookEvent> events, final Boolean rawFormat, final Boolean includeTransactionFees, final Boolean binaryFramingIsEnabled, final List<Address> addressFilter) {
             this.socket = socket;
+            this.events = events;
             this.rawFormat = rawFormat;
             this.includeTransactionFees = includeTransactionFees;
+            this.binaryFramingIsEnabled = binaryFramingIsEnabled;
+            this.addressFilter = addressFilter;
+        }
+
+        /**
+         * Queues the message to be written to the listener's connection.
+         *  Returns false if the listener's queue is full, in which case the message is dropped.
+         */
+        public Boolean enqueue(final LazyProtocolMessage lazyProtocolMessage, final Long nowMs) {
+            final boolean messageWasQueued = _queuedMessages.offer(lazyProtocolMessage);
+            if ( (! messageWasQueued) && (_firstDroppedMessageTimeMs == null) ) {
+                _firstDroppedMessageTimeMs = nowMs;
+            }
+            return messageWasQueued;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the registered HookListeners, indexed by HookEvent and by the addresses within their address filters.
+     *  Publishers read the current snapshot without locking; the snapshot is replaced whenever a HookListener is added or removed.
+     */
+    protected static class HookListenerIndex {
+        public final List<HookListener> hookListeners;
+        public final Map<HookEvent, List<HookListener>> eventListeners;
+        public final List<HookListener> unfilteredTransactionListeners;
+        public final Map<Address, List<HookListener>> transactionListenersByAddress;
+
+        public HookListenerIndex(final List<HookListener> hookListeners) {
+            final MutableHashMap<HookEvent, List<HookListener>> eventListeners = new MutableHashMap<>();
+            for (final HookEvent hookEvent : HookEvent.values()) {
+                final MutableList<HookListener> listeners = new MutableArrayList<>();
+                for (final HookListener hookListener : hookListeners) {
+                    if (hookListener.events.contains(hookEvent)) {
+                        listeners.add(hookListener);
+                    }
+                }
+                eventListeners.put(hookEvent, listeners);
+            }
+
+            final MutableList<HookListener> unfilteredTransactionListeners = new MutableArrayList<>();
+            final MutableHashMap<Address, MutableList<HookListener>> transactionListenersByAddress = new MutableHashMap<>();
+            for (final HookListener hookListener : eventListeners.get(HookEvent.NEW_TRANSACTION)) {
+                if (hookListener.addressFilter == null) {
+                    unfilteredTransactionListeners.add(hookListener);
+                    continue;
+                }
+
+                for (final Address address : hookListener.addressFilter) {
+                    MutableList<HookListener> addressListeners = transactionListenersByAddress.get(address);
+                    if (addressListeners == null) {
+                        addressListeners = new MutableArrayList<>();
+                        transactionListenersByAddress.put(address, addressListeners);
+                    }
 
-            if (addressesFilter != null) {
-                final Long itemCount = Math.min(MAX_ADDRESS_FILTER_SIZE, addressesFilter.getCount() * 2L);
-                final MutableBloomFilter bloomFilter = MutableBloomFilter.newInstance(itemCount, 0.005D);
-                for (final Address address : addressesFilter) {
-                    bloomFilter.addItem(address);
+                    if (! addressListeners.contains(hookListener)) {
+                        addressListeners.add(hookListener);
+                    }
                 }
-                this.addressFilter = bloomFilter;
             }
-            else {
-                this.addressFilter = null;
+
+            final MutableHashMap<Address, List<HookListener>> constTransactionListenersByAddress = new MutableHashMap<>(transactionListenersByAddress.getCount());
+            for (final Tuple<Address, MutableList<HookListener>> entry : transactionListenersByAddress) {
+                constTransactionListenersByAddress.put(entry.first, entry.second);
+            }
+
+            this.hookListeners = hookListeners;
+            this.eventListeners = eventListeners;
+            this.unfilteredTransactionListeners = unfilteredTransactionListeners;
+            this.transactionListenersByAddress = constTransactionListenersByAddress;
+        }
+    }
+
+    /**
+     * Writes the HookListeners' queued messages to their connections, off of the threads that publish the events.
+     *  Messages are only handed to a connection while its outbound buffer is below MAX_HOOK_SOCKET_BUFFER_BYTE_COUNT, so a
+     *  slow consumer accumulates messages in its own bounded queue; a consumer that continues to drop messages for longer
+     *  than MAX_HOOK_STALL_MS is disconnected.
+     */
+    protected class HookEventDispatcher extends SleepyService {
+        @Override
+        protected void _onStart() { }
+
+        @Override
+        protected Boolean _run() {
+            final HookListenerIndex hookListenerIndex = _hookListenerIndex;
+            final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+
+            boolean hasQueuedMessages = false;
+            final MutableList<HookListener> droppedHookListeners = new MutableArrayList<>();
+            for (final HookListener hookListener : hookListenerIndex.hookListeners) {
+                final JsonSocket jsonSocket = hookListener.socket;
+                if (! jsonSocket.isConnected()) {
+                    droppedHookListeners.add(hookListener);
+                    continue;
+                }
+
+                while (jsonSocket.getQueuedByteCount() < MAX_HOOK_SOCKET_BUFFER_BYTE_COUNT) {
+                    final LazyProtocolMessage lazyProtocolMessage = hookListener._queuedMessages.poll();
+                    if (lazyProtocolMessage == null) { break; }
+
+                    jsonSocket.write(lazyProtocolMessage.getProtocolMessage());
+                }
+
+                if (hookListener._queuedMessages.isEmpty()) {
+                    hookListener._firstDroppedMessageTimeMs = null;
+                    continue;
+                }
+
+                hasQueuedMessages = true;
+
+                final Long firstDroppedMessageTimeMs = hookListener._firstDroppedMessageTimeMs;
+                if ( (firstDroppedMessageTimeMs != null) && ((nowMs - firstDroppedMessageTimeMs) > MAX_HOOK_STALL_MS) ) {
+                    Logger.debug("Disconnecting stalled hook listener: " + jsonSocket);
+                    jsonSocket.close();
+                    droppedHookListeners.add(hookListener);
+                }
+            }
+
+            if (! droppedHookListeners.isEmpty()) {
+                _removeHookListeners(droppedHookListeners);
+            }
+
+            if (! hasQueuedMessages) { return false; }
+
+            try { // Wait for the backlogged connections to drain...
+                Thread.sleep(HOOK_BACKLOG_RETRY_MS);
+            }
+            catch (final InterruptedException exception) {
+                final Thread currentThread = Thread.currentThread();
+                currentThread.interrupt();
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        protected void _onSleep() { }
+    }
+
+    /**
+     * The height and timestamp of the head Block or BlockHeader.
+     */
+    protected static class HeadGauge {
+        public final Long blockHeight;
+        public final Long timestamp;
+
+        public HeadGauge(final Long blockHeight, final Long timestamp) {
+            this.blockHeight = blockHeight;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * The STATUS figures that are expensive to gather: each is collected from the handlers by the StatusMonitor, off of the request threads.
+     *  A StatusSnapshot is never modified once published, so it is read by any number of STATUS requests without locking.
+     */
+    protected static class StatusSnapshot {
+        public Long createdTimeMs;
+        public State status;
+
+        public HeadGauge headBlock; // Used until the node provides the head gauges via NodeRpcHandler::onHeadBlockChanged...
+        public HeadGauge headBlockHeader; // Used until the node provides the head gauges via NodeRpcHandler::onHeadBlockHeaderChanged...
+
+        public Float blocksIndexedPerSecond;
+        public Float blocksPerSecond;
+        public Float transactionsPerSecond;
+        public Float indexingPercentComplete;
+        public Float slpIndexingPercentComplete;
+
+        public Json activeBlockDownloads;
+        public Json activeTransactionDownloads;
+        public Json activeUtxoCommitmentDownloads;
+
+        public Json utxoCacheStatus;
+        public Json serviceStatuses;
+    }
+
+    /**
+     * Refreshes the StatusSnapshot, off of the request threads, when a STATUS request finds it older than MAX_STATUS_SNAPSHOT_AGE_MS.
+     *  The monitor refreshes once per wake, and not while the current StatusSnapshot is younger than MAX_STATUS_SNAPSHOT_AGE_MS,
+     *  so the handlers are queried at most once per MAX_STATUS_SNAPSHOT_AGE_MS regardless of how often STATUS is polled.
+     */
+    protected class StatusMonitor extends SleepyService {
+        @Override
+        protected void _onStart() { }
+
+        @Override
+        protected Boolean _run() {
+            final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+            final StatusSnapshot statusSnapshot = _statusSnapshot;
+            if ( (statusSnapshot != null) && ((nowMs - statusSnapshot.createdTimeMs) <= MAX_STATUS_SNAPSHOT_AGE_MS) ) { return false; }
+
+            try {
+                _statusSnapshot = _createStatusSnapshot();
+            }
+            catch (final Exception exception) {
+                Logger.debug(exception);
             }
+
+            return false;
+        }
+
+        @Override
+        protected void _onSleep() { }
+    }
+
+    /**
+     * A response that has already been serialized, i.e. a response from the NodeRpcResponseCache.
+     */
+    protected static class SerializedProtocolMessage implements ProtocolMessage {
+        protected final ByteArray _bytes;
+
+        public SerializedProtocolMessage(final ByteArray bytes) {
+            _bytes = bytes;
+        }
+
+        @Override
+        public ByteArray getBytes() {
+            return _bytes;
+        }
+    }
+
+    /**
+     * The chain state a cacheable response is computed against: the block containing the requested object and the
+     *  NodeRpcResponseCache's head block.  The state is captured before the response is computed, and the response is
+     *  only cached if the state is unchanged afterwards, so a response computed across a new block or reorg is not cached.
+     */
+    protected static class ResponseCacheState {
+        public final Long blockHeight;
+        public final Sha256Hash blockHash;
+        public final Sha256Hash headBlockHash;
+
+        public ResponseCacheState(final Long blockHeight, final Sha256Hash blockHash, final Sha256Hash headBlockHash) {
+            this.blockHeight = blockHeight;
+            this.blockHash = blockHash;
+            this.headBlockHash = headBlockHash;
+        }
+    }
+
+    /**
+     * The serialized data of a bulk-data response (i.e. a raw Block), sent as the payload of a JsonFrameProtocolMessage
+     *  instead of as hex within the response Json.  The payloadKey is the response property the payload replaces; if
+     *  payloadItemByteCount is provided, then the payload is a concatenated list of fixed-size items (i.e. BlockHeaders).
+     */
+    protected static class ResponsePayload {
+        public String payloadKey;
+        public ByteArray payload;
+        public Integer payloadItemByteCount;
+
+        public void setPayload(final String payloadKey, final ByteArray payload) {
+            this.setPayload(payloadKey, payload, null);
+        }
+
+        public void setPayload(final String payloadKey, final ByteArray payload, final Integer payloadItemByteCount) {
+            this.payloadKey = payloadKey;
+            this.payload = payload;
+            this.payloadItemByteCount = payloadItemByteCount;
         }
     }
 
     protected static class JsonConnectionProperties {
         public volatile boolean keepAliveIsEnabled = false;
+        public volatile boolean binaryFramingIsEnabled = false;
+        public final Semaphore pipelinedRequestPermits;
+
+        public JsonConnectionProperties(final Integer maxPipelinedRequestCount) {
+            this.pipelinedRequestPermits = new Semaphore(maxPipelinedRequestCount);
+        }
     }
 
     protected final MasterInflater _masterInflater;
+    protected final CachedThreadPool _requestThreadPool;
+    protected final Integer _maxPipelinedRequestCount;
+    protected final SystemTime _systemTime = new SystemTime();
+    protected final ScriptPatternMatcher _scriptPatternMatcher = new ScriptPatternMatcher();
+
+    protected final MutableList<HookListener> _hookListeners = new MutableArrayList<>(); // Synchronized on itself; only used to add and remove HookListeners.
+    protected volatile HookListenerIndex _hookListenerIndex = new HookListenerIndex(new MutableArrayList<HookListener>(0));
+    protected final HookEventDispatcher _hookEventDispatcher = new HookEventDispatcher();
 
-    protected final MutableMap<HookEvent, MutableList<HookListener>> _eventHooks = new MutableHashMap<>();
+    protected final StatusMonitor _statusMonitor = new StatusMonitor();
+    protected volatile StatusSnapshot _statusSnapshot = null;
+    protected volatile HeadGauge _headBlockGauge = null;
+    protected volatile HeadGauge _headBlockHeaderGauge = null;
+
+    protected final NodeRpcResponseCache _responseCache = new NodeRpcResponseCache(DEFAULT_RESPONSE_CACHE_BYTE_COUNT);
+    protected Sha256Hash _responseCacheHeadBlockHash = null; // Synchronized on _responseCache.
 
     protected StatisticsHandler _statisticsHandler;
     protected SynchronizationStatus _synchronizationStatusHandler;
@@ -275,7 +602,18 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     }
 
     public NodeRpcHandler(final MasterInflater masterInflater) {
+        this(masterInflater, DEFAULT_REQUEST_THREAD_COUNT, DEFAULT_MAX_PIPELINED_REQUEST_COUNT);
+    }
+
+    /**
+     * requestThreadCount is the number of threads, shared between all connections, that process pipelined requests.
+     * maxPipelinedRequestCount is the number of pipelined requests a single connection may have in-flight; once reached,
+     *  the connection's subsequent requests are not read until one of its in-flight requests completes.
+     */
+    public NodeRpcHandler(final MasterInflater masterInflater, final Integer requestThreadCount, final Integer maxPipelinedRequestCount) {
         _masterInflater = masterInflater;
+        _requestThreadPool = new CachedThreadPool(requestThreadCount, 60000L);
+        _maxPipelinedRequestCount = maxPipelinedRequestCount;
     }
 
     protected TransactionOutputIdentifier _parseTransactionOutputIdentifier(final String transactionOutputIdentifierString) {
@@ -295,8 +633,141 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         return new TransactionOutputIdentifier(transactionHash, outputIndex);
     }
 
+    /**
+     * Returns the NodeRpcResponseCache key for the request, or null if the query's responses are not cacheable.
+     */
+    protected String _getResponseCacheKey(final String method, final String query, final Json parameters, final Boolean binaryFramingIsEnabled) {
+        if (! Util.areEqual("GET", method.toUpperCase())) { return null; }
+
+        final String queryName = query.toUpperCase();
+        switch (queryName) {
+            case "BLOCK":
+            case "BLOCK_HEADER":
+            case "BLOCK_TRANSACTIONS":
+            case "BLOCK_TRANSACTION_HASHES":
+            case "TRANSACTION": {
+                return ((binaryFramingIsEnabled ? "FRAMED:" : "") + queryName + ":" + parameters);
+            }
+
+            default: {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the chain state of the object requested by the cacheable query, or null if the object is unconfirmed,
+     *  orphaned, or within a block that has not yet been processed.
+     */
+    protected ResponseCacheState _getResponseCacheState(final String query, final Json parameters) {
+        final DataHandler dataHandler = _dataHandler;
+        if (dataHandler == null) { return null; }
+
+        final Sha256Hash headBlockHash;
+        synchronized (_responseCache) {
+            headBlockHash = _responseCacheHeadBlockHash;
+        }
+
+        final Long blockHeight;
+        final Sha256Hash blockHash;
+        if (Util.areEqual("TRANSACTION", query.toUpperCase())) {
+            final Sha256Hash transactionHash = Sha256Hash.fromHexString(parameters.getString("hash"));
+            blockHash = (transactionHash != null ? dataHandler.getTransactionBlockHash(transactionHash) : null);
+            blockHeight = (blockHash != null ? dataHandler.getBlockHeaderHeight(blockHash) : null);
+        }
+        else if (parameters.hasKey("blockHeight")) {
+            blockHeight = parameters.getLong("blockHeight");
+            final BlockHeader blockHeader = dataHandler.getBlockHeader(blockHeight);
+            blockHash = (blockHeader != null ? blockHeader.getHash() : null);
+        }
+        else {
+            blockHash = Sha256Hash.fromHexString(parameters.getString("hash"));
+            blockHeight = (blockHash != null ? dataHandler.getBlockHeaderHeight(blockHash) : null);
+        }
+        if ( (blockHeight == null) || (blockHash == null) ) { return null; } // Unconfirmed or orphaned...
+
+        final Long headBlockHeight = dataHandler.getBlockHeight();
+        if ( (headBlockHeight == null) || (blockHeight > headBlockHeight) ) { return null; } // The block has not been processed...
+
+        return new ResponseCacheState(blockHeight, blockHash, headBlockHash);
+    }
+
+    /**
+     * Caches the serialized responseMessage if the response was successful and describes a confirmed object, and returns
+     *  the message to be sent to the client.
+     *  responseCacheState is the state captured (via NodeRpcHandler::_getResponseCacheState) before the response was computed;
+     *  if the object's block or the head block has since changed, then the response is not cached.
+     *  Responses for unconfirmed transactions, and for blocks that have not yet been processed, are not cached.
+     */
+    protected ProtocolMessage _cacheResponse(final String responseCacheKey, final ResponseCacheState responseCacheState, final String query, final Json parameters, final Json response, final ProtocolMessage responseMessage, final Long computeDurationMs) {
+        if (responseCacheState == null) { return responseMessage; }
+        if (! response.getBoolean(WAS_SUCCESS_KEY)) { return responseMessage; }
+
+        final ResponseCacheState currentResponseCacheState = _getResponseCacheState(query, parameters);
+        if (currentResponseCacheState == null) { return responseMessage; }
+        if (! Util.areEqual(responseCacheState.blockHash, currentResponseCacheState.blockHash)) { return responseMessage; } // The object was reorged while the response was computed...
+        if (! Util.areEqual(responseCacheState.blockHeight, currentResponseCacheState.blockHeight)) { return responseMessage; }
+
+        final boolean includesTransactionMetadata;
+        switch (query.toUpperCase()) {
+            case "BLOCK":
+            case "TRANSACTION": {
+                includesTransactionMetadata = (! parameters.getBoolean("rawFormat"));
+            } break;
+            case "BLOCK_TRANSACTIONS": {
+                includesTransactionMetadata = true;
+            } break;
+            default: {
+                includesTransactionMetadata = false;
+            } break;
+        }
+
+        // NOTE: Transaction metadata includes the transactions spending each output and SLP validity, which change without a reorg...
+        final Long maxAgeMs = (includesTransactionMetadata ? MAX_CACHED_METADATA_RESPONSE_AGE_MS : null);
+
+        final ByteArray responseBytes = responseMessage.getBytes();
+        synchronized (_responseCache) {
+            // NOTE: The head is compared while holding the lock that _updateResponseCache holds while rolling back, so a
+            //  response computed before a reorg cannot be inserted after the reorg's rollback has completed...
+            if (Util.areEqual(responseCacheState.headBlockHash, _responseCacheHeadBlockHash)) {
+                _responseCache.put(responseCacheKey, responseBytes, responseCacheState.blockHeight, responseCacheState.blockHash, maxAgeMs, computeDurationMs);
+            }
+        }
+        return new SerializedProtocolMessage(responseBytes);
+    }
+
+    /**
+     * Removes the cached responses orphaned by a reorg.
+     *  A reorg has occurred if the previous head block is no longer within the main chain.
+     */
+    protected void _updateResponseCache(final BlockHeader blockHeader) {
+        final DataHandler dataHandler = _dataHandler;
+        if (dataHandler == null) { return; }
+
+        final Sha256Hash blockHash = blockHeader.getHash();
+        if (dataHandler.isBlockOrphaned(blockHash)) { return; }
+
+        synchronized (_responseCache) {
+            final Sha256Hash previousHeadBlockHash = _responseCacheHeadBlockHash;
+            _responseCacheHeadBlockHash = blockHash;
+
+            if (previousHeadBlockHash == null) { return; }
+            if (Util.areEqual(previousHeadBlockHash, blockHeader.getPreviousBlockHash())) { return; }
+            if (! dataHandler.isBlockOrphaned(previousHeadBlockHash)) { return; }
+
+            Logger.debug("Reorg detected; removing orphaned RPC responses.");
+            _responseCache.rollback(new NodeRpcResponseCache.BlockHashLookup() {
+                @Override
+                public Sha256Hash getBlockHash(final Long blockHeight) {
+                    final BlockHeader blockHeader = dataHandler.getBlockHeader(blockHeight);
+                    return (blockHeader != null ? blockHeader.getHash() : null);
+                }
+            });
+        }
+    }
+
     // Requires GET: [blockHeight], [maxBlockCount=10], [rawFormat=0]
-    protected void _getBlockHeaders(final Json parameters, final Json response, final DataHandler.Direction direction) {
+    protected void _getBlockHeaders(final Json parameters, final Json response, final DataHandler.Direction direction, final ResponsePayload responsePayload) {
 
         final Long startingBlockHeight;
         {
@@ -334,6 +805,18 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                 return;
             }
 
+            if (shouldReturnRawBlockData && (responsePayload != null)) {
+                final BlockHeaderDeflater blockHeaderDeflater = _masterInflater.getBlockHeaderDeflater();
+                final ByteArrayBuilder byteArrayBuilder = new ByteArrayBuilder();
+                for (final BlockHeader blockHeader : blockHeaders) {
+                    byteArrayBuilder.appendBytes(blockHeaderDeflater.toBytes(blockHeader));
+                }
+
+                responsePayload.setPayload("blockHeaders", byteArrayBuilder, BlockHeaderInflater.BLOCK_HEADER_BYTE_COUNT);
+                response.put(WAS_SUCCESS_KEY, 1);
+                return;
+            }
+
             for (final BlockHeader blockHeader : blockHeaders) {
                 if (shouldReturnRawBlockData) {
                     final BlockHeaderDeflater blockHeaderDeflater = _masterInflater.getBlockHeaderDeflater();
@@ -441,6 +924,63 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
+    // Requires GET: <height | hash>
+    protected void _getBlockTransactionHashes(final Json parameters, final Json response) {
+        final DataHandler dataHandler = _dataHandler;
+        if (dataHandler == null) {
+            response.put(ERROR_MESSAGE_KEY, "Operation not supported.");
+            return;
+        }
+
+        final Long blockHeight;
+        final Sha256Hash blockHash;
+        {
+            final boolean blockHashWasProvided = parameters.hasKey("hash");
+            final String paramBlockHashString = parameters.getString("hash");
+            blockHash = (blockHashWasProvided ? Sha256Hash.fromHexString(paramBlockHashString) : null);
+
+            final boolean blockHeightWasProvided = parameters.hasKey("blockHeight");
+            final String paramBlockHeightString = parameters.getString("blockHeight");
+            blockHeight = (blockHeightWasProvided ? Util.parseLong(paramBlockHeightString) : null);
+
+            if ( (! blockHeightWasProvided) && (! blockHashWasProvided) ) {
+                response.put(ERROR_MESSAGE_KEY, "Missing parameters. Required: [hash|blockHeight]");
+                return;
+            }
+
+            if ( blockHashWasProvided && (blockHash == null)) {
+                response.put(ERROR_MESSAGE_KEY, "Invalid block hash: " + paramBlockHashString);
+                return;
+            }
+            else if (blockHeightWasProvided && (blockHeight < 0) ) {
+                response.put(ERROR_MESSAGE_KEY, "Invalid block height: " + paramBlockHeightString);
+                return;
+            }
+        }
+
+        final List<Sha256Hash> transactionHashes;
+        {
+            if (blockHash != null) {
+                transactionHashes = dataHandler.getBlockTransactionHashes(blockHash);
+            }
+            else {
+                transactionHashes = dataHandler.getBlockTransactionHashes(blockHeight);
+            }
+        }
+        if (transactionHashes == null) {
+            response.put(ERROR_MESSAGE_KEY, "Block not found: " + (blockHash != null ? blockHash : blockHeight));
+            return;
+        }
+
+        final Json transactionHashesJson = new Json(true);
+        for (final Sha256Hash transactionHash : transactionHashes) {
+            transactionHashesJson.add(transactionHash);
+        }
+
+        response.put("transactionHashes", transactionHashesJson);
+        response.put(WAS_SUCCESS_KEY, 1);
+    }
+
     // Requires GET: <blockHeight | hash>
     protected void _getBlockHeader(final Json parameters, final Json response) {
         final DataHandler dataHandler = _dataHandler;
@@ -505,7 +1045,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     }
 
     // Requires GET: <blockHeight | hash>, [rawFormat=0]
-    protected void _getBlock(final Json parameters, final Json response) {
+    protected void _getBlock(final Json parameters, final Json response, final ResponsePayload responsePayload) {
         final DataHandler dataHandler = _dataHandler;
         if (dataHandler == null) {
             response.put(ERROR_MESSAGE_KEY, "Operation not supported.");
@@ -550,7 +1090,12 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         if (shouldReturnRawBlockData) {
             final BlockDeflater blockDeflater = _masterInflater.getBlockDeflater();
             final ByteArray blockData = blockDeflater.toBytes(block);
-            response.put("block", blockData);
+            if (responsePayload != null) {
+                responsePayload.setPayload("block", blockData);
+            }
+            else {
+                response.put("block", blockData);
+            }
         }
         else {
             final Json blockJson = block.toJson();
@@ -577,7 +1122,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     }
 
     // Requires GET: <hash>, [rawFormat=0]
-    protected void _getTransaction(final Json parameters, final Json response) {
+    protected void _getTransaction(final Json parameters, final Json response, final ResponsePayload responsePayload) {
         final DataHandler dataHandler = _dataHandler;
         if (dataHandler == null) {
             response.put(ERROR_MESSAGE_KEY, "Operation not supported.");
@@ -608,7 +1153,12 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         if (shouldReturnRawTransactionData) {
             final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
             final ByteArray transactionData = transactionDeflater.toBytes(transaction);
-            response.put("transaction", HexUtil.toHexString(transactionData.getBytes()));
+            if (responsePayload != null) {
+                responsePayload.setPayload("transaction", transactionData);
+            }
+            else {
+                response.put("transaction", HexUtil.toHexString(transactionData.getBytes()));
+            }
         }
         else {
             final Json transactionJson = transaction.toJson();
@@ -887,112 +1437,87 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
-    // Requires GET:
-    protected void _queryStatus(final Json parameters, final Json response) {
+    protected HeadGauge _getHeadGauge(final Long blockHeight, final DataHandler dataHandler, final Boolean isBlockHeader) {
+        if (dataHandler == null) { return new HeadGauge(blockHeight, null); }
+
+        final Long timestamp = (isBlockHeader ? dataHandler.getBlockHeaderTimestamp() : dataHandler.getBlockTimestamp());
+        return new HeadGauge(blockHeight, timestamp);
+    }
+
+    protected Json _toDownloadsJson(final List<UnfulfilledSha256HashRequest> downloadRequests) {
+        final Json activeDownloadsJson = new Json(true);
+        for (final UnfulfilledSha256HashRequest downloadRequest : downloadRequests) {
+            final Json activeDownloadJson = new Json(false);
+            activeDownloadJson.put("nodeId", downloadRequest.bitcoinNode.getId());
+            // activeDownloadJson.put("ip", downloadRequest.bitcoinNode.getIp());
+            // activeDownloadJson.put("port", downloadRequest.bitcoinNode.getPort());
+            activeDownloadJson.put("hash", downloadRequest.hash);
+
+            activeDownloadsJson.add(activeDownloadJson);
+        }
+        return activeDownloadsJson;
+    }
+
+    /**
+     * Collects the STATUS figures that require querying the handlers.
+     *  Invoked by the StatusMonitor, or by a STATUS request if the current StatusSnapshot is missing or too old.
+     */
+    protected StatusSnapshot _createStatusSnapshot() {
+        final StatusSnapshot statusSnapshot = new StatusSnapshot();
+        statusSnapshot.createdTimeMs = _systemTime.getCurrentTimeInMilliSeconds();
+
         { // Status
-            response.put("status", (_synchronizationStatusHandler != null ? _synchronizationStatusHandler.getState() : null));
+            final SynchronizationStatus synchronizationStatus = _synchronizationStatusHandler;
+            statusSnapshot.status = (synchronizationStatus != null ? synchronizationStatus.getState() : null);
         }
 
         { // Statistics
             final StatisticsHandler statisticsHandler = _statisticsHandler;
             final DataHandler dataHandler = _dataHandler;
 
-            final Long blockHeight = (dataHandler != null ? dataHandler.getBlockHeight() : null);
-            final Long blockHeaderHeight = (dataHandler != null ? dataHandler.getBlockHeaderHeight() : null);
-
-            final long blockTimestampInSeconds = (dataHandler != null ? Util.coalesce(dataHandler.getBlockTimestamp()) : 0L);
-            final long blockHeaderTimestampInSeconds = (dataHandler != null ? Util.coalesce(dataHandler.getBlockHeaderTimestamp()) : 0L);
-
-            final Json statisticsJson = new Json();
-            statisticsJson.put("blockHeaderHeight", blockHeaderHeight);
-            statisticsJson.put("blockHeadersPerSecond", null); // Deprecated
-            statisticsJson.put("blocksIndexedPerSecond", (statisticsHandler != null ? statisticsHandler.getAverageBlocksIndexedPerSecond() : null));
-            statisticsJson.put("blockHeaderDate", DateUtil.Utc.timestampToDatetimeString(blockHeaderTimestampInSeconds * 1000));
-            statisticsJson.put("blockHeaderTimestamp", blockHeaderTimestampInSeconds);
+            if (_headBlockGauge == null) {
+                statusSnapshot.headBlock = _getHeadGauge((dataHandler != null ? dataHandler.getBlockHeight() : null), dataHandler, false);
+            }
+            if (_headBlockHeaderGauge == null) {
+                statusSnapshot.headBlockHeader = _getHeadGauge((dataHandler != null ? dataHandler.getBlockHeaderHeight() : null), dataHandler, true);
+            }
 
-            statisticsJson.put("blockHeight", blockHeight);
-            statisticsJson.put("blocksPerSecond", (statisticsHandler != null ? statisticsHandler.getAverageBlocksPerSecond() : null));
-            statisticsJson.put("blockDate", DateUtil.Utc.timestampToDatetimeString(blockTimestampInSeconds * 1000));
-            statisticsJson.put("blockTimestamp", blockTimestampInSeconds);
+            statusSnapshot.indexingPercentComplete = (dataHandler != null ? dataHandler.getIndexingPercentComplete() : null);
+            statusSnapshot.slpIndexingPercentComplete = (dataHandler != null ? dataHandler.getSlpIndexingPercentComplete() : null);
 
-            final Float indexingPercentComplete = (dataHandler != null ? dataHandler.getIndexingPercentComplete() : null);
-            statisticsJson.put("indexingPercentComplete", indexingPercentComplete);
+            if (statisticsHandler != null) {
+                statusSnapshot.blocksIndexedPerSecond = statisticsHandler.getAverageBlocksIndexedPerSecond();
+                statusSnapshot.blocksPerSecond = statisticsHandler.getAverageBlocksPerSecond();
+                statusSnapshot.transactionsPerSecond = statisticsHandler.getAverageTransactionsPerSecond();
 
-            final Float slpIndexingPercentComplete = (dataHandler != null ? dataHandler.getSlpIndexingPercentComplete() : null);
-            statisticsJson.put("slpIndexingPercentComplete", slpIndexingPercentComplete);
+                statusSnapshot.activeBlockDownloads = _toDownloadsJson(statisticsHandler.getActiveBlockDownloads());
+                statusSnapshot.activeTransactionDownloads = _toDownloadsJson(statisticsHandler.getActiveTransactionDownloads());
 
-            {
-                final Json activeBlockDownloadsJson = new Json(true);
-                final Json activeTransactionDownloadsJson = new Json(true);
                 final Json activeUtxoCommitmentDownloadsJson = new Json(true);
-                if (statisticsHandler != null) {
-                    { // Block Download Statistics...
-                        final List<UnfulfilledSha256HashRequest> activeBlockDownloads = statisticsHandler.getActiveBlockDownloads();
-                        for (final UnfulfilledSha256HashRequest blockDownloadRequest : activeBlockDownloads) {
-                            final Json activeDownloadJson = new Json(false);
-                            activeDownloadJson.put("nodeId", blockDownloadRequest.bitcoinNode.getId());
-                            // activeDownloadJson.put("ip", blockDownloadRequest.bitcoinNode.getIp());
-                            // activeDownloadJson.put("port", blockDownloadRequest.bitcoinNode.getPort());
-                            activeDownloadJson.put("hash", blockDownloadRequest.hash);
-
-                            activeBlockDownloadsJson.add(activeDownloadJson);
-                        }
-                    }
-
-                    { // Transaction Download Statistics...
-                        final List<UnfulfilledSha256HashRequest> activeTransactionDownloads = statisticsHandler.getActiveBlockDownloads();
-                        for (final UnfulfilledSha256HashRequest blockDownloadRequest : activeTransactionDownloads) {
-                            final Json activeDownloadJson = new Json(false);
-                            activeDownloadJson.put("nodeId", blockDownloadRequest.bitcoinNode.getId());
-                            // activeDownloadJson.put("ip", blockDownloadRequest.bitcoinNode.getIp());
-                            // activeDownloadJson.put("port", blockDownloadRequest.bitcoinNode.getPort());
-                            activeDownloadJson.put("hash", blockDownloadRequest.hash);
-
-                            activeTransactionDownloadsJson.add(activeDownloadJson);
-                        }
-                    }
-
-                    { // Utxo Commitment Download Statistics...
-                        final List<UnfulfilledPublicKeyRequest> activeUtxoSetDownloads = statisticsHandler.getActiveUtxoCommitmentDownloads();
-                        for (final UnfulfilledPublicKeyRequest utxoSetDownloadRequest : activeUtxoSetDownloads) {
-                            final Json activeDownloadJson = new Json(false);
-                            activeDownloadJson.put("nodeId", utxoSetDownloadRequest.bitcoinNode.getId());
-                            // activeDownloadJson.put("ip", utxoSetDownloadRequest.bitcoinNode.getIp());
-                            // activeDownloadJson.put("port", utxoSetDownloadRequest.bitcoinNode.getPort());
-                            activeDownloadJson.put("publicKey", utxoSetDownloadRequest.publicKey);
-
-                            activeUtxoCommitmentDownloadsJson.add(activeDownloadJson);
-                        }
-                    }
+                final List<UnfulfilledPublicKeyRequest> activeUtxoSetDownloads = statisticsHandler.getActiveUtxoCommitmentDownloads();
+                for (final UnfulfilledPublicKeyRequest utxoSetDownloadRequest : activeUtxoSetDownloads) {
+                    final Json activeDownloadJson = new Json(false);
+                    activeDownloadJson.put("nodeId", utxoSetDownloadRequest.bitcoinNode.getId());
+                    // activeDownloadJson.put("ip", utxoSetDownloadRequest.bitcoinNode.getIp());
+                    // activeDownloadJson.put("port", utxoSetDownloadRequest.bitcoinNode.getPort());
+                    activeDownloadJson.put("publicKey", utxoSetDownloadRequest.publicKey);
+
+                    activeUtxoCommitmentDownloadsJson.add(activeDownloadJson);
                 }
-                statisticsJson.put("activeBlockDownloads", activeBlockDownloadsJson);
-                statisticsJson.put("activeTransactionDownloads", activeTransactionDownloadsJson);
-                statisticsJson.put("activeUtxoCommitmentDownloads", activeUtxoCommitmentDownloadsJson);
+                statusSnapshot.activeUtxoCommitmentDownloads = activeUtxoCommitmentDownloadsJson;
+            }
+            else {
+                statusSnapshot.activeBlockDownloads = new Json(true);
+                statusSnapshot.activeTransactionDownloads = new Json(true);
+                statusSnapshot.activeUtxoCommitmentDownloads = new Json(true);
             }
-
-            statisticsJson.put("transactionsPerSecond", (statisticsHandler != null ? statisticsHandler.getAverageTransactionsPerSecond() : null));
-            response.put("statistics", statisticsJson);
         }
 
         { // Utxo Cache Status
             final Json queryUtxoCacheParameters = new Json();
             final Json utxoCacheStatus = new Json();
             _queryUtxoCache(queryUtxoCacheParameters, utxoCacheStatus);
-            response.put("utxoCacheStatus", utxoCacheStatus);
-        }
-
-        { // Server Load
-            final Json serverLoadJson = new Json();
-            final ThreadPoolInquisitor threadPoolInquisitor = _threadPoolInquisitor;
-            serverLoadJson.put("threadPoolQueueCount",          (threadPoolInquisitor != null ? threadPoolInquisitor.getQueueCount() : null));
-            serverLoadJson.put("threadPoolActiveThreadCount",   (threadPoolInquisitor != null ? threadPoolInquisitor.getActiveThreadCount() : null));
-            serverLoadJson.put("threadPoolMaxThreadCount",      (threadPoolInquisitor != null ? threadPoolInquisitor.getMaxThreadCount() : null));
-
-            final Runtime runtime = Runtime.getRuntime();
-            serverLoadJson.put("jvmMemoryUsageByteCount", (runtime.totalMemory() - runtime.freeMemory()));
-            serverLoadJson.put("jvmMemoryMaxByteCount", runtime.maxMemory());
-
-            response.put("serverLoad", serverLoadJson);
+            statusSnapshot.utxoCacheStatus = utxoCacheStatus;
         }
 
         { // Service Statuses
@@ -1005,7 +1530,98 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                     servicesStatusJson.put(serviceName, serviceStatus);
                 }
             }
-            response.put("serviceStatuses", servicesStatusJson);
+            statusSnapshot.serviceStatuses = servicesStatusJson;
+        }
+
+        return statusSnapshot;
+    }
+
+    /**
+     * Returns the current StatusSnapshot.
+     *  If the StatusSnapshot is older than MAX_STATUS_SNAPSHOT_AGE_MS, then the StatusMonitor is woken to refresh it and the
+     *  current StatusSnapshot is returned; if there is no StatusSnapshot, or it is older than MAX_STALE_STATUS_SNAPSHOT_AGE_MS
+     *  (i.e. STATUS has not been queried recently), then a new one is created synchronously.
+     */
+    protected StatusSnapshot _getStatusSnapshot() {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+
+        StatusSnapshot statusSnapshot = _statusSnapshot;
+        final Long snapshotAgeMs = (statusSnapshot != null ? (nowMs - statusSnapshot.createdTimeMs) : null);
+        if ( (snapshotAgeMs == null) || (snapshotAgeMs > MAX_STALE_STATUS_SNAPSHOT_AGE_MS) ) {
+            statusSnapshot = _createStatusSnapshot();
+            _statusSnapshot = statusSnapshot;
+        }
+        else if (snapshotAgeMs > MAX_STATUS_SNAPSHOT_AGE_MS) {
+            _statusMonitor.wakeUp();
+        }
+
+        return statusSnapshot;
+    }
+
+    // Requires GET:
+    protected void _queryStatus(final Json parameters, final Json response) {
+        final StatusSnapshot statusSnapshot = _getStatusSnapshot();
+
+        { // Status
+            response.put("status", statusSnapshot.status);
+        }
+
+        { // Statistics
+            final HeadGauge headBlockGauge = _headBlockGauge;
+            final HeadGauge headBlock = (headBlockGauge != null ? headBlockGauge : statusSnapshot.headBlock);
+            final HeadGauge headBlockHeaderGauge = _headBlockHeaderGauge;
+            final HeadGauge headBlockHeader = (headBlockHeaderGauge != null ? headBlockHeaderGauge : statusSnapshot.headBlockHeader);
+
+            final long blockTimestampInSeconds = Util.coalesce(headBlock.timestamp);
+            final long blockHeaderTimestampInSeconds = Util.coalesce(headBlockHeader.timestamp);
+
+            final Json statisticsJson = new Json();
+            statisticsJson.put("blockHeaderHeight", headBlockHeader.blockHeight);
+            statisticsJson.put("blockHeadersPerSecond", null); // Deprecated
+            statisticsJson.put("blocksIndexedPerSecond", statusSnapshot.blocksIndexedPerSecond);
+            statisticsJson.put("blockHeaderDate", DateUtil.Utc.timestampToDatetimeString(blockHeaderTimestampInSeconds * 1000));
+            statisticsJson.put("blockHeaderTimestamp", blockHeaderTimestampInSeconds);
+
+            statisticsJson.put("blockHeight", headBlock.blockHeight);
+            statisticsJson.put("blocksPerSecond", statusSnapshot.blocksPerSecond);
+            statisticsJson.put("blockDate", DateUtil.Utc.timestampToDatetimeString(blockTimestampInSeconds * 1000));
+            statisticsJson.put("blockTimestamp", blockTimestampInSeconds);
+
+            statisticsJson.put("indexingPercentComplete", statusSnapshot.indexingPercentComplete);
+            statisticsJson.put("slpIndexingPercentComplete", statusSnapshot.slpIndexingPercentComplete);
+
+            statisticsJson.put("activeBlockDownloads", statusSnapshot.activeBlockDownloads);
+            statisticsJson.put("activeTransactionDownloads", statusSnapshot.activeTransactionDownloads);
+            statisticsJson.put("activeUtxoCommitmentDownloads", statusSnapshot.activeUtxoCommitmentDownloads);
+
+            statisticsJson.put("transactionsPerSecond", statusSnapshot.transactionsPerSecond);
+            response.put("statistics", statisticsJson);
+        }
+
+        { // Utxo Cache Status
+            response.put("utxoCacheStatus", statusSnapshot.utxoCacheStatus);
+        }
+
+        { // Response Cache
+            response.put("responseCache", _responseCache.toJson());
+        }
+
+        { // Server Load
+            final Json serverLoadJson = new Json();
+            final ThreadPoolInquisitor threadPoolInquisitor = _threadPoolInquisitor;
+            serverLoadJson.put("threadPoolQueueCount",          (threadPoolInquisitor != null ? threadPoolInquisitor.getQueueCount() : null));
+            serverLoadJson.put("threadPoolActiveThreadCount",   (threadPoolInquisitor != null ? threadPoolInquisitor.getActiveThreadCount() : null));
+            serverLoadJson.put("threadPoolMaxThreadCount",      (threadPoolInquisitor != null ? threadPoolInquisitor.getMaxThreadCount() : null));
+
+            final Runtime runtime = Runtime.getRuntime();
+            serverLoadJson.put("jvmMemoryUsageByteCount", (runtime.totalMemory() - runtime.freeMemory()));
+            serverLoadJson.put("jvmMemoryMaxByteCount", runtime.maxMemory());
+
+            response.put("serverLoad", serverLoadJson);
+        }
+
+        { // Service Statuses
+            response.put("serviceStatuses", statusSnapshot.serviceStatuses);
         }
 
         response.put(WAS_SUCCESS_KEY, 1);
@@ -1052,7 +1668,69 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         response.put(WAS_SUCCESS_KEY, 1);
     }
 
+    // Requires GET: <address|scriptHash>, [fromBlockHeight], [limit], <rawFormat|transactionHashesOnly>
+    protected void _queryAddressHistory(final QueryAddressHandler queryAddressHandler, final Sha256Hash scriptHash, final Json addressJson, final Boolean shouldReturnTransactionHashesOnly, final Boolean rawFormat, final Json parameters, final Json response) {
+        final Long fromBlockHeight = Util.coalesce(parameters.getOrNull("fromBlockHeight", Json.Types.LONG), 0L);
+        final Integer limit;
+        {
+            final Integer paramLimit = parameters.getOrNull("limit", Json.Types.INTEGER);
+            limit = (((paramLimit == null) || (paramLimit < 1)) ? MAX_ADDRESS_HISTORY_PAGE_SIZE : Math.min(paramLimit, MAX_ADDRESS_HISTORY_PAGE_SIZE));
+        }
+
+        final List<AddressHistoryEntry> addressHistory = queryAddressHandler.getAddressHistory(scriptHash, fromBlockHeight, limit);
+        if (addressHistory == null) {
+            response.put(ERROR_MESSAGE_KEY, "Unable to determine address transactions.");
+            return;
+        }
+
+        final DataHandler dataHandler = _dataHandler;
+        final MetadataHandler metadataHandler = _metadataHandler;
+        final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+
+        final Json transactionsJson = new Json(true);
+        Long lastBlockHeight = null;
+        boolean includesUnconfirmedTransactions = false;
+        for (final AddressHistoryEntry addressHistoryEntry : addressHistory) {
+            final Json addressHistoryEntryJson = addressHistoryEntry.toJson();
+
+            // Only the Transactions within the page are loaded...
+            if ( (! shouldReturnTransactionHashesOnly) && (dataHandler != null) ) {
+                final Transaction transaction = dataHandler.getTransaction(addressHistoryEntry.transactionHash);
+                if (transaction != null) {
+                    if (rawFormat) {
+                        addressHistoryEntryJson.put("transaction", transactionDeflater.toBytes(transaction));
+                    }
+                    else {
+                        final Json transactionJson = transaction.toJson();
+                        if (metadataHandler != null) {
+                            metadataHandler.applyMetadataToTransaction(transaction, transactionJson);
+                        }
+                        addressHistoryEntryJson.put("transaction", transactionJson);
+                    }
+                }
+            }
+
+            if (addressHistoryEntry.isUnconfirmedTransaction()) {
+                includesUnconfirmedTransactions = true;
+            }
+            else {
+                lastBlockHeight = addressHistoryEntry.blockHeight;
+            }
+
+            transactionsJson.add(addressHistoryEntryJson);
+        }
+
+        final boolean hasMoreTransactions = ( (! includesUnconfirmedTransactions) && (lastBlockHeight != null) && (addressHistory.getCount() >= limit) );
+
+        response.put("address", addressJson);
+        response.put("transactions", transactionsJson);
+        response.put("nextBlockHeight", (hasMoreTransactions ? (lastBlockHeight + 1L) : null));
+
+        response.put(WAS_SUCCESS_KEY, 1);
+    }
+
     // Requires GET: <address|scriptHash>, <rawFormat|transactionHashesOnly>
+    //  If fromBlockHeight or limit is provided, then a single page of the history is returned (see NodeRpcHandler::_queryAddressHistory).
     protected void _queryAddressTransactions(final Json parameters, final Json response) {
         final QueryAddressHandler queryAddressHandler = _queryAddressHandler;
         if (queryAddressHandler == null) {
@@ -1075,6 +1753,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                 rawFormat = (parameters.hasKey("rawFormat") ? parameters.getBoolean("rawFormat") : false);
             }
         }
+        final boolean isPaginated = (parameters.hasKey("fromBlockHeight") || parameters.hasKey("limit"));
 
         final Json addressJson = new Json(false);
         final List<Transaction> addressTransactions;
@@ -1096,6 +1775,15 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                 return;
             }
 
+            if (isPaginated) {
+                addressJson.put("base32CheckEncoded", address.toBase32CheckEncoded(true));
+                addressJson.put("base58CheckEncoded", address.toBase58CheckEncoded());
+
+                final Sha256Hash scriptHash = ScriptBuilder.computeScriptHash(address);
+                _queryAddressHistory(queryAddressHandler, scriptHash, addressJson, shouldReturnTransactionHashesOnly, rawFormat, parameters, response);
+                return;
+            }
+
             if (shouldReturnTransactionHashesOnly) {
                 addressTransactionHashes = queryAddressHandler.getAddressTransactionHashes(address);
                 addressTransactions = null;
@@ -1121,6 +1809,12 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                 return;
             }
 
+            if (isPaginated) {
+                addressJson.put("scriptHash", scriptHash);
+                _queryAddressHistory(queryAddressHandler, scriptHash, addressJson, shouldReturnTransactionHashesOnly, rawFormat, parameters, response);
+                return;
+            }
+
             if (shouldReturnTransactionHashesOnly) {
                 addressTransactionHashes = queryAddressHandler.getAddressTransactionHashes(scriptHash);
                 addressTransactions = null;
@@ -1406,7 +2100,7 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
 
     // Requires POST: events
     // Returns true if the connection should remain open...
-    protected Boolean _addHook(final Json parameters, final Json response, final JsonSocket connection) {
+    protected Boolean _addHook(final Json parameters, final Json response, final JsonSocket connection, final Boolean binaryFramingIsEnabled) {
         final NodeHandler nodeHandler = _nodeHandler;
         if (nodeHandler == null) {
             response.put(ERROR_MESSAGE_KEY, "Operation not supported.");
@@ -1456,15 +2150,10 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             }
         }
 
-        synchronized (_eventHooks) {
-            for (final HookEvent hookEvent : hookEvents) {
-                if (! _eventHooks.containsKey(hookEvent)) {
-                    _eventHooks.put(hookEvent, new MutableArrayList<>());
-                }
-
-                final MutableList<HookListener> hookListeners = _eventHooks.get(hookEvent);
-                hookListeners.add(new HookListener(connection, shouldReturnRawData, shouldIncludeTransactionFees, addressFilter));
-            }
+        final HookListener hookListener = new HookListener(connection, hookEvents, shouldReturnRawData, shouldIncludeTransactionFees, binaryFramingIsEnabled, addressFilter);
+        synchronized (_hookListeners) {
+            _hookListeners.add(hookListener);
+            _hookListenerIndex = new HookListenerIndex(new MutableArrayList<>(_hookListeners));
         }
 
         response.put(WAS_SUCCESS_KEY, 1);
@@ -1474,22 +2163,83 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
     /**
      * Replaces any existing HookListeners associated with the connection with the new HookListener configuration.
      */
-    protected Boolean _updateHook(final Json parameters, final Json response, final JsonSocket connection) {
-        synchronized (_eventHooks) {
+    protected Boolean _updateHook(final Json parameters, final Json response, final JsonSocket connection, final Boolean binaryFramingIsEnabled) {
+        synchronized (_hookListeners) {
             // Uninstall the original HookListener...
-            for (final MutableList<HookListener> hookListeners : _eventHooks.getValues()) {
-                final Iterator<HookListener> mutableIterator = hookListeners.mutableIterator();
-                while (mutableIterator.hasNext()) {
-                    final HookListener hookListener = mutableIterator.next();
-                    if (hookListener.socket == connection) {
-                        mutableIterator.remove();
-                    }
+            final Iterator<HookListener> mutableIterator = _hookListeners.mutableIterator();
+            while (mutableIterator.hasNext()) {
+                final HookListener hookListener = mutableIterator.next();
+                if (hookListener.socket == connection) {
+                    mutableIterator.remove();
                 }
             }
+            _hookListenerIndex = new HookListenerIndex(new MutableArrayList<>(_hookListeners));
         }
 
         // Install the new HookListener...
-        return _addHook(parameters, response, connection);
+        return _addHook(parameters, response, connection, binaryFramingIsEnabled);
+    }
+
+    protected void _removeHookListeners(final List<HookListener> removedHookListeners) {
+        synchronized (_hookListeners) {
+            final Iterator<HookListener> mutableIterator = _hookListeners.mutableIterator();
+            while (mutableIterator.hasNext()) {
+                final HookListener hookListener = mutableIterator.next();
+                if (removedHookListeners.contains(hookListener)) {
+                    mutableIterator.remove();
+                    Logger.debug("Dropping HookListener: " + hookListener.socket);
+                }
+            }
+            _hookListenerIndex = new HookListenerIndex(new MutableArrayList<>(_hookListeners));
+        }
+    }
+
+    /**
+     * Queues the message for the HookListener without blocking on its connection; the message is written by the HookEventDispatcher.
+     */
+    protected void _queueHookMessage(final HookEvent hookEvent, final HookListener hookListener, final LazyProtocolMessage lazyProtocolMessage, final Long nowMs) {
+        final Boolean messageWasQueued = hookListener.enqueue(lazyProtocolMessage, nowMs);
+        if (! messageWasQueued) {
+            Logger.debug("Hook listener queue full, dropping HookEvent: " + hookEvent + " " + hookListener.socket);
+        }
+    }
+
+    /**
+     * Returns the HookListeners whose address filter contains an address paid by, or spent by, the Transaction.
+     *  The Transaction's addresses are extracted once and looked up within the HookListenerIndex, rather than testing the
+     *  Transaction against each listener's filter.
+     */
+    protected MutableHashSet<HookListener> _getFilteredTransactionListeners(final HookListenerIndex hookListenerIndex, final Transaction transaction) {
+        final MutableHashSet<HookListener> hookListeners = new MutableHashSet<>();
+        final Map<Address, List<HookListener>> transactionListenersByAddress = hookListenerIndex.transactionListenersByAddress;
+        if (transactionListenersByAddress.isEmpty()) { return hookListeners; }
+
+        final MutableList<Address> addresses = new MutableArrayList<>();
+        for (final TransactionOutput transactionOutput : transaction.getTransactionOutputs()) {
+            final LockingScript lockingScript = transactionOutput.getLockingScript();
+            final Address address = _scriptPatternMatcher.extractAddress(lockingScript);
+            if (address != null) {
+                addresses.add(address);
+            }
+        }
+        for (final TransactionInput transactionInput : transaction.getTransactionInputs()) {
+            final UnlockingScript unlockingScript = transactionInput.getUnlockingScript();
+            final Address address = _scriptPatternMatcher.extractAddressFromPayToPublicKeyHash(unlockingScript);
+            if (address != null) {
+                addresses.add(address);
+            }
+        }
+
+        for (final Address address : addresses) {
+            final List<HookListener> addressListeners = transactionListenersByAddress.get(address);
+            if (addressListeners == null) { continue; }
+
+            for (final HookListener hookListener : addressListeners) {
+                hookListeners.add(hookListener);
+            }
+        }
+
+        return hookListeners;
     }
 
     // Requires POST: <transaction>
@@ -1853,7 +2603,44 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
         _indexerHandler = indexerHandler;
     }
 
+    /**
+     * Starts the thread that writes hook events to their listeners, and the thread that refreshes the STATUS snapshot.
+     */
+    public void start() {
+        _requestThreadPool.start();
+        _hookEventDispatcher.start();
+        _statusMonitor.start();
+    }
+
+    public void stop() {
+        _statusMonitor.stop();
+        _hookEventDispatcher.stop();
+        _requestThreadPool.stop();
+    }
+
+    /**
+     * Updates the head Block's height and timestamp reported by STATUS.
+     *  Once provided, STATUS no longer queries the DataHandler for the head Block.
+     */
+    public void onHeadBlockChanged(final Long blockHeight, final Long blockTimestamp) {
+        _headBlockGauge = new HeadGauge(blockHeight, blockTimestamp);
+    }
+
+    /**
+     * Updates the head BlockHeader's height and timestamp reported by STATUS.
+     *  Once provided, STATUS no longer queries the DataHandler for the head BlockHeader.
+     */
+    public void onHeadBlockHeaderChanged(final Long blockHeaderHeight, final Long blockHeaderTimestamp) {
+        _headBlockHeaderGauge = new HeadGauge(blockHeaderHeight, blockHeaderTimestamp);
+    }
+
     public void onNewBlock(final BlockHeader block) {
+        _updateResponseCache(block);
+
+        final HookListenerIndex hookListenerIndex = _hookListenerIndex;
+        final List<HookListener> hookListeners = hookListenerIndex.eventListeners.get(HookEvent.NEW_BLOCK);
+        if (hookListeners.isEmpty()) { return; }
+
         // Ensure the provided block is only the header by copying it...
         final BlockHeader blockHeader = new ImmutableBlockHeader(block);
 
@@ -1897,32 +2684,45 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             }
         };
 
-        synchronized (_eventHooks) {
-            final MutableList<HookListener> sockets = _eventHooks.get(HookEvent.NEW_BLOCK);
-            if (sockets == null) { return; }
+        final LazyProtocolMessage lazyFramedProtocolMessage = new LazyProtocolMessage() {
+            @Override
+            protected ProtocolMessage _createProtocolMessage() {
+                final BlockHeaderDeflater blockHeaderDeflater = _masterInflater.getBlockHeaderDeflater();
+                final ByteArray blockData = blockHeaderDeflater.toBytes(blockHeader);
 
-            final Iterator<HookListener> mutableIterator = sockets.mutableIterator();
-            while (mutableIterator.hasNext()) {
-                final HookListener hookListener = mutableIterator.next();
-                final JsonSocket jsonSocket = hookListener.socket;
+                final Json json = new Json();
+                json.put("objectType", "BLOCK");
+                json.put("payloadKey", "object");
 
-                final ProtocolMessage protocolMessage = (hookListener.rawFormat ? lazyRawDataProtocolMessage.getProtocolMessage() : lazyMetadataProtocolMessage.getProtocolMessage());
-                jsonSocket.write(protocolMessage);
+                return new JsonFrameProtocolMessage(json, blockData);
+            }
+        };
 
-                if (! jsonSocket.isConnected()) {
-                    mutableIterator.remove();
-                    Logger.debug("Dropping HookEvent: " + HookEvent.NEW_BLOCK + " " + jsonSocket);
-                }
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        for (final HookListener hookListener : hookListeners) {
+            final LazyProtocolMessage lazyProtocolMessage;
+            if (hookListener.rawFormat) {
+                lazyProtocolMessage = (hookListener.binaryFramingIsEnabled ? lazyFramedProtocolMessage : lazyRawDataProtocolMessage);
             }
+            else {
+                lazyProtocolMessage = lazyMetadataProtocolMessage;
+            }
+            _queueHookMessage(HookEvent.NEW_BLOCK, hookListener, lazyProtocolMessage, nowMs);
         }
 
+        _hookEventDispatcher.wakeUp();
     }
 
     /**
      * Broadcasts the Transaction to all hook listeners subscribed to the TRANSACTION event.
      *  If the TransactionWithFee.transactionFee is null then the hook will receive a TRANSACTION object even if TRANSACTION_WITH_FEE is requested.
+     *  TRANSACTION_WITH_FEE objects include the script hashes of the outputs spent and created by the Transaction, when known.
      */
     public void onNewTransaction(final TransactionWithFee transactionWithFee) {
+        final HookListenerIndex hookListenerIndex = _hookListenerIndex;
+        final List<HookListener> transactionHookListeners = hookListenerIndex.eventListeners.get(HookEvent.NEW_TRANSACTION);
+        if (transactionHookListeners.isEmpty()) { return; }
+
         final Transaction transaction = transactionWithFee.transaction;
         final Long transactionFee = transactionWithFee.transactionFee;
 
@@ -1979,6 +2779,15 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
                         _transactionJson = new Json();
                         _transactionJson.put("transactionData", transactionData);
                         _transactionJson.put("transactionFee", transactionFee);
+
+                        final List<Sha256Hash> scriptHashes = transactionWithFee.scriptHashes;
+                        if (scriptHashes != null) {
+                            final Json scriptHashesJson = new Json(true);
+                            for (final Sha256Hash scriptHash : scriptHashes) {
+                                scriptHashesJson.add(scriptHash);
+                            }
+                            _transactionJson.put("scriptHashes", scriptHashesJson);
+                        }
                     }
 
                     final Json json = new Json();
@@ -1993,41 +2802,82 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             lazyRawProtocolMessageWithFee = lazyRawProtocolMessage;
         }
 
+        final LazyProtocolMessage lazyFramedProtocolMessage = new LazyProtocolMessage() {
+            @Override
+            protected ProtocolMessage _createProtocolMessage() {
+                final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+                final ByteArray transactionData = transactionDeflater.toBytes(transaction);
 
-        synchronized (_eventHooks) {
-            final MutableList<HookListener> sockets = _eventHooks.get(HookEvent.NEW_TRANSACTION);
-            if (sockets == null) { return; }
+                final Json json = new Json();
+                json.put("objectType", "TRANSACTION");
+                json.put("payloadKey", "object");
 
-            final Iterator<HookListener> mutableIterator = sockets.mutableIterator();
-            while (mutableIterator.hasNext()) {
-                final HookListener hookListener = mutableIterator.next();
-                final JsonSocket jsonSocket = hookListener.socket;
+                return new JsonFrameProtocolMessage(json, transactionData);
+            }
+        };
+
+        final LazyProtocolMessage lazyFramedProtocolMessageWithFee;
+        if (transactionFee != null) {
+            lazyFramedProtocolMessageWithFee = new LazyProtocolMessage() {
+                @Override
+                protected ProtocolMessage _createProtocolMessage() {
+                    final TransactionDeflater transactionDeflater = _masterInflater.getTransactionDeflater();
+                    final ByteArray transactionData = transactionDeflater.toBytes(transaction);
+
+                    final Json objectJson = new Json();
+                    objectJson.put("transactionFee", transactionFee);
 
-                final BloomFilter addressFilter = hookListener.addressFilter;
-                if (addressFilter != null) {
-                    if (! transaction.matches(addressFilter)) {
-                        continue;
+                    final List<Sha256Hash> scriptHashes = transactionWithFee.scriptHashes;
+                    if (scriptHashes != null) {
+                        final Json scriptHashesJson = new Json(true);
+                        for (final Sha256Hash scriptHash : scriptHashes) {
+                            scriptHashesJson.add(scriptHash);
+                        }
+                        objectJson.put("scriptHashes", scriptHashesJson);
                     }
-                }
 
-                final ProtocolMessage protocolMessage;
-                if (hookListener.rawFormat) {
-                    protocolMessage = (hookListener.includeTransactionFees ? lazyRawProtocolMessageWithFee.getProtocolMessage() : lazyRawProtocolMessage.getProtocolMessage());
-                }
-                else {
-                    protocolMessage = lazyMetadataProtocolMessage.getProtocolMessage();
-                }
-                jsonSocket.write(protocolMessage);
+                    final Json json = new Json();
+                    json.put("objectType", "TRANSACTION_WITH_FEE");
+                    json.put("object", objectJson);
+                    json.put("payloadKey", "transactionData");
 
-                if (! jsonSocket.isConnected()) {
-                    mutableIterator.remove();
-                    Logger.debug("Dropping HookEvent: " + HookEvent.NEW_TRANSACTION + " " + jsonSocket);
+                    return new JsonFrameProtocolMessage(json, transactionData);
                 }
+            };
+        }
+        else {
+            lazyFramedProtocolMessageWithFee = lazyFramedProtocolMessage;
+        }
+
+
+        final MutableList<HookListener> hookListeners = new MutableArrayList<>(hookListenerIndex.unfilteredTransactionListeners);
+        for (final HookListener hookListener : _getFilteredTransactionListeners(hookListenerIndex, transaction)) {
+            hookListeners.add(hookListener);
+        }
+
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        for (final HookListener hookListener : hookListeners) {
+            final LazyProtocolMessage lazyProtocolMessage;
+            if (hookListener.rawFormat && hookListener.binaryFramingIsEnabled) {
+                lazyProtocolMessage = (hookListener.includeTransactionFees ? lazyFramedProtocolMessageWithFee : lazyFramedProtocolMessage);
             }
+            else if (hookListener.rawFormat) {
+                lazyProtocolMessage = (hookListener.includeTransactionFees ? lazyRawProtocolMessageWithFee : lazyRawProtocolMessage);
+            }
+            else {
+                lazyProtocolMessage = lazyMetadataProtocolMessage;
+            }
+            _queueHookMessage(HookEvent.NEW_TRANSACTION, hookListener, lazyProtocolMessage, nowMs);
         }
+
+        _hookEventDispatcher.wakeUp();
     }
 
     public void onNewDoubleSpendProof(final DoubleSpendProof doubleSpendProof) {
+        final HookListenerIndex hookListenerIndex = _hookListenerIndex;
+        final List<HookListener> hookListeners = hookListenerIndex.eventListeners.get(HookEvent.NEW_DOUBLE_SPEND_PROOF);
+        if (hookListeners.isEmpty()) { return; }
+
         final LazyProtocolMessage lazyMetadataProtocolMessage = new LazyProtocolMessage() {
             private Json _doubleSpendProofJson = null;
 
@@ -2063,242 +2913,397 @@ public class NodeRpcHandler implements JsonSocketServer.SocketConnectedCallback
             }
         };
 
-        synchronized (_eventHooks) {
-            final MutableList<HookListener> sockets = _eventHooks.get(HookEvent.NEW_DOUBLE_SPEND_PROOF);
-            if (sockets == null) { return; }
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        for (final HookListener hookListener : hookListeners) {
+            final LazyProtocolMessage lazyProtocolMessage = (hookListener.rawFormat ? lazyRawDataProtocolMessage : lazyMetadataProtocolMessage);
+            _queueHookMessage(HookEvent.NEW_DOUBLE_SPEND_PROOF, hookListener, lazyProtocolMessage, nowMs);
+        }
 
-            final Iterator<HookListener> mutableIterator = sockets.mutableIterator();
-            while (mutableIterator.hasNext()) {
-                final HookListener hookListener = mutableIterator.next();
-                final JsonSocket jsonSocket = hookListener.socket;
+        _hookEventDispatcher.wakeUp();
+    }
 
-                final ProtocolMessage protocolMessage = (hookListener.rawFormat ? lazyRawDataProtocolMessage.getProtocolMessage() : lazyMetadataProtocolMessage.getProtocolMessage());
+    /**
+     * Returns the serialized response with the client's requestId prepended, or the response itself if requestId is null.
+     *  Cached responses are shared between requests, so the requestId is spliced into the serialized Json (or the Json
+     *  header of a JsonFrameProtocolMessage) rather than re-serializing the response.
+     */
+    protected ByteArray _addRequestId(final ByteArray responseBytes, final Long requestId) {
+        if (requestId == null) { return responseBytes; }
 
-                jsonSocket.write(protocolMessage);
+        final byte[] requestIdBytes = StringUtil.stringToBytes("{\"" + REQUEST_ID_KEY + "\":" + requestId + ",");
+        final int responseByteCount = responseBytes.getByteCount();
 
-                if (! jsonSocket.isConnected()) {
-                    mutableIterator.remove();
-                    Logger.debug("Dropping HookEvent: " + HookEvent.NEW_DOUBLE_SPEND_PROOF + " " + jsonSocket);
-                }
+        final boolean isFrame = (responseBytes.getByte(0) == JsonFrameProtocolMessage.FRAME_MARKER);
+        final int jsonOffset = (isFrame ? JsonFrameProtocolMessage.FRAME_PREFIX_BYTE_COUNT : 0);
+
+        final MutableByteArray bytes = new MutableByteArray(responseByteCount + requestIdBytes.length - 1);
+        if (isFrame) {
+            final int headerByteCount = ByteUtil.bytesToInteger(responseBytes.getBytes(1, 4));
+            bytes.setByte(0, JsonFrameProtocolMessage.FRAME_MARKER);
+            bytes.setBytes(1, ByteUtil.integerToBytes(headerByteCount + requestIdBytes.length - 1));
+            bytes.setBytes(5, responseBytes.getBytes(5, 4)); // The payload byte count...
+        }
+        bytes.setBytes(jsonOffset, requestIdBytes);
+        bytes.setBytes(jsonOffset + requestIdBytes.length, responseBytes.getBytes(jsonOffset + 1, responseByteCount - jsonOffset - 1)); // Skip the response's opening brace...
+        return bytes;
+    }
+
+    /**
+     * Returns the response as a JsonFrameProtocolMessage if the handler provided a binary payload, otherwise as Json.
+     */
+    protected ProtocolMessage _createResponseMessage(final Json response, final ResponsePayload responsePayload) {
+        if ( (responsePayload == null) || (responsePayload.payload == null) ) {
+            return new JsonProtocolMessage(response);
+        }
+
+        response.put("payloadKey", responsePayload.payloadKey);
+        if (responsePayload.payloadItemByteCount != null) {
+            response.put("payloadItemByteCount", responsePayload.payloadItemByteCount);
+        }
+        return new JsonFrameProtocolMessage(response, responsePayload.payload);
+    }
+
+    /**
+     * Returns the request's requestId, or null if the request does not have one.
+     *  A requestId that is not an integer is ignored, so the request is processed in order and its response does not
+     *  include the requestId.
+     */
+    protected Long _getRequestId(final Json message) {
+        if (! message.hasKey(REQUEST_ID_KEY)) { return null; }
+
+        final String requestIdString = message.getString(REQUEST_ID_KEY);
+        if ( (requestIdString == null) || (! requestIdString.matches("^-?[0-9]{1,18}$")) ) { return null; }
+
+        return Long.valueOf(requestIdString);
+    }
+
+    /**
+     * Returns true if the request may be processed concurrently with the connection's other requests.
+     *  Requests are pipelined only if the client provided an integer requestId to correlate the response, and the connection
+     *  is kept alive; requests that change the connection itself (i.e. hooks and keep-alive) are always processed in order.
+     */
+    protected Boolean _canPipelineRequest(final Json message, final JsonConnectionProperties jsonConnectionProperties) {
+        if (! jsonConnectionProperties.keepAliveIsEnabled) { return false; }
+        if (_getRequestId(message) == null) { return false; }
+
+        final String method = message.getString("method");
+        final String query = message.getString("query");
+        if (! Util.areEqual("POST", Util.coalesce(method).toUpperCase())) { return true; }
+
+        switch (Util.coalesce(query).toUpperCase()) {
+            case "ADD_HOOK":
+            case "UPDATE_HOOK":
+            case "KEEP_ALIVE":
+            case "BINARY_FRAMING": {
+                return false;
+            }
+
+            default: {
+                return true;
             }
         }
     }
 
-    @Override
-    public void run(final JsonSocket socketConnection) {
-        socketConnection.setMessageReceivedCallback(new Runnable() {
-            private final JsonConnectionProperties _jsonConnectionProperties = new JsonConnectionProperties();
+    protected void _processRequest(final JsonSocket socketConnection, final JsonConnectionProperties jsonConnectionProperties, final Json message) {
+        final Long requestId = _getRequestId(message);
 
-            @Override
-            public void run() {
-                final JsonProtocolMessage protocolMessage = socketConnection.popMessage();
-                final Json message = protocolMessage.getMessage();
+        final String method = message.getString("method");
+        final String query = message.getString("query");
 
-                final String method = message.getString("method");
-                final String query = message.getString("query");
+        final Json response = new Json();
+        response.put(WAS_SUCCESS_KEY, 0);
+        response.put(ERROR_MESSAGE_KEY, null);
 
-                final Json response = new Json();
-                response.put(WAS_SUCCESS_KEY, 0);
-                response.put(ERROR_MESSAGE_KEY, null);
-
-                final Json parameters = message.get("parameters");
-
-                switch (method.toUpperCase()) {
-                    case "GET": {
-                        switch (query.toUpperCase()) {
-                            case "BLOCK_HEADERS":
-                            case "BLOCK_HEADERS_BEFORE": {
-                                _getBlockHeaders(parameters, response, DataHandler.Direction.BEFORE);
-                            } break;
-                            case "BLOCK_HEADERS_AFTER": {
-                                _getBlockHeaders(parameters, response, DataHandler.Direction.AFTER);
-                            } break;
-
-                            case "BLOCK": {
-                                _getBlock(parameters, response);
-                            } break;
-
-                            case "BLOCK_HEADER": {
-                                _getBlockHeader(parameters, response);
-                            } break;
-
-                            case "BLOCK_TRANSACTIONS": {
-                                _getBlockTransactions(parameters, response);
-                            } break;
-
-                            case "TRANSACTION": {
-                                _getTransaction(parameters, response);
-                            } break;
-
-                            case "DOUBLE_SPEND_PROOFS": {
-                                _getDoubleSpendProofs(parameters, response);
-                            } break;
-
-                            case "DOUBLE_SPEND_PROOF": {
-                                _getDoubleSpendProof(parameters, response);
-                            } break;
-
-                            case "BLOCK_HEIGHT": {
-                                _queryBlockHeight(parameters, response);
-                            } break;
-
-                            case "UTXO_CACHE": {
-                                _queryUtxoCache(parameters, response);
-                            } break;
-
-                            case "DIFFICULTY": {
-                                _calculateNextDifficulty(parameters, response);
-                            } break;
-
-                            case "PROTOTYPE_BLOCK": {
-                                _getPrototypeBlock(parameters, response);
-                            } break;
-
-                            case "BLOCK_REWARD": {
-                                _calculateNextBlockReward(parameters, response);
-                            } break;
-
-                            case "MEMPOOL":
-                            case "UNCONFIRMED_TRANSACTIONS": {
-                                _getUnconfirmedTransactions(parameters, response);
-                            } break;
-
-                            case "STATUS": {
-                                _queryStatus(parameters, response);
-                            } break;
-
-                            case "NODES": {
-                                _listNodes(parameters, response);
-                            } break;
-
-                            case "BALANCE": {
-                                _queryBalance(parameters, response);
-                            } break;
-
-                            case "ADDRESS": {
-                                _queryAddressTransactions(parameters, response);
-                            } break;
-
-                            case "BLOCKCHAIN": {
-                                _queryBlockchainMetadata(parameters, response);
-                            } break;
-
-                            case "IS_SLP_TRANSACTION": {
-                                _queryIsSlpTransaction(parameters, response);
-                            } break;
-
-                            case "IS_VALID_SLP_TRANSACTION": {
-                                _queryIsValidSlpTransaction(parameters, response);
-                            } break;
-
-                            case "SLP_TOKEN_ID": {
-                                _querySlpTokenId(parameters, response);
-                            } break;
-
-                            default: {
-                                response.put(ERROR_MESSAGE_KEY, "Invalid " + method + " query: " + query);
-                            } break;
-                        }
+        final Json parameters = message.get("parameters");
+
+        final Boolean binaryFramingIsEnabled = jsonConnectionProperties.binaryFramingIsEnabled;
+        final ResponsePayload responsePayload = (binaryFramingIsEnabled ? new ResponsePayload() : null);
+
+        final String responseCacheKey = _getResponseCacheKey(method, query, parameters, binaryFramingIsEnabled);
+        if (responseCacheKey != null) {
+            final ByteArray cachedResponse = _responseCache.get(responseCacheKey);
+            if (cachedResponse != null) {
+                socketConnection.write(new SerializedProtocolMessage(_addRequestId(cachedResponse, requestId)));
+                socketConnection.flush();
+
+                if (! jsonConnectionProperties.keepAliveIsEnabled) {
+                    socketConnection.close();
+                }
+                return;
+            }
+        }
+
+        final ResponseCacheState responseCacheState = (responseCacheKey != null ? _getResponseCacheState(query, parameters) : null);
+
+        final NanoTimer nanoTimer = new NanoTimer();
+        nanoTimer.start();
+
+        switch (method.toUpperCase()) {
+            case "GET": {
+                switch (query.toUpperCase()) {
+                    case "BLOCK_HEADERS":
+                    case "BLOCK_HEADERS_BEFORE": {
+                        _getBlockHeaders(parameters, response, DataHandler.Direction.BEFORE, responsePayload);
+                    } break;
+                    case "BLOCK_HEADERS_AFTER": {
+                        _getBlockHeaders(parameters, response, DataHandler.Direction.AFTER, responsePayload);
                     } break;
 
-                    case "POST": {
-                        switch (query.toUpperCase()) {
-                            case "SHUTDOWN": {
-                                _shutdown(parameters, response);
-                            } break;
+                    case "BLOCK": {
+                        _getBlock(parameters, response, responsePayload);
+                    } break;
 
-                            case "COMMIT_UTXO_CACHE": {
-                                _commitUtxoCache(parameters, response);
-                            } break;
+                    case "BLOCK_HEADER": {
+                        _getBlockHeader(parameters, response);
+                    } break;
 
-                            case "ADD_NODE": {
-                                _addNode(parameters, response);
-                            } break;
+                    case "BLOCK_TRANSACTIONS": {
+                        _getBlockTransactions(parameters, response);
+                    } break;
 
-                            case "BAN_NODE": {
-                                _banNode(parameters, response);
-                            } break;
+                    case "BLOCK_TRANSACTION_HASHES": {
+                        _getBlockTransactionHashes(parameters, response);
+                    } break;
 
-                            case "UNBAN_NODE": {
-                                _unbanNode(parameters, response);
-                            } break;
+                    case "TRANSACTION": {
+                        _getTransaction(parameters, response, responsePayload);
+                    } break;
 
-                            case "WHITELIST_NODE": {
-                                _addIpToWhitelist(parameters, response);
-                            } break;
+                    case "DOUBLE_SPEND_PROOFS": {
+                        _getDoubleSpendProofs(parameters, response);
+                    } break;
 
-                            case "REMOVE_WHITELIST_NODE": {
-                                _removeIpFromWhitelist(parameters, response);
-                            } break;
+                    case "DOUBLE_SPEND_PROOF": {
+                        _getDoubleSpendProof(parameters, response);
+                    } break;
 
-                            case "ADD_HOOK": {
-                                _jsonConnectionProperties.keepAliveIsEnabled = _addHook(parameters, response, socketConnection);
-                            } break;
+                    case "BLOCK_HEIGHT": {
+                        _queryBlockHeight(parameters, response);
+                    } break;
 
-                            case "UPDATE_HOOK": {
-                                _jsonConnectionProperties.keepAliveIsEnabled = _updateHook(parameters, response, socketConnection);
-                            } break;
+                    case "UTXO_CACHE": {
+                        _queryUtxoCache(parameters, response);
+                    } break;
 
-                            case "TRANSACTION": {
-                                _receiveTransaction(parameters, response);
-                            } break;
+                    case "DIFFICULTY": {
+                        _calculateNextDifficulty(parameters, response);
+                    } break;
 
-                            case "BLOCK": {
-                                _receiveBlock(parameters, response);
-                            } break;
+                    case "PROTOTYPE_BLOCK": {
+                        _getPrototypeBlock(parameters, response);
+                    } break;
 
-                            case "VALIDATE_PROTOTYPE_BLOCK": {
-                                _validatePrototypeBlock(parameters, response);
-                            } break;
+                    case "BLOCK_REWARD": {
+                        _calculateNextBlockReward(parameters, response);
+                    } break;
 
-                            case "VALIDATE_TRANSACTION": {
-                                _validateTransaction(parameters, response);
-                            } break;
+                    case "MEMPOOL":
+                    case "UNCONFIRMED_TRANSACTIONS": {
+                        _getUnconfirmedTransactions(parameters, response);
+                    } break;
 
-                            case "SET_LOG_LEVEL": {
-                                _setLogLevel(parameters, response);
-                            } break;
+                    case "STATUS": {
+                        _queryStatus(parameters, response);
+                    } break;
 
-                            case "RECONSIDER_BLOCK": {
-                                _reconsiderBlock(parameters, response);
-                            } break;
+                    case "NODES": {
+                        _listNodes(parameters, response);
+                    } break;
 
-                            case "CLEAR_TRANSACTION_INDEXES": {
-                                _clearTransactionIndexes(parameters, response);
-                            } break;
+                    case "BALANCE": {
+                        _queryBalance(parameters, response);
+                    } break;
 
-                            case "CLEAR_SLP_VALIDATION": {
-                                _clearSlpValidation(parameters, response);
-                            } break;
+                    case "ADDRESS": {
+                        _queryAddressTransactions(parameters, response);
+                    } break;
 
-                            case "KEEP_ALIVE": {
-                                _jsonConnectionProperties.keepAliveIsEnabled = parameters.getBoolean("enableKeepAlive");
-                            } break;
+                    case "BLOCKCHAIN": {
+                        _queryBlockchainMetadata(parameters, response);
+                    } break;
 
-                            case "PING": {
-                                response.put(WAS_SUCCESS_KEY, 1);
-                            } break;
+                    case "IS_SLP_TRANSACTION": {
+                        _queryIsSlpTransaction(parameters, response);
+                    } break;
 
-                            // TODO: Add invalidate-block command (see: feature/invalidate-block/master).
-                            // TODO: Add rebuild-UTXO set from block-height command.
+                    case "IS_VALID_SLP_TRANSACTION": {
+                        _queryIsValidSlpTransaction(parameters, response);
+                    } break;
 
-                            default: {
-                                response.put(ERROR_MESSAGE_KEY, "Invalid " + method + " query: " + query);
-                            } break;
-                        }
+                    case "SLP_TOKEN_ID": {
+                        _querySlpTokenId(parameters, response);
                     } break;
 
                     default: {
-                        response.put(ERROR_MESSAGE_KEY, "Invalid command: " + method.toUpperCase());
+                        response.put(ERROR_MESSAGE_KEY, "Invalid " + method + " query: " + query);
                     } break;
                 }
+            } break;
 
-                socketConnection.write(new JsonProtocolMessage(response));
-                socketConnection.flush();
+            case "POST": {
+                switch (query.toUpperCase()) {
+                    case "SHUTDOWN": {
+                        _shutdown(parameters, response);
+                    } break;
 
-                if (! _jsonConnectionProperties.keepAliveIsEnabled) {
-                    socketConnection.close();
+                    case "COMMIT_UTXO_CACHE": {
+                        _commitUtxoCache(parameters, response);
+                    } break;
+
+                    case "ADD_NODE": {
+                        _addNode(parameters, response);
+                    } break;
+
+                    case "BAN_NODE": {
+                        _banNode(parameters, response);
+                    } break;
+
+                    case "UNBAN_NODE": {
+                        _unbanNode(parameters, response);
+                    } break;
+
+                    case "WHITELIST_NODE": {
+                        _addIpToWhitelist(parameters, response);
+                    } break;
+
+                    case "REMOVE_WHITELIST_NODE": {
+                        _removeIpFromWhitelist(parameters, response);
+                    } break;
+
+                    case "ADD_HOOK": {
+                        jsonConnectionProperties.keepAliveIsEnabled = _addHook(parameters, response, socketConnection, binaryFramingIsEnabled);
+                    } break;
+
+                    case "UPDATE_HOOK": {
+                        jsonConnectionProperties.keepAliveIsEnabled = _updateHook(parameters, response, socketConnection, binaryFramingIsEnabled);
+                    } break;
+
+                    case "TRANSACTION": {
+                        _receiveTransaction(parameters, response);
+                    } break;
+
+                    case "BLOCK": {
+                        _receiveBlock(parameters, response);
+                    } break;
+
+                    case "VALIDATE_PROTOTYPE_BLOCK": {
+                        _validatePrototypeBlock(parameters, response);
+                    } break;
+
+                    case "VALIDATE_TRANSACTION": {
+                        _validateTransaction(parameters, response);
+                    } break;
+
+                    case "SET_LOG_LEVEL": {
+                        _setLogLevel(parameters, response);
+                    } break;
+
+                    case "RECONSIDER_BLOCK": {
+                        _reconsiderBlock(parameters, response);
+                    } break;
+
+                    case "CLEAR_TRANSACTION_INDEXES": {
+                        _clearTransactionIndexes(parameters, response);
+                    } break;
+
+                    case "CLEAR_SLP_VALIDATION": {
+                        _clearSlpValidation(parameters, response);
+                    } break;
+
+                    case "KEEP_ALIVE": {
+                        jsonConnectionProperties.keepAliveIsEnabled = parameters.getBoolean("enableKeepAlive");
+                    } break;
+
+                    case "BINARY_FRAMING": {
+                        jsonConnectionProperties.binaryFramingIsEnabled = parameters.getBoolean("enableBinaryFraming");
+                        response.put(WAS_SUCCESS_KEY, 1);
+                    } break;
+
+                    case "PING": {
+                        response.put(WAS_SUCCESS_KEY, 1);
+                    } break;
+
+                    // TODO: Add invalidate-block command (see: feature/invalidate-block/master).
+                    // TODO: Add rebuild-UTXO set from block-height command.
+
+                    default: {
+                        response.put(ERROR_MESSAGE_KEY, "Invalid " + method + " query: " + query);
+                    } break;
                 }
+            } break;
+
+            default: {
+                response.put(ERROR_MESSAGE_KEY, "Invalid command: " + method.toUpperCase());
+            } break;
+        }
+
+        nanoTimer.stop();
+
+        final ProtocolMessage responseMessage;
+        if (responseCacheKey != null) {
+            final Double computeDurationMs = nanoTimer.getMillisecondsElapsed();
+            final ProtocolMessage cacheableResponseMessage = _cacheResponse(responseCacheKey, responseCacheState, query, parameters, response, _createResponseMessage(response, responsePayload), computeDurationMs.longValue());
+            responseMessage = new SerializedProtocolMessage(_addRequestId(cacheableResponseMessage.getBytes(), requestId));
+        }
+        else {
+            if (requestId != null) {
+                response.put(REQUEST_ID_KEY, requestId);
+            }
+            responseMessage = _createResponseMessage(response, responsePayload);
+        }
+
+        socketConnection.write(responseMessage);
+        socketConnection.flush();
+
+        if (! jsonConnectionProperties.keepAliveIsEnabled) {
+            socketConnection.close();
+        }
+    }
+
+    /**
+     * Processes the connection's requests.
+     *  Requests are processed in the order they are received unless they include an integer requestId, in which case they may be
+     *  processed concurrently (via the shared request thread pool) and their responses are written as they complete.
+     *  The response to a pipelined request includes its requestId, and the client is responsible for correlating the responses.
+     */
+    @Override
+    public void run(final JsonSocket socketConnection) {
+        final JsonConnectionProperties jsonConnectionProperties = new JsonConnectionProperties(_maxPipelinedRequestCount);
+
+        socketConnection.setMessageReceivedCallback(new Runnable() {
+            @Override
+            public void run() {
+                final JsonProtocolMessage protocolMessage = socketConnection.popMessage();
+                final Json message = protocolMessage.getMessage();
+
+                if (! _canPipelineRequest(message, jsonConnectionProperties)) {
+                    _processRequest(socketConnection, jsonConnectionProperties, message);
+                    return;
+                }
+
+                final Semaphore pipelinedRequestPermits = jsonConnectionProperties.pipelinedRequestPermits;
+                try {
+                    pipelinedRequestPermits.acquire(); // Stops reading the connection's requests while it has too many in-flight...
+                }
+                catch (final InterruptedException exception) {
+                    final Thread currentThread = Thread.currentThread();
+                    currentThread.interrupt();
+                    return;
+                }
+
+                _requestThreadPool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (! socketConnection.isConnected()) { return; }
+
+                            _processRequest(socketConnection, jsonConnectionProperties, message);
+                        }
+                        finally {
+                            pipelinedRequestPermits.release();
+                        }
+                    }
+                });
             }
         });
         socketConnection.beginListening();
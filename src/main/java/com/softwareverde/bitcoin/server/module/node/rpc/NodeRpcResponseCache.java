@@ -0,0 +1,145 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+import com.softwareverde.util.Util;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A memory-bounded, least-recently-used cache of serialized RPC responses for confirmed blockchain objects.
+ *  Each response is tagged with the height and hash of the block that contains the object it describes; when a reorg
+ *  occurs, NodeRpcResponseCache::rollback removes the responses whose block is no longer the main-chain block at its height.
+ *  Responses whose metadata may change without a reorg (i.e. the transactions spending an output, or SLP validity) are
+ *  cached with a maximum age.
+ *  The cache holds at most maxByteCount bytes of responses; responses larger than a quarter of the cache are not cached.
+ */
+public class NodeRpcResponseCache {
+    public interface BlockHashLookup {
+        /**
+         * Returns the hash of the main-chain block at the height, or null if there is no such block.
+         */
+        Sha256Hash getBlockHash(Long blockHeight);
+    }
+
+    protected static class CachedResponse {
+        public final ByteArray bytes;
+        public final Long blockHeight;
+        public final Sha256Hash blockHash;
+        public final Long expirationTimeMs; // Null if the response does not expire.
+        public final Long computeDurationMs;
+
+        public CachedResponse(final ByteArray bytes, final Long blockHeight, final Sha256Hash blockHash, final Long expirationTimeMs, final Long computeDurationMs) {
+            this.bytes = bytes;
+            this.blockHeight = blockHeight;
+            this.blockHash = blockHash;
+            this.expirationTimeMs = expirationTimeMs;
+            this.computeDurationMs = computeDurationMs;
+        }
+    }
+
+    protected final Long _maxByteCount;
+    protected final SystemTime _systemTime;
+    protected final LinkedHashMap<String, CachedResponse> _cachedResponses = new LinkedHashMap<>(16, 0.75F, true);
+
+    protected long _byteCount = 0L;
+    protected long _hitCount = 0L;
+    protected long _missCount = 0L;
+    protected long _savedMs = 0L;
+
+    protected void _remove(final Iterator<CachedResponse> iterator, final CachedResponse cachedResponse) {
+        iterator.remove();
+        _byteCount -= cachedResponse.bytes.getByteCount();
+    }
+
+    public NodeRpcResponseCache(final Long maxByteCount) {
+        this(new SystemTime(), maxByteCount);
+    }
+
+    public NodeRpcResponseCache(final SystemTime systemTime, final Long maxByteCount) {
+        _systemTime = systemTime;
+        _maxByteCount = maxByteCount;
+    }
+
+    /**
+     * Returns the cached response, or null if the response is not cached or has expired.
+     */
+    public synchronized ByteArray get(final String key) {
+        final CachedResponse cachedResponse = _cachedResponses.get(key);
+        if (cachedResponse == null) {
+            _missCount += 1L;
+            return null;
+        }
+
+        final Long expirationTimeMs = cachedResponse.expirationTimeMs;
+        if ( (expirationTimeMs != null) && (_systemTime.getCurrentTimeInMilliSeconds() > expirationTimeMs) ) {
+            _cachedResponses.remove(key);
+            _byteCount -= cachedResponse.bytes.getByteCount();
+            _missCount += 1L;
+            return null;
+        }
+
+        _hitCount += 1L;
+        _savedMs += cachedResponse.computeDurationMs;
+        return cachedResponse.bytes;
+    }
+
+    /**
+     * Caches the response for the object within the block at blockHeight/blockHash.
+     *  If maxAgeMs is provided, then the response expires after maxAgeMs.
+     *  computeDurationMs is the time taken to create the response, and is reported as saved time for each subsequent hit.
+     */
+    public synchronized void put(final String key, final ByteArray bytes, final Long blockHeight, final Sha256Hash blockHash, final Long maxAgeMs, final Long computeDurationMs) {
+        final int byteCount = bytes.getByteCount();
+        if (byteCount > (_maxByteCount / 4L)) { return; }
+
+        final Long expirationTimeMs = (maxAgeMs != null ? (_systemTime.getCurrentTimeInMilliSeconds() + maxAgeMs) : null);
+        final CachedResponse previousResponse = _cachedResponses.put(key, new CachedResponse(bytes, blockHeight, blockHash, expirationTimeMs, Util.coalesce(computeDurationMs)));
+        if (previousResponse != null) {
+            _byteCount -= previousResponse.bytes.getByteCount();
+        }
+        _byteCount += byteCount;
+
+        final Iterator<CachedResponse> iterator = _cachedResponses.values().iterator();
+        while ( (_byteCount > _maxByteCount) && iterator.hasNext() ) {
+            final CachedResponse cachedResponse = iterator.next();
+            _remove(iterator, cachedResponse);
+        }
+    }
+
+    /**
+     * Removes the responses whose block is no longer the main-chain block at its height.
+     */
+    public synchronized void rollback(final BlockHashLookup blockHashLookup) {
+        final Iterator<CachedResponse> iterator = _cachedResponses.values().iterator();
+        while (iterator.hasNext()) {
+            final CachedResponse cachedResponse = iterator.next();
+            final Sha256Hash blockHash = blockHashLookup.getBlockHash(cachedResponse.blockHeight);
+            if (! Util.areEqual(cachedResponse.blockHash, blockHash)) {
+                _remove(iterator, cachedResponse);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        _cachedResponses.clear();
+        _byteCount = 0L;
+    }
+
+    public synchronized Json toJson() {
+        final long requestCount = (_hitCount + _missCount);
+
+        final Json json = new Json(false);
+        json.put("itemCount", _cachedResponses.size());
+        json.put("byteCount", _byteCount);
+        json.put("maxByteCount", _maxByteCount);
+        json.put("hitCount", _hitCount);
+        json.put("missCount", _missCount);
+        json.put("hitRate", (requestCount > 0L ? (_hitCount / (double) requestCount) : null));
+        json.put("savedMs", _savedMs);
+        return json;
+    }
+}
@@ -4,6 +4,7 @@ import com.softwareverde.bitcoin.block.Block;
 import com.softwareverde.bitcoin.block.MutableBlock;
 import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
 import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 
 import java.io.File;
@@ -13,6 +14,17 @@ public interface BlockStore {
     void removeBlock(Sha256Hash blockHash, Long blockHeight);
     MutableBlockHeader getBlockHeader(Sha256Hash blockHash, Long blockHeight);
     MutableBlock getBlock(Sha256Hash blockHash, Long blockHeight);
+
+    /**
+     * Returns the serialized Block without inflating it, or null if the Block is not stored.
+     */
+    ByteArray getBlockBytes(Sha256Hash blockHash, Long blockHeight);
+
+    /**
+     * Returns the hashes of the Block's Transactions, in block order, without inflating the Block, or null if the Block is not stored.
+     */
+    List<Sha256Hash> getBlockTransactionHashes(Sha256Hash blockHash, Long blockHeight);
+
     Boolean blockExists(Sha256Hash blockHash, Long blockHeight);
     ByteArray readFromBlock(Sha256Hash blockHash, Long blockHeight, Long diskOffset, Integer byteCount);
     Long getBlockByteCount(Sha256Hash blockHash, Long blockHeight);
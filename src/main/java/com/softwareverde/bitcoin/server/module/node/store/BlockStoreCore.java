@@ -10,12 +10,15 @@ import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
 import com.softwareverde.bitcoin.inflater.BlockHeaderInflaters;
 import com.softwareverde.bitcoin.inflater.BlockInflaters;
 import com.softwareverde.bitcoin.server.configuration.BitcoinProperties;
+import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.bitcoin.util.ByteUtil;
 import com.softwareverde.btreedb.file.ByteArrayInputFile;
 import com.softwareverde.btreedb.file.InputFile;
 import com.softwareverde.btreedb.file.InputFileStream;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableListBuilder;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
@@ -34,6 +37,7 @@ import java.util.zip.ZipException;
 
 public class BlockStoreCore implements BlockStore {
     public static final String SUB_DIRECTORY = "blocks";
+    public static final String TRANSACTION_HASHES_SUB_DIRECTORY = "block-transactions";
     protected static final int GZIP_BUFFER_SIZE = (int) (ByteUtil.Unit.Binary.MEBIBYTES / 2);
     protected static final int READ_BUFFER_SIZE = (int) (16L * ByteUtil.Unit.Binary.KIBIBYTES);
 
@@ -49,6 +53,29 @@ public class BlockStoreCore implements BlockStore {
     protected final File _dataDirectory;
     protected final File _blockDataDirectory;
     protected final LevelDb<Sha256Hash, ByteArray> _blockDb;
+    protected final File _blockTransactionHashesDataDirectory;
+    protected final LevelDb<Sha256Hash, ByteArray> _blockTransactionHashesDb; // The concatenated hashes of each Block's Transactions, in block order.
+
+    protected static ByteArray _toTransactionHashesBytes(final List<Transaction> transactions) {
+        final MutableByteArray byteArray = new MutableByteArray(transactions.getCount() * Sha256Hash.BYTE_COUNT);
+        int index = 0;
+        for (final Transaction transaction : transactions) {
+            final Sha256Hash transactionHash = transaction.getHash();
+            byteArray.setBytes(index, transactionHash.getBytes());
+            index += Sha256Hash.BYTE_COUNT;
+        }
+        return byteArray;
+    }
+
+    protected static List<Sha256Hash> _fromTransactionHashesBytes(final ByteArray byteArray) {
+        final int transactionCount = (byteArray.getByteCount() / Sha256Hash.BYTE_COUNT);
+        final ImmutableListBuilder<Sha256Hash> transactionHashes = new ImmutableListBuilder<>(transactionCount);
+        for (int i = 0; i < transactionCount; ++i) {
+            final byte[] transactionHashBytes = byteArray.getBytes((i * Sha256Hash.BYTE_COUNT), Sha256Hash.BYTE_COUNT);
+            transactionHashes.add(Sha256Hash.wrap(transactionHashBytes));
+        }
+        return transactionHashes.build();
+    }
 
     protected ByteArray _readCompressedInternal(final InputFile inputFile) throws ZipException {
         int byteCount = 0;
@@ -182,26 +209,34 @@ public class BlockStoreCore implements BlockStore {
     public BlockStoreCore(final File dataDirectory, final BlockHeaderInflater blockHeaderInflater, final BlockInflater blockInflater, final BlockDeflater blockDeflater) {
         final File mainDataDirectory = new File(dataDirectory, BitcoinProperties.DATA_DIRECTORY_NAME);
         final File blocksDataDirectory = new File(mainDataDirectory, BlockStoreCore.SUB_DIRECTORY);
+        final File blockTransactionHashesDataDirectory = new File(mainDataDirectory, BlockStoreCore.TRANSACTION_HASHES_SUB_DIRECTORY);
 
         _dataDirectory = dataDirectory;
         _blockDataDirectory = (dataDirectory != null ? blocksDataDirectory : null);
+        _blockTransactionHashesDataDirectory = (dataDirectory != null ? blockTransactionHashesDataDirectory : null);
         _blockHeaderInflater = blockHeaderInflater;
         _blockInflater = blockInflater;
         _blockDeflater = blockDeflater;
         
         _blockDb = new LevelDb<>(_blockDataDirectory, new Sha256ByteArrayBucketEntryInflater());
+        _blockTransactionHashesDb = new LevelDb<>(_blockTransactionHashesDataDirectory, new Sha256ByteArrayBucketEntryInflater());
     }
 
     public void open() throws Exception {
         if (! _blockDataDirectory.exists()) {
             _blockDataDirectory.mkdirs();
         }
+        if (! _blockTransactionHashesDataDirectory.exists()) {
+            _blockTransactionHashesDataDirectory.mkdirs();
+        }
 
         _blockDb.open();
+        _blockTransactionHashesDb.open();
     }
 
     public void close() throws Exception {
         _blockDb.close();
+        _blockTransactionHashesDb.close();
     }
 
     @Override
@@ -213,10 +248,14 @@ public class BlockStoreCore implements BlockStore {
 
         final ByteArray blockBytes = _blockDeflater.toBytes(block);
         final ByteArray compressedBytes = IoUtil.compress(blockBytes);
+        final ByteArray transactionHashesBytes = BlockStoreCore._toTransactionHashesBytes(block.getTransactions());
 
         try {
             _blockDb.put(blockHash, compressedBytes);
             _blockDb.commit();
+
+            _blockTransactionHashesDb.put(blockHash, transactionHashesBytes);
+            _blockTransactionHashesDb.commit();
             return true;
         }
         catch (final Exception exception) {
@@ -229,8 +268,10 @@ public class BlockStoreCore implements BlockStore {
     public synchronized void removeBlock(final Sha256Hash blockHash, final Long blockHeight) {
         if (_blockDataDirectory == null) { return; }
         _blockDb.remove(blockHash);
+        _blockTransactionHashesDb.remove(blockHash);
         try {
             _blockDb.commit();
+            _blockTransactionHashesDb.commit();
         }
         catch (final Exception exception) {
             Logger.debug(exception);
@@ -266,6 +307,47 @@ public class BlockStoreCore implements BlockStore {
         return block;
     }
 
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Sha256Hash blockHash, final Long blockHeight) {
+        if (_blockDataDirectory == null) { return null; }
+
+        try {
+            final ByteArray transactionHashesBytes = _blockTransactionHashesDb.get(blockHash);
+            if (transactionHashesBytes != null) {
+                return BlockStoreCore._fromTransactionHashesBytes(transactionHashesBytes);
+            }
+        }
+        catch (final Exception exception) {
+            Logger.debug(exception);
+        }
+
+        // The Block was stored before its Transaction hashes were persisted; the hashes are indexed from the Block once so that subsequent lookups do not inflate it.
+        final Block block = this.getBlock(blockHash, blockHeight);
+        if (block == null) { return null; }
+
+        final List<Transaction> transactions = block.getTransactions();
+        synchronized (this) {
+            try {
+                _blockTransactionHashesDb.put(blockHash, BlockStoreCore._toTransactionHashesBytes(transactions));
+                _blockTransactionHashesDb.commit();
+            }
+            catch (final Exception exception) {
+                Logger.debug(exception);
+            }
+        }
+
+        final ImmutableListBuilder<Sha256Hash> transactionHashes = new ImmutableListBuilder<>(transactions.getCount());
+        for (final Transaction transaction : transactions) {
+            transactionHashes.add(transaction.getHash());
+        }
+        return transactionHashes.build();
+    }
+
+    @Override
+    public ByteArray getBlockBytes(final Sha256Hash blockHash, final Long blockHeight) {
+        return _readBlock(blockHash);
+    }
+
     @Override
     public Boolean blockExists(final Sha256Hash blockHash, final Long blockHeight) {
         if (_blockDataDirectory == null) { return false; }
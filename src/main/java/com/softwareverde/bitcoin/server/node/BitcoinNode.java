@@ -9,6 +9,7 @@ import com.softwareverde.bitcoin.block.header.BlockHeaderWithTransactionCount;
 import com.softwareverde.bitcoin.block.header.ImmutableBlockHeaderWithTransactionCount;
 import com.softwareverde.bitcoin.block.merkleroot.PartialMerkleTree;
 import com.softwareverde.bitcoin.bloomfilter.BloomFilterDeflater;
+import com.softwareverde.bitcoin.bloomfilter.RollingBloomFilter;
 import com.softwareverde.bitcoin.bloomfilter.UpdateBloomFilterMode;
 import com.softwareverde.bitcoin.server.State;
 import com.softwareverde.bitcoin.server.SynchronizationStatus;
@@ -55,6 +56,7 @@ import com.softwareverde.bitcoin.server.message.type.thin.request.transaction.Re
 import com.softwareverde.bitcoin.server.message.type.thin.transaction.ThinTransactionsMessage;
 import com.softwareverde.bitcoin.server.message.type.version.acknowledge.BitcoinAcknowledgeVersionMessage;
 import com.softwareverde.bitcoin.server.message.type.version.synchronize.BitcoinSynchronizeVersionMessage;
+import com.softwareverde.bitcoin.server.node.PendingRequestTable.RequestType;
 import com.softwareverde.bitcoin.server.node.request.UnfulfilledPublicKeyRequest;
 import com.softwareverde.bitcoin.server.node.request.UnfulfilledSha256HashRequest;
 import com.softwareverde.bitcoin.transaction.Transaction;
@@ -72,8 +74,6 @@ import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.mutable.ConcurrentMutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableMap;
-import com.softwareverde.constable.set.Set;
-import com.softwareverde.constable.set.mutable.MutableSet;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
 import com.softwareverde.cryptography.secp256k1.key.PublicKey;
 import com.softwareverde.logging.Logger;
@@ -93,6 +93,8 @@ import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.Tuple;
 import com.softwareverde.util.Util;
 
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -100,8 +102,12 @@ import java.util.concurrent.atomic.AtomicLong;
 public class BitcoinNode extends Node {
     public static final Long MIN_BYTES_PER_SECOND = (ByteUtil.Unit.Binary.MEBIBYTES / 8L); // 1mbps, slower than 3G.
     public static final Long REQUEST_TIME_BUFFER = 1000L; // Max time, in ms, assumed it takes to respond to a request, ignoring ping.
+    public static final Long REQUEST_CHECK_INTERVAL_MS = 1000L; // The interval, in ms, that an outstanding request is checked for a timeout or stalled download.
+    public static final Long KNOWN_TRANSACTION_INVENTORY_ITEM_COUNT = 50000L;
+    public static final Integer MAX_QUEUED_TRANSACTION_INVENTORY_COUNT = RequestDataMessage.MAX_COUNT; // The maximum number of items within a single InventoryMessage.
 
     protected static final AddressInflater DEFAULT_ADDRESS_INFLATER = new AddressInflater();
+    protected static final RequestTimeoutScheduler REQUEST_TIMEOUT_SCHEDULER = new RequestTimeoutScheduler(100L, 512); // Shared by all BitcoinNodes; 100ms ticks.
 
     private static final AtomicLong NEXT_REQUEST_ID = new AtomicLong(0L);
 
@@ -283,9 +289,6 @@ public class BitcoinNode extends Node {
         return RequestId.wrap(NEXT_REQUEST_ID.incrementAndGet());
     }
 
-    protected final Runnable _requestMonitor;
-    protected Thread _requestMonitorThread;
-
     protected final ConcurrentLinkedQueue<BitcoinNodeObserver> _observers = new ConcurrentLinkedQueue<>();
 
     protected final AddressInflater _addressInflater;
@@ -295,15 +298,7 @@ public class BitcoinNode extends Node {
 
     // Requests Maps
     protected final ConcurrentMutableHashMap<RequestId, FailableRequest> _failableRequests = new ConcurrentMutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadBlockCallback>>> _downloadBlockRequests = new MutableHashMap<>();
-    protected final MutableMap<PublicKey, MutableSet<PendingRequest<DownloadUtxoCommitmentCallback>>> _downloadUtxoCommitmentRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadMerkleBlockCallback>>> _downloadMerkleBlockRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadBlockHeadersCallback>>> _downloadBlockHeadersRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadTransactionCallback>>> _downloadTransactionRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadThinBlockCallback>>> _downloadThinBlockRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadExtraThinBlockCallback>>> _downloadExtraThinBlockRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadThinTransactionsCallback>>> _downloadThinTransactionsRequests = new MutableHashMap<>();
-    protected final MutableMap<Sha256Hash, MutableSet<PendingRequest<DownloadDoubleSpendProofCallback>>> _downloadDoubleSpendProofRequests = new MutableHashMap<>();
+    protected final PendingRequestTable _pendingRequests = new PendingRequestTable();
     protected final MutableMap<RequestId, BlockInventoryAnnouncementHandler> _downloadAddressBlocksRequests = new MutableHashMap<>();
     protected final MutableMap<RequestId, UtxoCommitmentsCallback> _utxoCommitmentsCallbacks = new MutableHashMap<>();
 
@@ -341,6 +336,12 @@ public class BitcoinNode extends Node {
     protected Boolean _transactionRelayIsEnabled = true;
 
     protected MutableBloomFilter _bloomFilter;
+    protected volatile Long _feeFilterSatoshisPerKilobyte = 0L; // The minimum fee-rate of Transactions the peer wants announced (BIP133).
+
+    protected final RollingBloomFilter _knownTransactionInventory = new RollingBloomFilter(KNOWN_TRANSACTION_INVENTORY_ITEM_COUNT, 0.00001D); // Transactions the peer has announced, sent, or been sent.
+    protected final LinkedHashSet<Sha256Hash> _queuedTransactionInventory = new LinkedHashSet<>(); // Transactions waiting to be announced on the next trickle, in the order they were queued.
+    protected Integer _maxQueuedTransactionInventoryCount = MAX_QUEUED_TRANSACTION_INVENTORY_COUNT;
+
     protected Sha256Hash _batchContinueHash; // https://en.bitcoin.it/wiki/Satoshi_Client_Block_Exchange#Batch_Continue_Mechanism
 
     protected MerkleBlockParameters _currentMerkleBlockBeingTransmitted; // Represents the currently MerkleBlock being transmitted from the node. Becomes unset after a non-transaction message is received.
@@ -350,14 +351,7 @@ public class BitcoinNode extends Node {
     protected AtomicBoolean _isConnected = new AtomicBoolean(false);
 
     protected void _removeCallback(final RequestId requestId) {
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadBlockRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadUtxoCommitmentRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadMerkleBlockRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadBlockHeadersRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadTransactionRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadThinBlockRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadExtraThinBlockRequests, requestId);
-        BitcoinNodeUtil.removeValueFromMapSet(_downloadThinTransactionsRequests, requestId);
+        _pendingRequests.remove(requestId);
         _failableRequests.remove(requestId);
 
         synchronized (_utxoCommitmentsCallbacks) {
@@ -378,43 +372,88 @@ public class BitcoinNode extends Node {
     }
 
     /**
-     * Returns a list of active (and unfilled) UnfulfilledRequest from the provided request map.
+     * Returns a list of active (and unfilled) UnfulfilledRequest of the provided request type.
      */
-    protected <CallbackType extends BitcoinNodeCallback> List<UnfulfilledSha256HashRequest> _getPendingSha256HashRequests(final MutableMap<Sha256Hash, MutableSet<PendingRequest<CallbackType>>> requestMap) {
-        final MutableList<UnfulfilledSha256HashRequest> unfulfilledRequests;
-
-        synchronized (requestMap) {
-            unfulfilledRequests = new MutableArrayList<>(requestMap.getCount());
-            for (final Tuple<Sha256Hash, MutableSet<PendingRequest<CallbackType>>> entry : requestMap) {
-                final Sha256Hash itemHash = entry.first;
-                for (final PendingRequest<?> pendingRequest : entry.second) {
-                    unfulfilledRequests.add(new UnfulfilledSha256HashRequest(BitcoinNode.this, pendingRequest.requestId, pendingRequest.requestPriority, itemHash));
-                }
-            }
+    protected <CallbackType extends BitcoinNodeCallback> List<UnfulfilledSha256HashRequest> _getPendingSha256HashRequests(final RequestType<Sha256Hash, CallbackType> requestType) {
+        final List<Tuple<Sha256Hash, PendingRequest<CallbackType>>> pendingRequests = _pendingRequests.getPendingRequests(requestType);
+
+        final MutableList<UnfulfilledSha256HashRequest> unfulfilledRequests = new MutableArrayList<>(pendingRequests.getCount());
+        for (final Tuple<Sha256Hash, PendingRequest<CallbackType>> entry : pendingRequests) {
+            final Sha256Hash itemHash = entry.first;
+            final PendingRequest<CallbackType> pendingRequest = entry.second;
+            unfulfilledRequests.add(new UnfulfilledSha256HashRequest(BitcoinNode.this, pendingRequest.requestId, pendingRequest.requestPriority, itemHash));
         }
 
         return unfulfilledRequests;
     }
 
     /**
-     * Returns a list of active (and unfilled) UnfulfilledRequest from the provided request map.
+     * Returns a list of active (and unfilled) UnfulfilledRequest of the provided request type.
      */
-    protected <CallbackType extends BitcoinNodeCallback> List<UnfulfilledPublicKeyRequest> _getPendingPublicKeyRequests(final MutableMap<PublicKey, MutableSet<PendingRequest<CallbackType>>> requestMap) {
-        final MutableList<UnfulfilledPublicKeyRequest> unfulfilledRequests;
-
-        synchronized (requestMap) {
-            unfulfilledRequests = new MutableArrayList<>(requestMap.getCount());
-            for (final Tuple<PublicKey, MutableSet<PendingRequest<CallbackType>>> entry : requestMap) {
-                final PublicKey publicKey = entry.first;
-                for (final PendingRequest<?> pendingRequest : entry.second) {
-                    unfulfilledRequests.add(new UnfulfilledPublicKeyRequest(BitcoinNode.this, pendingRequest.requestId, pendingRequest.requestPriority, publicKey));
-                }
-            }
+    protected <CallbackType extends BitcoinNodeCallback> List<UnfulfilledPublicKeyRequest> _getPendingPublicKeyRequests(final RequestType<PublicKey, CallbackType> requestType) {
+        final List<Tuple<PublicKey, PendingRequest<CallbackType>>> pendingRequests = _pendingRequests.getPendingRequests(requestType);
+
+        final MutableList<UnfulfilledPublicKeyRequest> unfulfilledRequests = new MutableArrayList<>(pendingRequests.getCount());
+        for (final Tuple<PublicKey, PendingRequest<CallbackType>> entry : pendingRequests) {
+            final PublicKey publicKey = entry.first;
+            final PendingRequest<CallbackType> pendingRequest = entry.second;
+            unfulfilledRequests.add(new UnfulfilledPublicKeyRequest(BitcoinNode.this, pendingRequest.requestId, pendingRequest.requestPriority, publicKey));
         }
 
         return unfulfilledRequests;
     }
 
+    /**
+     * Removes the requests for the key and executes their callbacks.  Returns true iff a callback was executed.
+     *  The requests are removed from the table before any callback is executed, so callbacks are dispatched without holding a lock.
+     */
+    protected <K, C extends BitcoinNodeCallback> Boolean _executeAndClearCallbacks(final RequestType<K, C> requestType, final K key, final CallbackExecutor<C> callbackExecutor) {
+        final List<PendingRequest<C>> pendingRequests = _pendingRequests.remove(requestType, key);
+        if (pendingRequests.isEmpty()) { return false; }
+
+        for (final PendingRequest<C> pendingRequest : pendingRequests) {
+            _failableRequests.remove(pendingRequest.requestId);
+            callbackExecutor.onResult(pendingRequest);
+        }
+        return true;
+    }
+
+    protected <K, U, C extends FailableBitcoinNodeRequestCallback<U, K>> void _failPendingRequests(final RequestType<K, C> requestType) {
+        final List<Tuple<K, PendingRequest<C>>> pendingRequests = _pendingRequests.removeAll(requestType);
+        for (final Tuple<K, PendingRequest<C>> entry : pendingRequests) {
+            _failableRequests.remove(entry.second.requestId);
+        }
+
+        // Execute all failure callbacks after the requests have been cleared to terminate cyclic executions.
+        for (final Tuple<K, PendingRequest<C>> entry : pendingRequests) {
+            final PendingRequest<C> pendingRequest = entry.second;
+            pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, entry.first);
+        }
+    }
+
+    /**
+     * Tracks the request for timeouts and stalled downloads.
+     *  The request is first checked once it has been outstanding long enough to be considered stalled (twice the peer's
+     *  ping plus REQUEST_TIME_BUFFER), and then every REQUEST_CHECK_INTERVAL_MS until it completes or fails.
+     */
+    protected void _addFailableRequest(final RequestId requestId, final FailableRequest failableRequest) {
+        _failableRequests.put(requestId, failableRequest);
+
+        final Long ping = Util.coalesce(_calculateAveragePingMs(), 1000L);
+        final Long maxRequestAgeMs = _getMaximumTimeoutMs(failableRequest.callback);
+        final Long delayMs = Math.min(((ping * 2L) + REQUEST_TIME_BUFFER), maxRequestAgeMs);
+        _scheduleRequestCheck(requestId, delayMs);
+    }
+
+    protected void _scheduleRequestCheck(final RequestId requestId, final Long delayMs) {
+        REQUEST_TIMEOUT_SCHEDULER.schedule(delayMs, new Runnable() {
+            @Override
+            public void run() {
+                _checkForFailedRequest(requestId);
+            }
+        });
+    }
+
     @Override
     protected void _queueMessage(final ProtocolMessage message) {
         super._queueMessage(message);
@@ -489,14 +528,6 @@ public class BitcoinNode extends Node {
         final boolean wasConnected = _isConnected.compareAndSet(true, false);
         if (! wasConnected) { return; }
 
-        synchronized (_requestMonitor) {
-            final Thread requestMonitorThread = _requestMonitorThread;
-            if (requestMonitorThread != null) {
-                requestMonitorThread.interrupt();
-                _requestMonitorThread = null;
-            }
-        }
-
         { // Unset all callback and handlers...
             _queryBlocksCallback = null;
             _queryBlockHeadersCallback = null;
@@ -513,15 +544,16 @@ public class BitcoinNode extends Node {
 
         super._disconnect();
 
-        BitcoinNodeUtil.failPendingRequests(_downloadBlockRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadUtxoCommitmentRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadMerkleBlockRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadTransactionRequests, _failableRequests, this);
+        _failPendingRequests(RequestType.BLOCK);
+        _failPendingRequests(RequestType.UTXO_COMMITMENT);
+        _failPendingRequests(RequestType.MERKLE_BLOCK);
+        _failPendingRequests(RequestType.TRANSACTION);
 
-        BitcoinNodeUtil.failPendingRequests(_downloadBlockHeadersRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadThinBlockRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadExtraThinBlockRequests, _failableRequests, this);
-        BitcoinNodeUtil.failPendingRequests(_downloadThinTransactionsRequests, _failableRequests, this);
+        _failPendingRequests(RequestType.BLOCK_HEADERS);
+        _failPendingRequests(RequestType.THIN_BLOCK);
+        _failPendingRequests(RequestType.EXTRA_THIN_BLOCK);
+        _failPendingRequests(RequestType.THIN_TRANSACTIONS);
+        _failPendingRequests(RequestType.DOUBLE_SPEND_PROOF);
 
         _failableRequests.clear();
 
@@ -540,18 +572,6 @@ public class BitcoinNode extends Node {
 
         // _callbackWorker.start(); // Reinitialize the callbackWorker if reconnecting (does nothing upon first connect).
 
-        synchronized (_requestMonitor) {
-            final Thread existingRequestMonitorThread = _requestMonitorThread;
-            if (existingRequestMonitorThread != null) {
-                existingRequestMonitorThread.interrupt();
-            }
-
-            final Thread requestMonitorThread = new Thread(_requestMonitor);
-            requestMonitorThread.setName("Bitcoin Node - Request Monitor - " + _connection.toString());
-            requestMonitorThread.setDaemon(true); // Ensure the thread is closed when the process dies (unnecessary, but proper).
-            requestMonitorThread.start();
-            _requestMonitorThread = requestMonitorThread;
-        }
         super._onConnect();
     }
 
@@ -594,76 +614,49 @@ public class BitcoinNode extends Node {
         return _protocolMessageFactory.newNodeIpAddressMessage();
     }
 
-    protected void _checkForFailedRequests() {
-        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+    protected void _checkForFailedRequest(final RequestId requestId) {
+        final FailableRequest failableRequest = _failableRequests.get(requestId);
+        if (failableRequest == null) { return; } // The request has completed (or has already failed)...
 
-        _failableRequests.mutableVisit(new MutableMap.MutableVisitor<>() {
-            @Override
-            public boolean run(final Tuple<RequestId, FailableRequest> mapEntry) {
-                final RequestId requestId = mapEntry.first;
-                final FailableRequest failableRequest = mapEntry.second;
-
-                final Long maxRequestAgeMs = _getMaximumTimeoutMs(failableRequest.callback);
-                final long requestAgeMs = (nowMs - failableRequest.requestStartTimeMs);
-
-                if (requestAgeMs > maxRequestAgeMs) {
-                    mapEntry.first = null; // Remove item...
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        final Long maxRequestAgeMs = _getMaximumTimeoutMs(failableRequest.callback);
+        final long requestAgeMs = (nowMs - failableRequest.requestStartTimeMs);
 
-                    _removeCallback(requestId);
-                    failableRequest.onFailure.run();
+        boolean requestHasFailed = false;
+        if (requestAgeMs > maxRequestAgeMs) {
+            requestHasFailed = true;
+        }
+        else {
+            final Long ping = Util.coalesce(_calculateAveragePingMs(), 1000L);
+            if (requestAgeMs >= ((ping * 2L) + REQUEST_TIME_BUFFER)) {
+                final Long startingByteCountReceived = failableRequest.startingByteCountReceived;
+                final Long newByteCountReceived = _connection.getTotalBytesReceivedCount();
+                final long bytesReceivedSinceRequested = (newByteCountReceived - startingByteCountReceived);
+                final long bytesPerMs = (bytesReceivedSinceRequested / Math.max(1L, requestAgeMs));
+                final double bytesPerSecond = (bytesPerMs * 1000L);
+                final double megabytesPerSecond = (bytesPerSecond / ByteUtil.Unit.Binary.MEBIBYTES);
+
+                if (Logger.isTraceEnabled()) {
+                    Logger.trace("Download progress: bytesReceivedSinceRequested=" + bytesReceivedSinceRequested + ", requestAgeMs=" + requestAgeMs + ", bytesPerMs=" + bytesPerMs + ", megabytesPerSecond=" + megabytesPerSecond + ", minMbps=" + (BitcoinNode.MIN_BYTES_PER_SECOND / ByteUtil.Unit.Binary.MEBIBYTES.doubleValue()) + " - " + BitcoinNode.this.getConnectionString() + " - " + failableRequest.requestDescription);
                 }
-                else {
-                    final Long ping = Util.coalesce(_calculateAveragePingMs(), 1000L);
-                    if (requestAgeMs >= ((ping * 2L) + REQUEST_TIME_BUFFER)) {
-                        final Long startingByteCountReceived = failableRequest.startingByteCountReceived;
-                        final Long newByteCountReceived = _connection.getTotalBytesReceivedCount();
-                        final long bytesReceivedSinceRequested = (newByteCountReceived - startingByteCountReceived);
-                        final long bytesPerMs = (bytesReceivedSinceRequested / requestAgeMs);
-                        final double bytesPerSecond = (bytesPerMs * 1000L);
-                        final double megabytesPerSecond = (bytesPerSecond / ByteUtil.Unit.Binary.MEBIBYTES);
-
-                        if (Logger.isTraceEnabled()) {
-                            Logger.trace("Download progress: bytesReceivedSinceRequested=" + bytesReceivedSinceRequested + ", requestAgeMs=" + requestAgeMs + ", bytesPerMs=" + bytesPerMs + ", megabytesPerSecond=" + megabytesPerSecond + ", minMbps=" + (BitcoinNode.MIN_BYTES_PER_SECOND / ByteUtil.Unit.Binary.MEBIBYTES.doubleValue()) + " - " + BitcoinNode.this.getConnectionString() + " - " + failableRequest.requestDescription);
-                        }
-
-                        if (bytesPerSecond < BitcoinNode.MIN_BYTES_PER_SECOND) {
-                            Logger.info("Detected stalled download from " + BitcoinNode.this.getConnectionString() + " (" + megabytesPerSecond + " MB/s) - " + failableRequest.requestDescription);
 
-                            mapEntry.first = null; // Remove item...
-
-                            _removeCallback(requestId);
-                            failableRequest.onFailure.run();
-                        }
-                    }
+                if (bytesPerSecond < BitcoinNode.MIN_BYTES_PER_SECOND) {
+                    Logger.info("Detected stalled download from " + BitcoinNode.this.getConnectionString() + " (" + megabytesPerSecond + " MB/s) - " + failableRequest.requestDescription);
+                    requestHasFailed = true;
                 }
-
-                return true;
             }
-        });
-    }
+        }
 
-    protected Runnable _createRequestMonitor() {
-        return new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    final Thread currentThread = Thread.currentThread();
-                    while ((! currentThread.isInterrupted()) && BitcoinNode.this.isConnected()) {
-                        try { Thread.sleep(1000L); }
-                        catch (final Exception exception) { break; }
+        if (! requestHasFailed) {
+            _scheduleRequestCheck(requestId, REQUEST_CHECK_INTERVAL_MS);
+            return;
+        }
 
-                        _checkForFailedRequests();
-                    }
-                }
-                finally {
-                    synchronized (_requestMonitor) {
-                        if (_requestMonitorThread == Thread.currentThread()) {
-                            _requestMonitorThread = null;
-                        }
-                    }
-                }
-            }
-        };
+        final FailableRequest removedFailableRequest = _failableRequests.remove(requestId);
+        if (removedFailableRequest == null) { return; } // The request completed concurrently...
+
+        _removeCallback(requestId);
+        failableRequest.onFailure.run();
     }
 
     @Override
@@ -690,7 +683,7 @@ public class BitcoinNode extends Node {
                     if (merkleBlockParameters != null) {
                         final MerkleBlock merkleBlock = merkleBlockParameters.getMerkleBlock();
                         final Sha256Hash blockHash = merkleBlock.getHash();
-                        BitcoinNodeUtil.executeAndClearCallbacks(_downloadMerkleBlockRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+                        _executeAndClearCallbacks(RequestType.MERKLE_BLOCK, blockHash, new AsyncCallbackExecutor<>() {
                             @Override
                             public void onResult0(final PendingRequest<DownloadMerkleBlockCallback> pendingRequest) {
                                 final DownloadMerkleBlockCallback callback = pendingRequest.callback;
@@ -847,6 +840,10 @@ public class BitcoinNode extends Node {
                 } break;
 
                 case TRANSACTION: {
+                    for (final Sha256Hash transactionHash : objectHashes) {
+                        _knownTransactionInventory.addItem(transactionHash);
+                    }
+
                     final TransactionInventoryAnnouncementHandler transactionsAnnouncementCallback = _transactionsAnnouncementCallback;
                     if (transactionsAnnouncementCallback != null) {
                         transactionsAnnouncementCallback.onResult(BitcoinNode.this, objectHashes);
@@ -923,7 +920,7 @@ public class BitcoinNode extends Node {
             Logger.info("Received invalid Block from " + BitcoinNode.this + ": " + blockHash);
         }
 
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadBlockRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.BLOCK, blockHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadBlockCallback> pendingRequest) {
                 final DownloadBlockCallback callback = pendingRequest.callback;
@@ -958,7 +955,7 @@ public class BitcoinNode extends Node {
 
         final PublicKey compressedPublicKey = publicKey.compress();
 
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadUtxoCommitmentRequests, _failableRequests, compressedPublicKey, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.UTXO_COMMITMENT, compressedPublicKey, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadUtxoCommitmentCallback> pendingRequest) {
                 final DownloadUtxoCommitmentCallback callback = pendingRequest.callback;
@@ -977,7 +974,9 @@ public class BitcoinNode extends Node {
         final Transaction transaction = transactionMessage.getTransaction();
 
         final Sha256Hash transactionHash = transaction.getHash();
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadTransactionRequests, _failableRequests, transactionHash, new AsyncCallbackExecutor<>() {
+        _knownTransactionInventory.addItem(transactionHash);
+
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.TRANSACTION, transactionHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadTransactionCallback> pendingRequest) {
                 final DownloadTransactionCallback callback = pendingRequest.callback;
@@ -994,7 +993,7 @@ public class BitcoinNode extends Node {
 
             if (merkleBlockParameters.hasAllTransactions()) {
                 _currentMerkleBlockBeingTransmitted = null;
-                BitcoinNodeUtil.executeAndClearCallbacks(_downloadMerkleBlockRequests, _failableRequests, merkleBlock.getHash(), new AsyncCallbackExecutor<>() {
+                _executeAndClearCallbacks(RequestType.MERKLE_BLOCK, merkleBlock.getHash(), new AsyncCallbackExecutor<>() {
                     @Override
                     public void onResult0(final PendingRequest<DownloadMerkleBlockCallback> pendingRequest) {
                         final DownloadMerkleBlockCallback callback = pendingRequest.callback;
@@ -1016,7 +1015,7 @@ public class BitcoinNode extends Node {
         final DoubleSpendProof doubleSpendProof = doubleSpendProofMessage.getDoubleSpendProof();
 
         final Sha256Hash doubleSpendProofHash = doubleSpendProof.getHash();
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadDoubleSpendProofRequests, _failableRequests, doubleSpendProofHash, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.DOUBLE_SPEND_PROOF, doubleSpendProofHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadDoubleSpendProofCallback> pendingRequest) {
                 final DownloadDoubleSpendProofCallback callback = pendingRequest.callback;
@@ -1039,18 +1038,15 @@ public class BitcoinNode extends Node {
         final Sha256Hash blockHash = merkleBlock.getHash();
 
         if (! merkleBlockIsValid) {
-            final Set<PendingRequest<DownloadMerkleBlockCallback>> pendingRequests;
-            synchronized (_downloadMerkleBlockRequests) {
-                pendingRequests = _downloadMerkleBlockRequests.remove(blockHash);
-            }
-            if (pendingRequests != null) {
-                for (final PendingRequest<DownloadMerkleBlockCallback> pendingRequest : pendingRequests) {
-                    final DownloadMerkleBlockCallback callback = pendingRequest.callback;
-                    callback.onFailure(pendingRequest.requestId, BitcoinNode.this, blockHash);
+            final List<PendingRequest<DownloadMerkleBlockCallback>> pendingRequests = _pendingRequests.remove(RequestType.MERKLE_BLOCK, blockHash);
+            for (final PendingRequest<DownloadMerkleBlockCallback> pendingRequest : pendingRequests) {
+                _failableRequests.remove(pendingRequest.requestId);
 
-                    for (final BitcoinNodeObserver observer : _observers) {
-                        observer.onFailedRequest(BitcoinNode.this, MessageType.MERKLE_BLOCK, pendingRequest.requestPriority);
-                    }
+                final DownloadMerkleBlockCallback callback = pendingRequest.callback;
+                callback.onFailure(pendingRequest.requestId, BitcoinNode.this, blockHash);
+
+                for (final BitcoinNodeObserver observer : _observers) {
+                    observer.onFailedRequest(BitcoinNode.this, MessageType.MERKLE_BLOCK, pendingRequest.requestPriority);
                 }
             }
             return;
@@ -1063,7 +1059,7 @@ public class BitcoinNode extends Node {
         final MerkleBlockParameters merkleBlockParameters = new MerkleBlockParameters(merkleBlock);
         if (transactionCount == 0) {
             // No Transactions should be transmitted alongside this MerkleBlock, so execute any callbacks and return early.
-            final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadMerkleBlockRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+            final Boolean wasRequested = _executeAndClearCallbacks(RequestType.MERKLE_BLOCK, blockHash, new AsyncCallbackExecutor<>() {
                 @Override
                 public void onResult0(final PendingRequest<DownloadMerkleBlockCallback> pendingRequest) {
                     final DownloadMerkleBlockCallback callback = pendingRequest.callback;
@@ -1103,7 +1099,7 @@ public class BitcoinNode extends Node {
 
         if (blockHeaders.isEmpty()) { return; }
 
-        final boolean wasRequested = (! _downloadBlockHeadersRequests.isEmpty());
+        final boolean wasRequested = (! _pendingRequests.isEmpty(RequestType.BLOCK_HEADERS));
         final BlockHeader firstBlockHeader = blockHeaders.get(0);
         final AsyncCallbackExecutor<DownloadBlockHeadersCallback> callbackExecutor = new AsyncCallbackExecutor<>() {
             @Override
@@ -1113,12 +1109,12 @@ public class BitcoinNode extends Node {
                 callback.onResult(pendingRequest.requestId, BitcoinNode.this, blockHeadersOrNull);
             }
         };
-        if (_downloadBlockHeadersRequests.containsKey(firstBlockHeader.getPreviousBlockHash())) {
-            BitcoinNodeUtil.executeAndClearCallbacks(_downloadBlockHeadersRequests, _failableRequests, firstBlockHeader.getPreviousBlockHash(), callbackExecutor);
+        if (_pendingRequests.containsKey(RequestType.BLOCK_HEADERS, firstBlockHeader.getPreviousBlockHash())) {
+            _executeAndClearCallbacks(RequestType.BLOCK_HEADERS, firstBlockHeader.getPreviousBlockHash(), callbackExecutor);
         }
         else { // Trigger all callbacks since a blockFinder may have been requested (i.e. reorg detection).
-            for (final Sha256Hash blockHash : _downloadBlockHeadersRequests.getKeys()) {
-                BitcoinNodeUtil.executeAndClearCallbacks(_downloadBlockHeadersRequests, _failableRequests, blockHash, callbackExecutor);
+            for (final Sha256Hash blockHash : _pendingRequests.getKeys(RequestType.BLOCK_HEADERS)) {
+                _executeAndClearCallbacks(RequestType.BLOCK_HEADERS, blockHash, callbackExecutor);
             }
         }
 
@@ -1236,7 +1232,7 @@ public class BitcoinNode extends Node {
         final ThinBlockParameters thinBlockParameters = new ThinBlockParameters(blockHeader, transactionHashes, transactions);
 
         final Sha256Hash blockHash = blockHeader.getHash();
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadThinBlockRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.THIN_BLOCK, blockHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadThinBlockCallback> pendingRequest) {
                 final DownloadThinBlockCallback callback = pendingRequest.callback;
@@ -1261,7 +1257,7 @@ public class BitcoinNode extends Node {
         final ExtraThinBlockParameters extraThinBlockParameters = new ExtraThinBlockParameters(blockHeader, transactionHashes, transactions);
 
         final Sha256Hash blockHash = blockHeader.getHash();
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadExtraThinBlockRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.EXTRA_THIN_BLOCK, blockHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadExtraThinBlockCallback> pendingRequest) {
                 final DownloadExtraThinBlockCallback callback = pendingRequest.callback;
@@ -1281,7 +1277,7 @@ public class BitcoinNode extends Node {
         final Sha256Hash blockHash = transactionsMessage.getBlockHash();
         final List<Transaction> transactions = transactionsMessage.getTransactions();
 
-        final Boolean wasRequested = BitcoinNodeUtil.executeAndClearCallbacks(_downloadThinTransactionsRequests, _failableRequests, blockHash, new AsyncCallbackExecutor<>() {
+        final Boolean wasRequested = _executeAndClearCallbacks(RequestType.THIN_TRANSACTIONS, blockHash, new AsyncCallbackExecutor<>() {
             @Override
             public void onResult0(final PendingRequest<DownloadThinTransactionsCallback> pendingRequest) {
                 final DownloadThinTransactionsCallback callback = pendingRequest.callback;
@@ -1304,65 +1300,51 @@ public class BitcoinNode extends Node {
             final InventoryItemType inventoryItemType = inventoryItem.getItemType();
             switch (inventoryItemType) {
                 case BLOCK: {
-                    synchronized (_downloadBlockRequests) {
-                        final Set<PendingRequest<DownloadBlockCallback>> downloadBlockCallbacks = _downloadBlockRequests.remove(itemHash);
-                        if (downloadBlockCallbacks == null) { return; }
+                    final List<PendingRequest<DownloadBlockCallback>> downloadBlockCallbacks = _pendingRequests.remove(RequestType.BLOCK, itemHash);
+                    for (final PendingRequest<DownloadBlockCallback> pendingRequest : downloadBlockCallbacks) {
+                        _failableRequests.remove(pendingRequest.requestId);
+                        pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
 
-                        for (final PendingRequest<DownloadBlockCallback> pendingRequest : downloadBlockCallbacks) {
-                            _failableRequests.remove(pendingRequest.requestId);
-                            pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
-
-                            for (final BitcoinNodeObserver observer : _observers) {
-                                observer.onBlockNotFound(BitcoinNode.this, itemHash);
-                            }
+                        for (final BitcoinNodeObserver observer : _observers) {
+                            observer.onBlockNotFound(BitcoinNode.this, itemHash);
                         }
                     }
                 } break;
 
                 case TRANSACTION: {
-                    synchronized (_downloadTransactionRequests) {
-                        final Set<PendingRequest<DownloadTransactionCallback>> downloadTransactionPendingRequests = _downloadTransactionRequests.remove(itemHash);
-                        if (downloadTransactionPendingRequests == null) { return; }
+                    final List<PendingRequest<DownloadTransactionCallback>> downloadTransactionPendingRequests = _pendingRequests.remove(RequestType.TRANSACTION, itemHash);
+                    for (final PendingRequest<DownloadTransactionCallback> pendingRequest : downloadTransactionPendingRequests) {
+                        _failableRequests.remove(pendingRequest.requestId);
+                        pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
 
-                        for (final PendingRequest<DownloadTransactionCallback> pendingRequest : downloadTransactionPendingRequests) {
-                            pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
-
-                            for (final BitcoinNodeObserver observer : _observers) {
-                                observer.onTransactionNotFound(BitcoinNode.this, itemHash);
-                            }
+                        for (final BitcoinNodeObserver observer : _observers) {
+                            observer.onTransactionNotFound(BitcoinNode.this, itemHash);
                         }
                     }
                 } break;
 
                 case MERKLE_BLOCK: {
-                    synchronized (_downloadMerkleBlockRequests) {
-                        final Set<PendingRequest<DownloadMerkleBlockCallback>> downloadMerkleBlockPendingRequests = _downloadMerkleBlockRequests.remove(itemHash);
-                        if (downloadMerkleBlockPendingRequests == null) { return; }
+                    final List<PendingRequest<DownloadMerkleBlockCallback>> downloadMerkleBlockPendingRequests = _pendingRequests.remove(RequestType.MERKLE_BLOCK, itemHash);
+                    for (final PendingRequest<DownloadMerkleBlockCallback> pendingRequest : downloadMerkleBlockPendingRequests) {
+                        _failableRequests.remove(pendingRequest.requestId);
+                        pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
 
-                        for (final PendingRequest<DownloadMerkleBlockCallback> pendingRequest : downloadMerkleBlockPendingRequests) {
-                            pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, itemHash);
-
-                            for (final BitcoinNodeObserver observer : _observers) {
-                                observer.onBlockNotFound(BitcoinNode.this, itemHash);
-                            }
+                        for (final BitcoinNodeObserver observer : _observers) {
+                            observer.onBlockNotFound(BitcoinNode.this, itemHash);
                         }
                     }
                 } break;
 
                 case UTXO_COMMITMENT_EVEN:
                 case UTXO_COMMITMENT_ODD: {
-                    synchronized (_downloadUtxoCommitmentRequests) {
-                        final PublicKey publicKey = RequestDataMessage.convertUtxoCommitmentInventoryToPublicKey(inventoryItemType, itemHash);
-                        final Set<PendingRequest<DownloadUtxoCommitmentCallback>> downloadUtxoCommitmentCallbacks = _downloadUtxoCommitmentRequests.remove(publicKey);
-                        if (downloadUtxoCommitmentCallbacks == null) { return; }
-
-                        for (final PendingRequest<DownloadUtxoCommitmentCallback> pendingRequest : downloadUtxoCommitmentCallbacks) {
-                            _failableRequests.remove(pendingRequest.requestId);
-                            pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, publicKey);
-
-                            for (final BitcoinNodeObserver observer : _observers) {
-                                observer.onBlockNotFound(BitcoinNode.this, itemHash);
-                            }
+                    final PublicKey publicKey = RequestDataMessage.convertUtxoCommitmentInventoryToPublicKey(inventoryItemType, itemHash);
+                    final List<PendingRequest<DownloadUtxoCommitmentCallback>> downloadUtxoCommitmentCallbacks = _pendingRequests.remove(RequestType.UTXO_COMMITMENT, publicKey);
+                    for (final PendingRequest<DownloadUtxoCommitmentCallback> pendingRequest : downloadUtxoCommitmentCallbacks) {
+                        _failableRequests.remove(pendingRequest.requestId);
+                        pendingRequest.callback.onFailure(pendingRequest.requestId, BitcoinNode.this, publicKey);
+
+                        for (final BitcoinNodeObserver observer : _observers) {
+                            observer.onBlockNotFound(BitcoinNode.this, itemHash);
                         }
                     }
                 } break;
@@ -1375,7 +1357,8 @@ public class BitcoinNode extends Node {
     }
 
     protected void _onFeeFilterMessageReceived(final FeeFilterMessage feeFilterMessage) {
-        // TODO: Store feeFilter in NodeDatabase...
+        final Long feeFilter = feeFilterMessage.getMinimumSatoshisPerByte(); // NOTE: The value is denominated in satoshis per 1000 bytes.
+        _feeFilterSatoshisPerKilobyte = Math.max(0L, Util.coalesce(feeFilter, 0L));
     }
 
     protected void _onRequestPeersMessageReceived(final RequestPeersMessage requestPeersMessage) {
@@ -1566,9 +1549,6 @@ public class BitcoinNode extends Node {
 
         _protocolMessageFactory = binaryPacketFormat.getProtocolMessageFactory();
 
-        _requestMonitor = _createRequestMonitor();
-        _requestMonitorThread = null;
-
         // _callbackWorker = new WorkerManager(2, 1024);
         // _callbackWorker.setName("Callback Worker");
         // _callbackWorker.start();
@@ -1593,9 +1573,6 @@ public class BitcoinNode extends Node {
         final BinaryPacketFormat binaryPacketFormat = _connection.getBinaryPacketFormat();
         _protocolMessageFactory = (BitcoinProtocolMessageFactory) binaryPacketFormat.getProtocolMessageFactory();
 
-        _requestMonitor = _createRequestMonitor();
-        _requestMonitorThread = null;
-
         // _callbackWorker = new WorkerManager(2, 1024);
         // _callbackWorker.setName("Callback Worker");
         // _callbackWorker.start();
@@ -1634,9 +1611,9 @@ public class BitcoinNode extends Node {
 
     public RequestId requestBlock(final Sha256Hash blockHash, final DownloadBlockCallback downloadBlockCallback, final RequestPriority requestPriority) {
         final RequestId requestId = _newRequestId();
-        BitcoinNodeUtil.storeInMapSet(_downloadBlockRequests, blockHash, new PendingRequest<>(requestId, downloadBlockCallback, requestPriority));
+        _pendingRequests.put(RequestType.BLOCK, blockHash, new PendingRequest<>(requestId, downloadBlockCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        _failableRequests.put(requestId, new FailableRequest("BLOCK " + blockHash, requestStartBytesReceived, downloadBlockCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest("BLOCK " + blockHash, requestStartBytesReceived, downloadBlockCallback, new Runnable() {
             @Override
             public void run() {
                 downloadBlockCallback.onFailure(requestId, BitcoinNode.this, blockHash);
@@ -1668,9 +1645,9 @@ public class BitcoinNode extends Node {
         }
 
         final RequestId requestId = _newRequestId();
-        BitcoinNodeUtil.storeInMapSet(_downloadUtxoCommitmentRequests, compressedPublicKey, new PendingRequest<>(requestId, downloadUtxoCommitmentCallback, requestPriority));
+        _pendingRequests.put(RequestType.UTXO_COMMITMENT, compressedPublicKey, new PendingRequest<>(requestId, downloadUtxoCommitmentCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        _failableRequests.put(requestId, new FailableRequest("UTXO COMMITMENT " + bucketHash, requestStartBytesReceived, downloadUtxoCommitmentCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest("UTXO COMMITMENT " + bucketHash, requestStartBytesReceived, downloadUtxoCommitmentCallback, new Runnable() {
             @Override
             public void run() {
                 downloadUtxoCommitmentCallback.onFailure(requestId, BitcoinNode.this, compressedPublicKey);
@@ -1699,9 +1676,9 @@ public class BitcoinNode extends Node {
 
     public RequestId requestMerkleBlock(final Sha256Hash blockHash, final DownloadMerkleBlockCallback downloadMerkleBlockCallback, final RequestPriority requestPriority) {
         final RequestId requestId = _newRequestId();
-        BitcoinNodeUtil.storeInMapSet(_downloadMerkleBlockRequests, blockHash, new PendingRequest<>(requestId, downloadMerkleBlockCallback, requestPriority));
+        _pendingRequests.put(RequestType.MERKLE_BLOCK, blockHash, new PendingRequest<>(requestId, downloadMerkleBlockCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        _failableRequests.put(requestId, new FailableRequest("MERKLE BLOCK " + blockHash, requestStartBytesReceived, downloadMerkleBlockCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest("MERKLE BLOCK " + blockHash, requestStartBytesReceived, downloadMerkleBlockCallback, new Runnable() {
             @Override
             public void run() {
                 downloadMerkleBlockCallback.onFailure(requestId, BitcoinNode.this, blockHash);
@@ -1722,9 +1699,9 @@ public class BitcoinNode extends Node {
 
     public RequestId requestThinBlock(final Sha256Hash blockHash, final BloomFilter knownTransactionsFilter, final DownloadThinBlockCallback downloadThinBlockCallback, final RequestPriority requestPriority) {
         final RequestId requestId = _newRequestId();
-        BitcoinNodeUtil.storeInMapSet(_downloadThinBlockRequests, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
+        _pendingRequests.put(RequestType.THIN_BLOCK, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        _failableRequests.put(requestId, new FailableRequest("THIN BLOCK " + blockHash, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest("THIN BLOCK " + blockHash, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
             @Override
             public void run() {
                 downloadThinBlockCallback.onFailure(requestId, BitcoinNode.this, blockHash);
@@ -1744,9 +1721,9 @@ public class BitcoinNode extends Node {
 
     public RequestId requestExtraThinBlock(final Sha256Hash blockHash, final BloomFilter knownTransactionsFilter, final DownloadExtraThinBlockCallback downloadThinBlockCallback, final RequestPriority requestPriority) {
         final RequestId requestId = _newRequestId();
-        BitcoinNodeUtil.storeInMapSet(_downloadExtraThinBlockRequests, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
+        _pendingRequests.put(RequestType.EXTRA_THIN_BLOCK, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        _failableRequests.put(requestId, new FailableRequest("xTHIN BLOCK " + blockHash, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest("xTHIN BLOCK " + blockHash, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
             @Override
             public void run() {
                 downloadThinBlockCallback.onFailure(requestId, BitcoinNode.this, blockHash);
@@ -1765,18 +1742,29 @@ public class BitcoinNode extends Node {
     }
 
     public RequestId requestThinTransactions(final Sha256Hash blockHash, final List<Sha256Hash> transactionHashes, final DownloadThinTransactionsCallback downloadThinBlockCallback, final RequestPriority requestPriority) {
-        final RequestId requestId = _newRequestId();
         final ImmutableListBuilder<ByteArray> shortTransactionHashesBuilder = new ImmutableListBuilder<>(transactionHashes.getCount());
         for (final Sha256Hash transactionHash : transactionHashes) {
-            final ByteArray shortTransactionHash = MutableByteArray.wrap(transactionHash.getBytes(0, 8));
+            final ByteArray shortTransactionHash = ExtraThinBlockMessage.calculateShortHash(transactionHash);
             shortTransactionHashesBuilder.add(shortTransactionHash);
         }
         final List<ByteArray> shortTransactionHashes = shortTransactionHashesBuilder.build();
 
-        BitcoinNodeUtil.storeInMapSet(_downloadThinTransactionsRequests, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
+        return this.requestExtraThinTransactions(blockHash, shortTransactionHashes, downloadThinBlockCallback, requestPriority);
+    }
+
+    public RequestId requestExtraThinTransactions(final Sha256Hash blockHash, final List<ByteArray> shortTransactionHashes, final DownloadThinTransactionsCallback downloadThinBlockCallback) {
+        return this.requestExtraThinTransactions(blockHash, shortTransactionHashes, downloadThinBlockCallback, RequestPriority.NORMAL);
+    }
+
+    /**
+     * Requests the Transactions identified by their short hashes (as provided by an ExtraThinBlockMessage) for the provided Block.
+     */
+    public RequestId requestExtraThinTransactions(final Sha256Hash blockHash, final List<ByteArray> shortTransactionHashes, final DownloadThinTransactionsCallback downloadThinBlockCallback, final RequestPriority requestPriority) {
+        final RequestId requestId = _newRequestId();
+        _pendingRequests.put(RequestType.THIN_TRANSACTIONS, blockHash, new PendingRequest<>(requestId, downloadThinBlockCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
-        final String requestDescription = "THIN TXs (block: " + blockHash + ", txCount: " + transactionHashes.getCount() + ")";
-        _failableRequests.put(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
+        final String requestDescription = "THIN TXs (block: " + blockHash + ", txCount: " + shortTransactionHashes.getCount() + ")";
+        _addFailableRequest(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadThinBlockCallback, new Runnable() {
             @Override
             public void run() {
                 downloadThinBlockCallback.onFailure(requestId, BitcoinNode.this, blockHash);
@@ -1811,10 +1799,10 @@ public class BitcoinNode extends Node {
         }
 
         final Sha256Hash firstBlockHash = blockFinder.get(0);
-        BitcoinNodeUtil.storeInMapSet(_downloadBlockHeadersRequests, firstBlockHash, new PendingRequest<>(requestId, downloadBlockHeaderCallback, requestPriority));
+        _pendingRequests.put(RequestType.BLOCK_HEADERS, firstBlockHash, new PendingRequest<>(requestId, downloadBlockHeaderCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
         final String requestDescription = "BLOCK FINDER " + blockFinder.get(0) + " - " + blockFinder.get(blockFinder.getCount() - 1);
-        _failableRequests.put(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadBlockHeaderCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadBlockHeaderCallback, new Runnable() {
             @Override
             public void run() {
                 downloadBlockHeaderCallback.onFailure(requestId, BitcoinNode.this, firstBlockHash);
@@ -1841,10 +1829,10 @@ public class BitcoinNode extends Node {
         }
 
         for (final Sha256Hash transactionHash : transactionHashes) {
-            BitcoinNodeUtil.storeInMapSet(_downloadTransactionRequests, transactionHash, new PendingRequest<>(requestId, downloadTransactionCallback, requestPriority));
+            _pendingRequests.put(RequestType.TRANSACTION, transactionHash, new PendingRequest<>(requestId, downloadTransactionCallback, requestPriority));
             final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
             final String requestDescription = "TXs (count: " + transactionHashes.getCount() + ")";
-            _failableRequests.put(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadTransactionCallback, new Runnable() {
+            _addFailableRequest(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadTransactionCallback, new Runnable() {
                 @Override
                 public void run() {
                     downloadTransactionCallback.onFailure(requestId, BitcoinNode.this, transactionHash);
@@ -1881,10 +1869,10 @@ public class BitcoinNode extends Node {
     public RequestId requestDoubleSpendProof(final Sha256Hash doubleSpendProofHash, final DownloadDoubleSpendProofCallback downloadDoubleSpendProofCallback, final RequestPriority requestPriority) {
         final RequestId requestId = _newRequestId();
 
-        BitcoinNodeUtil.storeInMapSet(_downloadDoubleSpendProofRequests, doubleSpendProofHash, new PendingRequest<>(requestId, downloadDoubleSpendProofCallback, requestPriority));
+        _pendingRequests.put(RequestType.DOUBLE_SPEND_PROOF, doubleSpendProofHash, new PendingRequest<>(requestId, downloadDoubleSpendProofCallback, requestPriority));
         final Long requestStartBytesReceived = _connection.getTotalBytesReceivedCount();
         final String requestDescription = ("Double Spend Proof: " + doubleSpendProofHash);
-        _failableRequests.put(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadDoubleSpendProofCallback, new Runnable() {
+        _addFailableRequest(requestId, new FailableRequest(requestDescription, requestStartBytesReceived, downloadDoubleSpendProofCallback, new Runnable() {
             @Override
             public void run() {
                 downloadDoubleSpendProofCallback.onFailure(requestId, BitcoinNode.this, doubleSpendProofHash);
@@ -1912,9 +1900,94 @@ public class BitcoinNode extends Node {
         for (final Sha256Hash transactionHash : transactionHashes) {
             final InventoryItem inventoryItem = new InventoryItem(InventoryItemType.TRANSACTION, transactionHash);
             inventoryMessage.addInventoryItem(inventoryItem);
+            _knownTransactionInventory.addItem(transactionHash);
+        }
+
+        _queueMessage(inventoryMessage);
+    }
+
+    /**
+     * Queues the Transaction to be announced to the peer during the next call to ::flushQueuedTransactionInventory.
+     *  The Transaction is not queued if the peer already knows of the Transaction, if the peer has disabled transaction relay,
+     *  if the Transaction does not match the peer's BloomFilter, or if its fee-rate is below the peer's fee filter.
+     *  A null transactionFee bypasses the fee filter.  Returns true if the Transaction was queued.
+     *  Once MAX_QUEUED_TRANSACTION_INVENTORY_COUNT Transactions are queued, the queue is announced immediately as a full
+     *  InventoryMessage rather than waiting for the next trickle, so the queue cannot grow without bound.
+     */
+    public Boolean queueTransactionInventory(final Transaction transaction, final Long transactionFee) {
+        final boolean hasBloomFilter = (_bloomFilter != null);
+        if ( (! hasBloomFilter) && (! Util.coalesce(this.isTransactionRelayEnabled(), false)) ) { return false; }
+
+        if (transactionFee != null) {
+            final Long feeFilterSatoshisPerKilobyte = _feeFilterSatoshisPerKilobyte;
+            if (feeFilterSatoshisPerKilobyte > 0L) {
+                final long satoshisPerKilobyte = ((transactionFee * 1000L) / Math.max(1, transaction.getByteCount()));
+                if (satoshisPerKilobyte < feeFilterSatoshisPerKilobyte) { return false; }
+            }
         }
 
+        final Sha256Hash transactionHash = transaction.getHash();
+        if (_knownTransactionInventory.containsItem(transactionHash)) { return false; }
+        if (hasBloomFilter && (! this.matchesFilter(transaction))) { return false; }
+
+        final InventoryMessage inventoryMessage;
+        synchronized (_queuedTransactionInventory) {
+            if (_queuedTransactionInventory.contains(transactionHash)) { return false; }
+            if (! _knownTransactionInventory.addItemIfAbsent(transactionHash)) { return false; }
+            _queuedTransactionInventory.add(transactionHash);
+
+            final boolean queueIsFull = (_queuedTransactionInventory.size() >= _maxQueuedTransactionInventoryCount);
+            inventoryMessage = (queueIsFull ? _popQueuedTransactionInventory(_maxQueuedTransactionInventoryCount) : null);
+        }
+
+        if (inventoryMessage != null) {
+            _queueMessage(inventoryMessage);
+        }
+        return true;
+    }
+
+    /**
+     * Removes up to maxItemCount Transactions from the front of the queue and returns them as an InventoryMessage.
+     *  Returns null if the queue is empty.  The caller must hold the lock on _queuedTransactionInventory.
+     */
+    protected InventoryMessage _popQueuedTransactionInventory(final Integer maxItemCount) {
+        if (_queuedTransactionInventory.isEmpty()) { return null; }
+
+        final InventoryMessage inventoryMessage = _protocolMessageFactory.newInventoryMessage();
+        final Iterator<Sha256Hash> iterator = _queuedTransactionInventory.iterator();
+        int itemCount = 0;
+        while ( (itemCount < maxItemCount) && iterator.hasNext() ) {
+            final Sha256Hash transactionHash = iterator.next();
+            inventoryMessage.addInventoryItem(new InventoryItem(InventoryItemType.TRANSACTION, transactionHash));
+            iterator.remove();
+            itemCount += 1;
+        }
+        return inventoryMessage;
+    }
+
+    /**
+     * Announces up to maxItemCount queued Transactions to the peer within a single InventoryMessage.
+     *  Returns the number of Transactions announced.
+     */
+    public Integer flushQueuedTransactionInventory(final Integer maxItemCount) {
+        final InventoryMessage inventoryMessage;
+        synchronized (_queuedTransactionInventory) {
+            inventoryMessage = _popQueuedTransactionInventory(maxItemCount);
+        }
+        if (inventoryMessage == null) { return 0; }
+
         _queueMessage(inventoryMessage);
+        return inventoryMessage.getInventoryItems().getCount();
+    }
+
+    public Integer getQueuedTransactionInventoryCount() {
+        synchronized (_queuedTransactionInventory) {
+            return _queuedTransactionInventory.size();
+        }
+    }
+
+    public Long getFeeFilterSatoshisPerKilobyte() {
+        return _feeFilterSatoshisPerKilobyte;
     }
 
     public void transmitBlockHashes(final List<Sha256Hash> blockHashes) {
@@ -1976,6 +2049,15 @@ public class BitcoinNode extends Node {
         _queueMessage(blockMessage);
     }
 
+    /**
+     * Transmits the serialized Block as-is; the bytes are not validated.
+     */
+    public void transmitBlock(final ByteArray blockBytes) {
+        final BlockMessage blockMessage = _protocolMessageFactory.newBlockMessage();
+        blockMessage.setBlockBytes(blockBytes);
+        _queueMessage(blockMessage);
+    }
+
     public void transmitUtxoCommitment(final PublicKey publicKey, final ByteArray byteArray) {
         final UtxoCommitmentMessage utxoCommitmentMessage = _protocolMessageFactory.newUtxoCommitmentMessage();
         utxoCommitmentMessage.setMultisetPublicKey(publicKey);
@@ -2242,14 +2324,7 @@ public class BitcoinNode extends Node {
     }
 
     public void clearRequests() {
-        synchronized (_downloadBlockRequests) { _downloadBlockRequests.clear(); }
-        synchronized (_downloadUtxoCommitmentRequests) { _downloadUtxoCommitmentRequests.clear(); }
-        synchronized (_downloadMerkleBlockRequests) { _downloadMerkleBlockRequests.clear(); }
-        synchronized (_downloadBlockHeadersRequests) { _downloadBlockHeadersRequests.clear(); }
-        synchronized (_downloadTransactionRequests) { _downloadTransactionRequests.clear(); }
-        synchronized (_downloadThinBlockRequests) { _downloadThinBlockRequests.clear(); }
-        synchronized (_downloadExtraThinBlockRequests) { _downloadExtraThinBlockRequests.clear(); }
-        synchronized (_downloadThinTransactionsRequests) { _downloadThinTransactionsRequests.clear(); }
+        _pendingRequests.clear();
         synchronized (_downloadAddressBlocksRequests) { _downloadAddressBlocksRequests.clear(); }
 
         _failableRequests.clear();
@@ -2279,22 +2354,22 @@ public class BitcoinNode extends Node {
     }
 
     public List<UnfulfilledSha256HashRequest> getPendingBlockRequests() {
-        return _getPendingSha256HashRequests(_downloadBlockRequests);
+        return _getPendingSha256HashRequests(RequestType.BLOCK);
     }
 
     public List<UnfulfilledSha256HashRequest> getPendingTransactionRequests() {
-        return _getPendingSha256HashRequests(_downloadTransactionRequests);
+        return _getPendingSha256HashRequests(RequestType.TRANSACTION);
     }
 
     public List<UnfulfilledSha256HashRequest> getPendingBlockHeadersRequests() {
-        return _getPendingSha256HashRequests(_downloadBlockHeadersRequests);
+        return _getPendingSha256HashRequests(RequestType.BLOCK_HEADERS);
     }
 
     public List<UnfulfilledSha256HashRequest> getPendingMerkleBlockRequests() {
-        return _getPendingSha256HashRequests(_downloadMerkleBlockRequests);
+        return _getPendingSha256HashRequests(RequestType.MERKLE_BLOCK);
     }
 
     public List<UnfulfilledPublicKeyRequest> getPendingUtxoCommitmentRequests() {
-        return _getPendingPublicKeyRequests(_downloadUtxoCommitmentRequests);
+        return _getPendingPublicKeyRequests(RequestType.UTXO_COMMITMENT);
     }
 }
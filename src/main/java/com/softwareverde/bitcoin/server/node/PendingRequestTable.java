@@ -0,0 +1,193 @@
+package com.softwareverde.bitcoin.server.node;
+
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.secp256k1.key.PublicKey;
+import com.softwareverde.util.Tuple;
+import com.softwareverde.util.Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * The outstanding requests of a BitcoinNode, keyed by the type of the request and the requested item (i.e. a Sha256Hash or PublicKey).
+ *  Requests are also indexed by their RequestId so that removing a single request does not require searching the table.
+ *  The requests for a key are replaced atomically (copy-on-write) via ConcurrentHashMap::compute, so no table-wide lock is held.
+ */
+public class PendingRequestTable {
+    public static class RequestType<K, C extends BitcoinNode.BitcoinNodeCallback> {
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadBlockCallback> BLOCK = new RequestType<>("BLOCK");
+        public static final RequestType<PublicKey, BitcoinNode.DownloadUtxoCommitmentCallback> UTXO_COMMITMENT = new RequestType<>("UTXO_COMMITMENT");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadMerkleBlockCallback> MERKLE_BLOCK = new RequestType<>("MERKLE_BLOCK");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadBlockHeadersCallback> BLOCK_HEADERS = new RequestType<>("BLOCK_HEADERS");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadTransactionCallback> TRANSACTION = new RequestType<>("TRANSACTION");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadThinBlockCallback> THIN_BLOCK = new RequestType<>("THIN_BLOCK");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadExtraThinBlockCallback> EXTRA_THIN_BLOCK = new RequestType<>("EXTRA_THIN_BLOCK");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadThinTransactionsCallback> THIN_TRANSACTIONS = new RequestType<>("THIN_TRANSACTIONS");
+        public static final RequestType<Sha256Hash, BitcoinNode.DownloadDoubleSpendProofCallback> DOUBLE_SPEND_PROOF = new RequestType<>("DOUBLE_SPEND_PROOF");
+
+        protected final String _name;
+
+        protected RequestType(final String name) {
+            _name = name;
+        }
+
+        @Override
+        public String toString() {
+            return _name;
+        }
+    }
+
+    protected static class RequestKey {
+        public final RequestType<?, ?> requestType;
+        public final Object key;
+
+        public RequestKey(final RequestType<?, ?> requestType, final Object key) {
+            this.requestType = requestType;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((this.requestType.hashCode() * 31) + this.key.hashCode());
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (! (object instanceof RequestKey)) { return false; }
+
+            final RequestKey requestKey = (RequestKey) object;
+            if (this.requestType != requestKey.requestType) { return false; }
+            return Util.areEqual(this.key, requestKey.key);
+        }
+    }
+
+    protected final ConcurrentHashMap<RequestKey, List<BitcoinNode.PendingRequest<?>>> _pendingRequests = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<RequestId, RequestKey> _requestKeys = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    protected static <C extends BitcoinNode.BitcoinNodeCallback> BitcoinNode.PendingRequest<C> _cast(final BitcoinNode.PendingRequest<?> pendingRequest) {
+        return (BitcoinNode.PendingRequest<C>) pendingRequest;
+    }
+
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> void put(final RequestType<K, C> requestType, final K key, final BitcoinNode.PendingRequest<C> pendingRequest) {
+        final RequestKey requestKey = new RequestKey(requestType, key);
+        _pendingRequests.compute(requestKey, new BiFunction<RequestKey, List<BitcoinNode.PendingRequest<?>>, List<BitcoinNode.PendingRequest<?>>>() {
+            @Override
+            public List<BitcoinNode.PendingRequest<?>> apply(final RequestKey requestKey, final List<BitcoinNode.PendingRequest<?>> pendingRequests) {
+                final int existingCount = ((pendingRequests != null) ? pendingRequests.getCount() : 0);
+                final MutableList<BitcoinNode.PendingRequest<?>> newPendingRequests = new MutableArrayList<>(existingCount + 1);
+                if (pendingRequests != null) {
+                    newPendingRequests.addAll(pendingRequests);
+                }
+                newPendingRequests.add(pendingRequest);
+                return newPendingRequests;
+            }
+        });
+        _requestKeys.put(pendingRequest.requestId, requestKey);
+    }
+
+    /**
+     * Removes and returns all requests for the key.  Returns an empty list if there were none.
+     */
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> List<BitcoinNode.PendingRequest<C>> remove(final RequestType<K, C> requestType, final K key) {
+        final List<BitcoinNode.PendingRequest<?>> pendingRequests = _pendingRequests.remove(new RequestKey(requestType, key));
+        if (pendingRequests == null) { return new MutableArrayList<>(0); }
+
+        final MutableList<BitcoinNode.PendingRequest<C>> removedPendingRequests = new MutableArrayList<>(pendingRequests.getCount());
+        for (final BitcoinNode.PendingRequest<?> pendingRequest : pendingRequests) {
+            _requestKeys.remove(pendingRequest.requestId);
+            removedPendingRequests.add(PendingRequestTable.<C>_cast(pendingRequest));
+        }
+        return removedPendingRequests;
+    }
+
+    /**
+     * Removes the request with the provided RequestId, if it exists.  Returns true if the request was removed.
+     */
+    public Boolean remove(final RequestId requestId) {
+        final RequestKey requestKey = _requestKeys.remove(requestId);
+        if (requestKey == null) { return false; }
+
+        _pendingRequests.computeIfPresent(requestKey, new BiFunction<RequestKey, List<BitcoinNode.PendingRequest<?>>, List<BitcoinNode.PendingRequest<?>>>() {
+            @Override
+            public List<BitcoinNode.PendingRequest<?>> apply(final RequestKey requestKey, final List<BitcoinNode.PendingRequest<?>> pendingRequests) {
+                final MutableList<BitcoinNode.PendingRequest<?>> newPendingRequests = new MutableArrayList<>(pendingRequests.getCount());
+                for (final BitcoinNode.PendingRequest<?> pendingRequest : pendingRequests) {
+                    if (Util.areEqual(requestId, pendingRequest.requestId)) { continue; }
+                    newPendingRequests.add(pendingRequest);
+                }
+                return (newPendingRequests.isEmpty() ? null : newPendingRequests); // Returning null removes the key...
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Removes and returns all requests of the requestType, paired with their key.
+     */
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> List<Tuple<K, BitcoinNode.PendingRequest<C>>> removeAll(final RequestType<K, C> requestType) {
+        final MutableList<Tuple<K, BitcoinNode.PendingRequest<C>>> removedPendingRequests = new MutableArrayList<>();
+        for (final K key : this.getKeys(requestType)) {
+            for (final BitcoinNode.PendingRequest<C> pendingRequest : this.remove(requestType, key)) {
+                removedPendingRequests.add(new Tuple<>(key, pendingRequest));
+            }
+        }
+        return removedPendingRequests;
+    }
+
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> Boolean containsKey(final RequestType<K, C> requestType, final K key) {
+        return _pendingRequests.containsKey(new RequestKey(requestType, key));
+    }
+
+    /**
+     * Returns the keys of all requests of the requestType.
+     *  NOTE: This operation visits every pending request and should not be used on a hot path.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> List<K> getKeys(final RequestType<K, C> requestType) {
+        final MutableList<K> keys = new MutableArrayList<>();
+        for (final RequestKey requestKey : _pendingRequests.keySet()) {
+            if (requestKey.requestType != requestType) { continue; }
+            keys.add((K) requestKey.key);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns all requests of the requestType, paired with their key.
+     *  NOTE: This operation visits every pending request and should not be used on a hot path.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> List<Tuple<K, BitcoinNode.PendingRequest<C>>> getPendingRequests(final RequestType<K, C> requestType) {
+        final MutableList<Tuple<K, BitcoinNode.PendingRequest<C>>> pendingRequests = new MutableArrayList<>();
+        for (final Map.Entry<RequestKey, List<BitcoinNode.PendingRequest<?>>> entry : _pendingRequests.entrySet()) {
+            final RequestKey requestKey = entry.getKey();
+            if (requestKey.requestType != requestType) { continue; }
+
+            for (final BitcoinNode.PendingRequest<?> pendingRequest : entry.getValue()) {
+                pendingRequests.add(new Tuple<>((K) requestKey.key, PendingRequestTable.<C>_cast(pendingRequest)));
+            }
+        }
+        return pendingRequests;
+    }
+
+    public <K, C extends BitcoinNode.BitcoinNodeCallback> Boolean isEmpty(final RequestType<K, C> requestType) {
+        for (final RequestKey requestKey : _pendingRequests.keySet()) {
+            if (requestKey.requestType == requestType) { return false; }
+        }
+        return true;
+    }
+
+    public Integer getCount() {
+        return _requestKeys.size();
+    }
+
+    public void clear() {
+        _pendingRequests.clear();
+        _requestKeys.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package com.softwareverde.bitcoin.server.node;
+
+import com.softwareverde.logging.Logger;
+import com.softwareverde.util.type.time.SystemTime;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A hashed timing wheel that runs delayed tasks (i.e. request timeout checks) for every BitcoinNode on a single thread.
+ *  Scheduling a task is O(1), and each tick only visits the tasks hashed into the current slot, rather than every
+ *  pending request of every node.  Tasks are run on the scheduler's thread and therefore must be brief.
+ *  The thread is started upon the first scheduled task and is a daemon thread.
+ */
+public class RequestTimeoutScheduler {
+    protected static class ScheduledTask {
+        public final Long deadlineTick;
+        public final Runnable runnable;
+
+        public ScheduledTask(final Long deadlineTick, final Runnable runnable) {
+            this.deadlineTick = deadlineTick;
+            this.runnable = runnable;
+        }
+    }
+
+    protected final SystemTime _systemTime = new SystemTime();
+    protected final Long _tickMs;
+    protected final ArrayList<ConcurrentLinkedQueue<ScheduledTask>> _slots;
+    protected final Long _startTimeMs;
+
+    protected volatile long _currentTick = 0L;
+    protected volatile Thread _thread;
+
+    protected Long _getElapsedTicks() {
+        final Long nowMs = _systemTime.getCurrentTimeInMilliSeconds();
+        return ((nowMs - _startTimeMs) / _tickMs);
+    }
+
+    protected void _processTick(final long tick) {
+        final int slotIndex = (int) (tick % _slots.size());
+        final ConcurrentLinkedQueue<ScheduledTask> slot = _slots.get(slotIndex);
+
+        final Iterator<ScheduledTask> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            final ScheduledTask scheduledTask = iterator.next();
+            if (scheduledTask.deadlineTick > tick) { continue; } // Scheduled for a later rotation of the wheel...
+
+            iterator.remove();
+            try {
+                scheduledTask.runnable.run();
+            }
+            catch (final Exception exception) {
+                Logger.debug(exception);
+            }
+        }
+    }
+
+    protected synchronized void _startThread() {
+        if (_thread != null) { return; }
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final long elapsedTicks = _getElapsedTicks();
+                        while (_currentTick < elapsedTicks) {
+                            _currentTick += 1L;
+                            _processTick(_currentTick);
+                        }
+
+                        Thread.sleep(_tickMs);
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    // Nothing.
+                }
+            }
+        });
+        thread.setName("Request Timeout Scheduler");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread thread, final Throwable exception) {
+                Logger.debug(exception);
+            }
+        });
+        thread.start();
+
+        _thread = thread;
+    }
+
+    public RequestTimeoutScheduler(final Long tickMs, final Integer slotCount) {
+        _tickMs = tickMs;
+        _slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; ++i) {
+            _slots.add(new ConcurrentLinkedQueue<>());
+        }
+        _startTimeMs = _systemTime.getCurrentTimeInMilliSeconds();
+    }
+
+    /**
+     * Runs the runnable once at least delayMs has elapsed, rounded up to the scheduler's tick.
+     */
+    public void schedule(final Long delayMs, final Runnable runnable) {
+        if (_thread == null) {
+            _startThread();
+        }
+
+        final long delayTicks = Math.max(1L, ((delayMs + _tickMs - 1L) / _tickMs));
+        final long deadlineTick = (Math.max(_currentTick, _getElapsedTicks()) + delayTicks);
+        final int slotIndex = (int) (deadlineTick % _slots.size());
+        _slots.get(slotIndex).add(new ScheduledTask(deadlineTick, runnable));
+    }
+}
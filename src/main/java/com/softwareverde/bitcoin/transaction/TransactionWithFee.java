@@ -1,11 +1,20 @@
 package com.softwareverde.bitcoin.transaction;
 
+import com.softwareverde.constable.list.List;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+
 public class TransactionWithFee {
     public final Transaction transaction;
     public final Long transactionFee;
+    public final List<Sha256Hash> scriptHashes; // The script hashes of the outputs spent and created by the Transaction, if known.
 
     public TransactionWithFee(final Transaction transaction, final Long transactionFee) {
+        this(transaction, transactionFee, null);
+    }
+
+    public TransactionWithFee(final Transaction transaction, final Long transactionFee, final List<Sha256Hash> scriptHashes) {
         this.transaction = transaction.asConst();
         this.transactionFee = transactionFee;
+        this.scriptHashes = scriptHashes;
     }
 }
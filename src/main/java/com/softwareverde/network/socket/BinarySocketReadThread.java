@@ -38,18 +38,27 @@ public class BinarySocketReadThread extends Thread implements Socket.ReadThread
             final InputStream inputStream = _inputStream;
 
             while (! thread.isInterrupted()) {
-                final byte[] buffer = _packetBuffer.getRecycledBuffer();
-                final int bytesRead = inputStream.read(buffer);
+                final int bytesRead;
+                if (_packetBuffer.hasPartialMessage()) {
+                    // Large messages are read directly into their final byte array instead of being paged and reassembled...
+                    bytesRead = _packetBuffer.readPartialMessage(inputStream);
+                    if (bytesRead < 0) {
+                        throw new IOException("IO: Remote socket closed the connection.");
+                    }
+                }
+                else {
+                    final byte[] buffer = _packetBuffer.getRecycledBuffer();
+                    bytesRead = inputStream.read(buffer);
+                    if (bytesRead < 0) {
+                        throw new IOException("IO: Remote socket closed the connection.");
+                    }
 
-                if (bytesRead < 0) {
-                    throw new IOException("IO: Remote socket closed the connection.");
+                    _packetBuffer.appendBytes(buffer, bytesRead);
+                    _packetBuffer.evictCorruptedPackets();
                 }
 
                 _totalBytesReceived += bytesRead;
 
-                _packetBuffer.appendBytes(buffer, bytesRead);
-                _packetBuffer.evictCorruptedPackets();
-
                 if (LOG.isTraceEnabled()) {
                     final int byteCount = _packetBuffer.getByteCount();
                     final int bufferPageCount = _packetBuffer.getPageCount();
@@ -68,6 +77,8 @@ public class BinarySocketReadThread extends Thread implements Socket.ReadThread
                         }
                     }
                 }
+
+                _packetBuffer.beginPartialMessage();
             }
         }
         catch (final Exception exception) {
@@ -259,6 +259,11 @@ public class BinarySocketWriteThread extends Thread implements Socket.WriteThrea
         return _totalBytesDroppedCount;
     }
 
+    @Override
+    public Long getQueuedByteCount() {
+        return _queuedMessageBufferByteCount.get();
+    }
+
     @Override
     public synchronized void close() {
         if (_isClosed.get()) { return; }
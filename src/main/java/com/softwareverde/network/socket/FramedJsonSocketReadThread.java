@@ -0,0 +1,143 @@
+package com.softwareverde.network.socket;
+
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.json.Json;
+import com.softwareverde.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads newline-delimited Json messages interleaved with JsonFrameProtocolMessage frames.
+ *  Lines of Json are emitted as JsonProtocolMessages, and frames are emitted as JsonFrameProtocolMessages.
+ *  Unlike JsonSocketReadThread, the stream is read as bytes so that binary payloads are not decoded as characters.
+ */
+public class FramedJsonSocketReadThread extends Thread implements Socket.ReadThread {
+    private InputStream _rawInputStream;
+    private DataInputStream _inputStream;
+    private Callback _callback;
+    private Long _totalBytesReceived = 0L;
+
+    /**
+     * Reads the remainder of a line of Json, beginning with firstByte.
+     *  Returns null if the end of the stream was reached.
+     */
+    protected String _readLine(final DataInputStream inputStream, final int firstByte) throws Exception {
+        final ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+
+        int b = firstByte;
+        while (b != '\n') {
+            if (b < 0) { return null; }
+
+            lineBytes.write(b);
+            b = inputStream.read();
+        }
+
+        final String line = new String(lineBytes.toByteArray(), StandardCharsets.UTF_8);
+        _totalBytesReceived += (lineBytes.size() + 1L);
+        return (line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+    }
+
+    protected JsonFrameProtocolMessage _readFrame(final DataInputStream inputStream) throws Exception {
+        final int headerByteCount = inputStream.readInt();
+        final int payloadByteCount = inputStream.readInt();
+        if ( (headerByteCount < 0) || (headerByteCount > JsonFrameProtocolMessage.MAX_HEADER_BYTE_COUNT) ) {
+            throw new Exception("Invalid frame header byte count: " + headerByteCount);
+        }
+        if ( (payloadByteCount < 0) || (payloadByteCount > JsonFrameProtocolMessage.MAX_PAYLOAD_BYTE_COUNT) ) {
+            throw new Exception("Invalid frame payload byte count: " + payloadByteCount);
+        }
+
+        final byte[] headerBytes = new byte[headerByteCount];
+        inputStream.readFully(headerBytes);
+
+        final byte[] payloadBytes = new byte[payloadByteCount];
+        inputStream.readFully(payloadBytes);
+
+        _totalBytesReceived += (JsonFrameProtocolMessage.FRAME_PREFIX_BYTE_COUNT + headerByteCount + payloadByteCount);
+
+        final Json header = Json.parse(new String(headerBytes, StandardCharsets.UTF_8));
+        return new JsonFrameProtocolMessage(header, MutableByteArray.wrap(payloadBytes));
+    }
+
+    @Override
+    public void run() {
+        final Thread thread = Thread.currentThread();
+        try {
+            final DataInputStream inputStream = _inputStream;
+            while (! thread.isInterrupted()) {
+                final int firstByte = inputStream.read();
+                if (firstByte < 0) { break; }
+
+                final JsonProtocolMessage message;
+                if (((byte) firstByte) == JsonFrameProtocolMessage.FRAME_MARKER) {
+                    message = _readFrame(inputStream);
+                }
+                else {
+                    final String string = _readLine(inputStream, firstByte);
+                    if (string == null) { break; }
+                    if (string.isEmpty()) { continue; }
+                    if (! Json.isJson(string)) { continue; }
+
+                    message = new JsonProtocolMessage(Json.parse(string));
+                }
+
+                if (_callback != null) {
+                    _callback.onNewMessage(message);
+                }
+            }
+        }
+        catch (final Exception exception) {
+            Logger.trace("Exception occurred while reading message: " + exception);
+        }
+        finally {
+            Logger.debug("Closing framed Json socket.");
+            final Callback callback = _callback;
+            if (callback != null) {
+                callback.onExit();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setInputStream(final InputStream inputStream) {
+        final InputStream rawInputStream = _rawInputStream;
+        if (rawInputStream != null) {
+            try {
+                rawInputStream.close();
+            }
+            catch (final Exception exception) { }
+        }
+
+        if (inputStream != null) {
+            _rawInputStream = inputStream;
+            _inputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        }
+    }
+
+    @Override
+    public void setCallback(final Callback callback) {
+        _callback = callback;
+    }
+
+    @Override
+    public Long getTotalBytesReceived() {
+        return _totalBytesReceived;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.interrupt();
+
+        final InputStream rawInputStream = _rawInputStream;
+        if (rawInputStream != null) {
+            try {
+                rawInputStream.close();
+            }
+            catch (final Exception exception) { }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.softwareverde.network.socket;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.json.Json;
+import com.softwareverde.util.ByteUtil;
+import com.softwareverde.util.StringUtil;
+
+/**
+ * A Json message accompanied by a binary payload, sent as a single length-prefixed frame instead of a line of Json.
+ *  Bulk data (i.e. serialized Blocks and Transactions) is sent as the payload rather than as hex within the Json, which
+ *  halves its size and avoids encoding, escaping, and parsing it.
+ *  Frame format:
+ *      [1 byte: FRAME_MARKER] [4 bytes: header byte count] [4 bytes: payload byte count] [header: UTF-8 Json] [payload]
+ *  Byte counts are big-endian.  FRAME_MARKER is not valid UTF-8 and so may never begin a line of Json, which allows frames
+ *  and lines of Json to be interleaved on the same connection (see FramedJsonSocketReadThread).
+ */
+public class JsonFrameProtocolMessage extends JsonProtocolMessage {
+    public static final byte FRAME_MARKER = (byte) 0xFB;
+    public static final Integer FRAME_PREFIX_BYTE_COUNT = (1 + 4 + 4);
+    public static final Integer MAX_HEADER_BYTE_COUNT = (16 * 1024 * 1024);
+    public static final Integer MAX_PAYLOAD_BYTE_COUNT = (256 * 1024 * 1024);
+
+    protected final ByteArray _payload;
+
+    public JsonFrameProtocolMessage(final Json header, final ByteArray payload) {
+        super(header);
+        _payload = payload;
+    }
+
+    public ByteArray getPayload() {
+        return _payload;
+    }
+
+    @Override
+    public ByteArray getBytes() {
+        final byte[] headerBytes = StringUtil.stringToBytes(_message.toString());
+        final int payloadByteCount = _payload.getByteCount();
+
+        final MutableByteArray bytes = new MutableByteArray(FRAME_PREFIX_BYTE_COUNT + headerBytes.length + payloadByteCount);
+        bytes.setByte(0, FRAME_MARKER);
+        bytes.setBytes(1, ByteUtil.integerToBytes(headerBytes.length));
+        bytes.setBytes(5, ByteUtil.integerToBytes(payloadByteCount));
+        bytes.setBytes(FRAME_PREFIX_BYTE_COUNT, headerBytes);
+        bytes.setBytes(FRAME_PREFIX_BYTE_COUNT + headerBytes.length, _payload);
+        return bytes;
+    }
+}
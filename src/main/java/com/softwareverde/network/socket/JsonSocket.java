@@ -1,6 +1,17 @@
 package com.softwareverde.network.socket;
 
 public class JsonSocket extends Socket {
+    /**
+     * Returns a JsonSocket that is able to receive JsonFrameProtocolMessage frames in addition to lines of Json.
+     */
+    public static JsonSocket newFramedJsonSocket(final java.net.Socket socket) {
+        return new JsonSocket(socket, new FramedJsonSocketReadThread());
+    }
+
+    protected JsonSocket(final java.net.Socket socket, final ReadThread readThread) {
+        super(socket, readThread, new JsonSocketWriteThread());
+    }
+
     public JsonSocket(final java.net.Socket socket) {
         super(socket, new JsonSocketReadThread(), new JsonSocketWriteThread());
     }
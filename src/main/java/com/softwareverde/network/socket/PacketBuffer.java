@@ -11,11 +11,20 @@ import com.softwareverde.util.ByteUtil;
 import com.softwareverde.util.HexUtil;
 import com.softwareverde.util.Util;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 public class PacketBuffer extends ByteBuffer {
+    public static final Integer DIRECT_READ_MIN_BYTE_COUNT = (256 * 1024);
+
     protected final ByteArray _reverseEndianMagicNumber;
     protected final ProtocolMessageHeaderInflater _protocolMessageHeaderInflater;
     protected final ProtocolMessageFactory<?> _protocolMessageFactory;
 
+    protected byte[] _partialMessage = null; // Grows towards _partialMessageFullByteCount as the message's bytes arrive.
+    protected int _partialMessageByteCount = 0;
+    protected int _partialMessageFullByteCount = 0;
+
     @Override
     protected boolean _shouldAllowNewBuffer(final byte[] byteBuffer, final int byteCount) {
         final boolean shouldAllowNewBuffer = super._shouldAllowNewBuffer(byteBuffer, byteCount);
@@ -36,6 +45,15 @@ public class PacketBuffer extends ByteBuffer {
         return _protocolMessageHeaderInflater.fromBytes(packetHeader);
     }
 
+    protected ProtocolMessage _inflateMessage(final byte[] fullPacket) {
+        final ProtocolMessage protocolMessage = _protocolMessageFactory.fromBytes(fullPacket);
+        if (protocolMessage == null) {
+            Logger.debug("Error inflating message: " + HexUtil.toHexString(ByteUtil.copyBytes(fullPacket, 0, Math.min(fullPacket.length, 128))) + " (+"+ ( (fullPacket.length > 128) ? (fullPacket.length - 128) : 0 ) +" bytes)");
+        }
+
+        return protocolMessage;
+    }
+
     public PacketBuffer(final BinaryPacketFormat binaryPacketFormat) {
         final ByteArray magicNumber = binaryPacketFormat.getMagicNumber();
         _reverseEndianMagicNumber = magicNumber.toReverseEndian();
@@ -43,7 +61,84 @@ public class PacketBuffer extends ByteBuffer {
         _protocolMessageFactory = binaryPacketFormat.getProtocolMessageFactory();
     }
 
+    /**
+     * Grows the partial message's byte array (doubling it, up to the message's declared size) once it is full, so that
+     *  the memory allocated for a message is proportional to the bytes actually received rather than the size claimed
+     *  by its (untrusted) header.
+     */
+    protected void _growPartialMessage() {
+        final byte[] partialMessage = _partialMessage;
+        if (_partialMessageByteCount < partialMessage.length) { return; }
+        if (partialMessage.length >= _partialMessageFullByteCount) { return; }
+
+        final int newByteCount = (int) Math.min((partialMessage.length * 2L), _partialMessageFullByteCount);
+        final byte[] newPartialMessage = new byte[newByteCount];
+        System.arraycopy(partialMessage, 0, newPartialMessage, 0, _partialMessageByteCount);
+        _partialMessage = newPartialMessage;
+    }
+
+    /**
+     * Once the header of a large message (at least DIRECT_READ_MIN_BYTE_COUNT bytes) is buffered, moves the already-buffered
+     *  bytes into a byte array dedicated to the message.  The remainder of the message should then be read from the socket
+     *  directly into that array via ::readPartialMessage, rather than into pages that are later reassembled.  The array
+     *  starts at DIRECT_READ_MIN_BYTE_COUNT bytes and grows as the message arrives.
+     *  Returns true if a partial message is in progress.
+     */
+    public Boolean beginPartialMessage() {
+        if (_partialMessage != null) { return true; }
+
+        final ProtocolMessageHeader protocolMessageHeader = _peakProtocolHeader();
+        if (protocolMessageHeader == null) { return false; }
+
+        final int headerByteCount = _protocolMessageHeaderInflater.getHeaderByteCount();
+        final int payloadByteCount = protocolMessageHeader.getPayloadByteCount();
+        if (payloadByteCount < 0) { return false; }
+
+        final long fullPacketByteCount = (((long) headerByteCount) + payloadByteCount);
+        if (fullPacketByteCount < DIRECT_READ_MIN_BYTE_COUNT) { return false; }
+        if (_byteCount >= fullPacketByteCount) { return false; } // The message is already fully buffered...
+        if (fullPacketByteCount > Util.coalesce(_protocolMessageHeaderInflater.getMaxPacketByteCount(protocolMessageHeader), Integer.MAX_VALUE)) { return false; } // Oversized packets are dropped by ::popMessage without being allocated...
+
+        final int bufferedByteCount = _byteCount;
+        final int initialByteCount = (int) Math.min(fullPacketByteCount, Math.max(DIRECT_READ_MIN_BYTE_COUNT, bufferedByteCount));
+        final byte[] partialMessage = new byte[initialByteCount];
+        final byte[] bufferedBytes = _consumeContiguousBytes(bufferedByteCount);
+        System.arraycopy(bufferedBytes, 0, partialMessage, 0, bufferedByteCount);
+
+        _partialMessage = partialMessage;
+        _partialMessageByteCount = bufferedByteCount;
+        _partialMessageFullByteCount = (int) fullPacketByteCount;
+        return true;
+    }
+
+    public Boolean hasPartialMessage() {
+        return (_partialMessage != null);
+    }
+
+    /**
+     * Reads the remainder of the partial message from the inputStream directly into the message's byte array.
+     *  Returns the number of bytes read, or -1 if the end of the stream has been reached.
+     */
+    public Integer readPartialMessage(final InputStream inputStream) throws IOException {
+        if (_partialMessage == null) { return 0; }
+
+        _growPartialMessage();
+
+        final byte[] partialMessage = _partialMessage;
+        final int remainingByteCount = (partialMessage.length - _partialMessageByteCount);
+        final int bytesRead = inputStream.read(partialMessage, _partialMessageByteCount, remainingByteCount);
+        if (bytesRead > 0) {
+            _partialMessageByteCount += bytesRead;
+        }
+        return bytesRead;
+    }
+
     public boolean hasMessage() {
+        final byte[] partialMessage = _partialMessage;
+        if (partialMessage != null) {
+            return (_partialMessageByteCount >= _partialMessageFullByteCount);
+        }
+
         final ProtocolMessageHeader protocolMessageHeader = _peakProtocolHeader();
         if (protocolMessageHeader == null) { return false; }
         final int expectedMessageLength = (protocolMessageHeader.getPayloadByteCount() + _protocolMessageHeaderInflater.getHeaderByteCount());
@@ -76,6 +171,16 @@ public class PacketBuffer extends ByteBuffer {
     }
 
     public ProtocolMessage popMessage() {
+        final byte[] partialMessage = _partialMessage;
+        if (partialMessage != null) {
+            if (_partialMessageByteCount < _partialMessageFullByteCount) { return null; }
+
+            _partialMessage = null;
+            _partialMessageByteCount = 0;
+            _partialMessageFullByteCount = 0;
+            return _inflateMessage(partialMessage);
+        }
+
         final ProtocolMessageHeader protocolMessageHeader = _peakProtocolHeader();
         if (protocolMessageHeader == null) { return null; }
 
@@ -96,11 +201,6 @@ public class PacketBuffer extends ByteBuffer {
             return null;
         }
 
-        final ProtocolMessage protocolMessage = _protocolMessageFactory.fromBytes(fullPacket);
-        if (protocolMessage == null) {
-            Logger.debug("Error inflating message: " + HexUtil.toHexString(ByteUtil.copyBytes(fullPacket, 0, Math.min(fullPacket.length, 128))) + " (+"+ ( (fullPacket.length > 128) ? (fullPacket.length - 128) : 0 ) +" bytes)");
-        }
-
-        return protocolMessage;
+        return _inflateMessage(fullPacket);
     }
 }
\ No newline at end of file
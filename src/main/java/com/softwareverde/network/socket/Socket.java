@@ -56,6 +56,7 @@ public abstract class Socket implements AutoCloseable {
 
         Long getTotalBytesWritten();
         Long getTotalBytesDroppedCount();
+        Long getQueuedByteCount();
 
         @Override
         void close();
@@ -232,7 +233,12 @@ public abstract class Socket implements AutoCloseable {
         _socketClosedCallback = callback;
     }
 
-    public Boolean write(final ProtocolMessage outboundMessage) {
+    /**
+     * Queues the message to be written to the socket.
+     *  Writes are synchronized on the Socket, so a caller synchronizing on the Socket may write a sequence of messages
+     *  without other messages being interleaved.
+     */
+    public synchronized Boolean write(final ProtocolMessage outboundMessage) {
         if (_isClosed.get()) { return false; }
 
         _startWriteThreadIfNotStarted();
@@ -302,6 +308,13 @@ public abstract class Socket implements AutoCloseable {
         return _writeThread.getTotalBytesDroppedCount();
     }
 
+    /**
+     * Returns the number of bytes that have been queued via Socket::write but not yet written to the connection.
+     */
+    public Long getQueuedByteCount() {
+        return _writeThread.getQueuedByteCount();
+    }
+
     @Override
     public int hashCode() {
         return (Socket.class.getSimpleName().hashCode() + _id.hashCode());
@@ -0,0 +1,89 @@
+package com.softwareverde.bitcoin.block.merkleroot;
+
+import com.softwareverde.bitcoin.merkleroot.MutableMerkleRoot;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.util.ByteUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MerkleAccumulatorTests {
+    protected static class Item implements Hashable {
+        protected final Sha256Hash _hash;
+
+        public Item(final int value) {
+            _hash = MutableMerkleRoot.wrap(HashUtil.sha256(ByteUtil.integerToBytes(value)));
+        }
+
+        @Override
+        public Sha256Hash getHash() {
+            return _hash;
+        }
+    }
+
+    protected static void _assertMatchesMerkleTree(final MerkleAccumulator merkleAccumulator, final int itemCount) {
+        final MutableMerkleTree<Item> merkleTree = new MerkleTreeNode<>();
+        for (int i = 0; i < itemCount; ++i) {
+            merkleTree.addItem(new Item(i));
+        }
+
+        Assert.assertEquals(merkleTree.getMerkleRoot(), merkleAccumulator.getMerkleRoot(itemCount));
+
+        if (itemCount < 2) { return; }
+        for (int index = 0; index < itemCount; ++index) {
+            Assert.assertEquals(merkleTree.getPartialTree(index), merkleAccumulator.getPartialTree(itemCount, index));
+        }
+    }
+
+    @Test
+    public void should_calculate_the_same_merkle_root_and_partial_trees_as_merkle_tree_for_every_prefix() {
+        // Setup
+        final int itemCount = 70;
+        final MerkleAccumulator merkleAccumulator = new MerkleAccumulator();
+        for (int i = 0; i < itemCount; ++i) {
+            merkleAccumulator.addItem(new Item(i).getHash());
+        }
+
+        // Action / Assert
+        for (int prefixItemCount = 1; prefixItemCount <= itemCount; ++prefixItemCount) {
+            _assertMatchesMerkleTree(merkleAccumulator, prefixItemCount);
+        }
+    }
+
+    @Test
+    public void should_calculate_the_same_merkle_root_after_truncating_and_appending_items() {
+        // Setup
+        final MerkleAccumulator merkleAccumulator = new MerkleAccumulator();
+        for (int i = 0; i < 37; ++i) {
+            merkleAccumulator.addItem(new Item(i).getHash());
+        }
+
+        // Action
+        merkleAccumulator.truncate(21);
+        Assert.assertEquals(21, merkleAccumulator.getItemCount());
+        for (int i = 21; i < 45; ++i) {
+            merkleAccumulator.addItem(new Item(i).getHash());
+        }
+
+        // Assert
+        Assert.assertEquals(45, merkleAccumulator.getItemCount());
+        for (int prefixItemCount = 1; prefixItemCount <= 45; ++prefixItemCount) {
+            _assertMatchesMerkleTree(merkleAccumulator, prefixItemCount);
+        }
+    }
+
+    @Test
+    public void should_return_an_empty_partial_tree_for_a_single_item() {
+        // Setup
+        final Item item = new Item(0);
+        final MerkleAccumulator merkleAccumulator = new MerkleAccumulator();
+        merkleAccumulator.addItem(item.getHash());
+
+        // Action
+        final int partialTreeCount = merkleAccumulator.getPartialTree(1, 0).getCount();
+
+        // Assert
+        Assert.assertEquals(0, partialTreeCount);
+        Assert.assertEquals(item.getHash(), merkleAccumulator.getMerkleRoot(1));
+    }
+}
@@ -0,0 +1,113 @@
+package com.softwareverde.bitcoin.block.thin;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.server.message.type.thin.block.ExtraThinBlockMessage;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.util.HexUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExtraThinBlockAssemblerTests {
+    protected static List<ByteArray> getTransactionShortHashes(final Block block) {
+        final MutableList<ByteArray> transactionShortHashes = new MutableArrayList<>();
+        for (final Transaction transaction : block.getTransactions()) {
+            transactionShortHashes.add(ExtraThinBlockMessage.calculateShortHash(transaction.getHash()));
+        }
+        return transactionShortHashes;
+    }
+
+    @Test
+    public void short_hash_should_be_the_first_eight_little_endian_bytes() {
+        // Setup
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16");
+
+        // Action
+        final ByteArray shortHash = ExtraThinBlockMessage.calculateShortHash(transactionHash);
+
+        // Assert
+        Assert.assertEquals(ByteArray.fromHexString("338530E9831E9E16"), shortHash);
+    }
+
+    @Test
+    public void should_assemble_block_from_memory_pool_and_extra_transactions() {
+        // Setup
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_170));
+        final List<Transaction> transactions = block.getTransactions();
+
+        final ExtraThinBlockAssembler extraThinBlockAssembler = new ExtraThinBlockAssembler();
+
+        // Action
+        final AssembleExtraThinBlockResult assembleExtraThinBlockResult = extraThinBlockAssembler.assembleExtraThinBlock(
+            block,
+            ExtraThinBlockAssemblerTests.getTransactionShortHashes(block),
+            new ImmutableList<>(transactions.get(0)), // The coinbase is always sent by the peer...
+            new ImmutableList<>(transactions.get(1))
+        );
+
+        // Assert
+        Assert.assertTrue(assembleExtraThinBlockResult.wasSuccessful());
+        Assert.assertFalse(assembleExtraThinBlockResult.hasShortHashCollision);
+        Assert.assertEquals(block.getHash(), assembleExtraThinBlockResult.block.getHash());
+    }
+
+    @Test
+    public void should_reassemble_block_after_receiving_missing_transactions() {
+        // Setup
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_170));
+        final List<Transaction> transactions = block.getTransactions();
+        final Transaction missingTransaction = transactions.get(1);
+
+        final ExtraThinBlockAssembler extraThinBlockAssembler = new ExtraThinBlockAssembler();
+        final AssembleExtraThinBlockResult assembleExtraThinBlockResult = extraThinBlockAssembler.assembleExtraThinBlock(
+            block,
+            ExtraThinBlockAssemblerTests.getTransactionShortHashes(block),
+            new ImmutableList<>(transactions.get(0)),
+            new MutableArrayList<Transaction>(0)
+        );
+        Assert.assertFalse(assembleExtraThinBlockResult.wasSuccessful());
+        Assert.assertTrue(assembleExtraThinBlockResult.canBeReassembled());
+        Assert.assertEquals(1, assembleExtraThinBlockResult.missingTransactionShortHashes.getCount());
+        Assert.assertEquals(ExtraThinBlockMessage.calculateShortHash(missingTransaction.getHash()), assembleExtraThinBlockResult.missingTransactionShortHashes.get(0));
+
+        // Action
+        final Block reassembledBlock = extraThinBlockAssembler.reassembleExtraThinBlock(assembleExtraThinBlockResult, new ImmutableList<>(missingTransaction));
+
+        // Assert
+        Assert.assertNotNull(reassembledBlock);
+        Assert.assertEquals(block.getHash(), reassembledBlock.getHash());
+    }
+
+    @Test
+    public void should_not_reassemble_block_with_duplicate_short_hashes() {
+        // Setup
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_170));
+        final List<Transaction> transactions = block.getTransactions();
+        final ByteArray coinbaseShortHash = ExtraThinBlockMessage.calculateShortHash(transactions.get(0).getHash());
+
+        final ExtraThinBlockAssembler extraThinBlockAssembler = new ExtraThinBlockAssembler();
+
+        // Action
+        final AssembleExtraThinBlockResult assembleExtraThinBlockResult = extraThinBlockAssembler.assembleExtraThinBlock(
+            block,
+            new ImmutableList<>(coinbaseShortHash, coinbaseShortHash),
+            new ImmutableList<>(transactions.get(0)),
+            new ImmutableList<>(transactions.get(1))
+        );
+
+        // Assert
+        Assert.assertTrue(assembleExtraThinBlockResult.hasShortHashCollision);
+        Assert.assertFalse(assembleExtraThinBlockResult.wasSuccessful());
+        Assert.assertFalse(assembleExtraThinBlockResult.canBeReassembled());
+    }
+}
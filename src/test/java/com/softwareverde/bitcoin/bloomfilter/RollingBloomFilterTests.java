@@ -0,0 +1,116 @@
+package com.softwareverde.bitcoin.bloomfilter;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RollingBloomFilterTests extends UnitTest {
+    protected static Sha256Hash generateItem(final Long index) {
+        return Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+    }
+
+    protected static int countContainedItems(final RollingBloomFilter rollingBloomFilter, final long firstIndex, final long itemCount) {
+        int containedItemCount = 0;
+        for (long i = firstIndex; i < (firstIndex + itemCount); ++i) {
+            if (rollingBloomFilter.containsItem(RollingBloomFilterTests.generateItem(i))) {
+                containedItemCount += 1;
+            }
+        }
+        return containedItemCount;
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_retain_previous_generation_until_next_rotation() {
+        // Setup
+        final RollingBloomFilter rollingBloomFilter = new RollingBloomFilter(100L, 0.001D); // 50 items per generation.
+
+        // Action
+        for (long i = 0L; i < 100L; ++i) {
+            rollingBloomFilter.addItem(RollingBloomFilterTests.generateItem(i));
+        }
+
+        // Assert
+        Assert.assertEquals(100, RollingBloomFilterTests.countContainedItems(rollingBloomFilter, 0L, 100L));
+    }
+
+    @Test
+    public void should_discard_oldest_generation_on_rotation() {
+        // Setup
+        final RollingBloomFilter rollingBloomFilter = new RollingBloomFilter(100L, 0.001D); // 50 items per generation.
+        for (long i = 0L; i < 100L; ++i) {
+            rollingBloomFilter.addItem(RollingBloomFilterTests.generateItem(i));
+        }
+
+        // Action
+        rollingBloomFilter.addItem(RollingBloomFilterTests.generateItem(100L)); // Rotates the first 50 items out.
+
+        // Assert
+        Assert.assertTrue(RollingBloomFilterTests.countContainedItems(rollingBloomFilter, 0L, 50L) <= 1); // Allow for a false-positive.
+        Assert.assertEquals(51, RollingBloomFilterTests.countContainedItems(rollingBloomFilter, 50L, 51L));
+    }
+
+    @Test
+    public void should_add_item_only_if_absent() {
+        // Setup
+        final RollingBloomFilter rollingBloomFilter = new RollingBloomFilter(100L, 0.001D);
+        final Sha256Hash item = RollingBloomFilterTests.generateItem(0L);
+
+        // Action
+        final Boolean firstWasAdded = rollingBloomFilter.addItemIfAbsent(item);
+        final Boolean secondWasAdded = rollingBloomFilter.addItemIfAbsent(item);
+
+        // Assert
+        Assert.assertTrue(firstWasAdded);
+        Assert.assertFalse(secondWasAdded);
+        Assert.assertTrue(rollingBloomFilter.containsItem(item));
+    }
+
+    @Test
+    public void should_stay_within_false_positive_rate_when_full() {
+        // Setup
+        final long itemCount = 10000L;
+        final double falsePositiveRate = 0.01D;
+        final RollingBloomFilter rollingBloomFilter = new RollingBloomFilter(itemCount, falsePositiveRate);
+        for (long i = 0L; i < itemCount; ++i) {
+            rollingBloomFilter.addItem(RollingBloomFilterTests.generateItem(i));
+        }
+
+        // Action
+        final long testItemCount = 100000L;
+        final int falsePositiveCount = RollingBloomFilterTests.countContainedItems(rollingBloomFilter, itemCount, testItemCount);
+
+        // Assert
+        final double actualFalsePositiveRate = (falsePositiveCount / (double) testItemCount);
+        Assert.assertTrue("falsePositiveRate=" + actualFalsePositiveRate, (actualFalsePositiveRate < (falsePositiveRate * 1.5D)));
+    }
+
+    @Test
+    public void should_forget_all_items_when_cleared() {
+        // Setup
+        final RollingBloomFilter rollingBloomFilter = new RollingBloomFilter(100L, 0.001D);
+        for (long i = 0L; i < 10L; ++i) {
+            rollingBloomFilter.addItem(RollingBloomFilterTests.generateItem(i));
+        }
+
+        // Action
+        rollingBloomFilter.clear();
+
+        // Assert
+        Assert.assertEquals(0, RollingBloomFilterTests.countContainedItems(rollingBloomFilter, 0L, 10L));
+    }
+}
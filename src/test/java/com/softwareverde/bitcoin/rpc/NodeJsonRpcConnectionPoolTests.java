@@ -0,0 +1,188 @@
+package com.softwareverde.bitcoin.rpc;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NodeJsonRpcConnectionPoolTests extends UnitTest {
+    /**
+     * A stub node RPC server that responds successfully to every request while it is responsive.
+     */
+    protected static class StubNodeRpcServer extends Thread {
+        protected final ServerSocket _serverSocket;
+        protected final AtomicInteger _acceptedConnectionCount = new AtomicInteger(0);
+        protected final AtomicInteger _requestCount = new AtomicInteger(0);
+        protected final AtomicBoolean _isResponsive = new AtomicBoolean(true);
+
+        public StubNodeRpcServer() throws Exception {
+            _serverSocket = new ServerSocket(0);
+            this.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (! _serverSocket.isClosed()) {
+                try {
+                    final Socket socket = _serverSocket.accept();
+                    _acceptedConnectionCount.incrementAndGet();
+
+                    final Thread connectionThread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                                final OutputStream outputStream = socket.getOutputStream();
+                                while (reader.readLine() != null) {
+                                    _requestCount.incrementAndGet();
+                                    if (! _isResponsive.get()) { continue; }
+
+                                    outputStream.write("{\"wasSuccess\":1,\"errorMessage\":null}\n".getBytes(StandardCharsets.UTF_8));
+                                    outputStream.flush();
+                                }
+                            }
+                            catch (final Exception exception) { }
+                        }
+                    });
+                    connectionThread.setDaemon(true);
+                    connectionThread.start();
+                }
+                catch (final Exception exception) { }
+            }
+        }
+
+        public Integer getPort() {
+            return _serverSocket.getLocalPort();
+        }
+
+        public Integer getAcceptedConnectionCount() {
+            return _acceptedConnectionCount.get();
+        }
+
+        public Integer getRequestCount() {
+            return _requestCount.get();
+        }
+
+        public void setIsResponsive(final Boolean isResponsive) {
+            _isResponsive.set(isResponsive);
+        }
+
+        public void close() throws Exception {
+            _serverSocket.close();
+        }
+    }
+
+    protected StubNodeRpcServer _stubNodeRpcServer;
+
+    @Override @Before
+    public void before() throws Exception {
+        super.before();
+
+        _stubNodeRpcServer = new StubNodeRpcServer();
+        _stubNodeRpcServer.start();
+    }
+
+    @Override @After
+    public void after() throws Exception {
+        _stubNodeRpcServer.close();
+
+        super.after();
+    }
+
+    @Test
+    public void should_reuse_returned_connection() throws Exception {
+        // Setup
+        final NodeJsonRpcConnectionPool nodeConnectionPool = new NodeJsonRpcConnectionPool("localhost", _stubNodeRpcServer.getPort());
+
+        // Action
+        for (int i = 0; i < 10; ++i) {
+            try (final NodeJsonRpcConnection nodeConnection = nodeConnectionPool.getConnection()) {
+                Assert.assertNotNull(nodeConnection);
+                Assert.assertNotNull(nodeConnection.ping());
+            }
+        }
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), _stubNodeRpcServer.getAcceptedConnectionCount());
+        Assert.assertEquals(Integer.valueOf(1), nodeConnectionPool.getIdleConnectionCount());
+
+        nodeConnectionPool.close();
+    }
+
+    @Test
+    public void should_not_exceed_max_connection_count() throws Exception {
+        // Setup
+        final NodeJsonRpcConnectionPool nodeConnectionPool = new NodeJsonRpcConnectionPool("localhost", _stubNodeRpcServer.getPort(), 4, 10000L, 1);
+
+        // Action
+        final NodeJsonRpcConnection nodeConnection = nodeConnectionPool.getConnection();
+        final NodeJsonRpcConnection secondNodeConnection = nodeConnectionPool.getConnection(); // Times out while the first connection is borrowed...
+        nodeConnection.close();
+        final NodeJsonRpcConnection thirdNodeConnection = nodeConnectionPool.getConnection();
+
+        // Assert
+        Assert.assertNotNull(nodeConnection);
+        Assert.assertNull(secondNodeConnection);
+        Assert.assertNotNull(thirdNodeConnection);
+        Assert.assertEquals(Integer.valueOf(1), _stubNodeRpcServer.getAcceptedConnectionCount());
+
+        thirdNodeConnection.close();
+        nodeConnectionPool.close();
+    }
+
+    @Test
+    public void should_not_ping_recently_returned_connection() throws Exception {
+        // Setup
+        final NodeJsonRpcConnectionPool nodeConnectionPool = new NodeJsonRpcConnectionPool("localhost", _stubNodeRpcServer.getPort());
+        final int connectionSetupRequestCount = 2; // KEEP_ALIVE and BINARY_FRAMING...
+
+        // Action
+        for (int i = 0; i < 10; ++i) {
+            try (final NodeJsonRpcConnection nodeConnection = nodeConnectionPool.getConnection()) {
+                Assert.assertNotNull(nodeConnection.ping());
+            }
+        }
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), _stubNodeRpcServer.getAcceptedConnectionCount());
+        Assert.assertEquals(Integer.valueOf(connectionSetupRequestCount + 10), _stubNodeRpcServer.getRequestCount()); // Only the caller's requests are sent once connected.
+
+        nodeConnectionPool.close();
+    }
+
+    @Test
+    public void should_discard_connection_whose_request_timed_out() throws Exception {
+        // Setup
+        final NodeJsonRpcConnectionPool nodeConnectionPool = new NodeJsonRpcConnectionPool("localhost", _stubNodeRpcServer.getPort());
+
+        final NodeJsonRpcConnection nodeConnection = nodeConnectionPool.getConnection();
+        nodeConnection.setRpcDurationTimeoutMs(250L);
+        _stubNodeRpcServer.setIsResponsive(false);
+
+        // Action
+        final Long timedOutPing = nodeConnection.ping();
+        nodeConnection.close();
+        final Integer idleConnectionCount = nodeConnectionPool.getIdleConnectionCount();
+
+        _stubNodeRpcServer.setIsResponsive(true);
+        final NodeJsonRpcConnection secondNodeConnection = nodeConnectionPool.getConnection();
+
+        // Assert
+        Assert.assertNull(timedOutPing);
+        Assert.assertEquals(Integer.valueOf(0), idleConnectionCount);
+        Assert.assertNotNull(secondNodeConnection.ping());
+        Assert.assertEquals(Integer.valueOf(2), _stubNodeRpcServer.getAcceptedConnectionCount());
+
+        secondNodeConnection.close();
+        nodeConnectionPool.close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.map.mutable.MutableMap;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.util.StringUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AddressHistoryCacheTests extends UnitTest {
+    protected static Sha256Hash generateHash(final Long index) {
+        return Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+    }
+
+    protected static Sha256Hash calculateExpectedStatus(final String statusString) {
+        return Sha256Hash.copyOf(HashUtil.sha256(StringUtil.stringToBytes(statusString)));
+    }
+
+    protected final Sha256Hash _scriptHash = AddressHistoryCacheTests.generateHash(1000L);
+    protected final Sha256Hash _transactionHash0 = AddressHistoryCacheTests.generateHash(0L);
+    protected final Sha256Hash _transactionHash1 = AddressHistoryCacheTests.generateHash(1L);
+    protected final Sha256Hash _transactionHash2 = AddressHistoryCacheTests.generateHash(2L);
+
+    protected AddressHistoryCache _addressHistoryCache;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _addressHistoryCache = new AddressHistoryCache();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_calculate_status_from_sorted_history_with_unconfirmed_heights() {
+        // Setup
+        final List<TransactionPosition> transactionPositions = new ImmutableList<>(
+            new TransactionPosition(100L, 1, false, _transactionHash0),
+            new TransactionPosition(null, null, false, _transactionHash1),
+            new TransactionPosition(null, null, true, _transactionHash2)
+        );
+
+        final String expectedStatusString =
+            _transactionHash0.toString().toLowerCase() + ":100:" +
+            _transactionHash1.toString().toLowerCase() + ":0:" +
+            _transactionHash2.toString().toLowerCase() + ":-1:";
+
+        // Action
+        final Sha256Hash status = AddressHistoryCache.calculateStatus(transactionPositions);
+        final Sha256Hash emptyStatus = AddressHistoryCache.calculateStatus(new ImmutableList<TransactionPosition>());
+
+        // Assert
+        Assert.assertEquals(AddressHistoryCacheTests.calculateExpectedStatus(expectedStatusString), status);
+        Assert.assertNull(emptyStatus);
+    }
+
+    @Test
+    public void should_not_add_transaction_positions_to_uncached_history() {
+        // Action
+        final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.addTransactionPositions(_scriptHash, new ImmutableList<>(new TransactionPosition(null, null, false, _transactionHash0)));
+
+        // Assert
+        Assert.assertNull(addressHistory);
+        Assert.assertTrue(_addressHistoryCache.getScriptHashesContainingTransaction(_transactionHash0).isEmpty());
+    }
+
+    @Test
+    public void should_replace_unconfirmed_position_when_transaction_is_mined() {
+        // Setup
+        final TransactionPosition confirmedTransactionPosition = new TransactionPosition(100L, 1, false, _transactionHash0);
+        final TransactionPosition minedTransactionPosition = new TransactionPosition(101L, 3, false, _transactionHash1);
+        _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(
+            confirmedTransactionPosition,
+            new TransactionPosition(null, null, false, _transactionHash1)
+        ));
+
+        // Action
+        final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.addTransactionPositions(_scriptHash, new ImmutableList<>(minedTransactionPosition));
+
+        // Assert
+        Assert.assertEquals(2, addressHistory.transactionPositions.getCount());
+        Assert.assertEquals(_transactionHash0, addressHistory.transactionPositions.get(0).transactionHash);
+        Assert.assertEquals(Long.valueOf(101L), addressHistory.transactionPositions.get(1).blockHeight);
+        Assert.assertEquals(AddressHistoryCache.calculateStatus(new ImmutableList<>(confirmedTransactionPosition, minedTransactionPosition)), addressHistory.status);
+    }
+
+    @Test
+    public void should_prune_removed_unconfirmed_transactions_and_deindex_them() {
+        // Setup
+        final TransactionPosition confirmedTransactionPosition = new TransactionPosition(100L, 1, false, _transactionHash0);
+        final TransactionPosition unconfirmedTransactionPosition = new TransactionPosition(null, null, false, _transactionHash1);
+        final Sha256Hash initialStatus = _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(confirmedTransactionPosition, unconfirmedTransactionPosition));
+
+        // Action
+        final MutableMap<Sha256Hash, AddressHistoryCache.AddressHistory> addressHistories = _addressHistoryCache.updateTransactionPositions(new ImmutableList<TransactionPosition>(), new ImmutableList<>(_transactionHash1));
+
+        // Assert
+        final AddressHistoryCache.AddressHistory addressHistory = addressHistories.get(_scriptHash);
+        Assert.assertNotNull(addressHistory);
+        Assert.assertEquals(1, addressHistory.transactionPositions.getCount());
+        Assert.assertEquals(_transactionHash0, addressHistory.transactionPositions.get(0).transactionHash);
+        Assert.assertNotEquals(initialStatus, addressHistory.status);
+        Assert.assertEquals(AddressHistoryCache.calculateStatus(new ImmutableList<>(confirmedTransactionPosition)), addressHistory.status);
+
+        Assert.assertTrue(_addressHistoryCache.getScriptHashesContainingTransaction(_transactionHash1).isEmpty());
+        Assert.assertTrue(_addressHistoryCache.getUnconfirmedTransactionPositions().isEmpty());
+    }
+
+    @Test
+    public void should_update_unconfirmed_inputs_once_parent_is_mined() {
+        // Setup
+        final TransactionPosition minedParentTransactionPosition = new TransactionPosition(100L, 1, false, _transactionHash0);
+        final TransactionPosition childTransactionPosition = new TransactionPosition(null, null, true, _transactionHash1);
+        _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(minedParentTransactionPosition, childTransactionPosition));
+
+        final List<TransactionPosition> unconfirmedTransactionPositions = _addressHistoryCache.getUnconfirmedTransactionPositions();
+        final TransactionPosition refreshedChildTransactionPosition = new TransactionPosition(null, null, false, _transactionHash1);
+
+        // Action
+        final MutableMap<Sha256Hash, AddressHistoryCache.AddressHistory> addressHistories = _addressHistoryCache.updateTransactionPositions(new ImmutableList<>(refreshedChildTransactionPosition), new ImmutableList<Sha256Hash>());
+
+        // Assert
+        Assert.assertEquals(1, unconfirmedTransactionPositions.getCount());
+        Assert.assertEquals(_transactionHash1, unconfirmedTransactionPositions.get(0).transactionHash);
+
+        final AddressHistoryCache.AddressHistory addressHistory = addressHistories.get(_scriptHash);
+        Assert.assertFalse(addressHistory.transactionPositions.get(1).hasUnconfirmedInputs);
+        Assert.assertEquals(AddressHistoryCache.calculateStatus(new ImmutableList<>(minedParentTransactionPosition, refreshedChildTransactionPosition)), addressHistory.status);
+        Assert.assertEquals(addressHistory.status, _addressHistoryCache.getAddressHistory(_scriptHash).status);
+    }
+
+    @Test
+    public void should_reject_history_loaded_before_a_newer_write() {
+        // Setup
+        final TransactionPosition staleTransactionPosition = new TransactionPosition(100L, 1, false, _transactionHash0);
+        final TransactionPosition minedTransactionPosition = new TransactionPosition(101L, 1, false, _transactionHash1);
+        _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(staleTransactionPosition));
+
+        final Long version = _addressHistoryCache.getVersion(_scriptHash); // The history is loaded from the node at the old chain tip...
+        final AddressHistoryCache.AddressHistory newAddressHistory = _addressHistoryCache.addTransactionPositions(_scriptHash, new ImmutableList<>(minedTransactionPosition));
+
+        // Action
+        final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(staleTransactionPosition), version);
+
+        // Assert
+        Assert.assertNull(addressHistory);
+        Assert.assertEquals(newAddressHistory.status, _addressHistoryCache.getAddressHistory(_scriptHash).status);
+        Assert.assertEquals(2, _addressHistoryCache.getAddressHistory(_scriptHash).transactionPositions.getCount());
+    }
+
+    @Test
+    public void should_reject_history_loaded_before_the_cache_was_cleared() {
+        // Setup
+        final Long version = _addressHistoryCache.getVersion(_scriptHash);
+        _addressHistoryCache.clear();
+
+        // Action
+        final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(new TransactionPosition(100L, 1, false, _transactionHash0)), version);
+
+        // Assert
+        Assert.assertNull(addressHistory);
+        Assert.assertNull(_addressHistoryCache.getAddressHistory(_scriptHash));
+        Assert.assertTrue(_addressHistoryCache.getScriptHashesContainingTransaction(_transactionHash0).isEmpty());
+    }
+
+    @Test
+    public void should_cache_history_when_version_is_unchanged() {
+        // Setup
+        final TransactionPosition transactionPosition = new TransactionPosition(100L, 1, false, _transactionHash0);
+        final Long version = _addressHistoryCache.getVersion(_scriptHash);
+
+        // Action
+        final AddressHistoryCache.AddressHistory addressHistory = _addressHistoryCache.setTransactionPositions(_scriptHash, new ImmutableList<>(transactionPosition), version);
+
+        // Assert
+        Assert.assertNotNull(addressHistory);
+        Assert.assertEquals(addressHistory.version, _addressHistoryCache.getVersion(_scriptHash));
+        Assert.assertEquals(AddressHistoryCache.calculateStatus(new ImmutableList<>(transactionPosition)), addressHistory.status);
+        Assert.assertEquals(1, _addressHistoryCache.getScriptHashesContainingTransaction(_transactionHash0).getCount());
+    }
+}
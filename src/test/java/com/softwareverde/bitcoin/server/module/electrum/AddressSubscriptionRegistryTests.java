@@ -0,0 +1,244 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.network.socket.JsonSocket;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AddressSubscriptionRegistryTests extends UnitTest {
+    protected static AddressSubscriptionKey createAddressKey(final Long index) {
+        final Sha256Hash scriptHash = Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+        return new AddressSubscriptionKey(scriptHash, scriptHash.toString());
+    }
+
+    protected AddressSubscriptionRegistry _addressSubscriptionRegistry;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _addressSubscriptionRegistry = new AddressSubscriptionRegistry(4);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_index_subscription_by_script_hash_and_share_status() {
+        // Setup
+        final JsonSocket jsonSocket0 = new JsonSocket(new FakeSocket());
+        final JsonSocket jsonSocket1 = new JsonSocket(new FakeSocket());
+        final AddressSubscriptionKey addressKey = AddressSubscriptionRegistryTests.createAddressKey(0L);
+        final Sha256Hash addressStatus = AddressSubscriptionRegistryTests.createAddressKey(100L).scriptHash;
+
+        // Action
+        final Boolean firstWasAdded = _addressSubscriptionRegistry.addSubscription(addressKey, jsonSocket0, null);
+        final Boolean secondWasAdded = _addressSubscriptionRegistry.addSubscription(addressKey, jsonSocket1, addressStatus);
+
+        // Assert
+        Assert.assertTrue(firstWasAdded);
+        Assert.assertTrue(secondWasAdded);
+        Assert.assertTrue(_addressSubscriptionRegistry.isSubscribed(addressKey.scriptHash));
+        Assert.assertEquals(1, _addressSubscriptionRegistry.getScriptHashes().getCount());
+
+        final List<ConnectionAddress> subscriptions = _addressSubscriptionRegistry.getSubscriptions(addressKey.scriptHash);
+        Assert.assertEquals(2, subscriptions.getCount());
+        for (final ConnectionAddress connectionAddress : subscriptions) {
+            Assert.assertEquals(addressStatus, connectionAddress.status);
+        }
+        Assert.assertEquals(addressStatus, _addressSubscriptionRegistry.getCachedStatus(addressKey.scriptHash));
+    }
+
+    @Test
+    public void should_remove_script_hash_once_last_subscription_is_removed() {
+        // Setup
+        final JsonSocket jsonSocket0 = new JsonSocket(new FakeSocket());
+        final JsonSocket jsonSocket1 = new JsonSocket(new FakeSocket());
+        final AddressSubscriptionKey addressKey = AddressSubscriptionRegistryTests.createAddressKey(0L);
+        _addressSubscriptionRegistry.addSubscription(addressKey, jsonSocket0, null);
+        _addressSubscriptionRegistry.addSubscription(addressKey, jsonSocket1, null);
+
+        // Action
+        final Boolean firstWasRemoved = _addressSubscriptionRegistry.removeSubscription(addressKey.scriptHash, jsonSocket0);
+        final Boolean isSubscribedAfterFirstRemoval = _addressSubscriptionRegistry.isSubscribed(addressKey.scriptHash);
+        final Boolean duplicateWasRemoved = _addressSubscriptionRegistry.removeSubscription(addressKey.scriptHash, jsonSocket0);
+        final Boolean secondWasRemoved = _addressSubscriptionRegistry.removeSubscription(addressKey.scriptHash, jsonSocket1);
+
+        // Assert
+        Assert.assertTrue(firstWasRemoved);
+        Assert.assertTrue(isSubscribedAfterFirstRemoval);
+        Assert.assertFalse(duplicateWasRemoved);
+        Assert.assertTrue(secondWasRemoved);
+        Assert.assertFalse(_addressSubscriptionRegistry.isSubscribed(addressKey.scriptHash));
+        Assert.assertFalse(_addressSubscriptionRegistry.hasSubscriptions());
+    }
+
+    @Test
+    public void should_reject_new_subscriptions_beyond_connection_cap() {
+        // Setup
+        final JsonSocket jsonSocket = new JsonSocket(new FakeSocket());
+        for (long i = 0L; i < 4L; ++i) {
+            Assert.assertTrue(_addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(i), jsonSocket, null));
+        }
+
+        // Action
+        final Boolean newWasAdded = _addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(4L), jsonSocket, null);
+        final Boolean existingWasAdded = _addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(0L), jsonSocket, null);
+        final Boolean otherConnectionWasAdded = _addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(4L), new JsonSocket(new FakeSocket()), null);
+
+        // Assert
+        Assert.assertFalse(newWasAdded);
+        Assert.assertTrue(existingWasAdded);
+        Assert.assertTrue(otherConnectionWasAdded);
+        Assert.assertEquals(5, _addressSubscriptionRegistry.getScriptHashes().getCount());
+    }
+
+    @Test
+    public void should_not_exceed_connection_cap_when_subscribing_concurrently() throws Exception {
+        // Setup
+        final JsonSocket jsonSocket = new JsonSocket(new FakeSocket());
+        final int threadCount = 16;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger addedCount = new AtomicInteger(0);
+
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; ++i) {
+            final AddressSubscriptionKey addressKey = AddressSubscriptionRegistryTests.createAddressKey((long) i);
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    }
+                    catch (final InterruptedException exception) { return; }
+
+                    if (_addressSubscriptionRegistry.addSubscription(addressKey, jsonSocket, null)) {
+                        addedCount.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        // Action
+        startLatch.countDown();
+        for (final Thread thread : threads) {
+            thread.join(5000L);
+        }
+
+        // Assert
+        Assert.assertEquals(4, addedCount.get());
+        Assert.assertEquals(4, _addressSubscriptionRegistry.getScriptHashes().getCount());
+    }
+
+    @Test
+    public void should_not_leave_subscriptions_of_connection_removed_while_subscribing() throws Exception {
+        // Setup
+        final AddressSubscriptionRegistry addressSubscriptionRegistry = new AddressSubscriptionRegistry(1024);
+        final int roundCount = 200;
+        final int subscriptionCount = 32;
+
+        for (int round = 0; round < roundCount; ++round) {
+            final JsonSocket jsonSocket = new JsonSocket(new FakeSocket());
+            final CountDownLatch startLatch = new CountDownLatch(1);
+
+            final Thread subscribeThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    }
+                    catch (final InterruptedException exception) { return; }
+
+                    for (int i = 0; i < subscriptionCount; ++i) {
+                        addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey((long) i), jsonSocket, null);
+                    }
+                }
+            });
+            final Thread removeThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    }
+                    catch (final InterruptedException exception) { return; }
+
+                    for (int i = 0; i < subscriptionCount; ++i) {
+                        addressSubscriptionRegistry.removeSubscription(AddressSubscriptionRegistryTests.createAddressKey((long) i).scriptHash, jsonSocket);
+                        if ((i % 8) == 0) {
+                            addressSubscriptionRegistry.removeConnection(jsonSocket);
+                        }
+                    }
+                }
+            });
+            subscribeThread.start();
+            removeThread.start();
+
+            // Action
+            startLatch.countDown();
+            subscribeThread.join(5000L);
+            removeThread.join(5000L);
+            addressSubscriptionRegistry.removeConnection(jsonSocket);
+
+            // Assert
+            Assert.assertFalse(addressSubscriptionRegistry.hasSubscriptions()); // Every script hash subscription is reachable via its connection...
+            Assert.assertTrue(addressSubscriptionRegistry._connectionSubscriptions.isEmpty());
+        }
+    }
+
+    @Test
+    public void should_remove_subscriptions_of_disconnected_connections() {
+        // Setup
+        final JsonSocket connectedSocket = new JsonSocket(new FakeSocket());
+        final JsonSocket disconnectedSocket = new JsonSocket(new FakeSocket());
+        final AddressSubscriptionKey sharedAddressKey = AddressSubscriptionRegistryTests.createAddressKey(0L);
+        final AddressSubscriptionKey exclusiveAddressKey = AddressSubscriptionRegistryTests.createAddressKey(1L);
+
+        _addressSubscriptionRegistry.addSubscription(sharedAddressKey, connectedSocket, null);
+        _addressSubscriptionRegistry.addSubscription(sharedAddressKey, disconnectedSocket, null);
+        _addressSubscriptionRegistry.addSubscription(exclusiveAddressKey, disconnectedSocket, null);
+
+        disconnectedSocket.close();
+
+        // Action
+        final List<Sha256Hash> unsubscribedScriptHashes = _addressSubscriptionRegistry.removeDisconnectedConnections();
+
+        // Assert
+        Assert.assertEquals(1, unsubscribedScriptHashes.getCount());
+        Assert.assertEquals(exclusiveAddressKey.scriptHash, unsubscribedScriptHashes.get(0));
+
+        Assert.assertTrue(_addressSubscriptionRegistry.isSubscribed(sharedAddressKey.scriptHash));
+        Assert.assertFalse(_addressSubscriptionRegistry.isSubscribed(exclusiveAddressKey.scriptHash));
+        Assert.assertEquals(1, _addressSubscriptionRegistry.getSubscriptions(sharedAddressKey.scriptHash).getCount());
+
+        Assert.assertTrue(_addressSubscriptionRegistry.removeConnection(disconnectedSocket).isEmpty());
+    }
+
+    @Test
+    public void should_remove_every_subscription_of_connection() {
+        // Setup
+        final JsonSocket jsonSocket = new JsonSocket(new FakeSocket());
+        _addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(0L), jsonSocket, null);
+        _addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(1L), jsonSocket, null);
+
+        // Action
+        final List<Sha256Hash> unsubscribedScriptHashes = _addressSubscriptionRegistry.removeConnection(jsonSocket);
+
+        // Assert
+        Assert.assertEquals(2, unsubscribedScriptHashes.getCount());
+        Assert.assertFalse(_addressSubscriptionRegistry.hasSubscriptions());
+        Assert.assertTrue(_addressSubscriptionRegistry.addSubscription(AddressSubscriptionRegistryTests.createAddressKey(2L), jsonSocket, null)); // The cap is released.
+    }
+}
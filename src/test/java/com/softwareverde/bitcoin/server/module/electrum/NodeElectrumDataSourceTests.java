@@ -0,0 +1,227 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.address.TypedAddress;
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.module.node.Blockchain;
+import com.softwareverde.bitcoin.server.module.node.BlockchainDataHandler;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryCursor;
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.bitcoin.server.module.node.rpc.NodeRpcHandler;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.MockBlockStore;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.Util;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NodeElectrumDataSourceTests extends UnitTest {
+    protected static class TestBlockchain extends Blockchain {
+        public TestBlockchain(final MockBlockStore blockStore) {
+            super(blockStore);
+        }
+
+        public void addStoredBlock(final Block block) {
+            _writeLock.lock();
+            try {
+                final Long blockHeight = _blockHeights.get(block.getHash());
+                _addBlock(block, blockHeight);
+            }
+            finally {
+                _writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Serves the block data from the Blockchain and MockBlockStore; the transaction index and mempool are replaced by
+     *  _minedTransactionHash and _mempoolTransactionHash.
+     */
+    protected class TestDataHandler extends BlockchainDataHandler {
+        public TestDataHandler(final Blockchain blockchain, final MockBlockStore blockStore) {
+            super(blockchain, blockStore, null, null, null, null, null);
+        }
+
+        @Override
+        public Sha256Hash getTransactionBlockHash(final Sha256Hash transactionHash) {
+            if (! Util.areEqual(_minedTransactionHash, transactionHash)) { return null; }
+            return _blocks.get(1).getHash();
+        }
+
+        @Override
+        public Integer getTransactionBlockIndex(final Sha256Hash transactionHash) {
+            if (! Util.areEqual(_minedTransactionHash, transactionHash)) { return null; }
+            return 0;
+        }
+
+        @Override
+        public Boolean hasUnconfirmedInputs(final Sha256Hash transactionHash) {
+            if (Util.areEqual(_minedTransactionHash, transactionHash)) { return true; } // The inputs of mined transactions are spent.
+            if (Util.areEqual(_mempoolTransactionHash, transactionHash)) { return false; }
+            return null;
+        }
+    }
+
+    protected final MockBlockStore _blockStore = new MockBlockStore();
+    protected final TestBlockchain _blockchain = new TestBlockchain(_blockStore);
+    protected final MutableList<Block> _blocks = new MutableArrayList<>();
+    protected final MutableList<Sha256Hash> _queriedScriptHashes = new MutableArrayList<>();
+
+    protected Sha256Hash _minedTransactionHash;
+    protected final Sha256Hash _mempoolTransactionHash = Sha256Hash.fromHexString("00000000000000000000000000000000000000000000000000000000000000AA");
+
+    protected NodeElectrumDataSource _dataSource;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        final BlockInflater blockInflater = new BlockInflater();
+        for (final String blockData : new String[]{ BlockData.MainChain.GENESIS_BLOCK, BlockData.MainChain.BLOCK_1, BlockData.MainChain.BLOCK_2 }) {
+            final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+            Assert.assertTrue(_blockchain.addBlockHeader(block));
+            _blockchain.addStoredBlock(block);
+            _blocks.add(block);
+        }
+
+        _minedTransactionHash = _blocks.get(1).getCoinbaseTransaction().getHash();
+
+        _dataSource = new NodeElectrumDataSource(new TestDataHandler(_blockchain, _blockStore), new NodeRpcHandler.QueryAddressHandler() {
+            @Override
+            public Long getBalance(final TypedAddress address, final Boolean includeUnconfirmedTransactions) { return null; }
+
+            @Override
+            public Long getBalance(final Sha256Hash scriptHash, final Boolean includeUnconfirmedTransactions) { return null; }
+
+            @Override
+            public List<Transaction> getAddressTransactions(final TypedAddress address) { return null; }
+
+            @Override
+            public List<Transaction> getAddressTransactions(final Sha256Hash scriptHash) { return null; }
+
+            @Override
+            public List<Sha256Hash> getAddressTransactionHashes(final TypedAddress address) { return null; }
+
+            @Override
+            public List<Sha256Hash> getAddressTransactionHashes(final Sha256Hash scriptHash) { return null; }
+
+            @Override
+            public List<AddressHistoryEntry> getAddressHistory(final Sha256Hash scriptHash, final Long fromBlockHeight, final Integer maxTransactionCount) {
+                _queriedScriptHashes.add(scriptHash);
+                return new ImmutableList<>(new AddressHistoryEntry(_minedTransactionHash, 1L, false, null));
+            }
+
+            @Override
+            public AddressHistoryCursor getAddressHistoryCursor(final Sha256Hash scriptHash, final Long fromBlockHeight) { return null; }
+        });
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _dataSource.close();
+
+        super.after();
+    }
+
+    @Test
+    public void should_serve_block_headers_and_transaction_hashes_from_the_blockchain() {
+        // Setup
+        final Block block = _blocks.get(2);
+
+        // Action
+        final Long headBlockHeight = _dataSource.getHeadBlockHeight();
+        final Long blockHeight = _dataSource.getBlockHeight(block.getHash());
+        final List<BlockHeader> blockHeaders = _dataSource.getBlockHeadersAfter(1L, 10);
+        final List<Sha256Hash> blockTransactionHashes = _dataSource.getBlockTransactionHashes(block.getHash());
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(2L), headBlockHeight);
+        Assert.assertEquals(Long.valueOf(2L), blockHeight);
+        Assert.assertEquals(_blocks.get(2).getHash(), _dataSource.getHeadBlockHeader().getHash());
+
+        Assert.assertEquals(2, blockHeaders.getCount());
+        Assert.assertEquals(_blocks.get(1).getHash(), blockHeaders.get(0).getHash());
+        Assert.assertEquals(_blocks.get(2).getHash(), blockHeaders.get(1).getHash());
+
+        Assert.assertEquals(1, blockTransactionHashes.getCount());
+        Assert.assertEquals(block.getCoinbaseTransaction().getHash(), blockTransactionHashes.get(0));
+    }
+
+    @Test
+    public void should_resolve_transaction_positions_from_the_index_and_mempool() {
+        // Setup
+        final Sha256Hash unknownTransactionHash = Sha256Hash.fromHexString("00000000000000000000000000000000000000000000000000000000000000BB");
+
+        // Action
+        final TransactionPosition minedTransactionPosition = _dataSource.getTransactionPosition(_minedTransactionHash);
+        final TransactionPosition mempoolTransactionPosition = _dataSource.getTransactionPosition(_mempoolTransactionHash);
+        final TransactionPosition unknownTransactionPosition = _dataSource.getTransactionPosition(unknownTransactionHash);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(1L), minedTransactionPosition.blockHeight);
+        Assert.assertEquals(Integer.valueOf(0), minedTransactionPosition.transactionIndex);
+
+        Assert.assertTrue(mempoolTransactionPosition.isUnconfirmedTransaction());
+        Assert.assertFalse(mempoolTransactionPosition.hasUnconfirmedInputs);
+
+        Assert.assertNull(unknownTransactionPosition);
+    }
+
+    @Test
+    public void should_query_address_history_from_the_address_index() {
+        // Setup
+        final Sha256Hash scriptHash = Sha256Hash.fromHexString("00000000000000000000000000000000000000000000000000000000000000CC");
+
+        // Action
+        final List<AddressHistoryEntry> addressHistory = _dataSource.getAddressHistory(scriptHash, 0L, 1000);
+
+        // Assert
+        Assert.assertEquals(1, _queriedScriptHashes.getCount());
+        Assert.assertEquals(scriptHash, _queriedScriptHashes.get(0));
+        Assert.assertEquals(1, addressHistory.getCount());
+        Assert.assertEquals(_minedTransactionHash, addressHistory.get(0).transactionHash);
+    }
+
+    @Test
+    public void should_forward_node_announcements_until_closed() {
+        // Setup
+        final MutableList<BlockHeader> announcedBlockHeaders = new MutableArrayList<>();
+        final MutableList<Transaction> announcedTransactions = new MutableArrayList<>();
+        _dataSource.subscribeToAnnouncements(new ElectrumDataSource.AnnouncementCallback() {
+            @Override
+            public void onNewBlockHeader(final BlockHeader blockHeader) {
+                announcedBlockHeaders.add(blockHeader);
+            }
+
+            @Override
+            public void onNewTransaction(final Transaction transaction, final Long fee, final List<Sha256Hash> scriptHashes) {
+                announcedTransactions.add(transaction);
+            }
+        });
+
+        final Transaction transaction = _blocks.get(1).getCoinbaseTransaction();
+
+        // Action
+        _dataSource.onNewBlockHeader(_blocks.get(2));
+        _dataSource.onNewTransaction(new TransactionWithFee(transaction, 0L));
+        _dataSource.close();
+        _dataSource.onNewBlockHeader(_blocks.get(1));
+
+        // Assert
+        Assert.assertEquals(1, announcedBlockHeaders.getCount());
+        Assert.assertEquals(_blocks.get(2).getHash(), announcedBlockHeaders.get(0).getHash());
+        Assert.assertEquals(1, announcedTransactions.getCount());
+        Assert.assertEquals(transaction.getHash(), announcedTransactions.get(0).getHash());
+    }
+}
@@ -0,0 +1,173 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.server.module.electrum.json.ElectrumJsonArrayStreamWriter;
+import com.softwareverde.bitcoin.server.module.electrum.json.ElectrumJsonProtocolMessage;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.StringUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StreamedResponseGateTests extends UnitTest {
+    protected static Json createResponse(final Integer requestId) {
+        final Json json = new Json(false);
+        json.put("jsonrpc", "2.0");
+        json.put("id", requestId);
+        json.put("result", "pong");
+        return json;
+    }
+
+    protected static Json createHistoryItem(final Integer index) {
+        final Json json = new Json(false);
+        json.put("tx_hash", "hash" + index);
+        json.put("height", index);
+        return json;
+    }
+
+    protected FakeSocket _fakeSocket;
+    protected JsonSocket _jsonSocket;
+    protected StreamedResponseGate _streamedResponseGate;
+
+    protected String[] _getWrittenLines() {
+        _jsonSocket.flush();
+        return StringUtil.bytesToString(_fakeSocket.outputStream.toByteArray()).trim().split("\n");
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _fakeSocket = new FakeSocket();
+        _jsonSocket = new JsonSocket(_fakeSocket);
+        _streamedResponseGate = new StreamedResponseGate();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _jsonSocket.close();
+
+        super.after();
+    }
+
+    @Test
+    public void should_write_response_of_concurrent_request_after_streamed_response() throws Exception {
+        // Setup
+        final ElectrumJsonArrayStreamWriter streamWriter = new ElectrumJsonArrayStreamWriter(_jsonSocket, 1);
+
+        // Action
+        Assert.assertTrue(_streamedResponseGate.beginStreamedResponse(_jsonSocket));
+        streamWriter.begin();
+        streamWriter.add(StreamedResponseGateTests.createHistoryItem(0));
+        streamWriter.flush();
+
+        final Thread requestThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _streamedResponseGate.write(_jsonSocket, new ElectrumJsonProtocolMessage(StreamedResponseGateTests.createResponse(2)));
+            }
+        });
+        requestThread.start();
+        requestThread.join(); // The concurrent request's response is written while the history is between pages...
+
+        streamWriter.add(StreamedResponseGateTests.createHistoryItem(1));
+        streamWriter.flush();
+        streamWriter.end();
+        _streamedResponseGate.endStreamedResponse(_jsonSocket);
+
+        // Assert
+        final String[] writtenLines = _getWrittenLines();
+        Assert.assertEquals(2, writtenLines.length);
+
+        final Json historyJson = Json.parse(writtenLines[0]);
+        Assert.assertEquals(Integer.valueOf(1), historyJson.getInteger("id"));
+        Assert.assertEquals(2, historyJson.get("result").length());
+
+        final Json responseJson = Json.parse(writtenLines[1]);
+        Assert.assertEquals(Integer.valueOf(2), responseJson.getInteger("id"));
+        Assert.assertFalse(_streamedResponseGate.hasStreamedResponse(_jsonSocket));
+    }
+
+    @Test
+    public void should_write_immediately_without_streamed_response() {
+        // Action
+        final Boolean wasWritten = _streamedResponseGate.write(_jsonSocket, new ElectrumJsonProtocolMessage(StreamedResponseGateTests.createResponse(1)));
+
+        // Assert
+        Assert.assertTrue(wasWritten);
+        final String[] writtenLines = _getWrittenLines();
+        Assert.assertEquals(1, writtenLines.length);
+        Assert.assertEquals(Integer.valueOf(1), Json.parse(writtenLines[0]).getInteger("id"));
+    }
+
+    @Test
+    public void should_wait_for_open_streamed_response_before_beginning_another() throws Exception {
+        // Setup
+        final CountDownLatch secondStreamBegan = new CountDownLatch(1);
+        final AtomicBoolean secondStreamWasOpened = new AtomicBoolean(false);
+
+        Assert.assertTrue(_streamedResponseGate.beginStreamedResponse(_jsonSocket));
+        final ElectrumJsonArrayStreamWriter firstStreamWriter = new ElectrumJsonArrayStreamWriter(_jsonSocket, 1);
+        firstStreamWriter.begin();
+        firstStreamWriter.add(StreamedResponseGateTests.createHistoryItem(0));
+        firstStreamWriter.flush();
+
+        final Thread secondRequestThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Boolean wasOpened = _streamedResponseGate.beginStreamedResponse(_jsonSocket);
+                secondStreamWasOpened.set(wasOpened);
+                secondStreamBegan.countDown();
+                if (! wasOpened) { return; }
+
+                final ElectrumJsonArrayStreamWriter secondStreamWriter = new ElectrumJsonArrayStreamWriter(_jsonSocket, 2);
+                secondStreamWriter.begin();
+                secondStreamWriter.add(StreamedResponseGateTests.createHistoryItem(10));
+                secondStreamWriter.end();
+                _streamedResponseGate.endStreamedResponse(_jsonSocket);
+            }
+        });
+
+        // Action
+        secondRequestThread.start();
+        final Boolean secondStreamBeganEarly = secondStreamBegan.await(250L, TimeUnit.MILLISECONDS);
+
+        _streamedResponseGate.write(_jsonSocket, new ElectrumJsonProtocolMessage(StreamedResponseGateTests.createResponse(3)));
+        firstStreamWriter.add(StreamedResponseGateTests.createHistoryItem(1));
+        firstStreamWriter.end();
+        _streamedResponseGate.endStreamedResponse(_jsonSocket);
+
+        secondRequestThread.join(5000L);
+
+        // Assert
+        Assert.assertFalse(secondStreamBeganEarly);
+        Assert.assertTrue(secondStreamWasOpened.get());
+
+        final String[] writtenLines = _getWrittenLines();
+        Assert.assertEquals(3, writtenLines.length);
+        Assert.assertEquals(Integer.valueOf(1), Json.parse(writtenLines[0]).getInteger("id"));
+        Assert.assertEquals(2, Json.parse(writtenLines[0]).get("result").length());
+        Assert.assertEquals(Integer.valueOf(3), Json.parse(writtenLines[1]).getInteger("id")); // The deferred response is written before the next stream begins.
+        Assert.assertEquals(Integer.valueOf(2), Json.parse(writtenLines[2]).getInteger("id"));
+    }
+
+    @Test
+    public void should_not_begin_streamed_response_once_connection_is_closed() {
+        // Setup
+        Assert.assertTrue(_streamedResponseGate.beginStreamedResponse(_jsonSocket));
+        _jsonSocket.close();
+
+        // Action
+        final Boolean wasOpened = _streamedResponseGate.beginStreamedResponse(_jsonSocket);
+
+        // Assert
+        Assert.assertFalse(wasOpened);
+    }
+}
@@ -0,0 +1,103 @@
+package com.softwareverde.bitcoin.server.module.electrum;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionPositionCacheTests extends UnitTest {
+    protected static Sha256Hash generateHash(final Long index) {
+        return Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+    }
+
+    protected final Sha256Hash _transactionHash0 = TransactionPositionCacheTests.generateHash(0L);
+    protected final Sha256Hash _transactionHash1 = TransactionPositionCacheTests.generateHash(1L);
+    protected final Sha256Hash _transactionHash2 = TransactionPositionCacheTests.generateHash(2L);
+    protected final Sha256Hash _transactionHash3 = TransactionPositionCacheTests.generateHash(3L);
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_evict_least_recently_used_entry_beyond_max_item_count() {
+        // Setup
+        final TransactionPositionCache transactionPositionCache = new TransactionPositionCache(2);
+        transactionPositionCache.put(new TransactionPosition(100L, 1, false, _transactionHash0));
+        transactionPositionCache.put(new TransactionPosition(null, null, false, _transactionHash1));
+        transactionPositionCache.get(_transactionHash0); // Marks the first entry as recently used.
+
+        // Action
+        transactionPositionCache.put(new TransactionPosition(101L, 1, false, _transactionHash2));
+
+        // Assert
+        Assert.assertEquals(2, transactionPositionCache.getCount());
+        Assert.assertNotNull(transactionPositionCache.get(_transactionHash0));
+        Assert.assertNull(transactionPositionCache.get(_transactionHash1));
+        Assert.assertNotNull(transactionPositionCache.get(_transactionHash2));
+        Assert.assertEquals(0, transactionPositionCache.getUnconfirmedCount()); // The evicted entry is also removed from the unconfirmed index.
+    }
+
+    @Test
+    public void should_update_mined_entries_and_remove_entries_with_unconfirmed_inputs_on_block_mined() {
+        // Setup
+        final TransactionPositionCache transactionPositionCache = new TransactionPositionCache(16);
+        transactionPositionCache.put(new TransactionPosition(100L, 1, false, _transactionHash0));
+        transactionPositionCache.put(new TransactionPosition(null, null, false, _transactionHash1));
+        transactionPositionCache.put(new TransactionPosition(null, null, true, _transactionHash2));
+        transactionPositionCache.put(new TransactionPosition(null, null, false, _transactionHash3));
+        final int unconfirmedCountBeforeBlock = transactionPositionCache.getUnconfirmedCount();
+
+        final Sha256Hash coinbaseTransactionHash = TransactionPositionCacheTests.generateHash(100L);
+
+        // Action
+        transactionPositionCache.onBlockMined(101L, new ImmutableList<>(coinbaseTransactionHash, _transactionHash1));
+
+        // Assert
+        Assert.assertEquals(3, unconfirmedCountBeforeBlock);
+
+        final TransactionPosition minedTransactionPosition = transactionPositionCache.get(_transactionHash1);
+        Assert.assertEquals(Long.valueOf(101L), minedTransactionPosition.blockHeight);
+        Assert.assertEquals(Integer.valueOf(1), minedTransactionPosition.transactionIndex);
+
+        Assert.assertNull(transactionPositionCache.get(_transactionHash2)); // Its inputs may have been mined by the block.
+        Assert.assertTrue(transactionPositionCache.get(_transactionHash3).isUnconfirmedTransaction());
+        Assert.assertEquals(Long.valueOf(100L), transactionPositionCache.get(_transactionHash0).blockHeight);
+        Assert.assertNull(transactionPositionCache.get(coinbaseTransactionHash)); // Uncached transactions are not added.
+
+        Assert.assertEquals(3, transactionPositionCache.getCount());
+        Assert.assertEquals(1, transactionPositionCache.getUnconfirmedCount());
+    }
+
+    @Test
+    public void should_remove_entries_at_or_above_fork_height_and_unconfirmed_entries_on_rollback() {
+        // Setup
+        final TransactionPositionCache transactionPositionCache = new TransactionPositionCache(16);
+        transactionPositionCache.put(new TransactionPosition(99L, 1, false, _transactionHash0));
+        transactionPositionCache.put(new TransactionPosition(100L, 1, false, _transactionHash1));
+        transactionPositionCache.put(new TransactionPosition(101L, 1, false, _transactionHash2));
+        transactionPositionCache.put(new TransactionPosition(null, null, false, _transactionHash3));
+
+        // Action
+        transactionPositionCache.rollback(100L);
+
+        // Assert
+        Assert.assertNotNull(transactionPositionCache.get(_transactionHash0));
+        Assert.assertNull(transactionPositionCache.get(_transactionHash1));
+        Assert.assertNull(transactionPositionCache.get(_transactionHash2));
+        Assert.assertNull(transactionPositionCache.get(_transactionHash3));
+        Assert.assertEquals(1, transactionPositionCache.getCount());
+        Assert.assertEquals(0, transactionPositionCache.getUnconfirmedCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.softwareverde.bitcoin.server.module.electrum.json;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.StringUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ElectrumJsonArrayStreamWriterTests extends UnitTest {
+    protected static Json createItem(final Integer index) {
+        final Json json = new Json(false);
+        json.put("tx_hash", "hash" + index);
+        json.put("height", index);
+        return json;
+    }
+
+    protected FakeSocket _fakeSocket;
+    protected JsonSocket _jsonSocket;
+
+    protected String _getWrittenString() {
+        return StringUtil.bytesToString(_fakeSocket.outputStream.toByteArray());
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _fakeSocket = new FakeSocket();
+        _jsonSocket = new JsonSocket(_fakeSocket);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _jsonSocket.close();
+
+        super.after();
+    }
+
+    @Test
+    public void should_write_items_flushed_across_pages_as_a_single_response() {
+        // Setup
+        final ElectrumJsonArrayStreamWriter streamWriter = new ElectrumJsonArrayStreamWriter(_jsonSocket, 7);
+
+        // Action
+        streamWriter.begin();
+        streamWriter.add(ElectrumJsonArrayStreamWriterTests.createItem(0));
+        streamWriter.add(ElectrumJsonArrayStreamWriterTests.createItem(1));
+        streamWriter.flush();
+        final String firstPageString = _getWrittenString();
+
+        streamWriter.add(ElectrumJsonArrayStreamWriterTests.createItem(2));
+        streamWriter.flush();
+        streamWriter.end();
+
+        // Assert
+        Assert.assertTrue(firstPageString.startsWith("{\"jsonrpc\":\"2.0\",\"id\":7,\"result\":["));
+        Assert.assertFalse(firstPageString.contains("hash2")); // Only the flushed items have been written...
+
+        final String responseString = _getWrittenString();
+        Assert.assertTrue(responseString.endsWith("]}\n"));
+        Assert.assertEquals(1, responseString.split("\n").length);
+
+        final Json responseJson = Json.parse(responseString.trim());
+        Assert.assertEquals(Integer.valueOf(7), responseJson.getInteger("id"));
+
+        final Json resultJson = responseJson.get("result");
+        Assert.assertEquals(3, resultJson.length());
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(("hash" + i), resultJson.get(i).getString("tx_hash"));
+        }
+        Assert.assertEquals(3, streamWriter.getItemCount());
+    }
+
+    @Test
+    public void should_write_empty_result_with_string_request_id() {
+        // Setup
+        final ElectrumJsonArrayStreamWriter streamWriter = new ElectrumJsonArrayStreamWriter(_jsonSocket, "request-1");
+
+        // Action
+        streamWriter.begin();
+        streamWriter.flush();
+        streamWriter.end();
+
+        // Assert
+        final Json responseJson = Json.parse(_getWrittenString().trim());
+        Assert.assertEquals("request-1", responseJson.getString("id"));
+        Assert.assertEquals(0, responseJson.get("result").length());
+        Assert.assertEquals(0, streamWriter.getItemCount());
+    }
+}
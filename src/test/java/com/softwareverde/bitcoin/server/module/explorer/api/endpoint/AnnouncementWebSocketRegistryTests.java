@@ -0,0 +1,183 @@
+package com.softwareverde.bitcoin.server.module.explorer.api.endpoint;
+
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.address.AddressInflater;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.cryptography.secp256k1.key.PrivateKey;
+import com.softwareverde.util.Util;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnnouncementWebSocketRegistryTests extends UnitTest {
+    /**
+     * An AnnouncementWebSocketConfiguration without a WebSocket; the registry identifies it by its webSocketId.
+     */
+    protected static class TestWebSocketConfiguration extends AnnouncementWebSocketConfiguration {
+        public final Long webSocketId;
+
+        public TestWebSocketConfiguration(final Long webSocketId, final List<Address> addresses) {
+            super(null);
+            this.webSocketId = webSocketId;
+            this.addresses = addresses;
+        }
+    }
+
+    protected static class TestWebSocketRegistry extends AnnouncementWebSocketRegistry {
+        @Override
+        protected Long _getWebSocketId(final AnnouncementWebSocketConfiguration webSocketConfiguration) {
+            return ((TestWebSocketConfiguration) webSocketConfiguration).webSocketId;
+        }
+    }
+
+    protected static Boolean containsWebSocket(final List<AnnouncementWebSocketConfiguration> webSocketConfigurations, final Long webSocketId) {
+        for (final AnnouncementWebSocketConfiguration webSocketConfiguration : webSocketConfigurations) {
+            if (Util.areEqual(webSocketId, ((TestWebSocketConfiguration) webSocketConfiguration).webSocketId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected final AddressInflater _addressInflater = new AddressInflater();
+    protected TestWebSocketRegistry _webSocketRegistry;
+    protected Address _address0;
+    protected Address _address1;
+    protected Address _address2;
+    protected Address _address3;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _webSocketRegistry = new TestWebSocketRegistry();
+        _address0 = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+        _address1 = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+        _address2 = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+        _address3 = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_index_registered_web_sockets_by_filter() {
+        // Setup
+        final TestWebSocketConfiguration unfilteredWebSocket = new TestWebSocketConfiguration(1L, null);
+        final TestWebSocketConfiguration addressFilteredWebSocket = new TestWebSocketConfiguration(2L, new ImmutableList<>(_address0, _address1));
+        final TestWebSocketConfiguration bloomFilteredWebSocket = new TestWebSocketConfiguration(3L, new ImmutableList<>(_address2));
+        bloomFilteredWebSocket.bloomFilter = MutableBloomFilter.newInstance(128L, 0.01D, 0L);
+
+        // Action
+        _webSocketRegistry.add(unfilteredWebSocket);
+        _webSocketRegistry.add(addressFilteredWebSocket);
+        _webSocketRegistry.add(bloomFilteredWebSocket);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(3), _webSocketRegistry.getCount());
+        Assert.assertEquals(3, _webSocketRegistry.getWebSockets().getCount());
+
+        final List<AnnouncementWebSocketConfiguration> unfilteredWebSockets = _webSocketRegistry.getUnfilteredWebSockets();
+        Assert.assertEquals(1, unfilteredWebSockets.getCount());
+        Assert.assertTrue(AnnouncementWebSocketRegistryTests.containsWebSocket(unfilteredWebSockets, 1L));
+
+        final List<AnnouncementWebSocketConfiguration> bloomFilteredWebSockets = _webSocketRegistry.getBloomFilteredWebSockets();
+        Assert.assertEquals(1, bloomFilteredWebSockets.getCount());
+        Assert.assertTrue(AnnouncementWebSocketRegistryTests.containsWebSocket(bloomFilteredWebSockets, 3L));
+
+        final List<AnnouncementWebSocketConfiguration> address1WebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address1));
+        Assert.assertEquals(1, address1WebSockets.getCount());
+        Assert.assertTrue(AnnouncementWebSocketRegistryTests.containsWebSocket(address1WebSockets, 2L));
+    }
+
+    @Test
+    public void should_remove_web_socket_from_every_index() {
+        // Setup
+        final TestWebSocketConfiguration unfilteredWebSocket = new TestWebSocketConfiguration(1L, null);
+        final TestWebSocketConfiguration addressFilteredWebSocket = new TestWebSocketConfiguration(2L, new ImmutableList<>(_address0, _address1));
+        addressFilteredWebSocket.bloomFilter = MutableBloomFilter.newInstance(128L, 0.01D, 0L);
+        _webSocketRegistry.add(unfilteredWebSocket);
+        _webSocketRegistry.add(addressFilteredWebSocket);
+
+        // Action
+        final AnnouncementWebSocketConfiguration removedWebSocket = _webSocketRegistry.remove(2L);
+        final AnnouncementWebSocketConfiguration removedAgainWebSocket = _webSocketRegistry.remove(2L);
+        _webSocketRegistry.remove(1L);
+
+        // Assert
+        Assert.assertEquals(addressFilteredWebSocket, removedWebSocket);
+        Assert.assertNull(removedAgainWebSocket);
+        Assert.assertEquals(Integer.valueOf(0), _webSocketRegistry.getCount());
+        Assert.assertTrue(_webSocketRegistry.getUnfilteredWebSockets().isEmpty());
+        Assert.assertTrue(_webSocketRegistry.getBloomFilteredWebSockets().isEmpty());
+        Assert.assertTrue(_webSocketRegistry.getWebSockets(new ImmutableList<>(_address0, _address1)).isEmpty());
+        Assert.assertTrue(_webSocketRegistry._addressWebSockets.isEmpty()); // Emptied address entries are pruned.
+    }
+
+    @Test
+    public void should_route_addresses_to_each_subscribed_web_socket_once() {
+        // Setup
+        _webSocketRegistry.add(new TestWebSocketConfiguration(1L, null));
+        _webSocketRegistry.add(new TestWebSocketConfiguration(2L, new ImmutableList<>(_address0, _address1)));
+        _webSocketRegistry.add(new TestWebSocketConfiguration(3L, new ImmutableList<>(_address1)));
+        _webSocketRegistry.add(new TestWebSocketConfiguration(4L, new ImmutableList<>(_address2)));
+
+        // Action
+        final List<AnnouncementWebSocketConfiguration> transactionWebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address0, _address1, _address1));
+        final List<AnnouncementWebSocketConfiguration> unsubscribedWebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address3));
+
+        // Assert
+        Assert.assertEquals(2, transactionWebSockets.getCount());
+        Assert.assertTrue(AnnouncementWebSocketRegistryTests.containsWebSocket(transactionWebSockets, 2L));
+        Assert.assertTrue(AnnouncementWebSocketRegistryTests.containsWebSocket(transactionWebSockets, 3L));
+        Assert.assertFalse(AnnouncementWebSocketRegistryTests.containsWebSocket(transactionWebSockets, 1L)); // Unfiltered WebSockets are routed separately.
+
+        Assert.assertTrue(unsubscribedWebSockets.isEmpty());
+    }
+
+    @Test
+    public void should_reindex_web_socket_when_its_addresses_are_replaced() {
+        // Setup
+        final TestWebSocketConfiguration webSocketConfiguration = new TestWebSocketConfiguration(1L, new ImmutableList<>(_address0));
+        _webSocketRegistry.add(webSocketConfiguration);
+
+        // Action
+        _webSocketRegistry.setAddresses(webSocketConfiguration, new ImmutableList<>(_address1));
+        final List<AnnouncementWebSocketConfiguration> address0WebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address0));
+        final List<AnnouncementWebSocketConfiguration> address1WebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address1));
+
+        _webSocketRegistry.setAddresses(webSocketConfiguration, null);
+        final List<AnnouncementWebSocketConfiguration> unfilteredAddress1WebSockets = _webSocketRegistry.getWebSockets(new ImmutableList<>(_address1));
+
+        // Assert
+        Assert.assertTrue(address0WebSockets.isEmpty());
+        Assert.assertEquals(1, address1WebSockets.getCount());
+
+        Assert.assertTrue(unfilteredAddress1WebSockets.isEmpty());
+        Assert.assertNull(webSocketConfiguration.addresses);
+        Assert.assertEquals(1, _webSocketRegistry.getUnfilteredWebSockets().getCount());
+    }
+
+    @Test
+    public void should_not_index_filters_of_unregistered_web_socket() {
+        // Setup
+        final TestWebSocketConfiguration webSocketConfiguration = new TestWebSocketConfiguration(1L, null);
+        final MutableBloomFilter bloomFilter = MutableBloomFilter.newInstance(128L, 0.01D, 0L);
+
+        // Action
+        _webSocketRegistry.setAddresses(webSocketConfiguration, new ImmutableList<>(_address0));
+        _webSocketRegistry.setBloomFilter(webSocketConfiguration, bloomFilter);
+
+        // Assert
+        Assert.assertEquals(_address0, webSocketConfiguration.addresses.get(0));
+        Assert.assertEquals(bloomFilter, webSocketConfiguration.bloomFilter);
+        Assert.assertTrue(_webSocketRegistry.getWebSockets(new ImmutableList<>(_address0)).isEmpty());
+        Assert.assertTrue(_webSocketRegistry.getBloomFilteredWebSockets().isEmpty());
+    }
+}
@@ -0,0 +1,272 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.constable.map.mutable.ConcurrentMutableHashMap;
+import com.softwareverde.util.HexUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BlockIndexingQueueTests extends UnitTest {
+    protected static Block inflateBlock(final String blockData) {
+        final BlockInflater blockInflater = new BlockInflater();
+        return blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+    }
+
+    protected static void waitForIndexedBlockHeight(final BlockIndexingQueue blockIndexingQueue, final Long blockHeight) throws Exception {
+        final long startTimeMs = System.currentTimeMillis();
+        while (blockIndexingQueue.getIndexedBlockHeight() < blockHeight) {
+            if ((System.currentTimeMillis() - startTimeMs) > 5000L) { break; }
+            Thread.sleep(10L);
+        }
+    }
+
+    protected final MutableList<Long> _indexedBlockHeights = new MutableArrayList<>();
+    protected final ConcurrentMutableHashMap<Long, Block> _storedBlocks = new ConcurrentMutableHashMap<>();
+    protected final MutableList<Long> _loadedBlockHeights = new MutableArrayList<>();
+
+    protected BlockIndexingQueue _blockIndexingQueue;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _blockIndexingQueue = new BlockIndexingQueue(new BlockIndexingQueue.BlockIndexer() {
+            @Override
+            public void indexBlock(final Block block, final Long blockHeight) {
+                synchronized (_indexedBlockHeights) {
+                    _indexedBlockHeights.add(blockHeight);
+                }
+            }
+        }, new BlockIndexingQueue.BlockLoader() {
+            @Override
+            public Block loadBlock(final Long blockHeight) {
+                final Block block = _storedBlocks.get(blockHeight);
+                if (block != null) {
+                    synchronized (_loadedBlockHeights) {
+                        _loadedBlockHeights.add(blockHeight);
+                    }
+                }
+                return block;
+            }
+        });
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _blockIndexingQueue.stop();
+
+        super.after();
+    }
+
+    @Test
+    public void should_index_offered_blocks_in_order_from_memory() throws Exception {
+        // Setup
+        _blockIndexingQueue.start(0L);
+
+        // Action
+        _blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_1), 1L);
+        _blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_2), 2L);
+        _blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_3), 3L);
+        BlockIndexingQueueTests.waitForIndexedBlockHeight(_blockIndexingQueue, 3L);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(3L), _blockIndexingQueue.getIndexedBlockHeight());
+        Assert.assertEquals(Integer.valueOf(0), _blockIndexingQueue.getQueuedBlockCount());
+        synchronized (_indexedBlockHeights) {
+            Assert.assertEquals(3, _indexedBlockHeights.getCount());
+            Assert.assertEquals(Long.valueOf(1L), _indexedBlockHeights.get(0));
+            Assert.assertEquals(Long.valueOf(2L), _indexedBlockHeights.get(1));
+            Assert.assertEquals(Long.valueOf(3L), _indexedBlockHeights.get(2));
+        }
+        synchronized (_loadedBlockHeights) {
+            Assert.assertTrue(_loadedBlockHeights.isEmpty());
+        }
+    }
+
+    @Test
+    public void should_load_stored_blocks_to_fill_gap_before_offered_blocks() throws Exception {
+        // Setup
+        _storedBlocks.put(1L, BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_1));
+        _storedBlocks.put(2L, BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_2));
+        _storedBlocks.put(3L, BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_3));
+
+        // Action
+        _blockIndexingQueue.start(0L);
+        BlockIndexingQueueTests.waitForIndexedBlockHeight(_blockIndexingQueue, 3L);
+        _blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_4), 4L);
+        BlockIndexingQueueTests.waitForIndexedBlockHeight(_blockIndexingQueue, 4L);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(4L), _blockIndexingQueue.getIndexedBlockHeight());
+        synchronized (_indexedBlockHeights) {
+            Assert.assertEquals(4, _indexedBlockHeights.getCount());
+            for (int i = 0; i < 4; ++i) {
+                Assert.assertEquals(Long.valueOf(i + 1L), _indexedBlockHeights.get(i));
+            }
+        }
+        synchronized (_loadedBlockHeights) {
+            Assert.assertFalse(_loadedBlockHeights.contains(4L));
+        }
+    }
+
+    @Test
+    public void should_not_hold_offered_block_that_is_not_contiguous_with_the_index() throws Exception {
+        // Setup
+        _blockIndexingQueue.start(0L);
+
+        // Action
+        _blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_3), 3L);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), _blockIndexingQueue.getQueuedBlockCount());
+        Assert.assertEquals(Long.valueOf(0L), _blockIndexingQueue.getIndexedBlockHeight());
+    }
+
+    @Test
+    public void should_block_offer_once_queued_byte_count_is_reached() throws Exception {
+        // Setup
+        final Block block1 = BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_1);
+        final Block block2 = BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_2);
+        final CountDownLatch indexerLatch = new CountDownLatch(1);
+
+        final BlockIndexingQueue blockIndexingQueue = new BlockIndexingQueue(new BlockIndexingQueue.BlockIndexer() {
+            @Override
+            public void indexBlock(final Block block, final Long blockHeight) throws Exception {
+                indexerLatch.await(5L, TimeUnit.SECONDS);
+            }
+        }, new BlockIndexingQueue.BlockLoader() {
+            @Override
+            public Block loadBlock(final Long blockHeight) {
+                return null;
+            }
+        }, (long) (block1.getByteCount() + block2.getByteCount() - 1));
+        blockIndexingQueue.start(0L);
+
+        final Thread offerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blockIndexingQueue.offerBlock(block2, 2L);
+                }
+                catch (final InterruptedException exception) { }
+            }
+        });
+
+        // Action
+        blockIndexingQueue.offerBlock(block1, 1L); // A single Block is accepted regardless of the limit...
+        offerThread.start();
+        offerThread.join(250L);
+        final Boolean offerWasBlocked = offerThread.isAlive();
+        final Integer queuedBlockCountWhileFull = blockIndexingQueue.getQueuedBlockCount();
+
+        indexerLatch.countDown();
+        offerThread.join(5000L);
+        BlockIndexingQueueTests.waitForIndexedBlockHeight(blockIndexingQueue, 2L);
+
+        // Assert
+        Assert.assertTrue(offerWasBlocked);
+        Assert.assertEquals(Integer.valueOf(1), queuedBlockCountWhileFull);
+        Assert.assertEquals(Long.valueOf(2L), blockIndexingQueue.getIndexedBlockHeight());
+        Assert.assertEquals(Long.valueOf(0L), blockIndexingQueue.getQueuedByteCount());
+
+        blockIndexingQueue.stop();
+    }
+
+    @Test
+    public void should_retry_block_that_fails_to_be_indexed() throws Exception {
+        // Setup
+        final AtomicInteger attemptCount = new AtomicInteger(0);
+        final BlockIndexingQueue blockIndexingQueue = new BlockIndexingQueue(new BlockIndexingQueue.BlockIndexer() {
+            @Override
+            public void indexBlock(final Block block, final Long blockHeight) throws Exception {
+                if ( (blockHeight == 1L) && (attemptCount.incrementAndGet() < 2) ) {
+                    throw new Exception("Transient failure.");
+                }
+                synchronized (_indexedBlockHeights) {
+                    _indexedBlockHeights.add(blockHeight);
+                }
+            }
+        }, new BlockIndexingQueue.BlockLoader() {
+            @Override
+            public Block loadBlock(final Long blockHeight) {
+                return null;
+            }
+        });
+        blockIndexingQueue._indexRetryDelayMs = 1L;
+        blockIndexingQueue.start(0L);
+
+        // Action
+        blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_1), 1L);
+        blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_2), 2L);
+        BlockIndexingQueueTests.waitForIndexedBlockHeight(blockIndexingQueue, 2L);
+
+        // Assert
+        Assert.assertEquals(2, attemptCount.get());
+        Assert.assertEquals(Long.valueOf(2L), blockIndexingQueue.getIndexedBlockHeight());
+        Assert.assertFalse(blockIndexingQueue.isShutdown());
+        synchronized (_indexedBlockHeights) {
+            Assert.assertEquals(2, _indexedBlockHeights.getCount());
+            Assert.assertEquals(Long.valueOf(1L), _indexedBlockHeights.get(0));
+            Assert.assertEquals(Long.valueOf(2L), _indexedBlockHeights.get(1));
+        }
+
+        blockIndexingQueue.stop();
+    }
+
+    @Test
+    public void should_stop_instead_of_skipping_block_that_cannot_be_indexed() throws Exception {
+        // Setup
+        final AtomicInteger attemptCount = new AtomicInteger(0);
+        final BlockIndexingQueue blockIndexingQueue = new BlockIndexingQueue(new BlockIndexingQueue.BlockIndexer() {
+            @Override
+            public void indexBlock(final Block block, final Long blockHeight) throws Exception {
+                if (blockHeight == 2L) {
+                    attemptCount.incrementAndGet();
+                    throw new Exception("Permanent failure.");
+                }
+                synchronized (_indexedBlockHeights) {
+                    _indexedBlockHeights.add(blockHeight);
+                }
+            }
+        }, new BlockIndexingQueue.BlockLoader() {
+            @Override
+            public Block loadBlock(final Long blockHeight) {
+                return null;
+            }
+        });
+        blockIndexingQueue._indexRetryDelayMs = 1L;
+        blockIndexingQueue.start(0L);
+
+        // Action
+        blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_1), 1L);
+        blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_2), 2L);
+        blockIndexingQueue.offerBlock(BlockIndexingQueueTests.inflateBlock(BlockData.MainChain.BLOCK_3), 3L);
+
+        final long startTimeMs = System.currentTimeMillis();
+        while ( (! blockIndexingQueue.isShutdown()) && ((System.currentTimeMillis() - startTimeMs) < 5000L) ) {
+            Thread.sleep(10L);
+        }
+
+        // Assert
+        Assert.assertTrue(blockIndexingQueue.isShutdown());
+        Assert.assertEquals(BlockIndexingQueue.MAX_INDEX_ATTEMPT_COUNT.intValue(), attemptCount.get());
+        Assert.assertEquals(Long.valueOf(1L), blockIndexingQueue.getIndexedBlockHeight()); // The index does not advance past the failed Block...
+        synchronized (_indexedBlockHeights) {
+            Assert.assertEquals(1, _indexedBlockHeights.getCount());
+            Assert.assertFalse(_indexedBlockHeights.contains(3L));
+        }
+
+        blockIndexingQueue.stop();
+    }
+}
@@ -0,0 +1,212 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.block.header.BlockHeader;
+import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.error.NotFoundResponseMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.MockBlockStore;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeBitcoinNode;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.util.HexUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockchainDataServerTests extends UnitTest {
+    protected static class TestBlockchain extends Blockchain {
+        public TestBlockchain(final MockBlockStore blockStore) {
+            super(blockStore);
+        }
+
+        public void addStoredBlock(final Block block) {
+            _writeLock.lock();
+            try {
+                final Long blockHeight = _blockHeights.get(block.getHash());
+                _addBlock(block, blockHeight);
+            }
+            finally {
+                _writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Records the messages transmitted to the peer instead of sending them.
+     */
+    protected static class RecordingBitcoinNode extends FakeBitcoinNode {
+        public final MutableList<BlockHeader> transmittedBlockHeaders = new MutableArrayList<>();
+        public final MutableList<ByteArray> transmittedBlocks = new MutableArrayList<>();
+        public final MutableList<Block> transmittedMerkleBlocks = new MutableArrayList<>();
+        public final MutableList<InventoryItem> notFoundItems = new MutableArrayList<>();
+
+        public RecordingBitcoinNode() {
+            super("1.2.3.4", 8333, null);
+        }
+
+        @Override
+        public Boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public synchronized void transmitBlockHeaders(final List<BlockHeader> blockHeaders) {
+            transmittedBlockHeaders.addAll(blockHeaders);
+        }
+
+        @Override
+        public synchronized void transmitBlock(final ByteArray blockBytes) {
+            transmittedBlocks.add(blockBytes);
+        }
+
+        @Override
+        public synchronized void transmitMerkleBlock(final Block block) {
+            transmittedMerkleBlocks.add(block);
+        }
+
+        @Override
+        public synchronized void queueMessage(final BitcoinProtocolMessage protocolMessage) {
+            if (protocolMessage instanceof NotFoundResponseMessage) {
+                notFoundItems.addAll(((NotFoundResponseMessage) protocolMessage).getInventoryItems());
+            }
+        }
+
+        public synchronized Integer getTransmittedBlockCount() {
+            return transmittedBlocks.getCount();
+        }
+
+        public synchronized Integer getNotFoundCount() {
+            return notFoundItems.getCount();
+        }
+    }
+
+    protected static void waitFor(final RecordingBitcoinNode bitcoinNode, final int blockCount, final int notFoundCount) throws Exception {
+        final long startTimeMs = System.currentTimeMillis();
+        while ( (bitcoinNode.getTransmittedBlockCount() < blockCount) || (bitcoinNode.getNotFoundCount() < notFoundCount) ) {
+            if ((System.currentTimeMillis() - startTimeMs) > 5000L) { break; }
+            Thread.sleep(10L);
+        }
+    }
+
+    protected final MockBlockStore _blockStore = new MockBlockStore();
+    protected final TestBlockchain _blockchain = new TestBlockchain(_blockStore);
+    protected final MutableList<Block> _blocks = new MutableArrayList<>();
+    protected BlockchainDataServer _blockchainDataServer;
+
+    protected BlockchainDataServer _createBlockchainDataServer(final Long maxBytesPerSecond, final Integer maxQueuedRequestCount) {
+        final BlockchainDataServer blockchainDataServer = new BlockchainDataServer(_blockchain, _blockStore, 2, maxBytesPerSecond, maxQueuedRequestCount);
+        blockchainDataServer.start();
+        return blockchainDataServer;
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        final BlockInflater blockInflater = new BlockInflater();
+        for (final String blockData : new String[]{ BlockData.MainChain.GENESIS_BLOCK, BlockData.MainChain.BLOCK_1, BlockData.MainChain.BLOCK_2, BlockData.MainChain.BLOCK_3 }) {
+            final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(blockData));
+            Assert.assertTrue(_blockchain.addBlockHeader(block));
+            _blockchain.addStoredBlock(block);
+            _blocks.add(block);
+        }
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        if (_blockchainDataServer != null) {
+            _blockchainDataServer.stop();
+        }
+
+        super.after();
+    }
+
+    @Test
+    public void should_serve_block_headers_following_block_finder_up_to_stop_hash() throws Exception {
+        // Setup
+        _blockchainDataServer = _createBlockchainDataServer(1024L * 1024L, 16);
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode();
+        final Sha256Hash genesisBlockHash = _blocks.get(0).getHash();
+        final Sha256Hash stopBlockHash = _blocks.get(2).getHash();
+
+        // Action
+        _blockchainDataServer.onRequestBlockHeaders(bitcoinNode, new ImmutableList<>(genesisBlockHash), stopBlockHash);
+
+        // Assert
+        Assert.assertEquals(2, bitcoinNode.transmittedBlockHeaders.getCount());
+        Assert.assertEquals(_blocks.get(1).getHash(), bitcoinNode.transmittedBlockHeaders.get(0).getHash());
+        Assert.assertEquals(stopBlockHash, bitcoinNode.transmittedBlockHeaders.get(1).getHash());
+    }
+
+    @Test
+    public void should_serve_stored_block_bytes_for_get_data() throws Exception {
+        // Setup
+        _blockchainDataServer = _createBlockchainDataServer(1024L * 1024L, 16);
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode();
+        final Block block = _blocks.get(2);
+        final Sha256Hash unknownBlockHash = Sha256Hash.fromHexString("000000000000000000000000000000000000000000000000000000000000DEAD");
+
+        // Action
+        _blockchainDataServer.onRequestData(bitcoinNode, new ImmutableList<>(
+            new InventoryItem(InventoryItemType.BLOCK, block.getHash()),
+            new InventoryItem(InventoryItemType.BLOCK, unknownBlockHash)
+        ));
+        BlockchainDataServerTests.waitFor(bitcoinNode, 1, 1);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getTransmittedBlockCount());
+        Assert.assertEquals(_blockStore.getBlockBytes(block.getHash(), 2L), bitcoinNode.transmittedBlocks.get(0));
+
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getNotFoundCount());
+        Assert.assertEquals(unknownBlockHash, bitcoinNode.notFoundItems.get(0).getItemHash());
+    }
+
+    @Test
+    public void should_delay_next_block_until_upload_allowance_is_refilled_and_reject_requests_beyond_queue_bound() throws Exception {
+        // Setup
+        _blockchainDataServer = _createBlockchainDataServer(1L, 2); // The first Block puts the peer's allowance into debt for minutes.
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode();
+
+        // Action
+        _blockchainDataServer.onRequestData(bitcoinNode, new ImmutableList<>(
+            new InventoryItem(InventoryItemType.BLOCK, _blocks.get(1).getHash()),
+            new InventoryItem(InventoryItemType.BLOCK, _blocks.get(2).getHash()),
+            new InventoryItem(InventoryItemType.BLOCK, _blocks.get(3).getHash())
+        ));
+        BlockchainDataServerTests.waitFor(bitcoinNode, 1, 1);
+        Thread.sleep(500L);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getTransmittedBlockCount());
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getNotFoundCount());
+        Assert.assertEquals(_blocks.get(3).getHash(), bitcoinNode.notFoundItems.get(0).getItemHash());
+    }
+
+    @Test
+    public void should_not_send_full_block_for_merkle_block_request_without_bloom_filter() throws Exception {
+        // Setup
+        _blockchainDataServer = _createBlockchainDataServer(1024L * 1024L, 16);
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode();
+        final Sha256Hash blockHash = _blocks.get(1).getHash();
+
+        // Action
+        _blockchainDataServer.onRequestData(bitcoinNode, new ImmutableList<>(new InventoryItem(InventoryItemType.MERKLE_BLOCK, blockHash)));
+        BlockchainDataServerTests.waitFor(bitcoinNode, 0, 1);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(0), bitcoinNode.getTransmittedBlockCount());
+        Assert.assertTrue(bitcoinNode.transmittedMerkleBlocks.isEmpty());
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getNotFoundCount());
+        Assert.assertEquals(blockHash, bitcoinNode.notFoundItems.get(0).getItemHash());
+    }
+}
@@ -0,0 +1,138 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.server.module.node.indexing.AddressHistoryEntry;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.map.mutable.MutableHashMap;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IndexedAddressHistoryCursorTests extends UnitTest {
+    protected static Sha256Hash generateHash(final Long index) {
+        return Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+    }
+
+    protected final MutableHashMap<Long, IndexedTransaction> _indexedTransactions = new MutableHashMap<>();
+    protected final Sha256Hash _unconfirmedTransactionHash = IndexedAddressHistoryCursorTests.generateHash(1000L);
+    protected final AtomicInteger _unconfirmedHistoryLoadCount = new AtomicInteger(0);
+
+    protected void _addIndexedTransaction(final Long transactionId, final Long blockHeight, final Long diskOffset) {
+        final Sha256Hash transactionHash = IndexedAddressHistoryCursorTests.generateHash(transactionId);
+        _indexedTransactions.put(transactionId, new IndexedTransaction(transactionHash, blockHeight, diskOffset, 250));
+    }
+
+    protected IndexedAddressHistoryCursor _createCursor(final Long fromBlockHeight) {
+        return new IndexedAddressHistoryCursor(_indexedTransactions, fromBlockHeight) {
+            @Override
+            protected Sha256Hash _getTransactionHash(final Long transactionId) {
+                final IndexedTransaction indexedTransaction = _indexedTransactions.get(transactionId);
+                return ((indexedTransaction != null) ? indexedTransaction.hash : null);
+            }
+
+            @Override
+            protected List<AddressHistoryEntry> _loadUnconfirmedAddressHistory() {
+                _unconfirmedHistoryLoadCount.incrementAndGet();
+                return new ImmutableList<>(new AddressHistoryEntry(_unconfirmedTransactionHash, null, false, 226L));
+            }
+        };
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _addIndexedTransaction(1L, 5L, 200L);
+        _addIndexedTransaction(2L, 5L, 100L);
+        _addIndexedTransaction(3L, 3L, 50L);
+        _addIndexedTransaction(4L, 7L, 10L);
+        _addIndexedTransaction(5L, 8L, 10L);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_return_pages_in_block_order_and_complete_each_page_final_block() {
+        // Setup
+        final IndexedAddressHistoryCursor addressHistoryCursor = _createCursor(0L);
+
+        // Action
+        final List<AddressHistoryEntry> firstPage = addressHistoryCursor.getNextPage(2);
+        final Boolean hasSecondPage = addressHistoryCursor.hasNextPage();
+        final List<AddressHistoryEntry> secondPage = addressHistoryCursor.getNextPage(2);
+        final Boolean hasThirdPage = addressHistoryCursor.hasNextPage();
+        final List<AddressHistoryEntry> thirdPage = addressHistoryCursor.getNextPage(2);
+
+        // Assert
+        Assert.assertEquals(3, firstPage.getCount()); // The page is extended to include the remainder of block 5.
+        Assert.assertEquals(IndexedAddressHistoryCursorTests.generateHash(3L), firstPage.get(0).transactionHash);
+        Assert.assertEquals(IndexedAddressHistoryCursorTests.generateHash(2L), firstPage.get(1).transactionHash);
+        Assert.assertEquals(IndexedAddressHistoryCursorTests.generateHash(1L), firstPage.get(2).transactionHash);
+        Assert.assertEquals(Long.valueOf(5L), firstPage.get(2).blockHeight);
+        Assert.assertTrue(hasSecondPage);
+
+        Assert.assertEquals(3, secondPage.getCount());
+        Assert.assertEquals(IndexedAddressHistoryCursorTests.generateHash(4L), secondPage.get(0).transactionHash);
+        Assert.assertEquals(IndexedAddressHistoryCursorTests.generateHash(5L), secondPage.get(1).transactionHash);
+        Assert.assertTrue(secondPage.get(2).isUnconfirmedTransaction());
+        Assert.assertEquals(_unconfirmedTransactionHash, secondPage.get(2).transactionHash);
+        Assert.assertFalse(hasThirdPage);
+
+        Assert.assertTrue(thirdPage.isEmpty());
+        Assert.assertEquals(1, _unconfirmedHistoryLoadCount.get());
+    }
+
+    @Test
+    public void should_exclude_transactions_mined_below_from_block_height() {
+        // Setup
+        final IndexedAddressHistoryCursor addressHistoryCursor = _createCursor(6L);
+
+        // Action
+        final List<AddressHistoryEntry> addressHistory = addressHistoryCursor.getNextPage(100);
+
+        // Assert
+        Assert.assertEquals(3, addressHistory.getCount());
+        Assert.assertEquals(Long.valueOf(7L), addressHistory.get(0).blockHeight);
+        Assert.assertEquals(Long.valueOf(8L), addressHistory.get(1).blockHeight);
+        Assert.assertTrue(addressHistory.get(2).isUnconfirmedTransaction());
+        Assert.assertFalse(addressHistoryCursor.hasNextPage());
+    }
+
+    @Test
+    public void should_return_only_unconfirmed_history_when_no_confirmed_transactions_remain() {
+        // Setup
+        final IndexedAddressHistoryCursor addressHistoryCursor = _createCursor(Long.MAX_VALUE);
+
+        // Action
+        final List<AddressHistoryEntry> addressHistory = addressHistoryCursor.getNextPage(100);
+
+        // Assert
+        Assert.assertEquals(1, addressHistory.getCount());
+        Assert.assertEquals(_unconfirmedTransactionHash, addressHistory.get(0).transactionHash);
+        Assert.assertFalse(addressHistoryCursor.hasNextPage());
+    }
+
+    @Test
+    public void should_return_null_when_page_transaction_cannot_be_resolved() {
+        // Setup
+        final IndexedAddressHistoryCursor addressHistoryCursor = _createCursor(0L);
+        _indexedTransactions.remove(3L); // The index is read when the cursor is created; the hash is resolved when the page is loaded.
+
+        // Action
+        final List<AddressHistoryEntry> addressHistory = addressHistoryCursor.getNextPage(2);
+
+        // Assert
+        Assert.assertNull(addressHistory);
+        Assert.assertEquals(0, _unconfirmedHistoryLoadCount.get());
+    }
+}
@@ -0,0 +1,74 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.network.ip.Ip;
+import com.softwareverde.network.p2p.node.address.NodeIpAddress;
+import com.softwareverde.test.time.FakeSystemTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class PeerAddressManagerTests {
+    @Test
+    public void should_persist_tried_peers_and_their_statistics() throws Exception {
+        // Setup
+        final File file = File.createTempFile("peers", ".dat");
+        file.deleteOnExit();
+
+        final FakeSystemTime systemTime = new FakeSystemTime();
+        systemTime.advanceTimeInMilliseconds(1_000_000L);
+
+        final NodeIpAddress triedNodeIpAddress = new NodeIpAddress(Ip.fromString("10.0.0.1"), 8333);
+        final NodeIpAddress newNodeIpAddress = new NodeIpAddress(Ip.fromString("10.1.0.1"), 8333);
+
+        final PeerAddressManager peerAddressManager = new PeerAddressManager(systemTime);
+        peerAddressManager.addAddresses(new ImmutableList<>(triedNodeIpAddress, newNodeIpAddress), null);
+        peerAddressManager.onConnectionAttempt(triedNodeIpAddress);
+        peerAddressManager.onConnectionSuccess(triedNodeIpAddress);
+        peerAddressManager.recordPing(triedNodeIpAddress, 40L);
+        peerAddressManager.recordBlockDownload(triedNodeIpAddress, 1_000_000, 500D);
+        systemTime.advanceTimeInMilliseconds(60_000L);
+        peerAddressManager.onDisconnected(triedNodeIpAddress);
+
+        // Action
+        peerAddressManager.save(file);
+        final PeerAddressManager loadedPeerAddressManager = new PeerAddressManager(systemTime);
+        loadedPeerAddressManager.load(file);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), loadedPeerAddressManager.getTriedCount());
+        Assert.assertEquals(Integer.valueOf(1), loadedPeerAddressManager.getNewCount());
+
+        final PeerAddressManager.PeerAddress peerAddress = loadedPeerAddressManager.getPeerAddress(triedNodeIpAddress);
+        Assert.assertTrue(peerAddress.isTried());
+        Assert.assertEquals(Long.valueOf(40L), peerAddress.getAveragePingMs());
+        Assert.assertEquals(Double.valueOf(2000D), peerAddress.getAverageBytesPerMs());
+        Assert.assertEquals(Long.valueOf(60_000L), peerAddress.getTotalConnectedMs());
+    }
+
+    @Test
+    public void should_not_select_excluded_or_recently_attempted_peers() {
+        // Setup
+        final FakeSystemTime systemTime = new FakeSystemTime();
+        systemTime.advanceTimeInMilliseconds(1_000_000L);
+
+        final NodeIpAddress nodeIpAddress0 = new NodeIpAddress(Ip.fromString("10.0.0.1"), 8333);
+        final NodeIpAddress nodeIpAddress1 = new NodeIpAddress(Ip.fromString("10.1.0.1"), 8333);
+        final NodeIpAddress nodeIpAddress2 = new NodeIpAddress(Ip.fromString("10.2.0.1"), 8333);
+
+        final PeerAddressManager peerAddressManager = new PeerAddressManager(systemTime);
+        peerAddressManager.addAddresses(new ImmutableList<>(nodeIpAddress0, nodeIpAddress1, nodeIpAddress2), null);
+        peerAddressManager.onConnectionAttempt(nodeIpAddress1);
+
+        final MutableHashSet<Ip> excludedIps = new MutableHashSet<>();
+        excludedIps.add(nodeIpAddress0.getIp());
+
+        // Action
+        final NodeIpAddress selectedNodeIpAddress = peerAddressManager.selectPeer(excludedIps);
+
+        // Assert
+        Assert.assertEquals(nodeIpAddress2, selectedNodeIpAddress);
+    }
+}
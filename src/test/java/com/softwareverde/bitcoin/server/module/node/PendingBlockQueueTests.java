@@ -0,0 +1,71 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.block.Block;
+import com.softwareverde.bitcoin.block.BlockInflater;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.test.BlockData;
+import com.softwareverde.bitcoin.test.MockBlockStore;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.util.HexUtil;
+import com.softwareverde.util.TimedPromise;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PendingBlockQueueTests extends UnitTest {
+    protected PendingBlockQueue _pendingBlockQueue;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        final MockBlockStore blockStore = new MockBlockStore();
+        _pendingBlockQueue = new PendingBlockQueue(new Blockchain(blockStore), blockStore, new PendingBlockQueue.BitcoinNodeSelector() {
+            @Override
+            public BitcoinNode getBitcoinNode(final Long blockHeight) {
+                return null;
+            }
+        });
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_not_replace_in_flight_request() {
+        // Setup
+        final TimedPromise<Block> inFlightPromise = new TimedPromise<>();
+        _pendingBlockQueue.addBlock(1L, inFlightPromise);
+
+        final TimedPromise<Block> extraThinBlockPromise = new TimedPromise<>();
+
+        // Action
+        final Boolean wasAdded = _pendingBlockQueue.addBlock(1L, extraThinBlockPromise);
+
+        // Assert
+        Assert.assertFalse(wasAdded);
+        Assert.assertSame(inFlightPromise, _pendingBlockQueue.getBlock(1L));
+    }
+
+    @Test
+    public void should_replace_failed_request() {
+        // Setup
+        final TimedPromise<Block> failedPromise = new TimedPromise<>();
+        failedPromise.setResult(null);
+        _pendingBlockQueue.addBlock(1L, failedPromise);
+
+        final BlockInflater blockInflater = new BlockInflater();
+        final Block block = blockInflater.fromBytes(HexUtil.hexStringToByteArray(BlockData.MainChain.BLOCK_1));
+        final TimedPromise<Block> blockPromise = new TimedPromise<>(block);
+
+        // Action
+        final Boolean wasAdded = _pendingBlockQueue.addBlock(1L, blockPromise);
+
+        // Assert
+        Assert.assertTrue(wasAdded);
+        Assert.assertSame(blockPromise, _pendingBlockQueue.getBlock(1L));
+    }
+}
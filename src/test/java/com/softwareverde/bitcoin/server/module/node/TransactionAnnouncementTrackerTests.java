@@ -0,0 +1,82 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.test.time.FakeSystemTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionAnnouncementTrackerTests {
+    @Test
+    public void should_only_request_transaction_up_to_max_attempt_count() {
+        // Setup
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16");
+        final TransactionAnnouncementTracker transactionAnnouncementTracker = new TransactionAnnouncementTracker(new FakeSystemTime(), 1024);
+
+        // Action
+        int requestCount = 0;
+        for (int i = 0; i < 10; ++i) {
+            if (transactionAnnouncementTracker.onTransactionAnnounced(transactionHash)) {
+                requestCount += 1;
+            }
+        }
+
+        // Assert
+        Assert.assertEquals(TransactionAnnouncementTracker.MAX_ATTEMPT_COUNT.intValue(), requestCount);
+        Assert.assertEquals(Integer.valueOf(0), transactionAnnouncementTracker.getRetryEntryCount());
+    }
+
+    @Test
+    public void should_not_request_received_transaction() {
+        // Setup
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16");
+        final TransactionAnnouncementTracker transactionAnnouncementTracker = new TransactionAnnouncementTracker(new FakeSystemTime(), 1024);
+        Assert.assertTrue(transactionAnnouncementTracker.onTransactionAnnounced(transactionHash));
+
+        // Action
+        transactionAnnouncementTracker.onTransactionReceived(transactionHash);
+
+        // Assert
+        Assert.assertFalse(transactionAnnouncementTracker.onTransactionAnnounced(transactionHash));
+        Assert.assertEquals(Integer.valueOf(0), transactionAnnouncementTracker.getRetryEntryCount());
+    }
+
+    @Test
+    public void should_request_rejected_transaction_again_until_max_attempt_count() {
+        // Setup
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("F4184FC596403B9D638783CF57ADFE4C75C605F6356FBC91338530E9831E9E16");
+        final TransactionAnnouncementTracker transactionAnnouncementTracker = new TransactionAnnouncementTracker(new FakeSystemTime(), 1024);
+        Assert.assertTrue(transactionAnnouncementTracker.onTransactionAnnounced(transactionHash));
+
+        // Action
+        // The Transaction is received but rejected by the mempool (i.e. it is an orphan), so it is not marked as received.
+        final Boolean wasRequestedAgain = transactionAnnouncementTracker.onTransactionAnnounced(transactionHash);
+
+        // Assert
+        Assert.assertTrue(wasRequestedAgain);
+        Assert.assertEquals(Integer.valueOf(1), transactionAnnouncementTracker.getRetryEntryCount());
+
+        int requestCount = 2;
+        for (int i = 0; i < 10; ++i) {
+            if (transactionAnnouncementTracker.onTransactionAnnounced(transactionHash)) {
+                requestCount += 1;
+            }
+        }
+        Assert.assertEquals(TransactionAnnouncementTracker.MAX_ATTEMPT_COUNT.intValue(), requestCount);
+    }
+
+    @Test
+    public void should_bound_retry_entries_when_capacity_is_exceeded() {
+        // Setup
+        final FakeSystemTime systemTime = new FakeSystemTime();
+        final TransactionAnnouncementTracker transactionAnnouncementTracker = new TransactionAnnouncementTracker(systemTime, 16);
+
+        // Action
+        for (int i = 0; i < 64; ++i) {
+            final Sha256Hash transactionHash = Sha256Hash.fromHexString(String.format("%064X", i));
+            transactionAnnouncementTracker.onTransactionAnnounced(transactionHash);
+        }
+
+        // Assert
+        Assert.assertTrue(transactionAnnouncementTracker.getRetryEntryCount() <= 16);
+    }
+}
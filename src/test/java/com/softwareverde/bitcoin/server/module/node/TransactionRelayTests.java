@@ -0,0 +1,274 @@
+package com.softwareverde.bitcoin.server.module.node;
+
+import com.softwareverde.bitcoin.server.message.type.query.response.InventoryMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
+import com.softwareverde.bitcoin.server.node.BitcoinNode;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeBitcoinNode;
+import com.softwareverde.bitcoin.test.util.TransactionTestUtil;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.bloomfilter.MutableBloomFilter;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionRelayTests extends UnitTest {
+    /**
+     * A handshaked peer that records its InventoryMessages instead of sending them.
+     */
+    protected static class RecordingBitcoinNode extends FakeBitcoinNode {
+        public final MutableList<InventoryMessage> inventoryMessages = new MutableArrayList<>();
+
+        public RecordingBitcoinNode(final Integer port) {
+            super("1.2.3.4", port, null);
+        }
+
+        public void setBloomFilter(final MutableBloomFilter bloomFilter) {
+            _bloomFilter = bloomFilter;
+        }
+
+        public void setFeeFilter(final Long satoshisPerKilobyte) {
+            _feeFilterSatoshisPerKilobyte = satoshisPerKilobyte;
+        }
+
+        public void setMaxQueuedTransactionInventoryCount(final Integer maxQueuedTransactionInventoryCount) {
+            _maxQueuedTransactionInventoryCount = maxQueuedTransactionInventoryCount;
+        }
+
+        @Override
+        protected void _queueMessage(final ProtocolMessage message) {
+            if (message instanceof InventoryMessage) {
+                inventoryMessages.add((InventoryMessage) message);
+            }
+        }
+
+        @Override
+        public Boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public Boolean isHandshakeComplete() {
+            return true;
+        }
+
+        @Override
+        public Boolean isTransactionRelayEnabled() {
+            return true;
+        }
+
+        public MutableList<Sha256Hash> getAnnouncedTransactionHashes() {
+            final MutableList<Sha256Hash> transactionHashes = new MutableArrayList<>();
+            for (final InventoryMessage inventoryMessage : inventoryMessages) {
+                for (final InventoryItem inventoryItem : inventoryMessage.getInventoryItems()) {
+                    transactionHashes.add(inventoryItem.getItemHash());
+                }
+            }
+            return transactionHashes;
+        }
+    }
+
+    protected static Transaction createTransaction(final Integer outputIndex) {
+        final MutableTransaction transaction = TransactionTestUtil.createTransaction();
+        transaction.addTransactionInput(TransactionTestUtil.createTransactionInput(new TransactionOutputIdentifier(Sha256Hash.fromHexString("C0A46A7C5C2F4041D162766B9F9FF1DE79E34851A0A8E1315D81E3DE17267F62"), outputIndex)));
+        return transaction;
+    }
+
+    protected final MutableList<BitcoinNode> _bitcoinNodes = new MutableArrayList<>();
+    protected TransactionRelay _transactionRelay;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _transactionRelay = new TransactionRelay(new TransactionRelay.BitcoinNodeSelector() {
+            @Override
+            public List<BitcoinNode> getBitcoinNodes() {
+                return new ImmutableList<>(_bitcoinNodes);
+            }
+        }, 0L); // Every peer is trickled on each pass.
+        _transactionRelay._isShutdown.set(false); // The monitor thread is not started; the test trickles explicitly.
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _transactionRelay._isShutdown.set(true);
+
+        super.after();
+    }
+
+    @Test
+    public void should_announce_queued_transactions_in_a_single_inventory_message_per_peer() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode0 = new RecordingBitcoinNode(8333);
+        final RecordingBitcoinNode bitcoinNode1 = new RecordingBitcoinNode(8334);
+        _bitcoinNodes.add(bitcoinNode0);
+        _bitcoinNodes.add(bitcoinNode1);
+
+        final Transaction transaction0 = TransactionRelayTests.createTransaction(0);
+        final Transaction transaction1 = TransactionRelayTests.createTransaction(1);
+        final Transaction transaction2 = TransactionRelayTests.createTransaction(2);
+
+        // Action
+        _transactionRelay.relayTransaction(transaction0, null);
+        _transactionRelay.relayTransaction(transaction1, null);
+        _transactionRelay.relayTransaction(transaction2, null);
+        _transactionRelay._trickle();
+
+        // Assert
+        for (final RecordingBitcoinNode bitcoinNode : new RecordingBitcoinNode[]{ bitcoinNode0, bitcoinNode1 }) {
+            Assert.assertEquals(1, bitcoinNode.inventoryMessages.getCount());
+
+            final List<Sha256Hash> transactionHashes = bitcoinNode.getAnnouncedTransactionHashes();
+            Assert.assertEquals(3, transactionHashes.getCount());
+            Assert.assertEquals(transaction0.getHash(), transactionHashes.get(0));
+            Assert.assertEquals(transaction1.getHash(), transactionHashes.get(1));
+            Assert.assertEquals(transaction2.getHash(), transactionHashes.get(2));
+            Assert.assertEquals(Integer.valueOf(0), bitcoinNode.getQueuedTransactionInventoryCount());
+        }
+    }
+
+    @Test
+    public void should_not_announce_a_transaction_to_a_peer_twice() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode(8333);
+        _bitcoinNodes.add(bitcoinNode);
+
+        final Transaction transaction = TransactionRelayTests.createTransaction(0);
+        _transactionRelay.relayTransaction(transaction, null);
+        _transactionRelay._trickle();
+
+        // Action
+        _transactionRelay.relayTransaction(transaction, null);
+        _transactionRelay._trickle();
+
+        // Assert
+        Assert.assertEquals(1, bitcoinNode.inventoryMessages.getCount());
+        Assert.assertEquals(1, bitcoinNode.getAnnouncedTransactionHashes().getCount());
+    }
+
+    @Test
+    public void should_only_announce_transactions_matching_peer_bloom_filter() {
+        // Setup
+        final Transaction matchingTransaction = TransactionRelayTests.createTransaction(0);
+        final Transaction unmatchedTransaction = TransactionRelayTests.createTransaction(1);
+
+        final MutableBloomFilter bloomFilter = MutableBloomFilter.newInstance(128L, 0.0001D, 0L);
+        bloomFilter.addItem(matchingTransaction.getHash());
+
+        final RecordingBitcoinNode filteredBitcoinNode = new RecordingBitcoinNode(8333);
+        filteredBitcoinNode.setBloomFilter(bloomFilter);
+        final RecordingBitcoinNode unfilteredBitcoinNode = new RecordingBitcoinNode(8334);
+        _bitcoinNodes.add(filteredBitcoinNode);
+        _bitcoinNodes.add(unfilteredBitcoinNode);
+
+        // Action
+        _transactionRelay.relayTransaction(matchingTransaction, null);
+        _transactionRelay.relayTransaction(unmatchedTransaction, null);
+        _transactionRelay._trickle();
+
+        // Assert
+        final List<Sha256Hash> filteredTransactionHashes = filteredBitcoinNode.getAnnouncedTransactionHashes();
+        Assert.assertEquals(1, filteredTransactionHashes.getCount());
+        Assert.assertEquals(matchingTransaction.getHash(), filteredTransactionHashes.get(0));
+
+        Assert.assertEquals(2, unfilteredBitcoinNode.getAnnouncedTransactionHashes().getCount());
+    }
+
+    @Test
+    public void should_honor_peer_fee_filter_unless_fee_is_unknown() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode(8333);
+        bitcoinNode.setFeeFilter(1000L);
+        _bitcoinNodes.add(bitcoinNode);
+
+        final Transaction lowFeeTransaction = TransactionRelayTests.createTransaction(0);
+        final Transaction unknownFeeTransaction = TransactionRelayTests.createTransaction(1);
+
+        // Action
+        _transactionRelay.relayTransaction(lowFeeTransaction, 0L);
+        _transactionRelay.relayTransaction(unknownFeeTransaction, null);
+        _transactionRelay._trickle();
+
+        // Assert
+        final List<Sha256Hash> transactionHashes = bitcoinNode.getAnnouncedTransactionHashes();
+        Assert.assertEquals(1, transactionHashes.getCount());
+        Assert.assertEquals(unknownFeeTransaction.getHash(), transactionHashes.get(0));
+    }
+
+    @Test
+    public void should_limit_inventory_message_item_count_per_trickle() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode(8333);
+        _bitcoinNodes.add(bitcoinNode);
+
+        final int transactionCount = (TransactionRelay.MAX_INVENTORY_ITEM_COUNT_PER_TRICKLE + 1);
+        for (int i = 0; i < transactionCount; ++i) {
+            _transactionRelay.relayTransaction(TransactionRelayTests.createTransaction(i), null);
+        }
+
+        // Action
+        _transactionRelay._trickle();
+
+        // Assert
+        Assert.assertEquals(1, bitcoinNode.inventoryMessages.getCount());
+        Assert.assertEquals(TransactionRelay.MAX_INVENTORY_ITEM_COUNT_PER_TRICKLE.intValue(), bitcoinNode.getAnnouncedTransactionHashes().getCount());
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getQueuedTransactionInventoryCount());
+    }
+
+    @Test
+    public void should_announce_queue_immediately_once_full() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode(8333);
+        bitcoinNode.setMaxQueuedTransactionInventoryCount(2);
+        _bitcoinNodes.add(bitcoinNode);
+
+        final Transaction transaction0 = TransactionRelayTests.createTransaction(0);
+        final Transaction transaction1 = TransactionRelayTests.createTransaction(1);
+        final Transaction transaction2 = TransactionRelayTests.createTransaction(2);
+
+        // Action
+        _transactionRelay.relayTransaction(transaction0, null);
+        _transactionRelay.relayTransaction(transaction1, null); // The queue is full and is announced without waiting for a trickle...
+        _transactionRelay.relayTransaction(transaction2, null);
+        final Integer inventoryMessageCountBeforeTrickle = bitcoinNode.inventoryMessages.getCount();
+        final Integer queuedTransactionCountBeforeTrickle = bitcoinNode.getQueuedTransactionInventoryCount();
+        _transactionRelay._trickle();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), inventoryMessageCountBeforeTrickle);
+        Assert.assertEquals(Integer.valueOf(1), queuedTransactionCountBeforeTrickle);
+        Assert.assertEquals(2, bitcoinNode.inventoryMessages.getCount());
+
+        final List<Sha256Hash> transactionHashes = bitcoinNode.getAnnouncedTransactionHashes();
+        Assert.assertEquals(3, transactionHashes.getCount());
+        Assert.assertEquals(transaction0.getHash(), transactionHashes.get(0));
+        Assert.assertEquals(transaction1.getHash(), transactionHashes.get(1));
+        Assert.assertEquals(transaction2.getHash(), transactionHashes.get(2));
+    }
+
+    @Test
+    public void should_not_queue_a_transaction_twice() {
+        // Setup
+        final RecordingBitcoinNode bitcoinNode = new RecordingBitcoinNode(8333);
+        final Transaction transaction = TransactionRelayTests.createTransaction(0);
+
+        // Action
+        final Boolean wasQueued = bitcoinNode.queueTransactionInventory(transaction, null);
+        final Boolean wasQueuedAgain = bitcoinNode.queueTransactionInventory(transaction, null);
+
+        // Assert
+        Assert.assertTrue(wasQueued);
+        Assert.assertFalse(wasQueuedAgain);
+        Assert.assertEquals(Integer.valueOf(1), bitcoinNode.getQueuedTransactionInventoryCount());
+    }
+}
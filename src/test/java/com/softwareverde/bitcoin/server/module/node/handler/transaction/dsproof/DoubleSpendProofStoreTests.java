@@ -0,0 +1,127 @@
+package com.softwareverde.bitcoin.server.module.node.handler.transaction.dsproof;
+
+import com.softwareverde.bitcoin.server.message.type.dsproof.DoubleSpendProofPreimage;
+import com.softwareverde.bitcoin.server.message.type.dsproof.DoubleSpendProofPreimageInflater;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.util.TransactionTestUtil;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.dsproof.DoubleSpendProof;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DoubleSpendProofStoreTests extends UnitTest {
+    protected static DoubleSpendProof createDoubleSpendProof(final Sha256Hash transactionHash, final Integer outputIndex) {
+        final DoubleSpendProofPreimageInflater doubleSpendProofPreimageInflater = new DoubleSpendProofPreimageInflater();
+        final DoubleSpendProofPreimage doubleSpendProofPreimage0 = doubleSpendProofPreimageInflater.fromBytes(ByteArray.fromHexString("02000000FFFFFFFF0000000007EFEE38FB0076EA7258F70D3E11B19F0636B1C998CA5D01F0FB9A3C7298A07D3BB13029CE7B1F559EF5E747FCAC439F1455A2EC7C5F09B72290795E7066504443D6A08791FB21CFCD84B904669E2877D1012211FFCDBA3EB14B562173C0646301473044022038045D988BB6BD9CF8616E8CD3B380D7AC358E71E2ADFB1F06BC7288544C9EAF02205C1F78F2FF04314A4E516D02D58897BCE120C2939950518D72BB2406F11FDC7C41"));
+        final DoubleSpendProofPreimage doubleSpendProofPreimage1 = doubleSpendProofPreimageInflater.fromBytes(ByteArray.fromHexString("02000000FFFFFFFF0000000007EFEE38FB0076EA7258F70D3E11B19F0636B1C998CA5D01F0FB9A3C7298A07D3BB13029CE7B1F559EF5E747FCAC439F1455A2EC7C5F09B72290795E70665044F8CEDFF543DEA491E1A0CA101CE699BBD7AB45D6CBECBD9348C892B08752678801483045022100C7D72177641F40A8E5C6C168DCCE7A8EBC174667238856B30EE6657C04B68AE602205C281A9CA15E5292720A27C27AFF89F809B961C0D86A63C30CDCB06286658CDC41"));
+        return new DoubleSpendProof(new TransactionOutputIdentifier(transactionHash, outputIndex), doubleSpendProofPreimage0, doubleSpendProofPreimage1);
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_find_double_spend_proof_by_hash_and_by_output() {
+        // Setup
+        final DoubleSpendProofStore doubleSpendProofStore = new DoubleSpendProofStore(100);
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("00334930D2356064E43D376D998BE674301AC5ECEFD60D3CC2E261FF938137BB");
+        final DoubleSpendProof doubleSpendProof = DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 0);
+        final DoubleSpendProof redundantDoubleSpendProof = DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 0);
+
+        // Action
+        final Boolean wasStored = doubleSpendProofStore.storeDoubleSpendProof(doubleSpendProof);
+        final Boolean redundantProofWasStored = doubleSpendProofStore.storeDoubleSpendProof(redundantDoubleSpendProof);
+
+        // Assert
+        Assert.assertTrue(wasStored);
+        Assert.assertFalse(redundantProofWasStored);
+        Assert.assertEquals(doubleSpendProof, doubleSpendProofStore.getDoubleSpendProof(doubleSpendProof.getHash()));
+        Assert.assertEquals(doubleSpendProof, doubleSpendProofStore.getDoubleSpendProof(new TransactionOutputIdentifier(transactionHash, 0)));
+        Assert.assertNull(doubleSpendProofStore.getDoubleSpendProof(new TransactionOutputIdentifier(transactionHash, 1)));
+        Assert.assertEquals(1, doubleSpendProofStore.getDoubleSpendProofs().getCount());
+    }
+
+    @Test
+    public void should_evict_oldest_double_spend_proof_from_every_index() {
+        // Setup
+        final DoubleSpendProofStore doubleSpendProofStore = new DoubleSpendProofStore(10); // 9 valid proofs, 1 pending proof.
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("00334930D2356064E43D376D998BE674301AC5ECEFD60D3CC2E261FF938137BB");
+        final DoubleSpendProof firstDoubleSpendProof = DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 0);
+
+        // Action
+        doubleSpendProofStore.storeDoubleSpendProof(firstDoubleSpendProof);
+        for (int i = 1; i <= 9; ++i) {
+            doubleSpendProofStore.storeDoubleSpendProof(DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, i));
+        }
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(9), doubleSpendProofStore.getDoubleSpendProofCount());
+        Assert.assertNull(doubleSpendProofStore.getDoubleSpendProof(firstDoubleSpendProof.getHash()));
+        Assert.assertNull(doubleSpendProofStore.getDoubleSpendProof(new TransactionOutputIdentifier(transactionHash, 0)));
+        Assert.assertNotNull(doubleSpendProofStore.getDoubleSpendProof(new TransactionOutputIdentifier(transactionHash, 9)));
+
+        // The evicted output may be proven again...
+        Assert.assertTrue(doubleSpendProofStore.storeDoubleSpendProof(firstDoubleSpendProof));
+    }
+
+    @Test
+    public void should_trigger_pending_double_spend_proof_by_transaction_spending_the_same_output() {
+        // Setup
+        final DoubleSpendProofStore doubleSpendProofStore = new DoubleSpendProofStore(100);
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("00334930D2356064E43D376D998BE674301AC5ECEFD60D3CC2E261FF938137BB");
+        final TransactionOutputIdentifier transactionOutputIdentifier = new TransactionOutputIdentifier(transactionHash, 0);
+        final DoubleSpendProof pendingDoubleSpendProof = DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 0);
+        final Sha256Hash doubleSpendProofHash = pendingDoubleSpendProof.getHash();
+
+        final MutableTransaction unrelatedTransaction = TransactionTestUtil.createTransaction();
+        unrelatedTransaction.addTransactionInput(TransactionTestUtil.createTransactionInput(new TransactionOutputIdentifier(Sha256Hash.fromHexString("C0A46A7C5C2F4041D162766B9F9FF1DE79E34851A0A8E1315D81E3DE17267F62"), 0)));
+
+        final MutableTransaction conflictingTransaction = TransactionTestUtil.createTransaction();
+        conflictingTransaction.addTransactionInput(TransactionTestUtil.createTransactionInput(transactionOutputIdentifier));
+
+        doubleSpendProofStore.storePendingDoubleSpendProof(pendingDoubleSpendProof);
+
+        // Action
+        final List<DoubleSpendProof> untriggeredDoubleSpendProofs = doubleSpendProofStore.getTriggeredPendingDoubleSpendProof(new ImmutableList<>(unrelatedTransaction));
+        final List<DoubleSpendProof> triggeredDoubleSpendProofs = doubleSpendProofStore.getTriggeredPendingDoubleSpendProof(new ImmutableList<>(conflictingTransaction));
+        doubleSpendProofStore.removePendingDoubleSpendProof(doubleSpendProofHash);
+        final List<DoubleSpendProof> removedDoubleSpendProofs = doubleSpendProofStore.getTriggeredPendingDoubleSpendProof(new ImmutableList<>(conflictingTransaction));
+
+        // Assert
+        Assert.assertTrue(untriggeredDoubleSpendProofs.isEmpty());
+        Assert.assertEquals(1, triggeredDoubleSpendProofs.getCount());
+        Assert.assertEquals(pendingDoubleSpendProof, triggeredDoubleSpendProofs.get(0));
+        Assert.assertTrue(removedDoubleSpendProofs.isEmpty());
+        Assert.assertNull(doubleSpendProofStore.getPendingDoubleSpendProof(doubleSpendProofHash));
+        Assert.assertNull(doubleSpendProofStore.getDoubleSpendProof(doubleSpendProofHash));
+    }
+
+    @Test
+    public void should_ban_double_spend_proof() {
+        // Setup
+        final DoubleSpendProofStore doubleSpendProofStore = new DoubleSpendProofStore(100);
+        final Sha256Hash transactionHash = Sha256Hash.fromHexString("00334930D2356064E43D376D998BE674301AC5ECEFD60D3CC2E261FF938137BB");
+        final DoubleSpendProof doubleSpendProof = DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 0);
+
+        // Action
+        doubleSpendProofStore.banDoubleSpendProof(doubleSpendProof.getHash());
+
+        // Assert
+        Assert.assertTrue(doubleSpendProofStore.isDoubleSpendProofBanned(doubleSpendProof.getHash()));
+        Assert.assertFalse(doubleSpendProofStore.isDoubleSpendProofBanned(DoubleSpendProofStoreTests.createDoubleSpendProof(transactionHash, 1).getHash()));
+    }
+}
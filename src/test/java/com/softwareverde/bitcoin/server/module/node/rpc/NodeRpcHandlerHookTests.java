@@ -0,0 +1,298 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.address.Address;
+import com.softwareverde.bitcoin.address.AddressInflater;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.bitcoin.test.util.TransactionTestUtil;
+import com.softwareverde.bitcoin.transaction.MutableTransaction;
+import com.softwareverde.bitcoin.transaction.Transaction;
+import com.softwareverde.bitcoin.transaction.TransactionWithFee;
+import com.softwareverde.bitcoin.transaction.output.identifier.TransactionOutputIdentifier;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.immutable.ImmutableList;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.set.mutable.MutableHashSet;
+import com.softwareverde.cryptography.secp256k1.key.PrivateKey;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.network.socket.JsonProtocolMessage;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.StringUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NodeRpcHandlerHookTests extends UnitTest {
+    /**
+     * A hook connection whose outbound buffer size is controlled by the test; a backlogged connection is never written to by the HookEventDispatcher.
+     */
+    protected static class BackloggedJsonSocket extends JsonSocket {
+        public final FakeSocket fakeSocket;
+        public volatile Long queuedByteCount = 0L;
+
+        public BackloggedJsonSocket(final FakeSocket fakeSocket) {
+            super(fakeSocket);
+            this.fakeSocket = fakeSocket;
+        }
+
+        @Override
+        public Long getQueuedByteCount() {
+            return this.queuedByteCount;
+        }
+
+        public void setBacklogged(final Boolean isBacklogged) {
+            this.queuedByteCount = (isBacklogged ? NodeRpcHandler.MAX_HOOK_SOCKET_BUFFER_BYTE_COUNT : 0L);
+        }
+    }
+
+    protected static NodeRpcHandler.LazyProtocolMessage createMessage(final Integer index) {
+        return new NodeRpcHandler.LazyProtocolMessage() {
+            @Override
+            protected ProtocolMessage _createProtocolMessage() {
+                final Json json = new Json();
+                json.put("objectType", "TEST");
+                json.put("object", index);
+                return new JsonProtocolMessage(json);
+            }
+        };
+    }
+
+    protected NodeRpcHandler _nodeRpcHandler;
+    protected final MutableArrayList<BackloggedJsonSocket> _sockets = new MutableArrayList<>();
+
+    protected final AddressInflater _addressInflater = new AddressInflater();
+    protected PrivateKey _senderPrivateKey;
+    protected Address _senderAddress;
+    protected Address _recipientAddress;
+    protected Address _unrelatedAddress;
+
+    protected BackloggedJsonSocket _createSocket(final Boolean isBacklogged) {
+        final BackloggedJsonSocket jsonSocket = new BackloggedJsonSocket(new FakeSocket());
+        jsonSocket.setBacklogged(isBacklogged);
+        _sockets.add(jsonSocket);
+        return jsonSocket;
+    }
+
+    protected NodeRpcHandler.HookListener _createHookListener(final JsonSocket jsonSocket, final List<Address> addressFilter, final NodeRpcHandler.HookEvent... hookEvents) {
+        final MutableHashSet<NodeRpcHandler.HookEvent> events = new MutableHashSet<>();
+        for (final NodeRpcHandler.HookEvent hookEvent : hookEvents) {
+            events.add(hookEvent);
+        }
+
+        return new NodeRpcHandler.HookListener(jsonSocket, events, false, false, false, addressFilter);
+    }
+
+    protected NodeRpcHandler.HookListener _addHookListener(final JsonSocket jsonSocket, final List<Address> addressFilter, final NodeRpcHandler.HookEvent... hookEvents) {
+        final NodeRpcHandler.HookListener hookListener = _createHookListener(jsonSocket, addressFilter, hookEvents);
+        synchronized (_nodeRpcHandler._hookListeners) {
+            _nodeRpcHandler._hookListeners.add(hookListener);
+            _nodeRpcHandler._hookListenerIndex = new NodeRpcHandler.HookListenerIndex(new MutableArrayList<>(_nodeRpcHandler._hookListeners));
+        }
+        return hookListener;
+    }
+
+    /**
+     * Returns a Transaction spending (via a PayToPublicKeyHash input) an output paying _senderAddress, and paying _recipientAddress.
+     */
+    protected Transaction _createSignedTransaction() {
+        final Transaction fundingTransaction = TransactionTestUtil.createCoinbaseTransactionSpendableByPrivateKey(_senderPrivateKey);
+
+        final MutableTransaction unsignedTransaction = TransactionTestUtil.createTransaction();
+        unsignedTransaction.addTransactionInput(TransactionTestUtil.createTransactionInput(new TransactionOutputIdentifier(fundingTransaction.getHash(), 0)));
+        unsignedTransaction.addTransactionOutput(TransactionTestUtil.createTransactionOutput(_recipientAddress));
+
+        return TransactionTestUtil.signTransaction(TransactionTestUtil.createTransactionOutputRepository(fundingTransaction), unsignedTransaction, _senderPrivateKey);
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _nodeRpcHandler = new NodeRpcHandler();
+
+        _senderPrivateKey = PrivateKey.createNewKey();
+        _senderAddress = _addressInflater.fromPrivateKey(_senderPrivateKey, true);
+        _recipientAddress = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+        _unrelatedAddress = _addressInflater.fromPrivateKey(PrivateKey.createNewKey(), true);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _nodeRpcHandler.stop();
+        for (final JsonSocket jsonSocket : _sockets) {
+            jsonSocket.close();
+        }
+
+        super.after();
+    }
+
+    @Test
+    public void should_index_hook_listeners_by_event_and_filtered_address() {
+        // Setup
+        final NodeRpcHandler.HookListener blockListener = _createHookListener(_createSocket(true), null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+        final NodeRpcHandler.HookListener unfilteredListener = _createHookListener(_createSocket(true), null, NodeRpcHandler.HookEvent.NEW_BLOCK, NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+        final NodeRpcHandler.HookListener filteredListener = _createHookListener(_createSocket(true), new ImmutableList<>(_senderAddress, _recipientAddress, _senderAddress), NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+
+        // Action
+        final NodeRpcHandler.HookListenerIndex hookListenerIndex = new NodeRpcHandler.HookListenerIndex(new ImmutableList<>(blockListener, unfilteredListener, filteredListener));
+
+        // Assert
+        Assert.assertEquals(3, hookListenerIndex.hookListeners.getCount());
+        Assert.assertEquals(2, hookListenerIndex.eventListeners.get(NodeRpcHandler.HookEvent.NEW_BLOCK).getCount());
+        Assert.assertEquals(2, hookListenerIndex.eventListeners.get(NodeRpcHandler.HookEvent.NEW_TRANSACTION).getCount());
+        Assert.assertTrue(hookListenerIndex.eventListeners.get(NodeRpcHandler.HookEvent.NEW_DOUBLE_SPEND_PROOF).isEmpty());
+
+        Assert.assertEquals(1, hookListenerIndex.unfilteredTransactionListeners.getCount());
+        Assert.assertEquals(unfilteredListener, hookListenerIndex.unfilteredTransactionListeners.get(0));
+
+        Assert.assertEquals(2, hookListenerIndex.transactionListenersByAddress.getCount());
+        Assert.assertEquals(1, hookListenerIndex.transactionListenersByAddress.get(_senderAddress).getCount()); // The duplicate filter address is indexed once.
+        Assert.assertEquals(filteredListener, hookListenerIndex.transactionListenersByAddress.get(_recipientAddress).get(0));
+        Assert.assertNull(hookListenerIndex.transactionListenersByAddress.get(_unrelatedAddress));
+    }
+
+    @Test
+    public void should_queue_transaction_for_listeners_matching_its_outputs_or_pay_to_public_key_hash_inputs() {
+        // Setup
+        final NodeRpcHandler.HookListener senderListener = _addHookListener(_createSocket(true), new ImmutableList<>(_senderAddress), NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+        final NodeRpcHandler.HookListener recipientListener = _addHookListener(_createSocket(true), new ImmutableList<>(_recipientAddress), NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+        final NodeRpcHandler.HookListener unrelatedListener = _addHookListener(_createSocket(true), new ImmutableList<>(_unrelatedAddress), NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+        final NodeRpcHandler.HookListener unfilteredListener = _addHookListener(_createSocket(true), null, NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+        final NodeRpcHandler.HookListener blockListener = _addHookListener(_createSocket(true), null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+
+        final Transaction transaction = _createSignedTransaction();
+
+        // Action
+        _nodeRpcHandler.onNewTransaction(new TransactionWithFee(transaction, 1000L));
+
+        // Assert
+        Assert.assertEquals(1, senderListener._queuedMessages.size());
+        Assert.assertEquals(1, recipientListener._queuedMessages.size());
+        Assert.assertEquals(0, unrelatedListener._queuedMessages.size());
+        Assert.assertEquals(1, unfilteredListener._queuedMessages.size());
+        Assert.assertEquals(0, blockListener._queuedMessages.size());
+    }
+
+    @Test
+    public void should_not_match_inputs_that_are_not_pay_to_public_key_hash() {
+        // Setup
+        final NodeRpcHandler.HookListener senderListener = _addHookListener(_createSocket(true), new ImmutableList<>(_senderAddress), NodeRpcHandler.HookEvent.NEW_TRANSACTION);
+
+        final Transaction fundingTransaction = TransactionTestUtil.createCoinbaseTransactionSpendableByPrivateKey(_senderPrivateKey);
+        final MutableTransaction transaction = TransactionTestUtil.createTransaction(); // The input's UnlockingScript is empty, so its address cannot be determined without the spent output.
+        transaction.addTransactionInput(TransactionTestUtil.createTransactionInput(new TransactionOutputIdentifier(fundingTransaction.getHash(), 0)));
+        transaction.addTransactionOutput(TransactionTestUtil.createTransactionOutput(_recipientAddress));
+
+        // Action
+        _nodeRpcHandler.onNewTransaction(new TransactionWithFee(transaction, null));
+
+        // Assert
+        Assert.assertEquals(0, senderListener._queuedMessages.size());
+    }
+
+    @Test
+    public void should_drop_messages_once_listener_queue_is_full() {
+        // Setup
+        final NodeRpcHandler.HookListener hookListener = _createHookListener(_createSocket(true), null);
+        for (int i = 0; i < NodeRpcHandler.MAX_QUEUED_HOOK_MESSAGE_COUNT; ++i) {
+            Assert.assertTrue(hookListener.enqueue(NodeRpcHandlerHookTests.createMessage(i), 1000L));
+        }
+        final Long firstDroppedMessageTimeMsBeforeOverflow = hookListener._firstDroppedMessageTimeMs;
+
+        // Action
+        final Boolean firstOverflowWasQueued = hookListener.enqueue(NodeRpcHandlerHookTests.createMessage(-1), 2000L);
+        final Boolean secondOverflowWasQueued = hookListener.enqueue(NodeRpcHandlerHookTests.createMessage(-2), 3000L);
+
+        // Assert
+        Assert.assertNull(firstDroppedMessageTimeMsBeforeOverflow);
+        Assert.assertFalse(firstOverflowWasQueued);
+        Assert.assertFalse(secondOverflowWasQueued);
+        Assert.assertEquals(NodeRpcHandler.MAX_QUEUED_HOOK_MESSAGE_COUNT.intValue(), hookListener._queuedMessages.size());
+        Assert.assertEquals(Long.valueOf(2000L), hookListener._firstDroppedMessageTimeMs); // The stall is measured from the first dropped message.
+    }
+
+    @Test
+    public void should_write_queued_messages_to_listener_and_reset_dropped_message_time() {
+        // Setup
+        final BackloggedJsonSocket jsonSocket = _createSocket(false);
+        final NodeRpcHandler.HookListener hookListener = _addHookListener(jsonSocket, null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+        for (int i = 0; i < 3; ++i) {
+            hookListener.enqueue(NodeRpcHandlerHookTests.createMessage(i), 1000L);
+        }
+        hookListener._firstDroppedMessageTimeMs = 1000L;
+
+        // Action
+        final Boolean hasBackloggedMessages = _nodeRpcHandler._hookEventDispatcher._run();
+        jsonSocket.flush();
+
+        // Assert
+        Assert.assertFalse(hasBackloggedMessages);
+        Assert.assertTrue(hookListener._queuedMessages.isEmpty());
+        Assert.assertNull(hookListener._firstDroppedMessageTimeMs);
+
+        final String[] writtenMessages = StringUtil.bytesToString(jsonSocket.fakeSocket.outputStream.toByteArray()).trim().split("\n");
+        Assert.assertEquals(3, writtenMessages.length);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(Integer.valueOf(i), Json.parse(writtenMessages[i]).getInteger("object"));
+        }
+    }
+
+    @Test
+    public void should_retain_backlogged_listener_until_stall_exceeds_max_hook_stall_ms() {
+        // Setup
+        final Long nowMs = System.currentTimeMillis();
+        final BackloggedJsonSocket jsonSocket = _createSocket(true);
+        final NodeRpcHandler.HookListener hookListener = _addHookListener(jsonSocket, null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+        hookListener.enqueue(NodeRpcHandlerHookTests.createMessage(0), nowMs);
+        hookListener._firstDroppedMessageTimeMs = nowMs; // Began dropping messages just now.
+
+        // Action
+        final Boolean hasBackloggedMessages = _nodeRpcHandler._hookEventDispatcher._run();
+
+        // Assert
+        Assert.assertTrue(hasBackloggedMessages);
+        Assert.assertTrue(jsonSocket.isConnected());
+        Assert.assertEquals(1, _nodeRpcHandler._hookListenerIndex.hookListeners.getCount());
+        Assert.assertEquals(1, hookListener._queuedMessages.size());
+    }
+
+    @Test
+    public void should_disconnect_listener_stalled_for_longer_than_max_hook_stall_ms() {
+        // Setup
+        final Long stalledSinceMs = (System.currentTimeMillis() - NodeRpcHandler.MAX_HOOK_STALL_MS - 1000L);
+        final BackloggedJsonSocket stalledSocket = _createSocket(true);
+        final NodeRpcHandler.HookListener stalledListener = _addHookListener(stalledSocket, null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+        for (int i = 0; i <= NodeRpcHandler.MAX_QUEUED_HOOK_MESSAGE_COUNT; ++i) {
+            stalledListener.enqueue(NodeRpcHandlerHookTests.createMessage(i), stalledSinceMs);
+        }
+
+        final BackloggedJsonSocket healthySocket = _createSocket(false);
+        final NodeRpcHandler.HookListener healthyListener = _addHookListener(healthySocket, null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+
+        // Action
+        _nodeRpcHandler._hookEventDispatcher._run();
+
+        // Assert
+        Assert.assertFalse(stalledSocket.isConnected());
+        Assert.assertTrue(healthySocket.isConnected());
+        Assert.assertEquals(1, _nodeRpcHandler._hookListenerIndex.hookListeners.getCount());
+        Assert.assertEquals(healthyListener, _nodeRpcHandler._hookListenerIndex.hookListeners.get(0));
+    }
+
+    @Test
+    public void should_remove_listeners_of_disconnected_sockets() {
+        // Setup
+        final BackloggedJsonSocket jsonSocket = _createSocket(false);
+        _addHookListener(jsonSocket, null, NodeRpcHandler.HookEvent.NEW_BLOCK);
+        jsonSocket.close();
+
+        // Action
+        _nodeRpcHandler._hookEventDispatcher._run();
+
+        // Assert
+        Assert.assertTrue(_nodeRpcHandler._hookListenerIndex.hookListeners.isEmpty());
+        Assert.assertTrue(_nodeRpcHandler._hookListenerIndex.eventListeners.get(NodeRpcHandler.HookEvent.NEW_BLOCK).isEmpty());
+    }
+}
@@ -0,0 +1,281 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.CoreInflater;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.test.fake.FakeSocket;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.socket.JsonFrameProtocolMessage;
+import com.softwareverde.network.socket.JsonProtocolMessage;
+import com.softwareverde.network.socket.JsonSocket;
+import com.softwareverde.util.StringUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NodeRpcHandlerPipelineTests extends UnitTest {
+    /**
+     * A JsonSocket whose received messages are provided by the test rather than read from the socket.
+     */
+    protected static class QueuedJsonSocket extends JsonSocket {
+        public final FakeSocket fakeSocket;
+        public final ConcurrentLinkedQueue<JsonProtocolMessage> queuedMessages = new ConcurrentLinkedQueue<>();
+        public volatile Runnable messageReceivedCallback;
+
+        public QueuedJsonSocket(final FakeSocket fakeSocket) {
+            super(fakeSocket);
+            this.fakeSocket = fakeSocket;
+        }
+
+        @Override
+        public void setMessageReceivedCallback(final Runnable callback) {
+            this.messageReceivedCallback = callback;
+        }
+
+        @Override
+        public void beginListening() { }
+
+        @Override
+        public JsonProtocolMessage popMessage() {
+            return this.queuedMessages.poll();
+        }
+
+        public void receive(final Json message) {
+            this.queuedMessages.add(new JsonProtocolMessage(message));
+            this.messageReceivedCallback.run();
+        }
+    }
+
+    protected static Json createRequest(final String method, final String query, final Object requestId) {
+        final Json json = new Json();
+        json.put("method", method);
+        json.put("query", query);
+        if (requestId != null) {
+            json.put("requestId", requestId);
+        }
+        return json;
+    }
+
+    protected static Json createResponse() {
+        final Json json = new Json();
+        json.put("wasSuccess", 1);
+        json.put("errorMessage", null);
+        json.put("block", "00");
+        return json;
+    }
+
+    protected static void waitFor(final AtomicInteger value, final Integer expectedValue) throws Exception {
+        for (int i = 0; i < 500; ++i) {
+            if (value.get() >= expectedValue) { return; }
+            Thread.sleep(10L);
+        }
+    }
+
+    protected NodeRpcHandler _nodeRpcHandler;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _nodeRpcHandler = new NodeRpcHandler();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _nodeRpcHandler.stop();
+
+        super.after();
+    }
+
+    @Test
+    public void should_add_request_id_to_plain_response() {
+        // Setup
+        final ByteArray responseBytes = new JsonProtocolMessage(NodeRpcHandlerPipelineTests.createResponse()).getBytes();
+
+        // Action
+        final ByteArray bytes = _nodeRpcHandler._addRequestId(responseBytes, 7L);
+        final ByteArray unchangedBytes = _nodeRpcHandler._addRequestId(responseBytes, null);
+
+        // Assert
+        final Json json = Json.parse(StringUtil.bytesToString(bytes.getBytes()));
+        Assert.assertEquals(Long.valueOf(7L), json.getLong("requestId"));
+        Assert.assertEquals(Integer.valueOf(1), json.getInteger("wasSuccess"));
+        Assert.assertEquals("00", json.getString("block"));
+        Assert.assertEquals(responseBytes, unchangedBytes);
+    }
+
+    @Test
+    public void should_add_request_id_to_framed_response_header() {
+        // Setup
+        final MutableByteArray payload = new MutableByteArray(3);
+        payload.setByte(0, (byte) 0x01);
+        payload.setByte(1, (byte) 0x02);
+        payload.setByte(2, (byte) 0x03);
+        final ByteArray responseBytes = new JsonFrameProtocolMessage(NodeRpcHandlerPipelineTests.createResponse(), payload).getBytes();
+
+        // Action
+        final ByteArray bytes = _nodeRpcHandler._addRequestId(responseBytes, 9L);
+
+        // Assert
+        Assert.assertEquals(JsonFrameProtocolMessage.FRAME_MARKER, bytes.getByte(0));
+
+        final int headerByteCount = ByteUtil.bytesToInteger(bytes.getBytes(1, 4));
+        final int payloadByteCount = ByteUtil.bytesToInteger(bytes.getBytes(5, 4));
+        Assert.assertEquals(3, payloadByteCount);
+        Assert.assertEquals((JsonFrameProtocolMessage.FRAME_PREFIX_BYTE_COUNT + headerByteCount + payloadByteCount), bytes.getByteCount());
+
+        final Json header = Json.parse(StringUtil.bytesToString(bytes.getBytes(JsonFrameProtocolMessage.FRAME_PREFIX_BYTE_COUNT, headerByteCount)));
+        Assert.assertEquals(Long.valueOf(9L), header.getLong("requestId"));
+        Assert.assertEquals("00", header.getString("block"));
+
+        final ByteArray framedPayload = MutableByteArray.wrap(bytes.getBytes((JsonFrameProtocolMessage.FRAME_PREFIX_BYTE_COUNT + headerByteCount), payloadByteCount));
+        Assert.assertEquals(payload, framedPayload);
+    }
+
+    @Test
+    public void should_add_request_id_to_cached_response_without_modifying_cache() {
+        // Setup
+        final Json parameters = new Json();
+        parameters.put("blockHeight", 1L);
+        final Json request = NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", 11L);
+        request.put("parameters", parameters);
+
+        final String responseCacheKey = _nodeRpcHandler._getResponseCacheKey("GET", "BLOCK", parameters, false);
+        final ByteArray cachedResponse = new JsonProtocolMessage(NodeRpcHandlerPipelineTests.createResponse()).getBytes();
+        _nodeRpcHandler._responseCache.put(responseCacheKey, cachedResponse, 1L, Sha256Hash.EMPTY_HASH, null, 10L);
+
+        final FakeSocket fakeSocket = new FakeSocket();
+        final JsonSocket jsonSocket = new JsonSocket(fakeSocket);
+        final NodeRpcHandler.JsonConnectionProperties jsonConnectionProperties = new NodeRpcHandler.JsonConnectionProperties(1);
+        jsonConnectionProperties.keepAliveIsEnabled = true;
+
+        // Action
+        _nodeRpcHandler._processRequest(jsonSocket, jsonConnectionProperties, request);
+
+        // Assert
+        final Json response = Json.parse(StringUtil.bytesToString(fakeSocket.outputStream.toByteArray()).trim());
+        Assert.assertEquals(Long.valueOf(11L), response.getLong("requestId"));
+        Assert.assertEquals("00", response.getString("block"));
+
+        final Json cachedJson = Json.parse(StringUtil.bytesToString(_nodeRpcHandler._responseCache.get(responseCacheKey).getBytes()));
+        Assert.assertFalse(cachedJson.hasKey("requestId")); // The shared cached response is not modified.
+
+        jsonSocket.close();
+    }
+
+    @Test
+    public void should_only_pipeline_requests_that_do_not_change_the_connection() {
+        // Setup
+        final NodeRpcHandler.JsonConnectionProperties jsonConnectionProperties = new NodeRpcHandler.JsonConnectionProperties(1);
+        jsonConnectionProperties.keepAliveIsEnabled = true;
+
+        final NodeRpcHandler.JsonConnectionProperties closingConnectionProperties = new NodeRpcHandler.JsonConnectionProperties(1);
+
+        // Action / Assert
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("POST", "ADD_HOOK", 1L), jsonConnectionProperties));
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("POST", "UPDATE_HOOK", 1L), jsonConnectionProperties));
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("POST", "KEEP_ALIVE", 1L), jsonConnectionProperties));
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("post", "binary_framing", 1L), jsonConnectionProperties));
+
+        Assert.assertTrue(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("POST", "TRANSACTION", 1L), jsonConnectionProperties));
+        Assert.assertTrue(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", 1L), jsonConnectionProperties));
+
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", null), jsonConnectionProperties)); // Responses without a requestId could not be correlated...
+        Assert.assertFalse(_nodeRpcHandler._canPipelineRequest(NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", 1L), closingConnectionProperties)); // The connection is closed after its response...
+    }
+
+    @Test
+    public void should_process_request_with_non_integer_request_id_in_order() {
+        // Setup
+        final NodeRpcHandler.JsonConnectionProperties jsonConnectionProperties = new NodeRpcHandler.JsonConnectionProperties(1);
+        jsonConnectionProperties.keepAliveIsEnabled = true;
+
+        final Json stringRequestId = NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", "abc");
+        final Json decimalRequestId = NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", 1.5D);
+
+        // Action
+        final Boolean stringRequestIdCanBePipelined = _nodeRpcHandler._canPipelineRequest(stringRequestId, jsonConnectionProperties);
+        final Boolean decimalRequestIdCanBePipelined = _nodeRpcHandler._canPipelineRequest(decimalRequestId, jsonConnectionProperties);
+
+        // Assert
+        Assert.assertFalse(stringRequestIdCanBePipelined);
+        Assert.assertFalse(decimalRequestIdCanBePipelined);
+        Assert.assertNull(_nodeRpcHandler._getRequestId(stringRequestId));
+        Assert.assertNull(_nodeRpcHandler._getRequestId(decimalRequestId));
+        Assert.assertEquals(Long.valueOf(-3L), _nodeRpcHandler._getRequestId(NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK", -3L)));
+    }
+
+    @Test
+    public void should_stop_reading_requests_once_connection_has_max_pipelined_requests_in_flight() throws Exception {
+        // Setup
+        final CountDownLatch releaseRequests = new CountDownLatch(1);
+        final AtomicInteger startedRequestCount = new AtomicInteger(0);
+        final AtomicInteger completedRequestCount = new AtomicInteger(0);
+        final AtomicInteger receivedRequestCount = new AtomicInteger(0);
+
+        _nodeRpcHandler.stop();
+        _nodeRpcHandler = new NodeRpcHandler(new CoreInflater(), 4, 2) {
+            @Override
+            protected void _processRequest(final JsonSocket socketConnection, final JsonConnectionProperties jsonConnectionProperties, final Json message) {
+                if (_getRequestId(message) == null) {
+                    super._processRequest(socketConnection, jsonConnectionProperties, message);
+                    return;
+                }
+
+                startedRequestCount.incrementAndGet();
+                try {
+                    releaseRequests.await(5L, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException exception) { }
+                completedRequestCount.incrementAndGet();
+            }
+        };
+
+        final QueuedJsonSocket jsonSocket = new QueuedJsonSocket(new FakeSocket());
+        _nodeRpcHandler.run(jsonSocket);
+
+        final Json keepAliveParameters = new Json();
+        keepAliveParameters.put("enableKeepAlive", 1);
+        final Json keepAliveRequest = NodeRpcHandlerPipelineTests.createRequest("POST", "KEEP_ALIVE", null);
+        keepAliveRequest.put("parameters", keepAliveParameters);
+        jsonSocket.receive(keepAliveRequest);
+
+        final Thread readThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 4; ++i) {
+                    jsonSocket.receive(NodeRpcHandlerPipelineTests.createRequest("GET", "BLOCK_HEIGHT", (long) i));
+                    receivedRequestCount.incrementAndGet();
+                }
+            }
+        });
+
+        // Action
+        readThread.start();
+        NodeRpcHandlerPipelineTests.waitFor(startedRequestCount, 2);
+        Thread.sleep(250L);
+        final Integer inFlightRequestCount = startedRequestCount.get();
+        final Integer requestCountReadWhileFull = receivedRequestCount.get();
+
+        releaseRequests.countDown();
+        readThread.join(5000L);
+        NodeRpcHandlerPipelineTests.waitFor(completedRequestCount, 4);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), inFlightRequestCount);
+        Assert.assertEquals(Integer.valueOf(2), requestCountReadWhileFull); // The third request blocks the connection's reads until a permit is released...
+        Assert.assertEquals(4, receivedRequestCount.get());
+        Assert.assertEquals(4, completedRequestCount.get());
+
+        jsonSocket.close();
+    }
+}
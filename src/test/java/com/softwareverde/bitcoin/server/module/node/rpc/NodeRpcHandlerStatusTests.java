@@ -0,0 +1,145 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.server.State;
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.json.Json;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NodeRpcHandlerStatusTests extends UnitTest {
+    protected final AtomicInteger _createdStatusSnapshotCount = new AtomicInteger(0);
+    protected NodeRpcHandler _nodeRpcHandler;
+
+    protected NodeRpcHandler.StatusSnapshot _createStatusSnapshot(final Long createdTimeMs, final Long blockHeight) {
+        final NodeRpcHandler.StatusSnapshot statusSnapshot = new NodeRpcHandler.StatusSnapshot();
+        statusSnapshot.createdTimeMs = createdTimeMs;
+        statusSnapshot.status = State.ONLINE;
+        statusSnapshot.headBlock = new NodeRpcHandler.HeadGauge(blockHeight, 1600000000L);
+        statusSnapshot.headBlockHeader = new NodeRpcHandler.HeadGauge(blockHeight, 1600000000L);
+        statusSnapshot.blocksPerSecond = 2.5F;
+        statusSnapshot.indexingPercentComplete = 0.5F;
+        statusSnapshot.activeBlockDownloads = new Json(true);
+        statusSnapshot.activeTransactionDownloads = new Json(true);
+        statusSnapshot.activeUtxoCommitmentDownloads = new Json(true);
+        statusSnapshot.utxoCacheStatus = new Json();
+        statusSnapshot.serviceStatuses = new Json();
+        return statusSnapshot;
+    }
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _createdStatusSnapshotCount.set(0);
+        _nodeRpcHandler = new NodeRpcHandler() {
+            @Override
+            protected StatusSnapshot _createStatusSnapshot() {
+                _createdStatusSnapshotCount.incrementAndGet();
+                return NodeRpcHandlerStatusTests.this._createStatusSnapshot(System.currentTimeMillis(), 100L);
+            }
+        };
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        _nodeRpcHandler.stop();
+
+        super.after();
+    }
+
+    @Test
+    public void should_serve_status_from_snapshot_and_pushed_head_gauges() {
+        // Setup
+        _nodeRpcHandler._statusSnapshot = _createStatusSnapshot(System.currentTimeMillis(), 50L);
+        _nodeRpcHandler.onHeadBlockChanged(200L, 1700000000L);
+        _nodeRpcHandler.onHeadBlockHeaderChanged(210L, 1700000600L);
+
+        final Json response = new Json();
+
+        // Action
+        _nodeRpcHandler._queryStatus(new Json(), response);
+
+        // Assert
+        Assert.assertEquals(0, _createdStatusSnapshotCount.get());
+        Assert.assertTrue(response.getBoolean("wasSuccess"));
+        Assert.assertEquals(State.ONLINE.toString(), response.getString("status"));
+
+        final Json statisticsJson = response.get("statistics");
+        Assert.assertEquals(Long.valueOf(200L), statisticsJson.getLong("blockHeight")); // The pushed gauges take precedence over the snapshot's heads...
+        Assert.assertEquals(Long.valueOf(1700000000L), statisticsJson.getLong("blockTimestamp"));
+        Assert.assertEquals(Long.valueOf(210L), statisticsJson.getLong("blockHeaderHeight"));
+        Assert.assertEquals(Long.valueOf(1700000600L), statisticsJson.getLong("blockHeaderTimestamp"));
+        Assert.assertEquals("2.5", statisticsJson.getString("blocksPerSecond"));
+        Assert.assertEquals("0.5", statisticsJson.getString("indexingPercentComplete"));
+    }
+
+    @Test
+    public void should_use_snapshot_heads_until_gauges_are_pushed() {
+        // Setup
+        _nodeRpcHandler._statusSnapshot = _createStatusSnapshot(System.currentTimeMillis(), 50L);
+        final Json response = new Json();
+
+        // Action
+        _nodeRpcHandler._queryStatus(new Json(), response);
+
+        // Assert
+        Assert.assertEquals(0, _createdStatusSnapshotCount.get());
+
+        final Json statisticsJson = response.get("statistics");
+        Assert.assertEquals(Long.valueOf(50L), statisticsJson.getLong("blockHeight"));
+        Assert.assertEquals(Long.valueOf(50L), statisticsJson.getLong("blockHeaderHeight"));
+    }
+
+    @Test
+    public void should_create_snapshot_synchronously_when_missing_or_expired() {
+        // Setup
+        final Json firstResponse = new Json();
+        final Json secondResponse = new Json();
+
+        // Action
+        _nodeRpcHandler._queryStatus(new Json(), firstResponse);
+        final Integer firstCreatedStatusSnapshotCount = _createdStatusSnapshotCount.get();
+
+        _nodeRpcHandler._statusSnapshot = _createStatusSnapshot((System.currentTimeMillis() - NodeRpcHandler.MAX_STALE_STATUS_SNAPSHOT_AGE_MS - 1000L), 50L);
+        _nodeRpcHandler._queryStatus(new Json(), secondResponse);
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), firstCreatedStatusSnapshotCount);
+        Assert.assertEquals(Long.valueOf(100L), firstResponse.get("statistics").getLong("blockHeight"));
+
+        Assert.assertEquals(2, _createdStatusSnapshotCount.get());
+        Assert.assertEquals(Long.valueOf(100L), secondResponse.get("statistics").getLong("blockHeight"));
+    }
+
+    @Test
+    public void should_not_refresh_snapshot_younger_than_max_status_snapshot_age() {
+        // Setup
+        final NodeRpcHandler.StatusSnapshot statusSnapshot = _createStatusSnapshot(System.currentTimeMillis(), 50L);
+        _nodeRpcHandler._statusSnapshot = statusSnapshot;
+
+        // Action
+        _nodeRpcHandler._statusMonitor._run();
+
+        // Assert
+        Assert.assertEquals(0, _createdStatusSnapshotCount.get());
+        Assert.assertEquals(statusSnapshot, _nodeRpcHandler._statusSnapshot);
+    }
+
+    @Test
+    public void should_refresh_snapshot_older_than_max_status_snapshot_age() {
+        // Setup
+        _nodeRpcHandler._statusSnapshot = _createStatusSnapshot((System.currentTimeMillis() - NodeRpcHandler.MAX_STATUS_SNAPSHOT_AGE_MS - 1000L), 50L);
+
+        // Action
+        final Boolean shouldContinue = _nodeRpcHandler._statusMonitor._run();
+
+        // Assert
+        Assert.assertFalse(shouldContinue); // The monitor refreshes once per wake...
+        Assert.assertEquals(1, _createdStatusSnapshotCount.get());
+        Assert.assertEquals(Long.valueOf(100L), _nodeRpcHandler._statusSnapshot.headBlock.blockHeight);
+    }
+}
@@ -0,0 +1,136 @@
+package com.softwareverde.bitcoin.server.module.node.rpc;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.bitcoin.util.ByteUtil;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.test.time.FakeSystemTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+public class NodeRpcResponseCacheTests extends UnitTest {
+    protected static Sha256Hash generateHash(final Long index) {
+        return Sha256Hash.copyOf(HashUtil.doubleSha256(ByteUtil.longToBytes(index)));
+    }
+
+    protected static ByteArray createResponse(final Integer byteCount) {
+        return new MutableByteArray(byteCount);
+    }
+
+    protected FakeSystemTime _systemTime;
+    protected NodeRpcResponseCache _responseCache;
+
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+
+        _systemTime = new FakeSystemTime();
+        _responseCache = new NodeRpcResponseCache(_systemTime, 1000L);
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_evict_least_recently_used_responses_once_byte_count_is_exceeded() {
+        // Setup
+        _responseCache.put("A", NodeRpcResponseCacheTests.createResponse(250), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+        _responseCache.put("B", NodeRpcResponseCacheTests.createResponse(250), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+        _responseCache.put("C", NodeRpcResponseCacheTests.createResponse(250), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+        _responseCache.put("D", NodeRpcResponseCacheTests.createResponse(250), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+        Assert.assertNotNull(_responseCache.get("A")); // A becomes the most recently used response...
+
+        // Action
+        _responseCache.put("E", NodeRpcResponseCacheTests.createResponse(200), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+
+        // Assert
+        Assert.assertNotNull(_responseCache.get("A"));
+        Assert.assertNull(_responseCache.get("B"));
+        Assert.assertNotNull(_responseCache.get("C"));
+        Assert.assertNotNull(_responseCache.get("D"));
+        Assert.assertNotNull(_responseCache.get("E"));
+        Assert.assertEquals(Long.valueOf(950L), _responseCache.toJson().getLong("byteCount"));
+    }
+
+    @Test
+    public void should_account_for_replaced_response_bytes() {
+        // Setup
+        _responseCache.put("A", NodeRpcResponseCacheTests.createResponse(250), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+
+        // Action
+        _responseCache.put("A", NodeRpcResponseCacheTests.createResponse(100), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+
+        // Assert
+        Assert.assertEquals(100, _responseCache.get("A").getByteCount());
+        Assert.assertEquals(Long.valueOf(100L), _responseCache.toJson().getLong("byteCount"));
+        Assert.assertEquals(Integer.valueOf(1), _responseCache.toJson().getInteger("itemCount"));
+    }
+
+    @Test
+    public void should_not_cache_response_larger_than_a_quarter_of_the_cache() {
+        // Setup
+        final ByteArray response = NodeRpcResponseCacheTests.createResponse(251);
+
+        // Action
+        _responseCache.put("A", response, 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+
+        // Assert
+        Assert.assertNull(_responseCache.get("A"));
+        Assert.assertEquals(Long.valueOf(0L), _responseCache.toJson().getLong("byteCount"));
+    }
+
+    @Test
+    public void should_expire_response_after_max_age() {
+        // Setup
+        _responseCache.put("A", NodeRpcResponseCacheTests.createResponse(100), 1L, NodeRpcResponseCacheTests.generateHash(1L), 5000L, 10L);
+        _responseCache.put("B", NodeRpcResponseCacheTests.createResponse(100), 1L, NodeRpcResponseCacheTests.generateHash(1L), null, 10L);
+
+        // Action
+        _systemTime.advanceTimeInMilliseconds(5000L);
+        final ByteArray unexpiredResponse = _responseCache.get("A");
+        _systemTime.advanceTimeInMilliseconds(1L);
+        final ByteArray expiredResponse = _responseCache.get("A");
+
+        // Assert
+        Assert.assertNotNull(unexpiredResponse);
+        Assert.assertNull(expiredResponse);
+        Assert.assertNotNull(_responseCache.get("B")); // Responses without a maximum age do not expire.
+        Assert.assertEquals(Long.valueOf(100L), _responseCache.toJson().getLong("byteCount"));
+    }
+
+    @Test
+    public void should_remove_responses_for_blocks_no_longer_in_main_chain_after_rollback() {
+        // Setup
+        final HashMap<Long, Sha256Hash> mainChainBlockHashes = new HashMap<>();
+        for (long blockHeight = 1L; blockHeight <= 3L; ++blockHeight) {
+            final Sha256Hash blockHash = NodeRpcResponseCacheTests.generateHash(blockHeight);
+            mainChainBlockHashes.put(blockHeight, blockHash);
+            _responseCache.put(("BLOCK:" + blockHeight), NodeRpcResponseCacheTests.createResponse(100), blockHeight, blockHash, null, 10L);
+        }
+
+        mainChainBlockHashes.put(2L, NodeRpcResponseCacheTests.generateHash(102L)); // Block 2 is replaced by a reorg, and block 3 is no longer within the main chain...
+        mainChainBlockHashes.remove(3L);
+
+        // Action
+        _responseCache.rollback(new NodeRpcResponseCache.BlockHashLookup() {
+            @Override
+            public Sha256Hash getBlockHash(final Long blockHeight) {
+                return mainChainBlockHashes.get(blockHeight);
+            }
+        });
+
+        // Assert
+        Assert.assertNotNull(_responseCache.get("BLOCK:1"));
+        Assert.assertNull(_responseCache.get("BLOCK:2"));
+        Assert.assertNull(_responseCache.get("BLOCK:3"));
+        Assert.assertEquals(Long.valueOf(100L), _responseCache.toJson().getLong("byteCount"));
+    }
+}
@@ -7,7 +7,11 @@ import com.softwareverde.bitcoin.block.MutableBlock;
 import com.softwareverde.bitcoin.block.header.MutableBlockHeader;
 import com.softwareverde.bitcoin.inflater.BlockInflaters;
 import com.softwareverde.bitcoin.server.module.node.store.PendingBlockStore;
+import com.softwareverde.bitcoin.transaction.Transaction;
 import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.List;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
 import com.softwareverde.constable.map.mutable.MutableHashMap;
 import com.softwareverde.constable.map.mutable.MutableMap;
 import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
@@ -74,6 +78,28 @@ public class MockBlockStore implements PendingBlockStore {
         return new MutableBlock(block);
     }
 
+    @Override
+    public ByteArray getBlockBytes(final Sha256Hash blockHash, final Long blockHeight) {
+        final Block block = _blocks.get(blockHash);
+        if (block == null) { return null; }
+
+        final BlockDeflater blockDeflater = _blockInflaters.getBlockDeflater();
+        return blockDeflater.toBytes(block);
+    }
+
+    @Override
+    public List<Sha256Hash> getBlockTransactionHashes(final Sha256Hash blockHash, final Long blockHeight) {
+        final Block block = _blocks.get(blockHash);
+        if (block == null) { return null; }
+
+        final List<Transaction> transactions = block.getTransactions();
+        final MutableList<Sha256Hash> transactionHashes = new MutableArrayList<>(transactions.getCount());
+        for (final Transaction transaction : transactions) {
+            transactionHashes.add(transaction.getHash());
+        }
+        return transactionHashes;
+    }
+
     @Override
     public Boolean blockExists(final Sha256Hash blockHash, final Long blockHeight) {
         return _blocks.containsKey(blockHash);
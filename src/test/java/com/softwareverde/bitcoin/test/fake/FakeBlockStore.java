@@ -20,6 +20,9 @@ public interface FakeBlockStore extends PendingBlockStore {
     @Override
     default MutableBlock getBlock(Sha256Hash blockHash, Long blockHeight) { throw new UnsupportedOperationException(); }
 
+    @Override
+    default ByteArray getBlockBytes(Sha256Hash blockHash, Long blockHeight) { throw new UnsupportedOperationException(); }
+
     @Override
     default ByteArray readFromBlock(Sha256Hash blockHash, Long blockHeight, Long diskOffset, Integer byteCount) { throw new UnsupportedOperationException(); }
 
@@ -59,8 +59,8 @@ public class BitcoinNodeTests extends UnitTest {
             super(binarySocket, localNodeFeatures);
         }
 
-        public Boolean isMonitorThreadRunning() {
-            return ( (_requestMonitorThread != null) && _requestMonitorThread.isAlive() );
+        public Boolean hasPendingRequests() {
+            return ( (! _failableRequests.isEmpty()) || (_pendingRequests.getCount() > 0) );
         }
 
         public Boolean wasDisconnectCalled() {
@@ -178,17 +178,17 @@ public class BitcoinNodeTests extends UnitTest {
         Assert.assertFalse(blockDownloaded.get());
         // Assert.assertTrue(timeoutTimer.getMillisecondsElapsed() > REQUEST_TIMEOUT_MS); // Assert disabled due to BitcoinNode early-timeout detection due to no network progress.
         Assert.assertTrue(timeoutTimer.getMillisecondsElapsed() < (REQUEST_TIMEOUT_MS * 2L));
-        Assert.assertFalse(bitcoinNode.isMonitorThreadRunning());
+        Assert.assertFalse(bitcoinNode.hasPendingRequests());
         Assert.assertTrue(bitcoinNode.wasDisconnectCalled());
 
         Thread.sleep(1000L);
 
         for (final ExposedBitcoinNode receivedConnectionBitcoinNode : receivedNodeConnections) {
-            if (receivedConnectionBitcoinNode.isMonitorThreadRunning()) {
+            if (receivedConnectionBitcoinNode.hasPendingRequests()) {
                 Thread.sleep(10000L); // Allocate an excessive amount of time to ensure the OS noticed the disconnection.
             }
 
-            Assert.assertFalse(receivedConnectionBitcoinNode.isMonitorThreadRunning());
+            Assert.assertFalse(receivedConnectionBitcoinNode.hasPendingRequests());
             Assert.assertTrue(receivedConnectionBitcoinNode.wasDisconnectCalled());
         }
     }
@@ -235,7 +235,7 @@ public class BitcoinNodeTests extends UnitTest {
 
         // Assert
         Assert.assertFalse(handshakeCompleted.get());
-        Assert.assertFalse(bitcoinNode.isMonitorThreadRunning());
+        Assert.assertFalse(bitcoinNode.hasPendingRequests());
 
         bitcoinNode.disconnect(); // Not necessary, but used in case an actual connection occurred.
     }
@@ -446,17 +446,17 @@ public class BitcoinNodeTests extends UnitTest {
         Assert.assertTrue(blockDownloadFailed.get());
         Assert.assertFalse(blockDownloaded.get());
         Assert.assertTrue(timeoutTimer.getMillisecondsElapsed() <= (DISCONNECT_AFTER_MS + 500L));
-        Assert.assertFalse(bitcoinNode.isMonitorThreadRunning());
+        Assert.assertFalse(bitcoinNode.hasPendingRequests());
         Assert.assertTrue(bitcoinNode.wasDisconnectCalled());
 
         Thread.sleep(1000L);
 
         for (final ExposedBitcoinNode receivedConnectionBitcoinNode : receivedNodeConnections) {
-            if (receivedConnectionBitcoinNode.isMonitorThreadRunning()) {
+            if (receivedConnectionBitcoinNode.hasPendingRequests()) {
                 Thread.sleep(10000L); // Allocate an excessive amount of time to ensure the OS noticed the disconnection.
             }
 
-            Assert.assertFalse(receivedConnectionBitcoinNode.isMonitorThreadRunning());
+            Assert.assertFalse(receivedConnectionBitcoinNode.hasPendingRequests());
             Assert.assertTrue(receivedConnectionBitcoinNode.wasDisconnectCalled());
         }
     }
@@ -594,11 +594,11 @@ public class BitcoinNodeTests extends UnitTest {
         Thread.sleep(1000L);
 
         for (final ExposedBitcoinNode receivedConnectionBitcoinNode : receivedNodeConnections) {
-            if (receivedConnectionBitcoinNode.isMonitorThreadRunning()) {
+            if (receivedConnectionBitcoinNode.hasPendingRequests()) {
                 Thread.sleep(10000L); // Allocate an excessive amount of time to ensure the OS noticed the disconnection.
             }
 
-            Assert.assertFalse(receivedConnectionBitcoinNode.isMonitorThreadRunning());
+            Assert.assertFalse(receivedConnectionBitcoinNode.hasPendingRequests());
             Assert.assertTrue(receivedConnectionBitcoinNode.wasDisconnectCalled());
         }
     }
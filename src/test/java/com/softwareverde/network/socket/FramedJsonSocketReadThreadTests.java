@@ -0,0 +1,81 @@
+package com.softwareverde.network.socket;
+
+import com.softwareverde.bitcoin.test.UnitTest;
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.constable.list.mutable.MutableArrayList;
+import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.json.Json;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
+import com.softwareverde.util.HexUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class FramedJsonSocketReadThreadTests extends UnitTest {
+    @Before @Override
+    public void before() throws Exception {
+        super.before();
+    }
+
+    @After @Override
+    public void after() throws Exception {
+        super.after();
+    }
+
+    @Test
+    public void should_read_frames_interleaved_with_json_lines() throws Exception {
+        // Setup
+        final Json firstJson = new Json();
+        firstJson.put("wasSuccess", 1);
+        firstJson.put("errorMessage", null);
+
+        final Json frameHeader = new Json();
+        frameHeader.put("wasSuccess", 1);
+        frameHeader.put("payloadKey", "block");
+        final ByteArray payload = ByteArray.wrap(HexUtil.hexStringToByteArray("0A0B0C0D0E0F"));
+
+        final Json lastJson = new Json();
+        lastJson.put("wasSuccess", 0);
+        lastJson.put("errorMessage", "Block not found.");
+
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        byteArrayOutputStream.write(new JsonProtocolMessage(firstJson).getBytes().getBytes());
+        byteArrayOutputStream.write(new JsonFrameProtocolMessage(frameHeader, payload).getBytes().getBytes());
+        byteArrayOutputStream.write(new JsonProtocolMessage(lastJson).getBytes().getBytes());
+
+        final MutableList<JsonProtocolMessage> messages = new MutableArrayList<>();
+        final FramedJsonSocketReadThread readThread = new FramedJsonSocketReadThread();
+        readThread.setInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        readThread.setCallback(new Socket.ReadThread.Callback() {
+            @Override
+            public void onNewMessage(final ProtocolMessage protocolMessage) {
+                messages.add((JsonProtocolMessage) protocolMessage);
+            }
+
+            @Override
+            public void onExit() { }
+        });
+
+        // Action
+        readThread.start();
+        readThread.join(5000L);
+
+        // Assert
+        Assert.assertEquals(3, messages.getCount());
+
+        Assert.assertFalse(messages.get(0) instanceof JsonFrameProtocolMessage);
+        Assert.assertTrue(messages.get(0).getMessage().getBoolean("wasSuccess"));
+
+        final JsonProtocolMessage frame = messages.get(1);
+        Assert.assertTrue(frame instanceof JsonFrameProtocolMessage);
+        Assert.assertEquals("block", frame.getMessage().getString("payloadKey"));
+        Assert.assertEquals(payload, ((JsonFrameProtocolMessage) frame).getPayload());
+
+        Assert.assertFalse(messages.get(2) instanceof JsonFrameProtocolMessage);
+        Assert.assertEquals("Block not found.", messages.get(2).getMessage().getString("errorMessage"));
+    }
+}
@@ -2,15 +2,22 @@ package com.softwareverde.network.socket;
 
 import com.softwareverde.bitcoin.server.message.BitcoinProtocolMessage;
 import com.softwareverde.bitcoin.server.message.type.MessageType;
+import com.softwareverde.bitcoin.server.message.type.query.response.InventoryMessage;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItem;
+import com.softwareverde.bitcoin.server.message.type.query.response.hash.InventoryItemType;
 import com.softwareverde.bitcoin.test.util.TestUtil;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.constable.list.mutable.MutableArrayList;
 import com.softwareverde.constable.list.mutable.MutableList;
+import com.softwareverde.cryptography.hash.sha256.Sha256Hash;
+import com.softwareverde.network.p2p.message.ProtocolMessage;
 import com.softwareverde.util.HexUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+
 public class PacketBufferTests {
     private byte[] _hexStringToByteArray(final String hexString, final Integer extraByteCount) {
         final byte[] bytes = HexUtil.hexStringToByteArray(hexString.replaceAll(" ", ""));
@@ -248,4 +255,76 @@ public class PacketBufferTests {
         Assert.assertNull(protocolMessages.get(0));
         Assert.assertEquals(MessageType.INVENTORY, protocolMessages.get(1).getCommand());
     }
+
+    @Test
+    public void should_read_large_message_directly_into_message_buffer() throws Exception {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+
+        final int inventoryItemCount = 10000;
+        final InventoryMessage inventoryMessage = new InventoryMessage();
+        for (int i = 0; i < inventoryItemCount; ++i) {
+            inventoryMessage.addInventoryItem(new InventoryItem(InventoryItemType.TRANSACTION, Sha256Hash.fromHexString(String.format("%064X", i))));
+        }
+        final byte[] inventoryMessageBytes = inventoryMessage.getBytes().getBytes();
+        Assert.assertTrue(inventoryMessageBytes.length >= PacketBuffer.DIRECT_READ_MIN_BYTE_COUNT);
+
+        final int initialByteCount = 1024;
+        packetBuffer.appendBytes(inventoryMessageBytes, initialByteCount);
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(inventoryMessageBytes, initialByteCount, (inventoryMessageBytes.length - initialByteCount));
+
+        // Action
+        final Boolean isPartialMessage = packetBuffer.beginPartialMessage();
+        while (! packetBuffer.hasMessage()) {
+            final Integer bytesRead = packetBuffer.readPartialMessage(inputStream);
+            Assert.assertTrue(bytesRead >= 0);
+        }
+        final ProtocolMessage protocolMessage = packetBuffer.popMessage();
+
+        // Assert
+        Assert.assertTrue(isPartialMessage);
+        Assert.assertFalse(packetBuffer.hasPartialMessage());
+        Assert.assertEquals(0, packetBuffer.getByteCount());
+        Assert.assertEquals(MessageType.INVENTORY, ((BitcoinProtocolMessage) protocolMessage).getCommand());
+        Assert.assertEquals(inventoryItemCount, ((InventoryMessage) protocolMessage).getInventoryItems().getCount());
+    }
+
+    @Test
+    public void should_grow_partial_message_buffer_as_bytes_arrive() throws Exception {
+        // Setup
+        final PacketBuffer packetBuffer = new PacketBuffer(BitcoinProtocolMessage.BINARY_PACKET_FORMAT);
+
+        final int inventoryItemCount = 40000;
+        final InventoryMessage inventoryMessage = new InventoryMessage();
+        for (int i = 0; i < inventoryItemCount; ++i) {
+            inventoryMessage.addInventoryItem(new InventoryItem(InventoryItemType.TRANSACTION, Sha256Hash.fromHexString(String.format("%064X", i))));
+        }
+        final byte[] inventoryMessageBytes = inventoryMessage.getBytes().getBytes();
+        Assert.assertTrue(inventoryMessageBytes.length > (4 * PacketBuffer.DIRECT_READ_MIN_BYTE_COUNT));
+
+        final int initialByteCount = 1024;
+        packetBuffer.appendBytes(inventoryMessageBytes, initialByteCount);
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(inventoryMessageBytes, initialByteCount, (inventoryMessageBytes.length - initialByteCount));
+
+        // Action
+        final Boolean isPartialMessage = packetBuffer.beginPartialMessage();
+        final int initialPartialMessageByteCount = packetBuffer._partialMessage.length;
+
+        int maxPartialMessageByteCount = initialPartialMessageByteCount;
+        while (! packetBuffer.hasMessage()) {
+            final Integer bytesRead = packetBuffer.readPartialMessage(inputStream);
+            Assert.assertTrue(bytesRead >= 0);
+            Assert.assertTrue(packetBuffer._partialMessage.length <= Math.max((2 * packetBuffer._partialMessageByteCount), PacketBuffer.DIRECT_READ_MIN_BYTE_COUNT)); // The buffer is never more than twice the bytes received...
+            maxPartialMessageByteCount = Math.max(maxPartialMessageByteCount, packetBuffer._partialMessage.length);
+        }
+        final ProtocolMessage protocolMessage = packetBuffer.popMessage();
+
+        // Assert
+        Assert.assertTrue(isPartialMessage);
+        Assert.assertEquals(PacketBuffer.DIRECT_READ_MIN_BYTE_COUNT.intValue(), initialPartialMessageByteCount); // The declared size is not allocated up front.
+        Assert.assertEquals(inventoryMessageBytes.length, maxPartialMessageByteCount);
+        Assert.assertFalse(packetBuffer.hasPartialMessage());
+        Assert.assertEquals(MessageType.INVENTORY, ((BitcoinProtocolMessage) protocolMessage).getCommand());
+        Assert.assertEquals(inventoryItemCount, ((InventoryMessage) protocolMessage).getInventoryItems().getCount());
+    }
 }